@@ -0,0 +1,51 @@
+package benchmarks;
+
+import main.Controller;
+import org.openjdk.jmh.annotations.*;
+import renderer.ExecutionMode;
+import renderer.Renderer;
+import utilities.Image;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * The AllocationBenchmark renders serial frames of the Controller scene and
+ * counts every pixel as an operation, so that running it with -prof gc
+ * reports gc.alloc.rate.norm as the bytes allocated per pixel. The bytes per
+ * ray of the allocating and the reusing Camera.createRay are reported the
+ * same way by the CameraBenchmark.
+ * @see benchmarks.CameraBenchmark
+ * @see utilities.MutableVector3D
+ * @see renderer.Renderer
+ *
+ * @author Timothy
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(AllocationBenchmark.SIZE * AllocationBenchmark.SIZE)
+public class AllocationBenchmark {
+    static final int SIZE = 256;
+
+    private Renderer renderer;
+    private Image image;
+
+
+    @Setup
+    public void setUp() {
+        Controller controller = BenchmarkScenes.createController(SIZE, SIZE, ExecutionMode.SERIAL);
+        renderer = controller.getRenderer();
+        image = controller.getImage();
+    }
+
+
+    @Benchmark
+    public Image renderFrame() {
+        renderer.renderImage(image);
+        return image;
+    }
+}
@@ -0,0 +1,108 @@
+package benchmarks;
+
+import geometries.Sphere;
+import geometries.SphereSet;
+import main.Controller;
+import renderer.ExecutionMode;
+import renderer.Scene;
+import utilities.Color;
+import utilities.Options;
+import utilities.Vector3D;
+
+import java.util.Random;
+
+
+/**
+ * The BenchmarkScenes class creates the scenes that the benchmarks render.
+ * They start from the scene of the Controller class so that the numbers match
+ * what the application itself renders.
+ * @see main.Controller
+ *
+ * @author Timothy
+ */
+public final class BenchmarkScenes {
+
+    private BenchmarkScenes() {
+    }
+
+
+    /**
+     * The createController method initializes a Controller with the
+     * specified resolution and execution mode, with the camera that the
+     * Controller sets up.
+     * @param width An int value representing the width of the image.
+     * @param height An int value representing the height of the image.
+     * @param mode An ExecutionMode value that specifies how tiles are
+     *             rendered.
+     * @return A Controller object whose renderer is ready to render.
+     * @see main.Controller
+     */
+    public static Controller createController(int width, int height, ExecutionMode mode) {
+        Options options = new Options(width, height);
+        options.setExecutionMode(mode);
+        return createController(options);
+    }
+
+
+    /**
+     * The createController method initializes a Controller with the
+     * specified options, with the camera that the Controller sets up.
+     * @param options An Options object with the resolution and the render
+     *                settings.
+     * @return A Controller object whose renderer is ready to render.
+     * @see main.Controller
+     */
+    public static Controller createController(Options options) {
+        Controller controller = new Controller(options);
+        controller.initializeRenderer();
+        return controller;
+    }
+
+
+    /**
+     * The addRandomSpheres method adds spheres with a random position, size,
+     * color and reflection within the view of the camera to the scene.
+     * @param scene A Scene object to add the spheres to.
+     * @param count An int value representing the amount of spheres to add.
+     * @param seed A long value used as seed so every run gets the same
+     *             spheres.
+     */
+    public static void addRandomSpheres(Scene scene, int count, long seed) {
+        Random random = new Random(seed);
+        for (int i = 0; i < count; i++) {
+            Vector3D position = new Vector3D(
+                    (random.nextDouble() * 2 - 1) * 150,
+                    (random.nextDouble() * 2 - 1) * 150,
+                    (random.nextDouble() * 2 - 1) * 100);
+            Color color = new Color(random.nextFloat(), random.nextFloat(), random.nextFloat());
+            float reflection = random.nextFloat() < 0.3F ? random.nextFloat() : 0F;
+            scene.add(new Sphere(position, 0.5 + random.nextDouble() * 2.5, color, reflection));
+        }
+    }
+
+
+    /**
+     * The addRandomSphereSet method adds the same spheres as the
+     * addRandomSpheres method with the same seed, but stored in a single
+     * SphereSet object.
+     * @param scene A Scene object to add the SphereSet to.
+     * @param count An int value representing the amount of spheres to add.
+     * @param seed A long value used as seed so every run gets the same
+     *             spheres.
+     * @see geometries.SphereSet
+     */
+    public static void addRandomSphereSet(Scene scene, int count, long seed) {
+        Random random = new Random(seed);
+        SphereSet spheres = new SphereSet();
+        for (int i = 0; i < count; i++) {
+            Vector3D position = new Vector3D(
+                    (random.nextDouble() * 2 - 1) * 150,
+                    (random.nextDouble() * 2 - 1) * 150,
+                    (random.nextDouble() * 2 - 1) * 100);
+            Color color = new Color(random.nextFloat(), random.nextFloat(), random.nextFloat());
+            float reflection = random.nextFloat() < 0.3F ? random.nextFloat() : 0F;
+            spheres.add(position, 0.5 + random.nextDouble() * 2.5, spheres.addMaterial(color, reflection));
+        }
+        scene.add(spheres);
+    }
+}
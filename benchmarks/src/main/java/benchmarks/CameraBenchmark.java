@@ -0,0 +1,59 @@
+package benchmarks;
+
+import main.Controller;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import renderer.Camera;
+import renderer.ExecutionMode;
+import utilities.Ray;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * The CameraBenchmark measures how fast the Camera creates primary rays, both
+ * as new Ray objects and by reusing one Ray object like the Renderer does.
+ * @see renderer.Camera
+ *
+ * @author Timothy
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(CameraBenchmark.SIZE * CameraBenchmark.SIZE)
+public class CameraBenchmark {
+    static final int SIZE = 64;
+
+    private Camera camera;
+    private final Ray ray = new Ray();
+
+
+    @Setup
+    public void setUp() {
+        Controller controller = BenchmarkScenes.createController(SIZE, SIZE, ExecutionMode.SERIAL);
+        camera = controller.getCamera();
+    }
+
+
+    @Benchmark
+    public void createRay(Blackhole blackhole) {
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                blackhole.consume(camera.createRay(2 * (x + 0.5) / SIZE - 1, 1 - 2 * (y + 0.5) / SIZE));
+            }
+        }
+    }
+
+
+    @Benchmark
+    public void createRayReused(Blackhole blackhole) {
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                blackhole.consume(camera.createRay(2 * (x + 0.5) / SIZE - 1, 1 - 2 * (y + 0.5) / SIZE, ray));
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package benchmarks;
+
+import main.Controller;
+import org.openjdk.jmh.annotations.*;
+import renderer.ExecutionMode;
+import renderer.Renderer;
+import utilities.Image;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * The FrameBenchmark renders full frames of the Controller scene with extra
+ * random spheres at several resolutions. Next to the frames per second it
+ * reports the primary rays per second through an auxiliary counter.
+ * @see main.Controller
+ * @see renderer.Renderer
+ *
+ * @author Timothy
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FrameBenchmark {
+
+    @Param({"320", "640", "1280"})
+    private int size;
+
+    @Param({"0", "1000", "100000"})
+    private int spheres;
+
+    @Param({"SERIAL", "FORK_JOIN"})
+    private ExecutionMode mode;
+
+    private Renderer renderer;
+    private Image image;
+
+
+    /**
+     * The RayCounter counts the primary rays, JMH reports it as rays per
+     * second next to the frame time.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class RayCounter {
+        public long primaryRays;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            primaryRays = 0;
+        }
+    }
+
+
+    @Setup
+    public void setUp() {
+        Controller controller = BenchmarkScenes.createController(size, size, mode);
+        BenchmarkScenes.addRandomSpheres(controller.getScene(), spheres, 3);
+        controller.getScene().getBoundingVolumeHierarchy();
+        renderer = controller.getRenderer();
+        image = controller.getImage();
+    }
+
+
+    @Benchmark
+    public Image renderFrame(RayCounter counter) {
+        renderer.renderImage(image);
+        counter.primaryRays += (long) image.getWidth() * image.getHeight();
+        return image;
+    }
+}
@@ -0,0 +1,50 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import utilities.Color;
+import utilities.Image;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * The ImageBenchmark measures drawing every pixel of a frame and converting
+ * it to a BufferedImage, with and without the float buffer, but without
+ * encoding the file.
+ * @see utilities.Image
+ *
+ * @author Timothy
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImageBenchmark {
+    private static final int SIZE = 1280;
+
+    @Param({"false", "true"})
+    private boolean highDynamicRange;
+
+    private Image image;
+    private final Color color = new Color(0.3F, 0.6F, 0.9F);
+
+
+    @Setup
+    public void setUp() {
+        image = new Image(SIZE, SIZE, highDynamicRange);
+    }
+
+
+    @Benchmark
+    public BufferedImage drawFrame() {
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                image.draw(x, y, color);
+            }
+        }
+        return image.toBufferedImage();
+    }
+}
@@ -0,0 +1,64 @@
+package benchmarks;
+
+import geometries.Plane;
+import geometries.Sphere;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import utilities.Color;
+import utilities.Ray;
+import utilities.Vector3D;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * The IntersectionBenchmark measures the throughput of the intersects method
+ * of every primitive, for a mix of rays of which roughly half hit.
+ * @see geometries.Sphere
+ * @see geometries.Plane
+ *
+ * @author Timothy
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(IntersectionBenchmark.RAYS)
+public class IntersectionBenchmark {
+    static final int RAYS = 1024;
+
+    private final Sphere sphere = new Sphere(new Vector3D(0, 0, 0), 1, new Color(1F, 1F, 1F), 0);
+    private final Plane plane = new Plane(new Vector3D(0, 0, 0), new Vector3D(0, 1, 0), new Color(1F, 1F, 1F), 0);
+    private Ray[] rays;
+
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        rays = new Ray[RAYS];
+        for (int i = 0; i < RAYS; i++) {
+            Vector3D origin = new Vector3D(0, 0.5, 5);
+            Vector3D target = new Vector3D(random.nextDouble() * 4 - 2, random.nextDouble() * 4 - 2, 0);
+            rays[i] = new Ray(origin, target.subtract(origin).normalize());
+        }
+    }
+
+
+    @Benchmark
+    public void sphere(Blackhole blackhole) {
+        for (Ray ray : rays) {
+            blackhole.consume(sphere.intersects(ray));
+        }
+    }
+
+
+    @Benchmark
+    public void plane(Blackhole blackhole) {
+        for (Ray ray : rays) {
+            blackhole.consume(plane.intersects(ray));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package benchmarks;
+
+import main.Controller;
+import org.openjdk.jmh.annotations.*;
+import renderer.ExecutionMode;
+import renderer.Renderer;
+import utilities.Image;
+import utilities.Options;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * The PacketBenchmark renders frames with the primary rays traced one at a
+ * time and in 2x2 and 4x4 packets, to compare the cost of traversing the
+ * bounding volume hierarchy per ray with sharing it per packet.
+ * @see utilities.RayPacket
+ * @see renderer.Renderer
+ *
+ * @author Timothy
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PacketBenchmark {
+    private static final int SIZE = 320;
+
+    @Param({"1", "2", "4"})
+    private int packetSize;
+
+    @Param({"1000", "100000"})
+    private int spheres;
+
+    private Renderer renderer;
+    private Image image;
+
+
+    @Setup
+    public void setUp() {
+        Options options = new Options(SIZE, SIZE);
+        options.setExecutionMode(ExecutionMode.SERIAL);
+        options.setPacketSize(packetSize);
+        Controller controller = BenchmarkScenes.createController(options);
+        BenchmarkScenes.addRandomSpheres(controller.getScene(), spheres, 3);
+        controller.getScene().getBoundingVolumeHierarchy();
+        renderer = controller.getRenderer();
+        image = controller.getImage();
+    }
+
+
+    @Benchmark
+    public Image renderFrame() {
+        renderer.renderImage(image);
+        return image;
+    }
+}
@@ -0,0 +1,80 @@
+package benchmarks;
+
+import loaders.SceneLoader;
+import org.openjdk.jmh.annotations.*;
+import renderer.Scene;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * The SceneLoaderBenchmark loads a scene file with random spheres, once as
+ * a text file and once as its binary conversion.
+ * @see loaders.SceneLoader
+ *
+ * @author Timothy
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SceneLoaderBenchmark {
+    private static final int SPHERES = 1_000_000;
+
+    @Param({"false", "true"})
+    private boolean binary;
+
+    private Path directory;
+    private String filename;
+
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("scenes");
+        Path text = directory.resolve("spheres" + SceneLoader.TEXT_EXTENSION);
+        Random random = new Random(7);
+        try (BufferedWriter writer = Files.newBufferedWriter(text)) {
+            writer.write("light 1 1 1 1 1 1 0.8\n");
+            for (int i = 0; i < SPHERES; i++) {
+                writer.write(String.format(Locale.ROOT, "sphere %.4f %.4f %.4f %.3f %.2f %.2f %.2f %.1f%n",
+                        (random.nextDouble() * 2 - 1) * 150, (random.nextDouble() * 2 - 1) * 150,
+                        (random.nextDouble() * 2 - 1) * 100, 0.5 + random.nextDouble() * 2.5,
+                        random.nextInt(5) / 4F, random.nextInt(5) / 4F, random.nextInt(5) / 4F,
+                        random.nextInt(3) / 2F));
+            }
+        }
+        filename = text.toString();
+        if (binary) {
+            filename = directory.resolve("spheres" + SceneLoader.BINARY_EXTENSION).toString();
+            SceneLoader.convert(text.toString(), filename);
+        }
+    }
+
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+
+    @Benchmark
+    public Scene loadScene() throws IOException {
+        Scene scene = new Scene();
+        SceneLoader loader = new SceneLoader(scene);
+        loader.load(filename);
+        return scene;
+    }
+}
@@ -0,0 +1,73 @@
+package benchmarks;
+
+import main.Controller;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import renderer.Camera;
+import renderer.ExecutionMode;
+import renderer.Renderer;
+import utilities.Color;
+import utilities.Light;
+import utilities.Options;
+import utilities.Vector3D;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * The ShadowBenchmark measures the cost of shading a pixel for a growing
+ * amount of lights. Every light casts one shadow ray in Renderer.shade, so
+ * the difference with the run without lights is the shadow ray cost. The
+ * camera looks at the spheres of the Controller scene from up close so that
+ * every pixel hits a shape.
+ * @see renderer.Renderer
+ * @see utilities.Light
+ *
+ * @author Timothy
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(ShadowBenchmark.SIZE * ShadowBenchmark.SIZE)
+public class ShadowBenchmark {
+    static final int SIZE = 64;
+
+    @Param({"0", "1", "2", "4", "8"})
+    private int lights;
+
+    @Param({"0", "1000"})
+    private int spheres;
+
+    private Renderer renderer;
+
+
+    @Setup
+    public void setUp() {
+        Controller controller = BenchmarkScenes.createController(SIZE, SIZE, ExecutionMode.SERIAL);
+        controller.getScene().getLights().clear();
+        for (int i = 0; i < lights; i++) {
+            double angle = 2 * Math.PI * i / Math.max(1, lights);
+            controller.getScene().add(new Light(new Vector3D(20 * Math.cos(angle), 15, 20 * Math.sin(angle)),
+                    new Color(1F, 1F, 1F), 1F / Math.max(1, lights)));
+        }
+        BenchmarkScenes.addRandomSpheres(controller.getScene(), spheres, 11);
+
+        Options options = new Options(SIZE, SIZE);
+        Camera camera = new Camera(new Vector3D(0, 1, 16), new Vector3D(0, 0, -1),
+                new Vector3D(0, 1, 0), 30, options.getAspectRatio());
+        renderer = new Renderer(camera, controller.getScene(), options);
+    }
+
+
+    @Benchmark
+    public void shadePixels(Blackhole blackhole) {
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                blackhole.consume(renderer.getPixelColor(x, y, SIZE, SIZE));
+            }
+        }
+    }
+}
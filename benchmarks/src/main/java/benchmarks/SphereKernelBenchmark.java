@@ -0,0 +1,70 @@
+package benchmarks;
+
+import geometries.SphereIntersector;
+import org.openjdk.jmh.annotations.*;
+import utilities.Ray;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * The SphereKernelBenchmark tests rays against leaves of spheres in flat
+ * arrays with the scalar kernel and with the Java Vector API kernel, to see
+ * how much the SIMD instructions gain per leaf size.
+ * @see geometries.SphereIntersector
+ *
+ * @author Timothy
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class SphereKernelBenchmark {
+    private static final int SPHERES = 4096;
+    private static final int RAYS = 256;
+
+    @Param({"scalar", "vector"})
+    private String kernel;
+
+    @Param({"8", "64"})
+    private int leafSize;
+
+    private SphereIntersector intersector;
+    private final double[] centerX = new double[SPHERES];
+    private final double[] centerY = new double[SPHERES];
+    private final double[] centerZ = new double[SPHERES];
+    private final double[] radii = new double[SPHERES];
+    private final Ray[] rays = new Ray[RAYS];
+
+
+    @Setup
+    public void setUp() {
+        intersector = kernel.equals("vector") ? SphereIntersector.fastest() : SphereIntersector.scalar();
+        Random random = new Random(6);
+        for (int i = 0; i < SPHERES; i++) {
+            centerX[i] = random.nextDouble() * 20 - 10;
+            centerY[i] = random.nextDouble() * 20 - 10;
+            centerZ[i] = random.nextDouble() * -20;
+            radii[i] = 0.2 + random.nextDouble();
+        }
+        for (int i = 0; i < RAYS; i++) {
+            rays[i] = new Ray().set(0, 0, 10, random.nextDouble() - 0.5, random.nextDouble() - 0.5, -1);
+        }
+    }
+
+
+    @Benchmark
+    public int intersectLeaves() {
+        int hits = 0;
+        for (Ray ray : rays) {
+            ray.setT(Ray.T_MAX);
+            for (int first = 0; first < SPHERES; first += leafSize) {
+                hits += intersector.intersect(ray, centerX, centerY, centerZ, radii, first, leafSize);
+            }
+        }
+        return hits;
+    }
+}
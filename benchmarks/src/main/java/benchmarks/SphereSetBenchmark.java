@@ -0,0 +1,61 @@
+package benchmarks;
+
+import main.Controller;
+import org.openjdk.jmh.annotations.*;
+import renderer.ExecutionMode;
+import renderer.Renderer;
+import utilities.Image;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * The SphereSetBenchmark renders the same random spheres once as separate
+ * Sphere objects and once as a single SphereSet, to compare the object per
+ * sphere layout with the flat array layout.
+ * @see geometries.Sphere
+ * @see geometries.SphereSet
+ *
+ * @author Timothy
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SphereSetBenchmark {
+    private static final int SIZE = 256;
+
+    @Param({"10000", "1000000"})
+    private int spheres;
+
+    @Param({"true", "false"})
+    private boolean sphereSet;
+
+    private Renderer renderer;
+    private Image image;
+
+
+    @Setup
+    public void setUp() {
+        Controller controller = BenchmarkScenes.createController(SIZE, SIZE, ExecutionMode.SERIAL);
+        if (sphereSet) {
+            BenchmarkScenes.addRandomSphereSet(controller.getScene(), spheres, 5);
+        } else {
+            BenchmarkScenes.addRandomSpheres(controller.getScene(), spheres, 5);
+        }
+        renderer = controller.getRenderer();
+        image = controller.getImage();
+
+        // Build the hierarchies before measuring
+        renderer.renderImage(image);
+    }
+
+
+    @Benchmark
+    public Image renderFrame() {
+        renderer.renderImage(image);
+        return image;
+    }
+}
@@ -0,0 +1,60 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import utilities.MutableVector3D;
+import utilities.Vector3D;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * The VectorBenchmark compares the allocating Vector3D operations with their
+ * in place MutableVector3D counterparts. Run it with -prof gc to see the
+ * allocation rate of both.
+ * @see utilities.Vector3D
+ * @see utilities.MutableVector3D
+ *
+ * @author Timothy
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VectorBenchmark {
+    private Vector3D a = new Vector3D(1, 2, 3);
+    private Vector3D b = new Vector3D(-4, 5, 0.5);
+    private double scalar = 0.75;
+    private final MutableVector3D scratch = new MutableVector3D();
+
+
+    @Benchmark
+    public double dot() {
+        return a.dot(b);
+    }
+
+
+    @Benchmark
+    public Vector3D cross() {
+        return a.cross(b);
+    }
+
+
+    @Benchmark
+    public Vector3D normalize() {
+        return a.normalize();
+    }
+
+
+    @Benchmark
+    public Vector3D addMultiplyNormalize() {
+        return a.add(b.multiply(scalar)).subtract(b).normalize();
+    }
+
+
+    @Benchmark
+    public MutableVector3D addMultiplyNormalizeInPlace() {
+        return scratch.set(b).multiply(scalar).add(a).subtract(b).normalize();
+    }
+}
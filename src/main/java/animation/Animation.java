@@ -0,0 +1,101 @@
+package animation;
+
+import geometries.Shape;
+import renderer.Camera;
+import renderer.Scene;
+import utilities.Vector3D;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * The Animation class describes how the camera and the geometries of a scene
+ * move over time, with Keyframes for the origin and target of the camera and
+ * for the positions of the geometries. Applying it for a time moves them to
+ * their interpolated positions, after which the frame can be rendered with
+ * the same Scene and Renderer objects as the frame before.
+ * @see animation.Keyframes
+ * @see animation.SequenceRenderer
+ *
+ * @author Timothy
+ */
+public class Animation {
+    private Keyframes cameraOrigins;
+    private Keyframes cameraTargets;
+    private Vector3D cameraUp = new Vector3D(0, 1, 0);
+    private final Map<Shape, Keyframes> geometries = new LinkedHashMap<>();
+
+
+    /**
+     * The setCamera method animates the camera, which is moved to the origin
+     * of the first Keyframes object and looks at the target of the second.
+     * @param origins A Keyframes object with the origins of the camera.
+     * @param targets A Keyframes object with the points the camera looks at.
+     * @see renderer.Camera#lookAt(Vector3D, Vector3D, Vector3D)
+     */
+    public void setCamera(Keyframes origins, Keyframes targets) {
+        this.cameraOrigins = origins;
+        this.cameraTargets = targets;
+    }
+
+
+    /**
+     * @param cameraUp A Vector3D object that specifies the direction that is
+     *                 up in the image, which is the y axis by default.
+     */
+    public void setCameraUp(Vector3D cameraUp) {
+        this.cameraUp = cameraUp;
+    }
+
+
+    /**
+     * The add method animates the position of a geometry of the scene.
+     * @param geometry A Shape object that is in the scene.
+     * @param positions A Keyframes object with the positions of the geometry.
+     */
+    public void add(Shape geometry, Keyframes positions) {
+        geometries.put(geometry, positions);
+    }
+
+
+    /**
+     * @return A double value that represents the time of the last keyframe
+     *         of all the Keyframes objects in seconds.
+     */
+    public double getDuration() {
+        double duration = 0;
+        if (cameraOrigins != null) {
+            duration = Math.max(cameraOrigins.getEndTime(), cameraTargets.getEndTime());
+        }
+        for (Keyframes positions : geometries.values()) {
+            duration = Math.max(duration, positions.getEndTime());
+        }
+        return duration;
+    }
+
+
+    /**
+     * The apply method moves the camera and the geometries to where they are
+     * at the specified time. Geometries that are already there aren't moved,
+     * so the scene only refits its bounding volume hierarchy for the ones
+     * that really moved.
+     * @param time A double value representing the time in seconds.
+     * @param camera The Camera object to move.
+     * @param scene The Scene object that holds the geometries.
+     * @see renderer.Scene#move(Shape, Vector3D)
+     */
+    public void apply(double time, Camera camera, Scene scene) {
+        if (cameraOrigins != null) {
+            camera.lookAt(cameraOrigins.getValue(time), cameraTargets.getValue(time), cameraUp);
+        }
+
+        for (Map.Entry<Shape, Keyframes> entry : geometries.entrySet()) {
+            Vector3D position = entry.getValue().getValue(time);
+            Vector3D current = entry.getKey().getPosition();
+            if (position.x != current.x || position.y != current.y || position.z != current.z) {
+                scene.move(entry.getKey(), position);
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package animation;
+
+import utilities.Vector3D;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * The Keyframes class holds the values of a Vector3D at specific times, for
+ * example the positions of a camera during a fly-through. The value at any
+ * other time is interpolated linearly between the keyframes around it, and
+ * is the value of the first or last keyframe before or after them.
+ * @see animation.Animation
+ * @see utilities.Vector3D
+ *
+ * @author Timothy
+ */
+public class Keyframes {
+    private final List<Double> times = new ArrayList<>();
+    private final List<Vector3D> values = new ArrayList<>();
+
+
+    /**
+     * The add method adds a keyframe. Keyframes have to be added in the order
+     * of their time.
+     * @param time A double value representing the time of the keyframe in
+     *             seconds.
+     * @param value A Vector3D object representing the value at that time.
+     * @return This Keyframes object so calls can be chained.
+     * @throws IllegalArgumentException If the time is before the time of the
+     *                                  last keyframe.
+     */
+    public Keyframes add(double time, Vector3D value) {
+        if (!times.isEmpty() && time < times.get(times.size() - 1)) {
+            throw new IllegalArgumentException("Keyframes have to be added in order, " + time
+                    + " is before " + times.get(times.size() - 1));
+        }
+        times.add(time);
+        values.add(new Vector3D(value));
+        return this;
+    }
+
+
+    /**
+     * The getValue method interpolates the value at the specified time.
+     * @param time A double value representing the time in seconds.
+     * @return A Vector3D object representing the value at that time.
+     * @throws IllegalStateException If no keyframes were added.
+     */
+    public Vector3D getValue(double time) {
+        if (times.isEmpty()) {
+            throw new IllegalStateException("There are no keyframes");
+        }
+
+        int next = 0;
+        while (next < times.size() && times.get(next) <= time) {
+            next++;
+        }
+        if (next == 0) {
+            return values.get(0);
+        }
+        if (next == times.size()) {
+            return values.get(next - 1);
+        }
+
+        double start = times.get(next - 1);
+        double fraction = (time - start) / (times.get(next) - start);
+        Vector3D from = values.get(next - 1);
+        return from.add(values.get(next).subtract(from).multiply(fraction));
+    }
+
+
+    /**
+     * @return A double value that represents the time of the last keyframe,
+     *         or 0 if there are none.
+     */
+    public double getEndTime() {
+        return times.isEmpty() ? 0 : times.get(times.size() - 1);
+    }
+}
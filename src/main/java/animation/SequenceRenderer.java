@@ -0,0 +1,100 @@
+package animation;
+
+import renderer.Camera;
+import renderer.Renderer;
+import renderer.Scene;
+import utilities.Image;
+import utilities.ImageEncoder;
+import utilities.Options;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+
+/**
+ * The SequenceRenderer class renders the frames of an Animation to numbered
+ * files. The Scene, the Renderer and the bounding volume hierarchies are
+ * reused for every frame, only the camera and the geometries that move are
+ * changed. A frame is written to its file by an ImageEncoder while the next
+ * frame is rendered, and rendering waits when more frames are waiting to be
+ * written than the Options object allows. The render threads are kept for
+ * all the frames and stopped when the SequenceRenderer is closed.
+ * @see animation.Animation
+ * @see renderer.Renderer
+ * @see utilities.ImageEncoder
+ *
+ * @author Timothy
+ */
+public class SequenceRenderer implements Closeable {
+    private final Camera camera;
+    private final Scene scene;
+    private final Options options;
+    private final Renderer renderer;
+
+
+    /**
+     * Creates a new SequenceRenderer object with a Renderer object for the
+     * specified Camera, Scene and Options objects.
+     * @param camera A Camera object which the Animation moves.
+     * @param scene A Scene object whose geometries the Animation moves.
+     * @param options An Options object that specifies the size of the frames
+     *                and how they are rendered.
+     */
+    public SequenceRenderer(Camera camera, Scene scene, Options options) {
+        this.camera = camera;
+        this.scene = scene;
+        this.options = options;
+        this.renderer = new Renderer(camera, scene, options);
+    }
+
+
+    /**
+     * The render method renders the frames of the Animation at evenly spaced
+     * times, from the start to the end of the Animation. Frames are always
+     * rendered at once, also if the Options object asks for progressive
+     * rendering.
+     * @param animation An Animation object to apply before every frame.
+     * @param frames An int value representing the amount of frames.
+     * @param filePattern A String value representing the name of the files,
+     *                    with a format specifier for the frame number, like
+     *                    "frame%05d.png". The extension specifies the format.
+     * @throws IOException If a frame couldn't be written.
+     * @throws IllegalArgumentException If the amount of frames isn't
+     *                                  positive or the extension is unknown.
+     * @see java.util.Formatter
+     */
+    public void render(Animation animation, int frames, String filePattern) throws IOException {
+        if (frames < 1) {
+            throw new IllegalArgumentException("The amount of frames has to be positive, got " + frames);
+        }
+
+        Image image = new Image(options.getWidth(), options.getHeight(), options.isHighDynamicRange());
+        try (ImageEncoder encoder = new ImageEncoder(options.getEncoderQueueSize(),
+                options.getCompressionLevel())) {
+            for (int frame = 0; frame < frames; frame++) {
+                double time = frames == 1 ? 0 : animation.getDuration() * frame / (frames - 1);
+                animation.apply(time, camera, scene);
+                renderer.renderImage(image);
+                encoder.submit(image, String.format(filePattern, frame));
+            }
+        }
+    }
+
+
+    /**
+     * @return The Renderer object that renders the frames.
+     * @see renderer.Renderer
+     */
+    public Renderer getRenderer() {
+        return renderer;
+    }
+
+
+    /**
+     * The close method stops the threads of the Renderer object.
+     */
+    @Override
+    public void close() {
+        renderer.close();
+    }
+}
@@ -0,0 +1,250 @@
+package farm;
+
+import renderer.Camera;
+import renderer.Scene;
+import renderer.Tile;
+import utilities.Image;
+import utilities.Options;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+
+/**
+ * The Coordinator class renders an image on the worker processes of a render
+ * farm. Workers connect to it over TCP, after which the coordinator sends
+ * them the Scene, Camera and Options objects and hands out the tiles of the
+ * image. Every worker gets as many tiles at a time as it has render threads,
+ * and the rendered pixels it sends back are drawn into the image.
+ * Workers can connect while the image is being rendered. When a worker dies,
+ * its tiles are handed out again, and when all the tiles are handed out the
+ * idle workers get copies of the tiles that are still being rendered, so the
+ * image doesn't have to wait for the slowest worker.
+ * @see farm.Worker
+ * @see farm.TileScheduler
+ * @see renderer.Renderer
+ *
+ * @author Timothy
+ */
+public class Coordinator implements Closeable {
+
+
+    /**
+     * The port on which the coordinator listens if no other port is
+     * specified.
+     */
+    public static final int DEFAULT_PORT = 7777;
+    private final Camera camera;
+    private final Scene scene;
+    private final Options options;
+    private final ServerSocket server;
+    private final List<Socket> connections = new CopyOnWriteArrayList<>();
+    private final List<Process> processes = new ArrayList<>();
+    private volatile boolean closed;
+
+
+    /**
+     * Creates a new Coordinator object which listens for workers on the
+     * specified port.
+     * @param camera A Camera object through which the image is rendered.
+     * @param scene A Scene object with the geometries and lights to render.
+     * @param options An Options object that specifies how the image is
+     *                rendered.
+     * @param port An int value representing the port to listen on, or 0 to
+     *             let the system pick a free port.
+     * @throws IOException If the port can't be opened.
+     */
+    public Coordinator(Camera camera, Scene scene, Options options, int port) throws IOException {
+        this.camera = camera;
+        this.scene = scene;
+        this.options = options;
+        this.server = new ServerSocket(port);
+    }
+
+
+    /**
+     * @return An int value that represents the port the coordinator listens
+     *         on.
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+
+    /**
+     * The launchWorkers method starts worker processes on this machine, with
+     * the same java executable, class path and JVM arguments as the
+     * coordinator. It is meant for trying the render farm out on a single
+     * machine, the processes are destroyed when the coordinator is closed.
+     * @param count An int value representing the amount of processes.
+     * @throws IOException If a process can't be started.
+     * @see main.Driver
+     */
+    public void launchWorkers(int count) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        for (int i = 0; i < count; i++) {
+            List<String> command = new ArrayList<>();
+            command.add(java);
+            command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add("main.Driver");
+            command.add("worker");
+            command.add("localhost");
+            command.add(String.valueOf(getPort()));
+            processes.add(new ProcessBuilder(command).inheritIO().start());
+        }
+    }
+
+
+    /**
+     * The render method hands out the tiles of the image to the workers and
+     * waits until all of them are rendered. A Coordinator object renders a
+     * single image, it stops accepting workers afterwards.
+     * @param image An Image object whose pixels are drawn from the results of
+     *              the workers.
+     * @see renderer.Renderer#render(Image)
+     */
+    public void render(Image image) {
+        TileScheduler scheduler = new TileScheduler(
+                Tile.split(image.getWidth(), image.getHeight(), options.getTileSize()), image);
+
+        Thread acceptor = new Thread(() -> accept(scheduler), "farm-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        try {
+            scheduler.awaitCompletion();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rendering", e);
+        } finally {
+            closeQuietly(server);
+        }
+    }
+
+
+    /**
+     * The close method stops accepting workers, closes the connections to
+     * the workers and destroys the worker processes that were launched.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        closeQuietly(server);
+        for (Socket connection : connections) {
+            closeQuietly(connection);
+        }
+        for (Process process : processes) {
+            process.destroy();
+        }
+    }
+
+
+    /**
+     * The accept method accepts workers until the server socket is closed
+     * and serves each of them on its own thread.
+     * @param scheduler The TileScheduler object of the image.
+     */
+    private void accept(TileScheduler scheduler) {
+        while (!server.isClosed()) {
+            try {
+                Socket connection = server.accept();
+                connections.add(connection);
+                Thread thread = new Thread(() -> serve(connection, scheduler),
+                        "farm-worker-" + connection.getRemoteSocketAddress());
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                if (!server.isClosed()) {
+                    System.out.println(e.getMessage());
+                }
+            }
+        }
+    }
+
+
+    /**
+     * The serve method sends the scene to a worker and keeps it busy with as
+     * many tiles as it has render threads, until all the tiles are done. A
+     * tile is sent as its index followed by the Tile object, and comes back
+     * as its index followed by a TileResult object. An index of -1 tells the
+     * worker to stop. If the connection fails, the tiles that the worker was
+     * rendering are released so that other workers render them.
+     * @param connection A Socket object connected to the worker.
+     * @param scheduler The TileScheduler object of the image.
+     */
+    private void serve(Socket connection, TileScheduler scheduler) {
+        List<Integer> assigned = new ArrayList<>();
+        try (connection) {
+            connection.setTcpNoDelay(true);
+            ObjectOutputStream output = new ObjectOutputStream(
+                    new BufferedOutputStream(connection.getOutputStream()));
+            output.writeObject(scene);
+            output.writeObject(camera);
+            output.writeObject(options);
+            output.reset();
+            output.flush();
+            ObjectInputStream input = new ObjectInputStream(
+                    new BufferedInputStream(connection.getInputStream()));
+            int capacity = Math.max(1, input.readInt());
+
+            while (true) {
+                while (assigned.size() < capacity) {
+                    // Only an idle worker waits, or gets a copy of a tile
+                    // when there are no pending ones
+                    int index = scheduler.next(assigned, assigned.isEmpty());
+                    if (index < 0) {
+                        break;
+                    }
+                    output.writeInt(index);
+                    output.writeObject(scheduler.getTile(index));
+                    output.reset();
+                    assigned.add(index);
+                }
+                output.flush();
+                if (assigned.isEmpty()) {
+                    break;
+                }
+
+                int index = input.readInt();
+                TileResult result = (TileResult) input.readObject();
+                assigned.remove(Integer.valueOf(index));
+                scheduler.complete(index, result);
+            }
+
+            output.writeInt(-1);
+            output.flush();
+        } catch (IOException | ClassNotFoundException e) {
+            if (!closed) {
+                System.out.println("Lost worker " + connection.getRemoteSocketAddress() + ": " + e);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (int index : assigned) {
+                scheduler.release(index);
+            }
+            connections.remove(connection);
+        }
+    }
+
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+}
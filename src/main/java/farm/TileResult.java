@@ -0,0 +1,107 @@
+package farm;
+
+import renderer.Tile;
+import utilities.Color;
+import utilities.Image;
+
+import java.io.Serializable;
+
+
+/**
+ * The TileResult class holds the rendered pixels of a single tile, so that a
+ * worker can send them to the coordinator. Only the pixels of the tile are
+ * copied, which is the int rgb value of every pixel, or the three floats of
+ * every pixel for an image with a float buffer.
+ * @see farm.Worker
+ * @see farm.Coordinator
+ * @see utilities.Image
+ *
+ * @author Timothy
+ */
+class TileResult implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private final int x;
+    private final int y;
+    private final int width;
+    private final int height;
+    private final int[] pixels;
+    private final float[] colors;
+
+
+    /**
+     * Creates a new TileResult object with a copy of the pixels of the tile,
+     * which was rendered into a buffer of its own size.
+     * @param tile A Tile object that specifies where the pixels belong.
+     * @param buffer An Image object of at least the size of the tile, whose
+     *               top left pixel is the top left pixel of the tile.
+     * @see renderer.Tile
+     * @see renderer.Renderer#renderTile(Tile, int, int, Image)
+     */
+    TileResult(Tile tile, Image buffer) {
+        this.x = tile.getX();
+        this.y = tile.getY();
+        this.width = tile.getWidth();
+        this.height = tile.getHeight();
+
+        if (buffer.isHighDynamicRange()) {
+            pixels = null;
+            colors = new float[width * height * 3];
+            for (int row = 0; row < height; row++) {
+                System.arraycopy(buffer.getColors(), row * buffer.getWidth() * 3,
+                        colors, row * width * 3, width * 3);
+            }
+        } else {
+            colors = null;
+            pixels = new int[width * height];
+            for (int row = 0; row < height; row++) {
+                System.arraycopy(buffer.getPixels(), row * buffer.getWidth(), pixels, row * width, width);
+            }
+        }
+    }
+
+
+    /**
+     * The draw method copies the pixels of the tile into the given image, at
+     * the same position as where they were rendered. Rows are copied at once
+     * into the arrays of the image, and pixel by pixel into an image without
+     * arrays, like a MappedImage.
+     * @param image An Image object with the same size and dynamic range as
+     *              the one in which the tile was rendered.
+     * @throws IllegalArgumentException If the dynamic range of the image
+     *                                  differs from that of the result.
+     */
+    void draw(Image image) {
+        if (image.isHighDynamicRange() != (colors != null)) {
+            throw new IllegalArgumentException("The dynamic range of the tile differs from that of the image");
+        }
+
+        if (image.getPixels() == null) {
+            drawPixels(image);
+            return;
+        }
+        for (int row = 0; row < height; row++) {
+            if (colors != null) {
+                System.arraycopy(colors, row * width * 3,
+                        image.getColors(), ((y + row) * image.getWidth() + x) * 3, width * 3);
+            } else {
+                System.arraycopy(pixels, row * width,
+                        image.getPixels(), (y + row) * image.getWidth() + x, width);
+            }
+        }
+    }
+
+
+    private void drawPixels(Image image) {
+        for (int row = 0; row < height; row++) {
+            for (int column = 0; column < width; column++) {
+                int pixel = row * width + column;
+                if (colors != null) {
+                    image.draw(x + column, y + row,
+                            new Color(colors[pixel * 3], colors[pixel * 3 + 1], colors[pixel * 3 + 2]));
+                } else {
+                    image.draw(x + column, y + row, pixels[pixel]);
+                }
+            }
+        }
+    }
+}
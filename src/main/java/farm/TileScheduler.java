@@ -0,0 +1,154 @@
+package farm;
+
+import renderer.Tile;
+import utilities.Image;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * The TileScheduler class keeps track of which tiles of an image still have
+ * to be rendered by the workers of a render farm. The tiles are referred to
+ * by their index in the list of tiles. When all the tiles are handed out, a
+ * worker that has nothing to do gets a copy of a tile that another worker is
+ * still rendering, so a slow worker doesn't hold up the whole image. The
+ * first result of a tile is drawn and the other copies are ignored. Tiles of
+ * a worker that dies are handed out again.
+ * @see farm.Coordinator
+ * @see renderer.Tile
+ *
+ * @author Timothy
+ */
+class TileScheduler {
+    private static final int MAX_COPIES = 2;
+    private final List<Tile> tiles;
+    private final Image image;
+    private final Deque<Integer> pending = new ArrayDeque<>();
+    private final Set<Integer> running = new LinkedHashSet<>();
+    private final int[] copies;
+    private final boolean[] done;
+    private int remaining;
+
+
+    /**
+     * Creates a new TileScheduler object for the given tiles, which are all
+     * pending at first.
+     * @param tiles A List of Tile objects to render.
+     * @param image An Image object into which the results are drawn.
+     */
+    TileScheduler(List<Tile> tiles, Image image) {
+        this.tiles = tiles;
+        this.image = image;
+        this.copies = new int[tiles.size()];
+        this.done = new boolean[tiles.size()];
+        this.remaining = tiles.size();
+        for (int index = 0; index < tiles.size(); index++) {
+            pending.add(index);
+        }
+    }
+
+
+    /**
+     * The next method hands out the next pending tile. If there is none, it
+     * hands out a copy of the tile that has been rendering the longest and
+     * isn't already being rendered by the worker itself or by too many
+     * others.
+     * @param assigned A Collection with the indices of the tiles the worker
+     *                 is rendering.
+     * @param wait A boolean value which specifies if the method waits until
+     *             there is a tile to hand out.
+     * @return An int value representing the index of the tile, or -1 if
+     *         there is none or if all the tiles are done.
+     * @throws InterruptedException If the thread is interrupted while
+     *                              waiting.
+     */
+    synchronized int next(Collection<Integer> assigned, boolean wait) throws InterruptedException {
+        while (remaining > 0) {
+            Integer index = pending.poll();
+            if (index == null) {
+                for (Integer candidate : running) {
+                    if (copies[candidate] < MAX_COPIES && !assigned.contains(candidate)) {
+                        index = candidate;
+                        break;
+                    }
+                }
+            }
+
+            if (index != null) {
+                copies[index]++;
+                running.add(index);
+                return index;
+            }
+            if (!wait) {
+                return -1;
+            }
+            wait();
+        }
+        return -1;
+    }
+
+
+    /**
+     * The complete method draws the result of a tile into the image, unless
+     * another copy of the tile was done first.
+     * @param index An int value representing the index of the tile.
+     * @param result A TileResult object with the rendered pixels.
+     * @return A boolean value which is true if the result was drawn.
+     */
+    synchronized boolean complete(int index, TileResult result) {
+        copies[index]--;
+        if (done[index]) {
+            return false;
+        }
+
+        result.draw(image);
+        done[index] = true;
+        running.remove(index);
+        remaining--;
+        notifyAll();
+        return true;
+    }
+
+
+    /**
+     * The release method is called for the tiles of a worker that died. A
+     * tile that no other worker is rendering becomes pending again, in front
+     * of the tiles that weren't handed out yet.
+     * @param index An int value representing the index of the tile.
+     */
+    synchronized void release(int index) {
+        copies[index]--;
+        if (!done[index] && copies[index] == 0) {
+            running.remove(index);
+            pending.addFirst(index);
+        }
+        notifyAll();
+    }
+
+
+    /**
+     * The awaitCompletion method waits until a result was drawn for every
+     * tile.
+     * @throws InterruptedException If the thread is interrupted while
+     *                              waiting.
+     */
+    synchronized void awaitCompletion() throws InterruptedException {
+        while (remaining > 0) {
+            wait();
+        }
+    }
+
+
+    /**
+     * @param index An int value representing the index of the tile.
+     * @return The Tile object with the given index.
+     */
+    Tile getTile(int index) {
+        return tiles.get(index);
+    }
+}
@@ -0,0 +1,124 @@
+package farm;
+
+import renderer.Camera;
+import renderer.ExecutionMode;
+import renderer.Renderer;
+import renderer.Scene;
+import renderer.Tile;
+import utilities.Image;
+import utilities.Options;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+/**
+ * The Worker class renders tiles for the Coordinator of a render farm. It
+ * connects to the coordinator, receives the Scene, Camera and Options
+ * objects, and renders every tile it gets on one of its render threads. A
+ * tile is rendered into a buffer of its own size, from which its pixels
+ * are sent back, so a worker never holds the whole image.
+ * @see farm.Coordinator
+ * @see renderer.Renderer#renderTile(Tile, int, int, Image)
+ *
+ * @author Timothy
+ */
+public class Worker {
+    private final String host;
+    private final int port;
+
+
+    /**
+     * Creates a new Worker object that connects to the coordinator on the
+     * specified host and port.
+     * @param host A String value representing the host of the coordinator.
+     * @param port An int value representing the port of the coordinator.
+     */
+    public Worker(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+
+    /**
+     * The run method connects to the coordinator and renders tiles until the
+     * coordinator tells it to stop. The amount of render threads is taken
+     * from the Options object, which is the amount of processors of this
+     * machine unless a thread count was set, and a serial execution mode
+     * renders on a single thread. The coordinator is told how many tiles it
+     * can hand out at once accordingly.
+     * @throws IOException If the connection to the coordinator fails.
+     * @see utilities.Options#getThreads()
+     */
+    public void run() throws IOException {
+        try (Socket connection = new Socket(host, port)) {
+            connection.setTcpNoDelay(true);
+            ObjectOutputStream output = new ObjectOutputStream(
+                    new BufferedOutputStream(connection.getOutputStream()));
+            output.flush();
+            ObjectInputStream input = new ObjectInputStream(
+                    new BufferedInputStream(connection.getInputStream()));
+
+            Scene scene = (Scene) input.readObject();
+            Camera camera = (Camera) input.readObject();
+            Options options = (Options) input.readObject();
+            int threads = options.getExecutionMode() == ExecutionMode.SERIAL ? 1 : options.getThreads();
+            output.writeInt(threads);
+            output.flush();
+
+            Renderer renderer = new Renderer(camera, scene, options);
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                int index;
+                while ((index = input.readInt()) >= 0) {
+                    Tile tile = (Tile) input.readObject();
+                    int tileIndex = index;
+                    executor.execute(() -> {
+                        Image buffer = new Image(tile.getWidth(), tile.getHeight(), options.isHighDynamicRange());
+                        renderer.renderTile(tile, options.getWidth(), options.getHeight(), buffer);
+                        send(connection, output, tileIndex, new TileResult(tile, buffer));
+                    });
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Received an unknown class from the coordinator", e);
+        }
+    }
+
+
+    /**
+     * The send method sends the result of a tile to the coordinator. The
+     * render threads share the output stream, so it is locked while a result
+     * is written. If it fails, the connection is closed so that the run
+     * method stops as well.
+     * @param connection A Socket object connected to the coordinator.
+     * @param output The ObjectOutputStream object of the connection.
+     * @param index An int value representing the index of the tile.
+     * @param result A TileResult object with the rendered pixels.
+     */
+    private static void send(Socket connection, ObjectOutputStream output, int index, TileResult result) {
+        synchronized (output) {
+            try {
+                output.writeInt(index);
+                output.writeObject(result);
+                output.reset();
+                output.flush();
+            } catch (IOException e) {
+                System.out.println(e.getMessage());
+                try {
+                    connection.close();
+                } catch (IOException closeException) {
+                    System.out.println(closeException.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package geometries;
+
+import utilities.BoundingBox;
+import utilities.BoundingVolumeHierarchy;
+import utilities.Color;
+import utilities.MutableVector3D;
+import utilities.Ray;
+import utilities.RayHit;
+import utilities.Vector3D;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * The Group class is a geometry that holds other geometries with their own
+ * bounding volume hierarchy, like a small scene. It is what an Instance
+ * refers to when a whole arrangement of shapes is placed many times, a
+ * tree of a trunk mesh and a set of leaves for example. Only geometries with
+ * a bounding box can be in a Group. A hit keeps the geometry of the group
+ * that was hit, so the color and normal come from that geometry.
+ * @see geometries.Instance
+ * @see utilities.BoundingVolumeHierarchy
+ *
+ * @author Timothy
+ */
+public class Group extends Shape {
+    private static final long serialVersionUID = 1L;
+    private static final ThreadLocal<NestingStack<Traversal>> TRAVERSALS =
+            ThreadLocal.withInitial(() -> new NestingStack<>(Traversal::new));
+    private final List<Shape> geometries = new ArrayList<>();
+    private transient volatile BoundingVolumeHierarchy hierarchy;
+    private transient Shape[] orderedGeometries;
+
+
+    /**
+     * Creates a new empty Group object at the origin. Geometries are added
+     * with the add method.
+     */
+    public Group() {
+        this.position = new Vector3D();
+        this.color = new Color();
+    }
+
+
+    /**
+     * The add method adds a geometry to the group.
+     * @param geometry A Shape object with a bounding box.
+     * @throws IllegalArgumentException If the geometry is unbounded, like a
+     *                                  plane.
+     */
+    public synchronized void add(Shape geometry) {
+        if (geometry.getBoundingBox() == null) {
+            throw new IllegalArgumentException("A group can only hold geometries with a bounding box, got "
+                    + geometry.getClass().getSimpleName());
+        }
+        geometries.add(geometry);
+        hierarchy = null;
+    }
+
+
+    /**
+     * @return A java List object that contains the geometries in the group,
+     *         which can't be changed through it.
+     */
+    public List<Shape> getGeometries() {
+        return Collections.unmodifiableList(geometries);
+    }
+
+
+    /**
+     * Override the parent class' getBoundingBox method to give the Group the
+     * box of the root of its hierarchy.
+     * @return A BoundingBox object that fully contains all the geometries, or
+     *         null if the group is empty.
+     * @see utilities.BoundingBox
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        if (geometries.isEmpty()) {
+            return null;
+        }
+        return getHierarchy().getBounds();
+    }
+
+
+    /**
+     * Override abstract parent class' intersect method to find the closest
+     * geometry of the group that the ray intersects with.
+     * @param ray A Ray object representing the ray to check for intersection.
+     * @param hit A RayHit object in which the hit is stored, with the
+     *            geometry that was hit.
+     * @return A boolean value which states if a geometry was hit closer than
+     *         the ray's t value.
+     * @see utilities.Ray
+     * @see utilities.RayHit
+     */
+    @Override
+    public boolean intersect(Ray ray, RayHit hit) {
+        if (geometries.isEmpty()) {
+            return false;
+        }
+        BoundingVolumeHierarchy current = getHierarchy();
+        NestingStack<Traversal> traversals = TRAVERSALS.get();
+        Traversal traversal = traversals.push();
+
+        traversal.geometries = orderedGeometries;
+        traversal.hit = hit;
+        traversal.found = false;
+        current.traverse(ray, traversal, traversal.stack);
+        boolean found = traversal.found;
+        traversal.geometries = null;
+        traversal.hit = null;
+
+        traversals.pop();
+        return found;
+    }
+
+
+    /**
+     * Override abstract parent class' computeNormal method. Hits in a Group
+     * are stored with the geometry that was hit, which computes the normal,
+     * so a Group never gets a hit of its own.
+     * @param hit A RayHit object that was filled in by the intersect method.
+     * @param normal A MutableVector3D object in which the normal is stored.
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void computeNormal(RayHit hit, MutableVector3D normal) {
+        throw new UnsupportedOperationException("The hits of a Group are stored with the geometry that was hit");
+    }
+
+
+    /**
+     * Override the parent class' occludes method to stop at the first
+     * geometry that blocks the ray.
+     * @param ray A Ray object representing the ray to check for intersection.
+     * @param maxT A double value representing the 'distance' up to which the
+     *             geometries block the ray.
+     * @return A boolean value which states if any geometry blocks the ray.
+     * @see utilities.Ray
+     */
+    @Override
+    public boolean occludes(Ray ray, double maxT) {
+        if (geometries.isEmpty()) {
+            return false;
+        }
+        BoundingVolumeHierarchy current = getHierarchy();
+        NestingStack<Traversal> traversals = TRAVERSALS.get();
+        Traversal traversal = traversals.push();
+        double rayT = ray.getT();
+        ray.setT(maxT);
+
+        traversal.geometries = orderedGeometries;
+        traversal.maxT = maxT;
+        traversal.found = false;
+        current.traverse(ray, traversal, traversal.stack);
+        boolean found = traversal.found;
+        traversal.geometries = null;
+
+        ray.setT(rayT);
+        traversals.pop();
+        return found;
+    }
+
+
+    /**
+     * Override the parent class' setPosition method to move all the
+     * geometries along with the position of the group, which starts at the
+     * origin. The hierarchy is built again the next time it is needed.
+     * @param position A Vector3D object that specifies the new position of
+     *                 the group.
+     */
+    @Override
+    public synchronized void setPosition(Vector3D position) {
+        Vector3D offset = position.subtract(this.position);
+        for (Shape geometry : geometries) {
+            geometry.setPosition(geometry.getPosition().add(offset));
+        }
+        this.position = new Vector3D(position);
+        hierarchy = null;
+    }
+
+
+    /**
+     * Override the parent class' isReflective method, the group is
+     * reflective if any of its geometries is.
+     * @return A boolean value that's true if any geometry is reflective.
+     */
+    @Override
+    public boolean isReflective() {
+        for (Shape geometry : geometries) {
+            if (geometry.isReflective()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * The getHierarchy method returns the bounding volume hierarchy over the
+     * geometries and builds it if geometries were added since the last build.
+     * @return A BoundingVolumeHierarchy object over all the geometries.
+     */
+    private BoundingVolumeHierarchy getHierarchy() {
+        BoundingVolumeHierarchy current = hierarchy;
+        if (current == null) {
+            current = buildHierarchy();
+        }
+        return current;
+    }
+
+
+    /**
+     * The buildHierarchy method builds the bounding volume hierarchy over the
+     * geometries and keeps them in the order of its leaves.
+     * @return The BoundingVolumeHierarchy object that was built.
+     */
+    private synchronized BoundingVolumeHierarchy buildHierarchy() {
+        if (hierarchy == null) {
+            double[] bounds = new double[geometries.size() * 6];
+            for (int i = 0; i < geometries.size(); i++) {
+                BoundingBox box = geometries.get(i).getBoundingBox();
+                bounds[i * 6] = box.getMin().x;
+                bounds[i * 6 + 1] = box.getMin().y;
+                bounds[i * 6 + 2] = box.getMin().z;
+                bounds[i * 6 + 3] = box.getMax().x;
+                bounds[i * 6 + 4] = box.getMax().y;
+                bounds[i * 6 + 5] = box.getMax().z;
+            }
+            BoundingVolumeHierarchy built = new BoundingVolumeHierarchy(bounds);
+            int[] order = built.getPrimitiveOrder();
+            Shape[] ordered = new Shape[order.length];
+            for (int i = 0; i < order.length; i++) {
+                ordered[i] = geometries.get(order[i]);
+            }
+            orderedGeometries = ordered;
+            hierarchy = built;
+        }
+        return hierarchy;
+    }
+
+
+    /**
+     * The Traversal class is the visitor that a Group passes to its bounding
+     * volume hierarchy, for closest hits when it has a RayHit object and for
+     * occlusion queries when it doesn't. Every level of nesting on every
+     * thread has its own, together with the traversal stack.
+     * @see utilities.BoundingVolumeHierarchy.LeafVisitor
+     */
+    private static class Traversal implements BoundingVolumeHierarchy.LeafVisitor {
+        private final BoundingVolumeHierarchy.Stack stack = new BoundingVolumeHierarchy.Stack();
+        private Shape[] geometries;
+        private RayHit hit;
+        private double maxT;
+        private boolean found;
+
+        @Override
+        public boolean visit(int first, int count, Ray ray) {
+            for (int i = first; i < first + count; i++) {
+                if (hit == null) {
+                    if (geometries[i].occludes(ray, maxT)) {
+                        found = true;
+                        return true;
+                    }
+                } else {
+                    found |= geometries[i].intersect(ray, hit);
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package geometries;
+
+import utilities.BoundingBox;
+import utilities.Color;
+import utilities.MutableVector3D;
+import utilities.Ray;
+import utilities.RayHit;
+import utilities.Transform;
+import utilities.Vector3D;
+
+
+/**
+ * The Instance class is a geometry that places another geometry in the
+ * scene with a transform, without copying it. Thousands of instances can
+ * share one SphereSet, TriangleMesh or Group, which keeps its own bounding
+ * volume hierarchy, while the Scene puts the instances in its hierarchy.
+ * Together they form a two level hierarchy: the top level over the boxes of
+ * the instances and a bottom level per shared geometry.
+ *
+ * A ray is moved into the space of the geometry instead of moving the
+ * geometry, and its direction isn't normalized afterwards, so t values are
+ * the same in both spaces. A hit keeps the shape and primitive that were
+ * hit, so the color comes from the shared geometry, and the transform that
+ * moves the hit point and normal back into the scene.
+ * @see utilities.Transform
+ * @see geometries.Group
+ * @see utilities.RayHit#toWorld(Ray, Transform)
+ *
+ * @author Timothy
+ */
+public class Instance extends Shape {
+    private static final long serialVersionUID = 1L;
+    private static final ThreadLocal<NestingStack<ObjectSpace>> OBJECT_SPACES =
+            ThreadLocal.withInitial(() -> new NestingStack<>(ObjectSpace::new));
+    private final Shape geometry;
+    private Transform transform;
+
+
+    /**
+     * Creates a new Instance object of a geometry with the specified
+     * transform.
+     * @param geometry A Shape object that is shared by the instances.
+     * @param transform A Transform object that moves the geometry from its
+     *                  own space into the scene.
+     * @see utilities.Transform
+     */
+    public Instance(Shape geometry, Transform transform) {
+        this.geometry = geometry;
+        this.transform = transform;
+        this.position = transform.getTranslation();
+        this.color = geometry.getColor();
+        this.reflection = geometry.getReflection();
+    }
+
+
+    /**
+     * @return A Shape object that represents the geometry that the instance
+     *         places in the scene.
+     */
+    public Shape getGeometry() {
+        return geometry;
+    }
+
+
+    /**
+     * @return A Transform object that moves the geometry from its own space
+     *         into the scene.
+     */
+    public Transform getTransform() {
+        return transform;
+    }
+
+
+    /**
+     * Override the parent class' getBoundingBox method to give the Instance
+     * the box around the transformed box of its geometry.
+     * @return A BoundingBox object that fully contains the transformed
+     *         geometry, or null if the geometry is unbounded.
+     * @see utilities.Transform#transformBox(BoundingBox)
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        BoundingBox box = geometry.getBoundingBox();
+        return box == null ? null : transform.transformBox(box);
+    }
+
+
+    /**
+     * Override abstract parent class' intersect method to move the ray into
+     * the space of the geometry and test it there.
+     * @param ray A Ray object representing the ray to check for intersection.
+     * @param hit A RayHit object in which the hit is stored, with the shape
+     *            and primitive of the geometry that was hit.
+     * @return A boolean value which states if the geometry was hit closer
+     *         than the ray's t value.
+     * @see utilities.Ray
+     * @see utilities.RayHit
+     */
+    @Override
+    public boolean intersect(Ray ray, RayHit hit) {
+        NestingStack<ObjectSpace> spaces = OBJECT_SPACES.get();
+        Ray objectRay = transform.toObjectSpace(ray, spaces.push().ray);
+        boolean found = geometry.intersect(objectRay, hit);
+        double t = objectRay.getT();
+        spaces.pop();
+
+        if (!found) {
+            return false;
+        }
+        ray.setT(t);
+        hit.toWorld(ray, transform);
+        return true;
+    }
+
+
+    /**
+     * Override abstract parent class' computeNormal method. Hits through an
+     * Instance keep the shape that was hit, so this is only called for a
+     * RayHit object that names the Instance itself. The normal of the
+     * geometry is moved into the scene with the transform.
+     * @param hit A RayHit object with a ray in the space of the Instance.
+     * @param normal A MutableVector3D object in which the normal is stored.
+     */
+    @Override
+    public void computeNormal(RayHit hit, MutableVector3D normal) {
+        NestingStack<ObjectSpace> spaces = OBJECT_SPACES.get();
+        ObjectSpace space = spaces.push();
+        transform.toObjectSpace(hit.getRay(), space.ray);
+        space.hit.set(space.ray, geometry, hit.getT(), hit.getPrimitive());
+        geometry.computeNormal(space.hit, normal);
+        transform.transformNormal(normal);
+        spaces.pop();
+    }
+
+
+    /**
+     * Override the parent class' occludes method to move the ray into the
+     * space of the geometry and let the geometry decide.
+     * @param ray A Ray object representing the ray to check for intersection.
+     * @param maxT A double value representing the 'distance' up to which the
+     *             geometry blocks the ray.
+     * @return A boolean value which states if the geometry blocks the ray.
+     * @see utilities.Ray
+     */
+    @Override
+    public boolean occludes(Ray ray, double maxT) {
+        NestingStack<ObjectSpace> spaces = OBJECT_SPACES.get();
+        Ray objectRay = transform.toObjectSpace(ray, spaces.push().ray);
+        boolean occluded = geometry.occludes(objectRay, maxT);
+        spaces.pop();
+        return occluded;
+    }
+
+
+    /**
+     * Override the parent class' setPosition method to move the instance,
+     * which adds a translation to its transform. The shared geometry isn't
+     * changed.
+     * @param position A Vector3D object that specifies the new position of
+     *                 the origin of the geometry.
+     */
+    @Override
+    public void setPosition(Vector3D position) {
+        transform = transform.then(Transform.translation(position.x - this.position.x,
+                position.y - this.position.y, position.z - this.position.z));
+        this.position = transform.getTranslation();
+    }
+
+
+    /**
+     * Override the parent class' isReflective method to ask the geometry.
+     * @return A boolean value that's true if the geometry is reflective.
+     */
+    @Override
+    public boolean isReflective() {
+        return geometry.isReflective();
+    }
+
+
+    /**
+     * Override the parent class' getColor method to return the color of the
+     * primitive of the geometry.
+     * @param primitive An int value representing the index of the primitive.
+     * @return A Color object that represents the color of the primitive.
+     */
+    @Override
+    public Color getColor(int primitive) {
+        return geometry.getColor(primitive);
+    }
+
+
+    /**
+     * Override the parent class' getReflection method to return the
+     * reflection value of the primitive of the geometry.
+     * @param primitive An int value representing the index of the primitive.
+     * @return A float value which states the reflection value of the
+     *         primitive.
+     */
+    @Override
+    public float getReflection(int primitive) {
+        return geometry.getReflection(primitive);
+    }
+
+
+    /**
+     * The ObjectSpace class holds the ray in the space of the geometry, and
+     * a RayHit object for the normal, so that testing an instance doesn't
+     * allocate anything.
+     */
+    private static class ObjectSpace {
+        private final Ray ray = new Ray();
+        private final RayHit hit = new RayHit();
+    }
+}
@@ -0,0 +1,59 @@
+package geometries;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+
+/**
+ * The NestingStack class holds the per thread scratch objects of shapes
+ * that contain other shapes, like an Instance or a Group. Such a shape can
+ * end up inside itself, an Instance of a Group of Instances for example, so
+ * a single scratch object per thread would be overwritten by the nested
+ * call. Every level of nesting gets its own object instead, which is
+ * created the first time a thread goes that deep and reused afterwards.
+ * @param <T> The type of the scratch objects.
+ * @see geometries.Instance
+ * @see geometries.Group
+ *
+ * @author Timothy
+ */
+final class NestingStack<T> {
+    private final Supplier<T> factory;
+    private Object[] levels = new Object[4];
+    private int depth;
+
+
+    /**
+     * Creates a new empty NestingStack object.
+     * @param factory A Supplier object that creates a scratch object for a
+     *                level that wasn't reached before.
+     */
+    NestingStack(Supplier<T> factory) {
+        this.factory = factory;
+    }
+
+
+    /**
+     * The push method enters the next level of nesting.
+     * @return The scratch object of the new level.
+     */
+    @SuppressWarnings("unchecked")
+    T push() {
+        if (depth == levels.length) {
+            levels = Arrays.copyOf(levels, depth * 2);
+        }
+        if (levels[depth] == null) {
+            levels[depth] = factory.get();
+        }
+        return (T) levels[depth++];
+    }
+
+
+    /**
+     * The pop method leaves the current level of nesting, after which its
+     * scratch object may be reused.
+     */
+    void pop() {
+        depth--;
+    }
+}
@@ -1,6 +1,7 @@
 package geometries;
 
 import utilities.Color;
+import utilities.MutableVector3D;
 import utilities.Ray;
 import utilities.RayHit;
 import utilities.Vector3D;
@@ -14,6 +15,7 @@ import utilities.Vector3D;
  * @author Timothy
  */
 public class Plane extends Shape {
+    private static final long serialVersionUID = 1L;
     private Vector3D normal;
 
 
@@ -37,31 +39,69 @@ public class Plane extends Shape {
 
 
     /**
-     * Override abstract parent class' intersects method to see if the ray
+     * Override abstract parent class' intersect method to see if the ray
      * intersects with the Plane geometry.
      * @param ray A Ray object representing the ray to check for intersection.
-     * @return A RayHit object which contains information
-     *         about the intersected plane and the intersection point.
+     * @param hit A RayHit object in which the hit is stored.
+     * @return A boolean value which states if the plane was hit closer than
+     *         the ray's t value.
      * @see utilities.Ray
      * @see utilities.RayHit
      */
     @Override
-    public RayHit intersects(Ray ray) {
-        RayHit rayHit = null;
+    public boolean intersect(Ray ray, RayHit hit) {
 
         // Check if we intersect
-        double directionDotNormal = ray.getDirection().dot(normal);
+        double directionDotNormal = ray.getDirectionX() * normal.x + ray.getDirectionY() * normal.y
+                + ray.getDirectionZ() * normal.z;
         if (directionDotNormal != 0) {
 
             // Find point of intersection
-            double t = (position.subtract(ray.getOrigin())).dot(normal) / directionDotNormal;
+            double t = ((position.x - ray.getOriginX()) * normal.x + (position.y - ray.getOriginY()) * normal.y
+                    + (position.z - ray.getOriginZ()) * normal.z) / directionDotNormal;
 
             // Check if it does intersect with the ray
             if(doesIntersect(t, ray)) {
-                rayHit = new RayHit(ray, this, normal, t);
+                hit.set(ray, this, t, 0);
+                ray.setT(t);
+                return true;
             }
         }
 
-        return rayHit;
+        return false;
+    }
+
+
+    /**
+     * Override abstract parent class' computeNormal method, the normal of a
+     * Plane is the same everywhere.
+     * @param hit A RayHit object that was filled in by the intersect method.
+     * @param normal A MutableVector3D object in which the normal is stored.
+     */
+    @Override
+    public void computeNormal(RayHit hit, MutableVector3D normal) {
+        normal.set(this.normal);
+    }
+
+
+    /**
+     * Override the parent class' occludes method to only calculate the t
+     * value of the intersection.
+     * @param ray A Ray object representing the ray to check for intersection.
+     * @param maxT A double value representing the 'distance' up to which the
+     *             Plane blocks the ray.
+     * @return A boolean value which states if the Plane blocks the ray.
+     * @see utilities.Ray
+     */
+    @Override
+    public boolean occludes(Ray ray, double maxT) {
+        double directionDotNormal = ray.getDirectionX() * normal.x + ray.getDirectionY() * normal.y
+                + ray.getDirectionZ() * normal.z;
+        if (directionDotNormal != 0) {
+            double t = ((position.x - ray.getOriginX()) * normal.x + (position.y - ray.getOriginY()) * normal.y
+                    + (position.z - ray.getOriginZ()) * normal.z) / directionDotNormal;
+            return t > Ray.T_MIN && t < maxT;
+        }
+        return false;
     }
 }
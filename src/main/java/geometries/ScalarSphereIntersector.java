@@ -0,0 +1,57 @@
+package geometries;
+
+import utilities.Ray;
+
+
+/**
+ * The ScalarSphereIntersector class tests a ray against one sphere at a time
+ * in a plain loop over the arrays of a SphereSet.
+ * @see geometries.SphereIntersector
+ * @see geometries.SphereSet
+ *
+ * @author Timothy
+ */
+class ScalarSphereIntersector implements SphereIntersector {
+
+    @Override
+    public int intersect(Ray ray, double[] centerX, double[] centerY, double[] centerZ, double[] radii,
+                         int first, int count) {
+        double originX = ray.getOriginX();
+        double originY = ray.getOriginY();
+        double originZ = ray.getOriginZ();
+        double directionX = ray.getDirectionX();
+        double directionY = ray.getDirectionY();
+        double directionZ = ray.getDirectionZ();
+        double a = directionX * directionX + directionY * directionY + directionZ * directionZ;
+        double closestT = ray.getT();
+        int closest = -1;
+
+        for (int i = first; i < first + count; i++) {
+            double x = originX - centerX[i];
+            double y = originY - centerY[i];
+            double z = originZ - centerZ[i];
+
+            // Half of the b coefficient saves a few multiplications
+            double b = x * directionX + y * directionY + z * directionZ;
+            double c = x * x + y * y + z * z - radii[i] * radii[i];
+            double discriminant = b * b - a * c;
+
+            if (discriminant > 0) {
+                double root = Math.sqrt(discriminant);
+                double t = (-b - root) / a;
+                if (t <= Ray.T_MIN) {
+                    t = (-b + root) / a;
+                }
+                if (t > Ray.T_MIN && t < closestT) {
+                    closestT = t;
+                    closest = i;
+                }
+            }
+        }
+
+        if (closest >= 0) {
+            ray.setT(closestT);
+        }
+        return closest;
+    }
+}
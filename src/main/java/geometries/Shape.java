@@ -1,54 +1,120 @@
 package geometries;
 
 import renderer.SceneObject;
+import utilities.BoundingBox;
+import utilities.Color;
+import utilities.MutableVector3D;
 import utilities.Ray;
 import utilities.RayHit;
 
 /**
- * Abstract class Shape from which geometries can inherit the abstract method
- * intersects. This class in turn inherits from abstract class SceneObject to
- * also give the geometry a color and position.
+ * Abstract class Shape from which geometries can inherit the abstract methods
+ * intersect and computeNormal. This class in turn inherits from abstract
+ * class SceneObject to also give the geometry a color and position.
  * @see renderer.SceneObject
  *
  * @author Timothy
  */
 public abstract class Shape extends SceneObject {
+    private static final long serialVersionUID = 1L;
     protected float reflection;
 
     /**
-     * Abstract intersects method that need to be overridden by all the
-     * geometries that extend this class. It is created so that geometries can
-     * implement their own version of this method to see if the ray intersects
-     * with a geometry.
+     * Abstract intersect method that needs to be overridden by all the
+     * geometries that extend this class. It looks if the ray hits the
+     * geometry closer than the ray's current t value. If it does, it only
+     * stores the t value, the shape and the primitive in the RayHit object
+     * and lowers the ray's t value to the hit, so that the following
+     * geometries only count when they are even closer. The hit point and
+     * normal are left for the RayHit object to calculate when they are
+     * needed.
+     * @param ray A Ray object to check for intersection.
+     * @param hit A RayHit object in which the hit is stored. It is left
+     *            unchanged if the geometry isn't hit closer.
+     * @return A boolean value which states if the geometry was hit closer
+     *         than the ray's t value.
+     * @see utilities.Ray
+     * @see utilities.RayHit
+     */
+    public abstract boolean intersect(Ray ray, RayHit hit);
+
+
+    /**
+     * Abstract computeNormal method that needs to be overridden by all the
+     * geometries that extend this class. The RayHit object calls it for the
+     * hit that is shaded.
+     * @param hit A RayHit object that was filled in by the intersect method
+     *            of this geometry.
+     * @param normal A MutableVector3D object in which the normal at the hit
+     *               point is stored. It doesn't have to be normalized.
+     * @see utilities.RayHit
+     */
+    public abstract void computeNormal(RayHit hit, MutableVector3D normal);
+
+
+    /**
+     * The intersects method is the convenience version of the intersect
+     * method which creates a new RayHit object. The ray's t value is used as
+     * the upper bound, but isn't changed.
      * @param ray A Ray object to check for intersection
      * @return A RayHit object which contains information
-     *         about the intersected geometry and the intersection point.
+     *         about the intersected geometry and the intersection point, or
+     *         null if the geometry isn't hit.
      * @see utilities.Ray
      * @see utilities.RayHit
      */
-    public abstract RayHit intersects(Ray ray);
+    public RayHit intersects(Ray ray) {
+        RayHit hit = new RayHit();
+        double maxT = ray.getT();
+        boolean found = intersect(ray, hit);
+        ray.setT(maxT);
+        return found ? hit : null;
+    }
+
+
+    /**
+     * The getBoundingBox method is overridden by the geometries which have a
+     * finite size, so that the Scene can put them in a bounding volume
+     * hierarchy. Geometries without a bounding box, like an infinite plane,
+     * are tested by every ray.
+     * @return A BoundingBox object that fully contains the geometry, or null
+     *         if the geometry is unbounded.
+     * @see utilities.BoundingBox
+     * @see utilities.BoundingVolumeHierarchy
+     */
+    public BoundingBox getBoundingBox() {
+        return null;
+    }
+
+    /**
+     * The occludes method looks if the ray hits the geometry anywhere between
+     * T_MIN and maxT, for example to see if a shadow ray is blocked. Unlike
+     * the intersects method it doesn't have to find the closest hit or
+     * create a RayHit object, so geometries override it with a cheaper test.
+     * @param ray A Ray object representing the ray to check for intersection.
+     * @param maxT A double value representing the 'distance' up to which the
+     *             geometry blocks the ray.
+     * @return A boolean value which states if the geometry blocks the ray.
+     * @see utilities.Ray
+     */
+    public boolean occludes(Ray ray, double maxT) {
+        RayHit hit = intersects(ray);
+        return hit != null && hit.getT() < maxT;
+    }
 
     /**
      * The doesIntersect method looks if the 'distance'(t) to object is in the
-     * specified range. If it is it intersects.
+     * specified range. If it is it intersects. The Ray object itself is not
+     * changed, the caller decides if the hit is the closest one.
      * @param t A double value representing the 'distance' to an object along
      *          the ray which we check for intersection
-     * @param ray A Ray object who's t-value we need to check and if necessary
-     *            also set.
+     * @param ray A Ray object who's t-value is used as the upper bound of the
+     *            range.
      * @return A boolean value which states if an intersection happened or not.
      * @see utilities.Ray
      */
     public boolean doesIntersect(double t, Ray ray) {
-        boolean intersects = false;
-
-        if (t > Ray.T_MIN && t < ray.getT()) {
-
-            // Inside range
-            ray.setT(t);
-            intersects = true;
-        }
-
-        return intersects;
+        return t > Ray.T_MIN && t < ray.getT();
     }
 
     /**
@@ -67,4 +133,33 @@ public abstract class Shape extends SceneObject {
     public float getReflection() {
         return reflection;
     }
+
+
+    /**
+     * The getColor method with a primitive index is overridden by shapes
+     * that consist of multiple primitives with their own material. By
+     * default every primitive has the color of the shape.
+     * @param primitive An int value representing the index of the primitive,
+     *                  as stored in a RayHit object.
+     * @return A Color object that represents the color of the primitive.
+     * @see utilities.RayHit#getPrimitive()
+     */
+    public Color getColor(int primitive) {
+        return getColor();
+    }
+
+
+    /**
+     * The getReflection method with a primitive index is overridden by
+     * shapes that consist of multiple primitives with their own material. By
+     * default every primitive has the reflection value of the shape.
+     * @param primitive An int value representing the index of the primitive,
+     *                  as stored in a RayHit object.
+     * @return A float value which states the reflection value of the
+     *         primitive.
+     * @see utilities.RayHit#getPrimitive()
+     */
+    public float getReflection(int primitive) {
+        return getReflection();
+    }
 }
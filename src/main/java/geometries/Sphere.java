@@ -1,6 +1,8 @@
 package geometries;
 
+import utilities.BoundingBox;
 import utilities.Color;
+import utilities.MutableVector3D;
 import utilities.Ray;
 import utilities.RayHit;
 import utilities.Vector3D;
@@ -14,6 +16,7 @@ import utilities.Vector3D;
  * @author Timothy
  */
 public class Sphere extends Shape{
+    private static final long serialVersionUID = 1L;
     private double radius;
 
 
@@ -37,27 +40,32 @@ public class Sphere extends Shape{
     }
 
     /**
-     * Override abstract parent class' intersects method to see if the ray
+     * Override abstract parent class' intersect method to see if the ray
      * intersects with the Sphere geometry.
      * @param ray A Ray object representing the ray to check for intersection.
-     * @return A RayHit object which contains information
-     *         about the intersected plane and the intersection point.
+     * @param hit A RayHit object in which the hit is stored.
+     * @return A boolean value which states if the sphere was hit closer than
+     *         the ray's t value.
      * @see utilities.Ray
      * @see utilities.RayHit
      */
     @Override
-    public RayHit intersects(Ray ray) {
-        RayHit rayHit = null;
+    public boolean intersect(Ray ray, RayHit hit) {
 
         // Save ray origin and direction to local variables to save a lot of
-        // writing and subtract the origin with the position of the sphere
-        Vector3D rayOrigin = ray.getOrigin().subtract(position);
-        Vector3D rayDirection = ray.getDirection();
+        // writing and subtract the origin with the position of the sphere.
+        // Working on the components avoids allocating Vector3D objects.
+        double originX = ray.getOriginX() - position.x;
+        double originY = ray.getOriginY() - position.y;
+        double originZ = ray.getOriginZ() - position.z;
+        double directionX = ray.getDirectionX();
+        double directionY = ray.getDirectionY();
+        double directionZ = ray.getDirectionZ();
 
         // Calculate the coefficients
-        double a = rayDirection.dot(rayDirection);
-        double b = 2 * rayOrigin.dot(rayDirection);
-        double c = rayOrigin.dot(rayOrigin) - radius * radius;
+        double a = directionX * directionX + directionY * directionY + directionZ * directionZ;
+        double b = 2 * (originX * directionX + originY * directionY + originZ * directionZ);
+        double c = originX * originX + originY * originY + originZ * originZ - radius * radius;
 
         // Check if we intersect
         double discriminant = b * b - 4 * a * c;
@@ -68,28 +76,94 @@ public class Sphere extends Shape{
             double t1 = (-b - Math.sqrt(discriminant)) / (2 * a);
             double t2 = (-b + Math.sqrt(discriminant)) / (2 * a);
 
-            if (t1 > 0 || t2 > 0) {
-
-                double t;
-                Vector3D normal;
-                Vector3D intersection;
-
-                if (t1 < 0 && t2 > 0) {
-                    // Ray origin lies inside sphere
-                    t = t2;
-                    intersection = ray.getEndPoint(t);
-                    normal = intersection.subtract(position);
-                } else {
-                    // Both roots are positive
-                    t = t1;
-                    intersection = ray.getEndPoint(t);
-                    normal = position.subtract(intersection);
-                }
-
-                rayHit = new RayHit(ray, this, normal, intersection);
+            // Use the closest root in front of the ray, if t1 is behind
+            // the ray origin it lies inside the sphere
+            double t = t1 <= Ray.T_MIN ? t2 : t1;
+
+            if (doesIntersect(t, ray)) {
+                hit.set(ray, this, t, 0);
+                ray.setT(t);
+                return true;
             }
         }
 
-        return rayHit;
+        return false;
+    }
+
+
+    /**
+     * Override abstract parent class' computeNormal method. The normal points
+     * inwards when the first root was hit, and outwards when the ray came
+     * from inside the sphere and hit the second root.
+     * @param hit A RayHit object that was filled in by the intersect method.
+     * @param normal A MutableVector3D object in which the normal is stored.
+     */
+    @Override
+    public void computeNormal(RayHit hit, MutableVector3D normal) {
+        Ray ray = hit.getRay();
+        double originX = ray.getOriginX() - position.x;
+        double originY = ray.getOriginY() - position.y;
+        double originZ = ray.getOriginZ() - position.z;
+        double directionX = ray.getDirectionX();
+        double directionY = ray.getDirectionY();
+        double directionZ = ray.getDirectionZ();
+
+        double a = directionX * directionX + directionY * directionY + directionZ * directionZ;
+        double b = 2 * (originX * directionX + originY * directionY + originZ * directionZ);
+        double c = originX * originX + originY * originY + originZ * originZ - radius * radius;
+        double t1 = (-b - Math.sqrt(b * b - 4 * a * c)) / (2 * a);
+
+        ray.getEndPoint(hit.getT(), normal);
+        if (t1 <= Ray.T_MIN) {
+            normal.subtract(position);
+        } else {
+            normal.set(position.x - normal.x, position.y - normal.y, position.z - normal.z);
+        }
+    }
+
+
+    /**
+     * Override the parent class' occludes method to only solve the quadratic
+     * equation. The Sphere blocks the ray if the root that the intersects
+     * method would use lies before maxT.
+     * @param ray A Ray object representing the ray to check for intersection.
+     * @param maxT A double value representing the 'distance' up to which the
+     *             Sphere blocks the ray.
+     * @return A boolean value which states if the Sphere blocks the ray.
+     * @see utilities.Ray
+     */
+    @Override
+    public boolean occludes(Ray ray, double maxT) {
+        double originX = ray.getOriginX() - position.x;
+        double originY = ray.getOriginY() - position.y;
+        double originZ = ray.getOriginZ() - position.z;
+        double directionX = ray.getDirectionX();
+        double directionY = ray.getDirectionY();
+        double directionZ = ray.getDirectionZ();
+
+        double a = directionX * directionX + directionY * directionY + directionZ * directionZ;
+        double b = 2 * (originX * directionX + originY * directionY + originZ * directionZ);
+        double c = originX * originX + originY * originY + originZ * originZ - radius * radius;
+        double discriminant = b * b - 4 * a * c;
+
+        if (discriminant > 0) {
+            double t1 = (-b - Math.sqrt(discriminant)) / (2 * a);
+            double t = t1 <= Ray.T_MIN ? (-b + Math.sqrt(discriminant)) / (2 * a) : t1;
+            return t > Ray.T_MIN && t < maxT;
+        }
+        return false;
+    }
+
+
+    /**
+     * Override the parent class' getBoundingBox method to give the Sphere a
+     * box around its center with the radius in every direction.
+     * @return A BoundingBox object that fully contains the Sphere.
+     * @see utilities.BoundingBox
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        Vector3D extent = new Vector3D(radius, radius, radius);
+        return new BoundingBox(position.subtract(extent), position.add(extent));
     }
 }
@@ -0,0 +1,80 @@
+package geometries;
+
+import utilities.Ray;
+
+
+/**
+ * The SphereIntersector interface is the kernel that a SphereSet uses to
+ * test a ray against a range of spheres stored in flat arrays. There is a
+ * scalar implementation that works everywhere and one that uses the
+ * incubating Java Vector API to test several spheres per instruction, which
+ * is only used when the jdk.incubator.vector module is available (start the
+ * JVM with --add-modules jdk.incubator.vector).
+ * @see geometries.SphereSet
+ *
+ * @author Timothy
+ */
+public interface SphereIntersector {
+
+    /**
+     * The name of the system property which can be set to false to always
+     * use the scalar kernel.
+     */
+    String SIMD_PROPERTY = "raytracer.simd";
+
+
+    /**
+     * The intersect method tests the ray against a contiguous range of
+     * spheres and keeps track of the closest hit that lies before the ray's
+     * current t value.
+     * @param ray A Ray object representing the ray to check for intersection.
+     * @param centerX A double array with the x coordinates of the centers.
+     * @param centerY A double array with the y coordinates of the centers.
+     * @param centerZ A double array with the z coordinates of the centers.
+     * @param radii A double array with the radii of the spheres.
+     * @param first An int value representing the first sphere to test.
+     * @param count An int value representing the amount of spheres to test.
+     * @return An int value representing the index of the closest hit sphere
+     *         in the range, or -1 if none of them is hit before the ray's t
+     *         value. The ray's t value is set to the distance of the hit.
+     */
+    int intersect(Ray ray, double[] centerX, double[] centerY, double[] centerZ, double[] radii,
+                  int first, int count);
+
+
+    /**
+     * @return A SphereIntersector object that tests one sphere at a time.
+     */
+    static SphereIntersector scalar() {
+        return new ScalarSphereIntersector();
+    }
+
+
+    /**
+     * @return A boolean value which is true if the jdk.incubator.vector
+     *         module was added to the JVM.
+     */
+    static boolean isVectorApiAvailable() {
+        return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    }
+
+
+    /**
+     * The fastest method returns the Vector API kernel if the module is
+     * available and not turned off with the raytracer.simd system property,
+     * and the scalar kernel otherwise. The Vector API kernel is loaded by
+     * reflection so that this interface doesn't depend on the module.
+     * @return The fastest SphereIntersector object that can run on this JVM.
+     */
+    static SphereIntersector fastest() {
+        if (isVectorApiAvailable() && !"false".equals(System.getProperty(SIMD_PROPERTY))) {
+            try {
+                return (SphereIntersector) Class.forName("geometries.VectorSphereIntersector")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                System.out.println("Vector API kernel unavailable, using the scalar kernel: " + e);
+            }
+        }
+        return scalar();
+    }
+}
@@ -0,0 +1,421 @@
+package geometries;
+
+import utilities.BoundingBox;
+import utilities.BoundingVolumeHierarchy;
+import utilities.Color;
+import utilities.MutableVector3D;
+import utilities.Ray;
+import utilities.RayHit;
+import utilities.Vector3D;
+
+import java.util.Arrays;
+
+
+/**
+ * The SphereSet class is a geometry that holds many spheres in flat arrays
+ * instead of a Sphere object per sphere. The centers, radii and material
+ * indices of all the spheres are stored next to each other, so that a ray
+ * can be tested against a whole range of spheres in one tight loop without
+ * following a pointer per sphere. This is the layout to use for scenes with
+ * millions of spheres, a Sphere object with its Vector3D and Color objects
+ * takes several times more memory.
+ *
+ * The spheres are put in their own bounding volume hierarchy the first time
+ * a ray is tested, with leaves of a few spheres that are tested together by
+ * a SphereIntersector kernel, which uses SIMD instructions when the Java
+ * Vector API is available.
+ * Building the hierarchy reorders the spheres, so the primitive index in a
+ * RayHit object refers to the order after the last build.
+ * @see geometries.Sphere
+ * @see geometries.SphereIntersector
+ * @see utilities.BoundingVolumeHierarchy
+ *
+ * @author Timothy
+ */
+public class SphereSet extends Shape {
+    private static final long serialVersionUID = 1L;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int LEAF_SIZE = 8;
+    private static final ThreadLocal<ClosestSphere> TRAVERSALS = ThreadLocal.withInitial(ClosestSphere::new);
+    private static final SphereIntersector INTERSECTOR = SphereIntersector.fastest();
+
+    private double[] centerX;
+    private double[] centerY;
+    private double[] centerZ;
+    private double[] radii;
+    private int[] materials;
+    private int size;
+
+    private Color[] materialColors;
+    private float[] materialReflections;
+    private int materialCount;
+
+    private transient volatile BoundingVolumeHierarchy hierarchy;
+
+
+    /**
+     * Creates a new empty SphereSet object. Materials are added with the
+     * addMaterial method and spheres with the add method.
+     */
+    public SphereSet() {
+        this.position = new Vector3D();
+        this.color = new Color();
+        this.centerX = new double[INITIAL_CAPACITY];
+        this.centerY = new double[INITIAL_CAPACITY];
+        this.centerZ = new double[INITIAL_CAPACITY];
+        this.radii = new double[INITIAL_CAPACITY];
+        this.materials = new int[INITIAL_CAPACITY];
+        this.materialColors = new Color[INITIAL_CAPACITY];
+        this.materialReflections = new float[INITIAL_CAPACITY];
+    }
+
+
+    /**
+     * The addMaterial method adds a color and reflection value that spheres
+     * can refer to by its index.
+     * @param color A Color object representing the color of the material.
+     * @param reflection A float value representing the reflection value of
+     *                   the material.
+     * @return An int value representing the index of the new material.
+     * @see utilities.Color
+     */
+    public int addMaterial(Color color, float reflection) {
+        if (materialCount == materialColors.length) {
+            materialColors = Arrays.copyOf(materialColors, materialCount * 2);
+            materialReflections = Arrays.copyOf(materialReflections, materialCount * 2);
+        }
+        materialColors[materialCount] = new Color(color);
+        materialReflections[materialCount] = reflection;
+        return materialCount++;
+    }
+
+
+    /**
+     * The add method adds a sphere with the specified center, radius and
+     * material to the set.
+     * @param center A Vector3D object which represents the center of the
+     *               sphere.
+     * @param radius A double value which represents the sphere's radius.
+     * @param material An int value which represents the index of a material
+     *                 returned by the addMaterial method.
+     * @return An int value representing the index of the new sphere.
+     */
+    public int add(Vector3D center, double radius, int material) {
+        return add(center.x, center.y, center.z, radius, material);
+    }
+
+
+    /**
+     * The add method adds a sphere with the specified center, radius and
+     * material to the set. Loaders use this method so they don't have to
+     * create a Vector3D object per sphere.
+     * @param x A double value which represents the x coordinate of the center.
+     * @param y A double value which represents the y coordinate of the center.
+     * @param z A double value which represents the z coordinate of the center.
+     * @param radius A double value which represents the sphere's radius.
+     * @param material An int value which represents the index of a material
+     *                 returned by the addMaterial method.
+     * @return An int value representing the index of the new sphere.
+     */
+    public synchronized int add(double x, double y, double z, double radius, int material) {
+        if (material < 0 || material >= materialCount) {
+            throw new IllegalArgumentException("Unknown material " + material);
+        }
+        if (size == radii.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, size * 2);
+            centerX = Arrays.copyOf(centerX, capacity);
+            centerY = Arrays.copyOf(centerY, capacity);
+            centerZ = Arrays.copyOf(centerZ, capacity);
+            radii = Arrays.copyOf(radii, capacity);
+            materials = Arrays.copyOf(materials, capacity);
+        }
+        centerX[size] = x;
+        centerY[size] = y;
+        centerZ[size] = z;
+        radii[size] = radius;
+        materials[size] = material;
+        hierarchy = null;
+        return size++;
+    }
+
+
+    /**
+     * @return An int value that represents the amount of spheres in the set.
+     */
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * @param sphere An int value representing the index of a sphere.
+     * @return A Vector3D object that represents the center of the sphere.
+     */
+    public Vector3D getCenter(int sphere) {
+        return new Vector3D(centerX[sphere], centerY[sphere], centerZ[sphere]);
+    }
+
+
+    /**
+     * @param sphere An int value representing the index of a sphere.
+     * @return A double value that represents the radius of the sphere.
+     */
+    public double getRadius(int sphere) {
+        return radii[sphere];
+    }
+
+
+    /**
+     * Override the parent class' getColor method to return the color of the
+     * material of the sphere.
+     * @param primitive An int value representing the index of the sphere.
+     * @return A Color object that represents the color of the sphere.
+     */
+    @Override
+    public Color getColor(int primitive) {
+        return materialColors[materials[primitive]];
+    }
+
+
+    /**
+     * Override the parent class' getReflection method to return the
+     * reflection value of the material of the sphere.
+     * @param primitive An int value representing the index of the sphere.
+     * @return A float value which states the reflection value of the sphere.
+     */
+    @Override
+    public float getReflection(int primitive) {
+        return materialReflections[materials[primitive]];
+    }
+
+
+    /**
+     * Override the parent class' isReflective method, the set is reflective
+     * if any of its materials is.
+     * @return A boolean value that's true if any material has a reflection
+     *         value greater than zero.
+     */
+    @Override
+    public boolean isReflective() {
+        for (int material = 0; material < materialCount; material++) {
+            if (materialReflections[material] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Override the parent class' getBoundingBox method to give the SphereSet
+     * a box around all of its spheres, which is the box of the root of its
+     * hierarchy. Instances that share the set don't loop over the spheres.
+     * @return A BoundingBox object that fully contains all the spheres, or
+     *         null if the set is empty.
+     * @see utilities.BoundingBox
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        if (size == 0) {
+            return null;
+        }
+        return getHierarchy().getBounds();
+    }
+
+
+    /**
+     * Override abstract parent class' intersect method to find the closest
+     * sphere in the set that the ray intersects with. The ray's t value is
+     * used to prune the hierarchy while searching.
+     * @param ray A Ray object representing the ray to check for intersection.
+     * @param hit A RayHit object in which the hit is stored, including the
+     *            index of the sphere.
+     * @return A boolean value which states if a sphere was hit closer than
+     *         the ray's t value.
+     * @see utilities.Ray
+     * @see utilities.RayHit
+     */
+    @Override
+    public boolean intersect(Ray ray, RayHit hit) {
+        BoundingVolumeHierarchy current = getHierarchy();
+        ClosestSphere closest = TRAVERSALS.get();
+
+        closest.set = this;
+        closest.sphere = -1;
+        current.traverse(ray, closest, closest.stack);
+        closest.set = null;
+
+        if (closest.sphere < 0) {
+            return false;
+        }
+        hit.set(ray, this, ray.getT(), closest.sphere);
+        return true;
+    }
+
+
+    /**
+     * Override abstract parent class' computeNormal method. Like the Sphere,
+     * the normal points inwards when the ray starts outside the sphere.
+     * @param hit A RayHit object that was filled in by the intersect method.
+     * @param normal A MutableVector3D object in which the normal is stored.
+     */
+    @Override
+    public void computeNormal(RayHit hit, MutableVector3D normal) {
+        Ray ray = hit.getRay();
+        int sphere = hit.getPrimitive();
+        double originX = ray.getOriginX() - centerX[sphere];
+        double originY = ray.getOriginY() - centerY[sphere];
+        double originZ = ray.getOriginZ() - centerZ[sphere];
+
+        ray.getEndPoint(hit.getT(), normal);
+        if (originX * originX + originY * originY + originZ * originZ < radii[sphere] * radii[sphere]) {
+            normal.set(normal.x - centerX[sphere], normal.y - centerY[sphere], normal.z - centerZ[sphere]);
+        } else {
+            normal.set(centerX[sphere] - normal.x, centerY[sphere] - normal.y, centerZ[sphere] - normal.z);
+        }
+    }
+
+
+    /**
+     * Override the parent class' occludes method to stop at the first sphere
+     * that blocks the ray, instead of searching for the closest one.
+     * @param ray A Ray object representing the ray to check for intersection.
+     * @param maxT A double value representing the 'distance' up to which the
+     *             spheres block the ray.
+     * @return A boolean value which states if any sphere blocks the ray.
+     * @see utilities.Ray
+     */
+    @Override
+    public boolean occludes(Ray ray, double maxT) {
+        BoundingVolumeHierarchy current = getHierarchy();
+        ClosestSphere closest = TRAVERSALS.get();
+        double rayT = ray.getT();
+        ray.setT(maxT);
+
+        closest.set = this;
+        closest.sphere = -1;
+        closest.anyHit = true;
+        current.traverse(ray, closest, closest.stack);
+        closest.set = null;
+        closest.anyHit = false;
+
+        ray.setT(rayT);
+        return closest.sphere >= 0;
+    }
+
+
+    /**
+     * Override the parent class' setPosition method to move all the spheres
+     * along with the position of the set, which starts at the origin. The
+     * hierarchy over the spheres keeps its shape, so it is refitted instead
+     * of built again.
+     * @param position A Vector3D object that specifies the new position of
+     *                 the set.
+     * @see utilities.BoundingVolumeHierarchy#refit(double[])
+     */
+    @Override
+    public synchronized void setPosition(Vector3D position) {
+        double dx = position.x - this.position.x;
+        double dy = position.y - this.position.y;
+        double dz = position.z - this.position.z;
+        for (int i = 0; i < size; i++) {
+            centerX[i] += dx;
+            centerY[i] += dy;
+            centerZ[i] += dz;
+        }
+        this.position = new Vector3D(position);
+        if (hierarchy != null) {
+            hierarchy.refit(sphereBounds());
+        }
+    }
+
+
+    /**
+     * The getHierarchy method returns the bounding volume hierarchy over the
+     * spheres and builds it if spheres were added since the last build.
+     * @return A BoundingVolumeHierarchy object over all the spheres.
+     */
+    private BoundingVolumeHierarchy getHierarchy() {
+        BoundingVolumeHierarchy current = hierarchy;
+        if (current == null) {
+            current = buildHierarchy();
+        }
+        return current;
+    }
+
+
+    /**
+     * The buildHierarchy method builds the bounding volume hierarchy over the
+     * spheres and puts the arrays in the order of its leaves, so that every
+     * leaf is a contiguous range of spheres. The arrays are trimmed to the
+     * amount of spheres at the same time.
+     * @return The BoundingVolumeHierarchy object that was built.
+     */
+    private synchronized BoundingVolumeHierarchy buildHierarchy() {
+        if (hierarchy == null) {
+            BoundingVolumeHierarchy built = new BoundingVolumeHierarchy(sphereBounds(), LEAF_SIZE);
+            int[] order = built.getPrimitiveOrder();
+            centerX = reorder(centerX, order);
+            centerY = reorder(centerY, order);
+            centerZ = reorder(centerZ, order);
+            radii = reorder(radii, order);
+
+            int[] sortedMaterials = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                sortedMaterials[i] = materials[order[i]];
+            }
+            materials = sortedMaterials;
+            hierarchy = built;
+        }
+        return hierarchy;
+    }
+
+
+    private double[] sphereBounds() {
+        double[] bounds = new double[size * 6];
+        for (int i = 0; i < size; i++) {
+            bounds[i * 6] = centerX[i] - radii[i];
+            bounds[i * 6 + 1] = centerY[i] - radii[i];
+            bounds[i * 6 + 2] = centerZ[i] - radii[i];
+            bounds[i * 6 + 3] = centerX[i] + radii[i];
+            bounds[i * 6 + 4] = centerY[i] + radii[i];
+            bounds[i * 6 + 5] = centerZ[i] + radii[i];
+        }
+        return bounds;
+    }
+
+
+    private static double[] reorder(double[] values, int[] order) {
+        double[] sorted = new double[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sorted[i] = values[order[i]];
+        }
+        return sorted;
+    }
+
+
+    /**
+     * The ClosestSphere class is the visitor that a SphereSet passes to its
+     * bounding volume hierarchy. Every thread has its own, together with the
+     * traversal stack, so that intersecting a SphereSet doesn't allocate
+     * anything unless a sphere is hit. For occlusion queries it stops the
+     * traversal at the first sphere that is hit.
+     * @see utilities.BoundingVolumeHierarchy.LeafVisitor
+     */
+    private static class ClosestSphere implements BoundingVolumeHierarchy.LeafVisitor {
+        private final BoundingVolumeHierarchy.Stack stack = new BoundingVolumeHierarchy.Stack();
+        private SphereSet set;
+        private int sphere;
+        private boolean anyHit;
+
+        @Override
+        public boolean visit(int first, int count, Ray ray) {
+            int hit = INTERSECTOR.intersect(ray, set.centerX, set.centerY, set.centerZ, set.radii, first, count);
+            if (hit >= 0) {
+                sphere = hit;
+                return anyHit;
+            }
+            return false;
+        }
+    }
+}
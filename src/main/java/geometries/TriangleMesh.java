@@ -0,0 +1,424 @@
+package geometries;
+
+import utilities.BoundingBox;
+import utilities.BoundingVolumeHierarchy;
+import utilities.Color;
+import utilities.MutableVector3D;
+import utilities.Ray;
+import utilities.RayHit;
+import utilities.Vector3D;
+
+import java.util.Arrays;
+
+
+/**
+ * The TriangleMesh class is a geometry that consists of triangles which
+ * share their vertices, like the models that are loaded from OBJ files. The
+ * coordinates of the vertices are stored in flat arrays and every triangle
+ * is three indices into them, so a mesh with a million triangles is a single
+ * Shape of a few dozen megabytes instead of a million objects that the Scene
+ * has to put in its own hierarchy.
+ *
+ * The triangles are put in their own bounding volume hierarchy the first
+ * time a ray is tested, and the triangles of a leaf are tested with the
+ * Möller–Trumbore algorithm, which needs no precomputed plane per triangle.
+ * Building the hierarchy reorders the triangles, so the primitive index in a
+ * RayHit object and the getTriangle method refer to the order after the last
+ * build. The whole mesh has one color and reflection value.
+ * @see geometries.SphereSet
+ * @see loaders.ObjLoader
+ * @see utilities.BoundingVolumeHierarchy
+ *
+ * @author Timothy
+ */
+public class TriangleMesh extends Shape {
+    private static final long serialVersionUID = 1L;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int LEAF_SIZE = 4;
+    private static final ThreadLocal<ClosestTriangle> TRAVERSALS = ThreadLocal.withInitial(ClosestTriangle::new);
+
+    private double[] vertexX;
+    private double[] vertexY;
+    private double[] vertexZ;
+    private int vertexCount;
+    private int[] triangles;
+    private int triangleCount;
+
+    private transient volatile BoundingVolumeHierarchy hierarchy;
+
+
+    /**
+     * Creates a new empty TriangleMesh object with the specified color and
+     * reflection value. Vertices are added with the addVertex method and
+     * triangles with the addTriangle method.
+     * @param color A Color object representing the color of the mesh.
+     * @param reflection A float value representing the reflection value of
+     *                   the mesh.
+     * @see utilities.Color
+     */
+    public TriangleMesh(Color color, float reflection) {
+        this.position = new Vector3D();
+        this.color = new Color(color);
+        this.reflection = reflection;
+        this.vertexX = new double[INITIAL_CAPACITY];
+        this.vertexY = new double[INITIAL_CAPACITY];
+        this.vertexZ = new double[INITIAL_CAPACITY];
+        this.triangles = new int[INITIAL_CAPACITY * 3];
+    }
+
+
+    /**
+     * The addVertex method adds a vertex that triangles can refer to by its
+     * index. Loaders use this method so they don't have to create a Vector3D
+     * object per vertex.
+     * @param x A double value which represents the x coordinate of the vertex.
+     * @param y A double value which represents the y coordinate of the vertex.
+     * @param z A double value which represents the z coordinate of the vertex.
+     * @return An int value representing the index of the new vertex.
+     */
+    public synchronized int addVertex(double x, double y, double z) {
+        if (vertexCount == vertexX.length) {
+            int capacity = vertexCount * 2;
+            vertexX = Arrays.copyOf(vertexX, capacity);
+            vertexY = Arrays.copyOf(vertexY, capacity);
+            vertexZ = Arrays.copyOf(vertexZ, capacity);
+        }
+        vertexX[vertexCount] = x;
+        vertexY[vertexCount] = y;
+        vertexZ[vertexCount] = z;
+        hierarchy = null;
+        return vertexCount++;
+    }
+
+
+    /**
+     * The addTriangle method adds a triangle between three vertices that were
+     * added before. The order of the vertices doesn't matter, triangles are
+     * hit from both sides.
+     * @param a An int value representing the index of the first vertex.
+     * @param b An int value representing the index of the second vertex.
+     * @param c An int value representing the index of the third vertex.
+     * @return An int value representing the index of the new triangle.
+     */
+    public synchronized int addTriangle(int a, int b, int c) {
+        if (a < 0 || a >= vertexCount || b < 0 || b >= vertexCount || c < 0 || c >= vertexCount) {
+            throw new IllegalArgumentException("Unknown vertex in triangle " + a + ", " + b + ", " + c
+                    + " of a mesh with " + vertexCount + " vertices");
+        }
+        if (triangleCount * 3 == triangles.length) {
+            triangles = Arrays.copyOf(triangles, triangles.length * 2);
+        }
+        triangles[triangleCount * 3] = a;
+        triangles[triangleCount * 3 + 1] = b;
+        triangles[triangleCount * 3 + 2] = c;
+        hierarchy = null;
+        return triangleCount++;
+    }
+
+
+    /**
+     * @return An int value that represents the amount of vertices in the
+     *         mesh.
+     */
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+
+    /**
+     * @return An int value that represents the amount of triangles in the
+     *         mesh.
+     */
+    public int getTriangleCount() {
+        return triangleCount;
+    }
+
+
+    /**
+     * @param vertex An int value representing the index of a vertex.
+     * @return A Vector3D object that represents the position of the vertex.
+     */
+    public Vector3D getVertex(int vertex) {
+        return new Vector3D(vertexX[vertex], vertexY[vertex], vertexZ[vertex]);
+    }
+
+
+    /**
+     * @param triangle An int value representing the index of a triangle.
+     * @return An int array with the indices of the three vertices of the
+     *         triangle.
+     */
+    public int[] getTriangle(int triangle) {
+        return Arrays.copyOfRange(triangles, triangle * 3, triangle * 3 + 3);
+    }
+
+
+    /**
+     * Override the parent class' getBoundingBox method to give the
+     * TriangleMesh a box around all of its triangles, which is the box of the
+     * root of its hierarchy.
+     * @return A BoundingBox object that fully contains all the triangles, or
+     *         null if the mesh has no triangles.
+     * @see utilities.BoundingBox
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        if (triangleCount == 0) {
+            return null;
+        }
+        return getHierarchy().getBounds();
+    }
+
+
+    /**
+     * Override abstract parent class' intersect method to find the closest
+     * triangle of the mesh that the ray intersects with. The ray's t value is
+     * used to prune the hierarchy while searching.
+     * @param ray A Ray object representing the ray to check for intersection.
+     * @param hit A RayHit object in which the hit is stored, including the
+     *            index of the triangle.
+     * @return A boolean value which states if a triangle was hit closer than
+     *         the ray's t value.
+     * @see utilities.Ray
+     * @see utilities.RayHit
+     */
+    @Override
+    public boolean intersect(Ray ray, RayHit hit) {
+        if (triangleCount == 0) {
+            return false;
+        }
+        BoundingVolumeHierarchy current = getHierarchy();
+        ClosestTriangle closest = TRAVERSALS.get();
+
+        closest.mesh = this;
+        closest.triangle = -1;
+        current.traverse(ray, closest, closest.stack);
+        closest.mesh = null;
+
+        if (closest.triangle < 0) {
+            return false;
+        }
+        hit.set(ray, this, ray.getT(), closest.triangle);
+        return true;
+    }
+
+
+    /**
+     * Override abstract parent class' computeNormal method, the normal of a
+     * triangle is the cross product of two of its edges and the same
+     * everywhere on the triangle.
+     * @param hit A RayHit object that was filled in by the intersect method.
+     * @param normal A MutableVector3D object in which the normal is stored.
+     */
+    @Override
+    public void computeNormal(RayHit hit, MutableVector3D normal) {
+        int triangle = hit.getPrimitive() * 3;
+        int a = triangles[triangle];
+        int b = triangles[triangle + 1];
+        int c = triangles[triangle + 2];
+        double edge1X = vertexX[b] - vertexX[a];
+        double edge1Y = vertexY[b] - vertexY[a];
+        double edge1Z = vertexZ[b] - vertexZ[a];
+        double edge2X = vertexX[c] - vertexX[a];
+        double edge2Y = vertexY[c] - vertexY[a];
+        double edge2Z = vertexZ[c] - vertexZ[a];
+        normal.set(edge1Y * edge2Z - edge1Z * edge2Y, edge1Z * edge2X - edge1X * edge2Z,
+                edge1X * edge2Y - edge1Y * edge2X);
+    }
+
+
+    /**
+     * Override the parent class' occludes method to stop at the first
+     * triangle that blocks the ray, instead of searching for the closest one.
+     * @param ray A Ray object representing the ray to check for intersection.
+     * @param maxT A double value representing the 'distance' up to which the
+     *             triangles block the ray.
+     * @return A boolean value which states if any triangle blocks the ray.
+     * @see utilities.Ray
+     */
+    @Override
+    public boolean occludes(Ray ray, double maxT) {
+        if (triangleCount == 0) {
+            return false;
+        }
+        BoundingVolumeHierarchy current = getHierarchy();
+        ClosestTriangle closest = TRAVERSALS.get();
+        double rayT = ray.getT();
+        ray.setT(maxT);
+
+        closest.mesh = this;
+        closest.triangle = -1;
+        closest.anyHit = true;
+        current.traverse(ray, closest, closest.stack);
+        closest.mesh = null;
+        closest.anyHit = false;
+
+        ray.setT(rayT);
+        return closest.triangle >= 0;
+    }
+
+
+    /**
+     * Override the parent class' setPosition method to move all the vertices
+     * along with the position of the mesh, which starts at the origin. The
+     * hierarchy over the triangles keeps its shape, so it is refitted instead
+     * of built again.
+     * @param position A Vector3D object that specifies the new position of
+     *                 the mesh.
+     * @see utilities.BoundingVolumeHierarchy#refit(double[])
+     */
+    @Override
+    public synchronized void setPosition(Vector3D position) {
+        double dx = position.x - this.position.x;
+        double dy = position.y - this.position.y;
+        double dz = position.z - this.position.z;
+        for (int i = 0; i < vertexCount; i++) {
+            vertexX[i] += dx;
+            vertexY[i] += dy;
+            vertexZ[i] += dz;
+        }
+        this.position = new Vector3D(position);
+        if (hierarchy != null) {
+            hierarchy.refit(triangleBounds());
+        }
+    }
+
+
+    /**
+     * The getHierarchy method returns the bounding volume hierarchy over the
+     * triangles and builds it if triangles were added since the last build.
+     * @return A BoundingVolumeHierarchy object over all the triangles.
+     */
+    private BoundingVolumeHierarchy getHierarchy() {
+        BoundingVolumeHierarchy current = hierarchy;
+        if (current == null) {
+            current = buildHierarchy();
+        }
+        return current;
+    }
+
+
+    /**
+     * The buildHierarchy method builds the bounding volume hierarchy over the
+     * triangles and puts the triangles in the order of its leaves, so that
+     * every leaf is a contiguous range of triangles. The vertices keep their
+     * order, and the arrays are trimmed at the same time.
+     * @return The BoundingVolumeHierarchy object that was built.
+     */
+    private synchronized BoundingVolumeHierarchy buildHierarchy() {
+        if (hierarchy == null) {
+            BoundingVolumeHierarchy built = new BoundingVolumeHierarchy(triangleBounds(), LEAF_SIZE);
+            int[] order = built.getPrimitiveOrder();
+            int[] sorted = new int[order.length * 3];
+            for (int i = 0; i < order.length; i++) {
+                System.arraycopy(triangles, order[i] * 3, sorted, i * 3, 3);
+            }
+            triangles = sorted;
+            vertexX = Arrays.copyOf(vertexX, vertexCount);
+            vertexY = Arrays.copyOf(vertexY, vertexCount);
+            vertexZ = Arrays.copyOf(vertexZ, vertexCount);
+            hierarchy = built;
+        }
+        return hierarchy;
+    }
+
+
+    private double[] triangleBounds() {
+        double[] bounds = new double[triangleCount * 6];
+        for (int i = 0; i < triangleCount; i++) {
+            int a = triangles[i * 3];
+            int b = triangles[i * 3 + 1];
+            int c = triangles[i * 3 + 2];
+            bounds[i * 6] = Math.min(vertexX[a], Math.min(vertexX[b], vertexX[c]));
+            bounds[i * 6 + 1] = Math.min(vertexY[a], Math.min(vertexY[b], vertexY[c]));
+            bounds[i * 6 + 2] = Math.min(vertexZ[a], Math.min(vertexZ[b], vertexZ[c]));
+            bounds[i * 6 + 3] = Math.max(vertexX[a], Math.max(vertexX[b], vertexX[c]));
+            bounds[i * 6 + 4] = Math.max(vertexY[a], Math.max(vertexY[b], vertexY[c]));
+            bounds[i * 6 + 5] = Math.max(vertexZ[a], Math.max(vertexZ[b], vertexZ[c]));
+        }
+        return bounds;
+    }
+
+
+    /**
+     * The ClosestTriangle class is the visitor that a TriangleMesh passes to
+     * its bounding volume hierarchy. Every thread has its own, together with
+     * the traversal stack, so that intersecting a TriangleMesh doesn't
+     * allocate anything unless a triangle is hit. For occlusion queries it
+     * stops the traversal at the first triangle that is hit.
+     * @see utilities.BoundingVolumeHierarchy.LeafVisitor
+     */
+    private static class ClosestTriangle implements BoundingVolumeHierarchy.LeafVisitor {
+        private final BoundingVolumeHierarchy.Stack stack = new BoundingVolumeHierarchy.Stack();
+        private TriangleMesh mesh;
+        private int triangle;
+        private boolean anyHit;
+
+        /**
+         * Tests the triangles of a leaf with the Möller–Trumbore algorithm,
+         * which solves the hit point in barycentric coordinates u and v of
+         * the triangle and t along the ray with Cramer's rule.
+         */
+        @Override
+        public boolean visit(int first, int count, Ray ray) {
+            double[] x = mesh.vertexX;
+            double[] y = mesh.vertexY;
+            double[] z = mesh.vertexZ;
+            int[] indices = mesh.triangles;
+            double originX = ray.getOriginX();
+            double originY = ray.getOriginY();
+            double originZ = ray.getOriginZ();
+            double directionX = ray.getDirectionX();
+            double directionY = ray.getDirectionY();
+            double directionZ = ray.getDirectionZ();
+
+            for (int i = first; i < first + count; i++) {
+                int a = indices[i * 3];
+                int b = indices[i * 3 + 1];
+                int c = indices[i * 3 + 2];
+                double edge1X = x[b] - x[a];
+                double edge1Y = y[b] - y[a];
+                double edge1Z = z[b] - z[a];
+                double edge2X = x[c] - x[a];
+                double edge2Y = y[c] - y[a];
+                double edge2Z = z[c] - z[a];
+
+                // The determinant is zero when the ray is parallel to the triangle
+                double pX = directionY * edge2Z - directionZ * edge2Y;
+                double pY = directionZ * edge2X - directionX * edge2Z;
+                double pZ = directionX * edge2Y - directionY * edge2X;
+                double determinant = edge1X * pX + edge1Y * pY + edge1Z * pZ;
+                if (determinant == 0) {
+                    continue;
+                }
+                double inverse = 1 / determinant;
+
+                double sX = originX - x[a];
+                double sY = originY - y[a];
+                double sZ = originZ - z[a];
+                double u = (sX * pX + sY * pY + sZ * pZ) * inverse;
+                if (u < 0 || u > 1) {
+                    continue;
+                }
+
+                double qX = sY * edge1Z - sZ * edge1Y;
+                double qY = sZ * edge1X - sX * edge1Z;
+                double qZ = sX * edge1Y - sY * edge1X;
+                double v = (directionX * qX + directionY * qY + directionZ * qZ) * inverse;
+                if (v < 0 || u + v > 1) {
+                    continue;
+                }
+
+                double t = (edge2X * qX + edge2Y * qY + edge2Z * qZ) * inverse;
+                if (t > Ray.T_MIN && t < ray.getT()) {
+                    ray.setT(t);
+                    triangle = i;
+                    if (anyHit) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+}
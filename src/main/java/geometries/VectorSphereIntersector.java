@@ -0,0 +1,76 @@
+package geometries;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import utilities.Ray;
+
+
+/**
+ * The VectorSphereIntersector class tests a ray against as many spheres at
+ * once as fit in a vector register (4 with AVX2, 8 with AVX-512) using the
+ * incubating Java Vector API. It does the same operations per sphere as the
+ * ScalarSphereIntersector, the remaining spheres that don't fill a whole
+ * vector are tested by the scalar loop. This class is only loaded when the
+ * jdk.incubator.vector module is available.
+ * @see geometries.SphereIntersector#fastest()
+ * @see geometries.ScalarSphereIntersector
+ *
+ * @author Timothy
+ */
+class VectorSphereIntersector implements SphereIntersector {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private final ScalarSphereIntersector remainder = new ScalarSphereIntersector();
+
+    @Override
+    public int intersect(Ray ray, double[] centerX, double[] centerY, double[] centerZ, double[] radii,
+                         int first, int count) {
+        double directionX = ray.getDirectionX();
+        double directionY = ray.getDirectionY();
+        double directionZ = ray.getDirectionZ();
+        double a = directionX * directionX + directionY * directionY + directionZ * directionZ;
+        DoubleVector originX = DoubleVector.broadcast(SPECIES, ray.getOriginX());
+        DoubleVector originY = DoubleVector.broadcast(SPECIES, ray.getOriginY());
+        DoubleVector originZ = DoubleVector.broadcast(SPECIES, ray.getOriginZ());
+        double closestT = ray.getT();
+        int closest = -1;
+
+        int end = first + SPECIES.loopBound(count);
+        int i = first;
+        for (; i < end; i += SPECIES.length()) {
+            DoubleVector x = originX.sub(DoubleVector.fromArray(SPECIES, centerX, i));
+            DoubleVector y = originY.sub(DoubleVector.fromArray(SPECIES, centerY, i));
+            DoubleVector z = originZ.sub(DoubleVector.fromArray(SPECIES, centerZ, i));
+            DoubleVector radius = DoubleVector.fromArray(SPECIES, radii, i);
+
+            DoubleVector b = x.mul(directionX).add(y.mul(directionY)).add(z.mul(directionZ));
+            DoubleVector c = x.mul(x).add(y.mul(y)).add(z.mul(z)).sub(radius.mul(radius));
+            DoubleVector discriminant = b.mul(b).sub(c.mul(a));
+
+            VectorMask<Double> hits = discriminant.compare(VectorOperators.GT, 0);
+            if (!hits.anyTrue()) {
+                continue;
+            }
+
+            DoubleVector root = discriminant.sqrt();
+            DoubleVector near = b.neg().sub(root).div(a);
+            DoubleVector far = b.neg().add(root).div(a);
+            DoubleVector t = near.blend(far, near.compare(VectorOperators.LE, Ray.T_MIN));
+
+            hits = hits.and(t.compare(VectorOperators.GT, Ray.T_MIN))
+                    .and(t.compare(VectorOperators.LT, closestT));
+            if (hits.anyTrue()) {
+                double nearest = t.reduceLanes(VectorOperators.MIN, hits);
+                closestT = nearest;
+                closest = i + t.compare(VectorOperators.EQ, nearest).and(hits).firstTrue();
+            }
+        }
+
+        if (closest >= 0) {
+            ray.setT(closestT);
+        }
+        int rest = remainder.intersect(ray, centerX, centerY, centerZ, radii, i, first + count - i);
+        return rest >= 0 ? rest : closest;
+    }
+}
@@ -0,0 +1,159 @@
+package loaders;
+
+import utilities.Color;
+import utilities.Vector3D;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+
+/**
+ * The BinarySceneReader class reads a binary scene file that was written by
+ * a BinarySceneWriter. The records are read through a fixed buffer that is
+ * refilled from the file, so the file is never held in memory as a whole.
+ * @see loaders.BinarySceneWriter
+ * @see loaders.SceneLoader
+ *
+ * @author Timothy
+ */
+final class BinarySceneReader {
+    private final ReadableByteChannel channel;
+    private final SceneHandler handler;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BinarySceneWriter.BUFFER_SIZE)
+            .order(ByteOrder.LITTLE_ENDIAN);
+    private int[] materials = new int[16];
+    private int materialCount;
+    private long offset;
+
+
+    private BinarySceneReader(InputStream input, SceneHandler handler) {
+        this.channel = Channels.newChannel(input);
+        this.handler = handler;
+        buffer.limit(0);
+    }
+
+
+    /**
+     * The read method reads a whole binary scene file and passes its
+     * contents to the SceneHandler.
+     * @param input An InputStream object with the contents of the file.
+     * @param handler A SceneHandler object that gets every object.
+     * @throws IOException If the file can't be read or isn't a valid binary
+     *                     scene file.
+     */
+    static void read(InputStream input, SceneHandler handler) throws IOException {
+        new BinarySceneReader(input, handler).read();
+    }
+
+
+    private void read() throws IOException {
+        if (!fill(2 * Integer.BYTES) || buffer.getInt() != BinarySceneWriter.MAGIC) {
+            throw new IOException("Not a binary scene file");
+        }
+        int version = buffer.getInt();
+        if (version != BinarySceneWriter.VERSION) {
+            throw new IOException("Unsupported binary scene version " + version);
+        }
+
+        while (fill(1)) {
+            byte tag = buffer.get();
+            switch (tag) {
+                case BinarySceneWriter.CAMERA:
+                    require(6 * Double.BYTES);
+                    handler.camera(getVector(), getVector());
+                    break;
+                case BinarySceneWriter.MATERIAL:
+                    require(4 * Float.BYTES);
+                    if (materialCount == materials.length) {
+                        materials = Arrays.copyOf(materials, materialCount * 2);
+                    }
+                    materials[materialCount++] = handler.material(getColor(), buffer.getFloat());
+                    break;
+                case BinarySceneWriter.SPHERE:
+                    require(4 * Double.BYTES + Integer.BYTES);
+                    double x = buffer.getDouble();
+                    double y = buffer.getDouble();
+                    double z = buffer.getDouble();
+                    double radius = buffer.getDouble();
+                    int material = buffer.getInt();
+                    if (material < 0 || material >= materialCount) {
+                        throw error("Unknown material " + material);
+                    }
+                    handler.sphere(x, y, z, radius, materials[material]);
+                    break;
+                case BinarySceneWriter.PLANE:
+                    require(6 * Double.BYTES + 4 * Float.BYTES);
+                    handler.plane(getVector(), getVector(), getColor(), buffer.getFloat());
+                    break;
+                case BinarySceneWriter.LIGHT:
+                    require(3 * Double.BYTES + 4 * Float.BYTES);
+                    handler.light(getVector(), getColor(), buffer.getFloat());
+                    break;
+                case BinarySceneWriter.MESH:
+                    require(Short.BYTES);
+                    int length = buffer.getShort();
+                    if (length < 0 || length > BinarySceneWriter.MAX_NAME_LENGTH) {
+                        throw error("Invalid name length " + length);
+                    }
+                    require(length + 4 * Float.BYTES);
+                    byte[] name = new byte[length];
+                    buffer.get(name);
+                    handler.mesh(new String(name, StandardCharsets.UTF_8), getColor(), buffer.getFloat());
+                    break;
+                default:
+                    throw error("Unknown record " + tag);
+            }
+        }
+    }
+
+
+    private Vector3D getVector() {
+        return new Vector3D(buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+    }
+
+
+    private Color getColor() {
+        return new Color(buffer.getFloat(), buffer.getFloat(), buffer.getFloat());
+    }
+
+
+    private void require(int size) throws IOException {
+        if (!fill(size)) {
+            throw error("The file is cut off");
+        }
+    }
+
+
+    /**
+     * Makes sure that the buffer holds at least the specified amount of
+     * bytes, and returns false if the file ends before that.
+     */
+    private boolean fill(int size) throws IOException {
+        if (buffer.remaining() >= size) {
+            return true;
+        }
+        offset += buffer.position();
+        buffer.compact();
+        try {
+            while (buffer.position() < size) {
+                if (channel.read(buffer) < 0) {
+                    return false;
+                }
+            }
+        } finally {
+            buffer.flip();
+        }
+        return true;
+    }
+
+
+    private IOException error(String message) {
+        return new IOException("Byte " + (offset + buffer.position()) + ": " + message);
+    }
+}
@@ -0,0 +1,157 @@
+package loaders;
+
+import utilities.Color;
+import utilities.Vector3D;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * The BinarySceneWriter class is a SceneHandler that writes a binary scene
+ * file, which is the compact form of a text scene file that loads several
+ * times faster. The file starts with a magic number and a version, followed
+ * by one record per object: a tag byte and the values of the object as
+ * little endian doubles for coordinates and floats for colors. Materials are
+ * records of their own that spheres refer to by their index. A mesh stays
+ * in its OBJ file, its record holds the name of the file as UTF-8 bytes.
+ * @see loaders.SceneLoader#convert(String, String)
+ * @see loaders.BinarySceneReader
+ *
+ * @author Timothy
+ */
+public class BinarySceneWriter implements SceneHandler, Closeable {
+    static final int MAGIC = 0x42535452;
+    static final int VERSION = 1;
+    static final byte CAMERA = 1;
+    static final byte MATERIAL = 2;
+    static final byte SPHERE = 3;
+    static final byte PLANE = 4;
+    static final byte LIGHT = 5;
+    static final byte MESH = 6;
+    static final int MAX_NAME_LENGTH = 1024;
+    static final int BUFFER_SIZE = 1 << 16;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private int materialCount;
+
+
+    /**
+     * Creates a new BinarySceneWriter object which creates the file and
+     * writes its header.
+     * @param filename A String value representing the name of the file.
+     * @throws IOException If the file can't be created.
+     */
+    public BinarySceneWriter(String filename) throws IOException {
+        channel = FileChannel.open(Path.of(filename), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer.putInt(MAGIC).putInt(VERSION);
+    }
+
+
+    @Override
+    public void camera(Vector3D origin, Vector3D target) throws IOException {
+        reserve(1 + 6 * Double.BYTES).put(CAMERA);
+        putVector(origin);
+        putVector(target);
+    }
+
+
+    @Override
+    public int material(Color color, float reflection) throws IOException {
+        reserve(1 + 4 * Float.BYTES).put(MATERIAL);
+        putColor(color);
+        buffer.putFloat(reflection);
+        return materialCount++;
+    }
+
+
+    @Override
+    public void sphere(double x, double y, double z, double radius, int material) throws IOException {
+        if (material < 0 || material >= materialCount) {
+            throw new IllegalArgumentException("Unknown material " + material);
+        }
+        reserve(1 + 4 * Double.BYTES + Integer.BYTES).put(SPHERE)
+                .putDouble(x).putDouble(y).putDouble(z).putDouble(radius).putInt(material);
+    }
+
+
+    @Override
+    public void plane(Vector3D position, Vector3D normal, Color color, float reflection) throws IOException {
+        reserve(1 + 6 * Double.BYTES + 4 * Float.BYTES).put(PLANE);
+        putVector(position);
+        putVector(normal);
+        putColor(color);
+        buffer.putFloat(reflection);
+    }
+
+
+    @Override
+    public void light(Vector3D position, Color color, float intensity) throws IOException {
+        reserve(1 + 3 * Double.BYTES + 4 * Float.BYTES).put(LIGHT);
+        putVector(position);
+        putColor(color);
+        buffer.putFloat(intensity);
+    }
+
+
+    @Override
+    public void mesh(String filename, Color color, float reflection) throws IOException {
+        byte[] name = filename.getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("The name of the mesh file is too long: " + filename);
+        }
+        reserve(1 + Short.BYTES + name.length + 4 * Float.BYTES).put(MESH)
+                .putShort((short) name.length).put(name);
+        putColor(color);
+        buffer.putFloat(reflection);
+    }
+
+
+    private ByteBuffer reserve(int size) throws IOException {
+        if (buffer.remaining() < size) {
+            flush();
+        }
+        return buffer;
+    }
+
+
+    private void putVector(Vector3D vector) {
+        buffer.putDouble(vector.x).putDouble(vector.y).putDouble(vector.z);
+    }
+
+
+    private void putColor(Color color) {
+        buffer.putFloat(color.getRed()).putFloat(color.getGreen()).putFloat(color.getBlue());
+    }
+
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+
+    /**
+     * The close method writes the records that are still buffered and
+     * closes the file.
+     * @throws IOException If the file can't be written.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
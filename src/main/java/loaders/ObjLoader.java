@@ -0,0 +1,150 @@
+package loaders;
+
+import geometries.TriangleMesh;
+import utilities.Color;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+
+/**
+ * The ObjLoader class reads the geometry of a Wavefront OBJ file into a
+ * TriangleMesh. Only the vertex positions and faces are used:
+ * <pre>
+ * v x y z
+ * f 1 2 3
+ * f 1/1/1 2/2/2 3/3/3 4/4/4
+ * f -3//1 -2//1 -1//1
+ * </pre>
+ * Faces refer to the vertices by their index starting at 1, or counting
+ * back from the last vertex when the index is negative. Texture coordinates
+ * and normals after the slashes are skipped, and faces with more than three
+ * vertices are split into a fan of triangles. Other lines, like groups and
+ * materials, are ignored. The file is split into tokens by a TextTokenizer,
+ * so no String object is created per line.
+ * @see geometries.TriangleMesh
+ * @see loaders.TextTokenizer
+ *
+ * @author Timothy
+ */
+public final class ObjLoader {
+
+    /**
+     * The extension of OBJ files.
+     */
+    public static final String EXTENSION = ".obj";
+    private static final byte[] VERTEX = TextTokenizer.keyword("v");
+    private static final byte[] FACE = TextTokenizer.keyword("f");
+
+    private final TextTokenizer tokenizer;
+    private final TriangleMesh mesh;
+
+
+    private ObjLoader(InputStream input, TriangleMesh mesh) {
+        this.tokenizer = new TextTokenizer(input);
+        this.mesh = mesh;
+    }
+
+
+    /**
+     * The load method reads an OBJ file into a new TriangleMesh object.
+     * @param filename A String value representing the name of the file.
+     * @param color A Color object representing the color of the mesh.
+     * @param reflection A float value representing the reflection value of
+     *                   the mesh.
+     * @return A TriangleMesh object with the vertices and triangles of the
+     *         file.
+     * @throws IOException If the file can't be read or isn't a valid OBJ
+     *                     file, with the line number in its message.
+     */
+    public static TriangleMesh load(String filename, Color color, float reflection) throws IOException {
+        try (InputStream input = Files.newInputStream(Path.of(filename))) {
+            return read(input, color, reflection);
+        }
+    }
+
+
+    /**
+     * The read method reads the contents of an OBJ file into a new
+     * TriangleMesh object.
+     * @param input An InputStream object with the contents of the file.
+     * @param color A Color object representing the color of the mesh.
+     * @param reflection A float value representing the reflection value of
+     *                   the mesh.
+     * @return A TriangleMesh object with the vertices and triangles of the
+     *         file.
+     * @throws IOException If the file can't be read or isn't a valid OBJ
+     *                     file, with the line number in its message.
+     */
+    public static TriangleMesh read(InputStream input, Color color, float reflection) throws IOException {
+        TriangleMesh mesh = new TriangleMesh(color, reflection);
+        new ObjLoader(input, mesh).read();
+        return mesh;
+    }
+
+
+    private void read() throws IOException {
+        while (tokenizer.nextLine()) {
+            if (tokenizer.isToken(VERTEX)) {
+                // An optional w coordinate or vertex color may follow
+                mesh.addVertex(tokenizer.readNumber(), tokenizer.readNumber(), tokenizer.readNumber());
+                tokenizer.skipLine();
+            } else if (tokenizer.isToken(FACE)) {
+                readFace();
+                tokenizer.endLine();
+            } else {
+                tokenizer.skipLine();
+            }
+        }
+    }
+
+
+    /**
+     * Reads the vertices of a face and adds them as a fan of triangles
+     * around the first vertex.
+     */
+    private void readFace() throws IOException {
+        int first = readVertex();
+        int previous = readVertex();
+        if (!tokenizer.hasToken()) {
+            throw tokenizer.error("A face needs at least three vertices");
+        }
+        while (tokenizer.hasToken()) {
+            int next = readVertex();
+            mesh.addTriangle(first, previous, next);
+            previous = next;
+        }
+    }
+
+
+    /**
+     * Reads the vertex index at the start of a token like 7, 7/2 or 7//3
+     * and converts it to the index in the mesh.
+     */
+    private int readVertex() throws IOException {
+        tokenizer.nextToken();
+        int length = tokenizer.tokenLength();
+        int index = 0;
+        boolean negative = tokenizer.tokenAt(0) == '-';
+        int position = negative ? 1 : 0;
+        int start = position;
+        for (; position < length && tokenizer.tokenAt(position) != '/'; position++) {
+            byte character = tokenizer.tokenAt(position);
+            if (character < '0' || character > '9' || index > (Integer.MAX_VALUE - 9) / 10) {
+                throw tokenizer.error("Invalid vertex '" + tokenizer.tokenString() + "'");
+            }
+            index = index * 10 + (character - '0');
+        }
+        if (position == start || index == 0) {
+            throw tokenizer.error("Invalid vertex '" + tokenizer.tokenString() + "'");
+        }
+
+        int vertex = negative ? mesh.getVertexCount() - index : index - 1;
+        if (vertex < 0 || vertex >= mesh.getVertexCount()) {
+            throw tokenizer.error("Unknown vertex " + tokenizer.tokenString());
+        }
+        return vertex;
+    }
+}
@@ -0,0 +1,94 @@
+package loaders;
+
+import utilities.Color;
+import utilities.Vector3D;
+
+import java.io.IOException;
+
+
+/**
+ * The SceneHandler interface gets the contents of a scene file while it is
+ * read, one object at a time, so that a scene never has to be held in
+ * memory as a whole. The SceneLoader builds a Scene from them, and the
+ * BinarySceneWriter writes them to a binary scene file.
+ * @see loaders.SceneLoader
+ * @see loaders.BinarySceneWriter
+ *
+ * @author Timothy
+ */
+public interface SceneHandler {
+
+    /**
+     * The camera method is called when the file specifies the camera.
+     * @param origin A Vector3D object representing the position of the
+     *               camera.
+     * @param target A Vector3D object representing the point the camera
+     *               looks at.
+     * @throws IOException If the handler can't process it.
+     */
+    void camera(Vector3D origin, Vector3D target) throws IOException;
+
+
+    /**
+     * The material method is called once for every material before the
+     * first sphere that uses it.
+     * @param color A Color object representing the color of the material.
+     * @param reflection A float value representing the reflection value of
+     *                   the material.
+     * @return An int value representing the index with which spheres refer
+     *         to the material.
+     * @throws IOException If the handler can't process it.
+     */
+    int material(Color color, float reflection) throws IOException;
+
+
+    /**
+     * The sphere method is called for every sphere, without creating an
+     * object for it.
+     * @param x A double value which represents the x coordinate of the center.
+     * @param y A double value which represents the y coordinate of the center.
+     * @param z A double value which represents the z coordinate of the center.
+     * @param radius A double value which represents the sphere's radius.
+     * @param material An int value which represents the index that the
+     *                 material method returned.
+     * @throws IOException If the handler can't process it.
+     */
+    void sphere(double x, double y, double z, double radius, int material) throws IOException;
+
+
+    /**
+     * The plane method is called for every plane.
+     * @param position A Vector3D object representing a point on the plane.
+     * @param normal A Vector3D object representing the normal of the plane.
+     * @param color A Color object representing the color of the plane.
+     * @param reflection A float value representing the reflection value of
+     *                   the plane.
+     * @throws IOException If the handler can't process it.
+     */
+    void plane(Vector3D position, Vector3D normal, Color color, float reflection) throws IOException;
+
+
+    /**
+     * The light method is called for every light.
+     * @param position A Vector3D object representing the position of the
+     *                 light.
+     * @param color A Color object representing the color of the light.
+     * @param intensity A float value representing the intensity of the light.
+     * @throws IOException If the handler can't process it.
+     */
+    void light(Vector3D position, Color color, float intensity) throws IOException;
+
+
+    /**
+     * The mesh method is called for every triangle mesh, which is stored in
+     * a Wavefront OBJ file of its own.
+     * @param filename A String value representing the name of the OBJ file,
+     *                 relative to the directory of the scene file.
+     * @param color A Color object representing the color of the mesh.
+     * @param reflection A float value representing the reflection value of
+     *                   the mesh.
+     * @throws IOException If the handler can't process it.
+     * @see loaders.ObjLoader
+     */
+    void mesh(String filename, Color color, float reflection) throws IOException;
+}
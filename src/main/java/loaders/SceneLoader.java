@@ -0,0 +1,254 @@
+package loaders;
+
+import geometries.Plane;
+import geometries.SphereSet;
+import geometries.TriangleMesh;
+import renderer.Scene;
+import utilities.Color;
+import utilities.Light;
+import utilities.Vector3D;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+
+/**
+ * The SceneLoader class adds the contents of scene files to a Scene. Text
+ * scene files end with .scene and binary scene files with .bscene. Both are
+ * read as a stream, and the spheres are added straight to the flat arrays
+ * of a single SphereSet instead of as a Sphere object each, so a file with
+ * millions of spheres takes about as much memory as the SphereSet. Meshes
+ * are loaded from their OBJ files into a TriangleMesh each. The loader keeps
+ * track of how many bytes and objects it loaded per second, counting every
+ * triangle of a mesh as an object.
+ * @see loaders.TextSceneReader
+ * @see loaders.BinarySceneReader
+ * @see loaders.ObjLoader
+ * @see geometries.SphereSet
+ *
+ * @author Timothy
+ */
+public class SceneLoader {
+
+
+    /**
+     * The extension of text scene files.
+     */
+    public static final String TEXT_EXTENSION = ".scene";
+
+
+    /**
+     * The extension of binary scene files.
+     */
+    public static final String BINARY_EXTENSION = ".bscene";
+    private final Scene scene;
+    private Vector3D cameraOrigin;
+    private Vector3D cameraTarget;
+    private long bytes;
+    private long objects;
+    private long loadTime;
+
+
+    /**
+     * Creates a new SceneLoader object that adds the objects it loads to the
+     * specified Scene object.
+     * @param scene A Scene object to add the objects to.
+     */
+    public SceneLoader(Scene scene) {
+        this.scene = scene;
+    }
+
+
+    /**
+     * The load method reads a scene file and adds its planes, lights, meshes
+     * and a SphereSet object with its spheres to the scene.
+     * @param filename A String value representing the name of the file,
+     *                 whose extension specifies if it is a text or binary
+     *                 file.
+     * @throws IOException If the file can't be read or isn't a valid scene.
+     * @throws IllegalArgumentException If the extension is unknown.
+     */
+    public void load(String filename) throws IOException {
+        boolean binary = isBinary(filename);
+        long start = System.nanoTime();
+        Path path = Path.of(filename);
+        Builder builder = new Builder(path.toAbsolutePath().getParent());
+        try (InputStream input = Files.newInputStream(path)) {
+            read(binary, input, builder);
+        }
+        if (builder.spheres.size() > 0) {
+            scene.add(builder.spheres);
+        }
+
+        loadTime += System.nanoTime() - start;
+        bytes += Files.size(path) + builder.meshBytes;
+        objects += builder.objects;
+    }
+
+
+    /**
+     * The convert method writes a scene file as a binary scene file, without
+     * creating the objects.
+     * @param source A String value representing the name of the text or
+     *               binary file to read.
+     * @param target A String value representing the name of the binary file
+     *               to write.
+     * @throws IOException If a file can't be read or written.
+     * @throws IllegalArgumentException If the extension of a file is wrong.
+     * @see loaders.BinarySceneWriter
+     */
+    public static void convert(String source, String target) throws IOException {
+        if (!target.endsWith(BINARY_EXTENSION)) {
+            throw new IllegalArgumentException("Scenes can only be converted to a " + BINARY_EXTENSION
+                    + " file, got " + target);
+        }
+        boolean binary = isBinary(source);
+        try (InputStream input = Files.newInputStream(Path.of(source));
+             BinarySceneWriter writer = new BinarySceneWriter(target)) {
+            read(binary, input, writer);
+        }
+    }
+
+
+    private static boolean isBinary(String filename) {
+        if (filename.endsWith(BINARY_EXTENSION)) {
+            return true;
+        }
+        if (!filename.endsWith(TEXT_EXTENSION)) {
+            throw new IllegalArgumentException("Unknown scene format of " + filename + ", expected a "
+                    + TEXT_EXTENSION + " or " + BINARY_EXTENSION + " file");
+        }
+        return false;
+    }
+
+
+    private static void read(boolean binary, InputStream input, SceneHandler handler) throws IOException {
+        if (binary) {
+            BinarySceneReader.read(input, handler);
+        } else {
+            TextSceneReader.read(input, handler);
+        }
+    }
+
+
+    /**
+     * @return A Vector3D object that represents the camera origin of the last
+     *         file that specified one, or null if none did.
+     */
+    public Vector3D getCameraOrigin() {
+        return cameraOrigin;
+    }
+
+
+    /**
+     * @return A Vector3D object that represents the camera target of the last
+     *         file that specified one, or null if none did.
+     */
+    public Vector3D getCameraTarget() {
+        return cameraTarget;
+    }
+
+
+    /**
+     * @return A long value that represents the amount of spheres, triangles,
+     *         planes and lights that were loaded.
+     */
+    public long getObjectCount() {
+        return objects;
+    }
+
+
+    /**
+     * @return A long value that represents the size of the loaded files in
+     *         bytes, including the OBJ files of the meshes.
+     */
+    public long getByteCount() {
+        return bytes;
+    }
+
+
+    /**
+     * @return A long value that represents the time it took to load the
+     *         files in nanoseconds.
+     */
+    public long getLoadTime() {
+        return loadTime;
+    }
+
+
+    /**
+     * @return A String value with the amount of objects and bytes that were
+     *         loaded, and how many of them were loaded per second.
+     */
+    @Override
+    public String toString() {
+        double seconds = loadTime / 1e9;
+        return String.format("Loaded %d objects (%.1f MB) in %.2f s: %.1f MB/s, %.0f objects/s",
+                objects, bytes / 1e6, seconds, bytes / 1e6 / seconds, objects / seconds);
+    }
+
+
+    /**
+     * The Builder class is the SceneHandler that adds the objects to the
+     * scene, and the spheres to a SphereSet object.
+     */
+    private class Builder implements SceneHandler {
+        private final SphereSet spheres = new SphereSet();
+        private final Path directory;
+        private long objects;
+        private long meshBytes;
+
+
+        private Builder(Path directory) {
+            this.directory = directory;
+        }
+
+
+        @Override
+        public void camera(Vector3D origin, Vector3D target) {
+            cameraOrigin = origin;
+            cameraTarget = target;
+        }
+
+
+        @Override
+        public int material(Color color, float reflection) {
+            return spheres.addMaterial(color, reflection);
+        }
+
+
+        @Override
+        public void sphere(double x, double y, double z, double radius, int material) {
+            spheres.add(x, y, z, radius, material);
+            objects++;
+        }
+
+
+        @Override
+        public void plane(Vector3D position, Vector3D normal, Color color, float reflection) {
+            scene.add(new Plane(position, normal, color, reflection));
+            objects++;
+        }
+
+
+        @Override
+        public void light(Vector3D position, Color color, float intensity) {
+            scene.add(new Light(position, color, intensity));
+            objects++;
+        }
+
+
+        @Override
+        public void mesh(String filename, Color color, float reflection) throws IOException {
+            Path file = directory.resolve(filename);
+            TriangleMesh mesh = ObjLoader.load(file.toString(), color, reflection);
+            if (mesh.getTriangleCount() > 0) {
+                scene.add(mesh);
+            }
+            objects += mesh.getTriangleCount();
+            meshBytes += Files.size(file);
+        }
+    }
+}
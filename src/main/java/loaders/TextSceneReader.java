@@ -0,0 +1,159 @@
+package loaders;
+
+import utilities.Color;
+import utilities.Vector3D;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * The TextSceneReader class reads a text scene file, which has one object
+ * per line:
+ * <pre>
+ * # A comment
+ * camera originX originY originZ targetX targetY targetZ
+ * sphere x y z radius red green blue reflection
+ * plane x y z normalX normalY normalZ red green blue reflection
+ * light x y z red green blue intensity
+ * mesh file.obj red green blue reflection
+ * </pre>
+ * The file is split into tokens by a TextTokenizer, which parses the numbers
+ * straight from the bytes of the file, so no String object is created per
+ * line. A mesh is a Wavefront OBJ file whose path is relative to the scene
+ * file and can't contain spaces. Spheres with the same color and reflection
+ * share a material, which is only passed to the SceneHandler once.
+ * @see loaders.SceneLoader
+ * @see loaders.SceneHandler
+ * @see loaders.TextTokenizer
+ *
+ * @author Timothy
+ */
+final class TextSceneReader {
+    private static final byte[] CAMERA = TextTokenizer.keyword("camera");
+    private static final byte[] SPHERE = TextTokenizer.keyword("sphere");
+    private static final byte[] PLANE = TextTokenizer.keyword("plane");
+    private static final byte[] LIGHT = TextTokenizer.keyword("light");
+    private static final byte[] MESH = TextTokenizer.keyword("mesh");
+
+    private final TextTokenizer tokenizer;
+    private final SceneHandler handler;
+    private final Map<Material, Integer> materials = new HashMap<>();
+    private final Material probe = new Material();
+
+
+    private TextSceneReader(InputStream input, SceneHandler handler) {
+        this.tokenizer = new TextTokenizer(input);
+        this.handler = handler;
+    }
+
+
+    /**
+     * The read method reads a whole text scene file and passes its contents
+     * to the SceneHandler.
+     * @param input An InputStream object with the contents of the file.
+     * @param handler A SceneHandler object that gets every object.
+     * @throws IOException If the file can't be read or isn't a valid scene,
+     *                     with the line number in its message.
+     */
+    static void read(InputStream input, SceneHandler handler) throws IOException {
+        new TextSceneReader(input, handler).read();
+    }
+
+
+    private void read() throws IOException {
+        while (tokenizer.nextLine()) {
+            if (tokenizer.isToken(SPHERE)) {
+                readSphere();
+            } else if (tokenizer.isToken(PLANE)) {
+                handler.plane(readVector(), readVector(), readColor(), readFloat());
+            } else if (tokenizer.isToken(LIGHT)) {
+                handler.light(readVector(), readColor(), readFloat());
+            } else if (tokenizer.isToken(CAMERA)) {
+                handler.camera(readVector(), readVector());
+            } else if (tokenizer.isToken(MESH)) {
+                tokenizer.nextToken();
+                handler.mesh(tokenizer.tokenString(), readColor(), readFloat());
+            } else {
+                throw tokenizer.error("Unknown object '" + tokenizer.tokenString() + "'");
+            }
+            tokenizer.endLine();
+        }
+    }
+
+
+    private void readSphere() throws IOException {
+        double x = tokenizer.readNumber();
+        double y = tokenizer.readNumber();
+        double z = tokenizer.readNumber();
+        double radius = tokenizer.readNumber();
+        if (!(radius > 0)) {
+            throw tokenizer.error("The radius of a sphere has to be positive");
+        }
+        probe.red = readFloat();
+        probe.green = readFloat();
+        probe.blue = readFloat();
+        probe.reflection = readFloat();
+
+        Integer material = materials.get(probe);
+        if (material == null) {
+            Material key = new Material();
+            key.red = probe.red;
+            key.green = probe.green;
+            key.blue = probe.blue;
+            key.reflection = probe.reflection;
+            material = handler.material(new Color(key.red, key.green, key.blue), key.reflection);
+            materials.put(key, material);
+        }
+        handler.sphere(x, y, z, radius, material);
+    }
+
+
+    private Vector3D readVector() throws IOException {
+        return new Vector3D(tokenizer.readNumber(), tokenizer.readNumber(), tokenizer.readNumber());
+    }
+
+
+    private Color readColor() throws IOException {
+        return new Color(readFloat(), readFloat(), readFloat());
+    }
+
+
+    private float readFloat() throws IOException {
+        return (float) tokenizer.readNumber();
+    }
+
+
+    /**
+     * The color and reflection of a sphere, used as key to find the material
+     * of spheres that look the same.
+     */
+    private static final class Material {
+        private float red;
+        private float green;
+        private float blue;
+        private float reflection;
+
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof Material)) {
+                return false;
+            }
+            Material other = (Material) object;
+            return Float.compare(red, other.red) == 0 && Float.compare(green, other.green) == 0
+                    && Float.compare(blue, other.blue) == 0 && Float.compare(reflection, other.reflection) == 0;
+        }
+
+
+        @Override
+        public int hashCode() {
+            int hash = Float.hashCode(red);
+            hash = 31 * hash + Float.hashCode(green);
+            hash = 31 * hash + Float.hashCode(blue);
+            return 31 * hash + Float.hashCode(reflection);
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package loaders;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * The TextTokenizer class splits a text file into lines of tokens that are
+ * separated by spaces or tabs, with comments from a '#' to the end of the
+ * line. The file is read through a fixed buffer and the numbers are parsed
+ * straight from its bytes, so no String object is created per token. It is
+ * used by the loaders of text files with one object per line.
+ * @see loaders.TextSceneReader
+ * @see loaders.ObjLoader
+ *
+ * @author Timothy
+ */
+final class TextTokenizer {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_TOKEN_LENGTH = 1024;
+    private static final int MAX_FAST_DIGITS = 18;
+    // Powers of ten that are exact doubles, for the fast path of parseNumber
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final InputStream input;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private final byte[] token = new byte[MAX_TOKEN_LENGTH];
+    private int tokenLength;
+    private int line = 1;
+
+
+    /**
+     * Creates a new TextTokenizer object that reads from the specified
+     * stream.
+     * @param input An InputStream object with the contents of the file.
+     */
+    TextTokenizer(InputStream input) {
+        this.input = input;
+    }
+
+
+    /**
+     * The nextLine method skips blank lines and comments and reads the
+     * first token of the next line.
+     * @return A boolean value which is false at the end of the file.
+     * @throws IOException If the file can't be read.
+     */
+    boolean nextLine() throws IOException {
+        while (true) {
+            int next = skipBlanks();
+            if (next < 0) {
+                return false;
+            }
+            if (next != '\n' && next != '#') {
+                readToken();
+                return true;
+            }
+            skipLine();
+        }
+    }
+
+
+    /**
+     * The hasToken method looks if there is another token on the line.
+     * @return A boolean value which is true if there is another token before
+     *         the end of the line or a comment.
+     * @throws IOException If the file can't be read.
+     */
+    boolean hasToken() throws IOException {
+        int next = skipBlanks();
+        return next >= 0 && next != '\n' && next != '#';
+    }
+
+
+    /**
+     * The nextToken method reads the next token of the line.
+     * @throws IOException If the file can't be read or the line has no
+     *                     more tokens.
+     */
+    void nextToken() throws IOException {
+        if (!hasToken()) {
+            throw error("Missing a value");
+        }
+        readToken();
+    }
+
+
+    /**
+     * The readNumber method reads the next token of the line as a number.
+     * @return A double value with the number.
+     * @throws IOException If the file can't be read, the line has no more
+     *                     tokens or the token isn't a number.
+     */
+    double readNumber() throws IOException {
+        if (!hasToken()) {
+            throw error("Missing a number");
+        }
+        readToken();
+        return parseNumber();
+    }
+
+
+    /**
+     * The endLine method skips to the next line, which may only have a
+     * comment left.
+     * @throws IOException If the file can't be read or the line has more
+     *                     tokens.
+     */
+    void endLine() throws IOException {
+        if (hasToken()) {
+            throw error("Too many values");
+        }
+        skipLine();
+    }
+
+
+    /**
+     * The skipLine method skips the rest of the line, whatever is on it.
+     * @throws IOException If the file can't be read.
+     */
+    void skipLine() throws IOException {
+        int next = peek();
+        while (next >= 0 && next != '\n') {
+            position++;
+            next = peek();
+        }
+        if (next == '\n') {
+            position++;
+            line++;
+        }
+    }
+
+
+    /**
+     * @param keyword A byte array with the ASCII characters of a keyword.
+     * @return A boolean value which is true if the last token is the
+     *         keyword.
+     */
+    boolean isToken(byte[] keyword) {
+        if (tokenLength != keyword.length) {
+            return false;
+        }
+        for (int i = 0; i < tokenLength; i++) {
+            if (token[i] != keyword[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * @param index An int value representing the index of a character.
+     * @return A byte value with the character of the last token.
+     */
+    byte tokenAt(int index) {
+        return token[index];
+    }
+
+
+    /**
+     * @return An int value that represents the length of the last token.
+     */
+    int tokenLength() {
+        return tokenLength;
+    }
+
+
+    /**
+     * @return A String value with the last token.
+     */
+    String tokenString() {
+        return new String(token, 0, tokenLength, StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * The error method creates an exception with the line number in its
+     * message.
+     * @param message A String value that describes what is wrong.
+     * @return An IOException object to throw.
+     */
+    IOException error(String message) {
+        return new IOException("Line " + line + ": " + message);
+    }
+
+
+    /**
+     * Parses the token as a decimal number. Numbers with at most 18 digits
+     * and a small exponent are computed with a single multiplication or
+     * division of two exact doubles, which is correctly rounded. Other
+     * numbers are parsed by Double.parseDouble.
+     */
+    private double parseNumber() throws IOException {
+        int index = 0;
+        boolean negative = false;
+        if (index < tokenLength && (token[index] == '-' || token[index] == '+')) {
+            negative = token[index] == '-';
+            index++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean hasDigits = false;
+        boolean fraction = false;
+        for (; index < tokenLength; index++) {
+            byte character = token[index];
+            if (character == '.' && !fraction) {
+                fraction = true;
+                continue;
+            }
+            if (character < '0' || character > '9') {
+                break;
+            }
+            hasDigits = true;
+            if (digits == MAX_FAST_DIGITS) {
+                return parseSlowly();
+            }
+            mantissa = mantissa * 10 + (character - '0');
+            if (mantissa != 0) {
+                digits++;
+            }
+            if (fraction) {
+                exponent--;
+            }
+        }
+
+        if (index < tokenLength && (token[index] == 'e' || token[index] == 'E')) {
+            index++;
+            boolean negativeExponent = false;
+            if (index < tokenLength && (token[index] == '-' || token[index] == '+')) {
+                negativeExponent = token[index] == '-';
+                index++;
+            }
+            int value = 0;
+            int start = index;
+            for (; index < tokenLength && token[index] >= '0' && token[index] <= '9'; index++) {
+                if (value > 1000) {
+                    return parseSlowly();
+                }
+                value = value * 10 + (token[index] - '0');
+            }
+            if (index == start) {
+                return parseSlowly();
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+
+        if (!hasDigits || index < tokenLength) {
+            return parseSlowly();
+        }
+        double value;
+        if (mantissa == 0) {
+            value = 0;
+        } else if (mantissa < 1L << 53 && exponent >= 0 && exponent < POWERS_OF_TEN.length) {
+            value = mantissa * POWERS_OF_TEN[exponent];
+        } else if (mantissa < 1L << 53 && exponent < 0 && -exponent < POWERS_OF_TEN.length) {
+            value = mantissa / POWERS_OF_TEN[-exponent];
+        } else {
+            return parseSlowly();
+        }
+        return negative ? -value : value;
+    }
+
+
+    private double parseSlowly() throws IOException {
+        String text = new String(token, 0, tokenLength, StandardCharsets.US_ASCII);
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw error("Invalid number '" + text + "'");
+        }
+    }
+
+
+    /**
+     * Skips spaces and tabs and returns the next byte without consuming it,
+     * or -1 at the end of the file.
+     */
+    private int skipBlanks() throws IOException {
+        while (true) {
+            int next = peek();
+            if (next != ' ' && next != '\t' && next != '\r') {
+                return next;
+            }
+            position++;
+        }
+    }
+
+
+    private void readToken() throws IOException {
+        tokenLength = 0;
+        int next = peek();
+        while (next > ' ' && next != '#') {
+            if (tokenLength == MAX_TOKEN_LENGTH) {
+                throw error("A value is too long");
+            }
+            token[tokenLength++] = (byte) next;
+            position++;
+            next = peek();
+        }
+    }
+
+
+    private int peek() throws IOException {
+        if (position == limit) {
+            limit = input.read(buffer);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position] & 0xFF;
+    }
+
+
+    /**
+     * @param keyword A String value with a keyword.
+     * @return A byte array with the ASCII characters of the keyword, to
+     *         compare with the isToken method.
+     */
+    static byte[] keyword(String keyword) {
+        return keyword.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -1,12 +1,27 @@
 package main;
 
+import animation.Animation;
+import animation.Keyframes;
+import animation.SequenceRenderer;
+import farm.Coordinator;
+import geometries.Group;
+import geometries.Instance;
 import geometries.Plane;
+import geometries.Shape;
 import geometries.Sphere;
+import geometries.SphereSet;
+import geometries.TriangleMesh;
+import loaders.SceneLoader;
 import renderer.Camera;
+import renderer.PreviewWriter;
+import renderer.RenderMetrics;
 import renderer.Renderer;
 import renderer.Scene;
 import utilities.*;
 
+import java.io.IOException;
+import java.util.Random;
+
 
 /**
  * The Controller class which controls the whole application and the only way
@@ -29,35 +44,93 @@ public class Controller {
      * @see utilities.Options
      */
     public Controller() {
-        options = new Options();
+        this(new Options());
+    }
+
+
+    /**
+     * Create a new Controller object with the specified Options object, for
+     * example to render with a different resolution.
+     * @param options An Options object that specifies the width, height,
+     *                field of view and how the tiles are rendered.
+     * @see utilities.Options
+     */
+    public Controller(Options options) {
+        this.options = options;
     }
 
 
     /**
      * A method which initializes an Image object, a Scene object and a Camera
-     * object, so that a Renderer object can be created with a Camera and Scene
-     * object that it needs as constructor arguments.
+     * object, so that a Renderer object can be created with a Camera, Scene
+     * and Options object that it needs as constructor arguments. If the
+     * Options object has a preview file, the intermediate images of a
+     * progressive render are written to it.
      * @see utilities.Image
      * @see renderer.Scene
      * @see renderer.Camera
+     * @see renderer.PreviewWriter
      */
     public void initializeRenderer() {
         initializeImage();
         initializeScene();
         initializeCamera();
-        renderer = new Renderer(camera, scene);
+        createRenderer();
+    }
+
+
+    /**
+     * The private createRenderer method creates the Renderer object for the
+     * current Scene and Camera object. If the Options object has a preview
+     * file, the intermediate images of a progressive render are written to
+     * it, and if it enables the metrics, they are registered with JMX so
+     * they can be watched while the Renderer renders. The threads of the
+     * previous Renderer object are stopped.
+     * @see renderer.Renderer
+     * @see renderer.PreviewWriter
+     * @see renderer.RenderMetrics#register()
+     */
+    private void createRenderer() {
+        if (renderer != null) {
+            renderer.close();
+        }
+        renderer = new Renderer(camera, scene, options);
+        if (options.getPreviewFile() != null) {
+            renderer.addProgressListener(new PreviewWriter(options.getPreviewFile()));
+        }
+        if (renderer.getMetrics() != null) {
+            renderer.getMetrics().register();
+        }
     }
 
 
     /**
      * The private initialize Image method creates a new Image object with the
-     * width and height specified in the Options object as its constructor
-     * arguments.
+     * width, height and dynamic range specified in the Options object as its
+     * constructor arguments. A memory mapped image is only created when the
+     * render starts, because it creates the output file.
      * @see utilities.Image
      * @see utilities.Options
      */
     private void initializeImage() {
-        image = new Image(options.getWidth(), options.getHeight());
+        if (!options.isMemoryMapped()) {
+            image = new Image(options.getWidth(), options.getHeight(), options.isHighDynamicRange());
+        }
+    }
+
+
+    /**
+     * The private createMappedImage method creates a MappedImage object for
+     * the output file specified in the Options object, into which the image
+     * is rendered instead of into the Image object.
+     * @return A MappedImage object with the size and dynamic range specified
+     *         in the Options object.
+     * @throws IOException If the file can't be created.
+     * @see utilities.MappedImage
+     */
+    private MappedImage createMappedImage() throws IOException {
+        return new MappedImage(options.getOutputFile(), options.getWidth(), options.getHeight(),
+                options.isHighDynamicRange());
     }
 
     /**
@@ -82,8 +155,8 @@ public class Controller {
 
 
     /**
-     * The initializeCamera method creates a new Camera object which takes the
-     * Scene's static ORIGIN variable as it's position, a Vector3D
+     * The initializeCamera method creates a new Camera object 200 units in
+     * front of the Scene's static ORIGIN variable, which it takes as its
      * target (lookAt), a Vector3D targetUpGuide, a fieldOfView and an
      * aspectRatio which are both specified in the Options object.
      * @see renderer.Camera
@@ -92,21 +165,259 @@ public class Controller {
      */
     private void initializeCamera() {
         camera = new Camera(
+                new Vector3D(0, 0, 200),
                 Scene.ORIGIN,
-                new Vector3D(0, 0, -1),
                 new Vector3D(0, 1, 0),
                 options.getFieldOfView(),
                 options.getAspectRatio());
     }
 
 
+    /**
+     * The loadScene method replaces the scene that initializeRenderer
+     * created with the contents of a scene file, and prints how fast it was
+     * loaded. If the file specifies a camera, the camera is moved there.
+     * @param filename A String value representing the name of a text or
+     *                 binary scene file.
+     * @throws IOException If the file can't be read or isn't a valid scene.
+     * @see loaders.SceneLoader
+     */
+    public void loadScene(String filename) throws IOException {
+        scene = new Scene();
+        SceneLoader loader = new SceneLoader(scene);
+        loader.load(filename);
+        System.out.println(loader);
+        if (loader.getCameraOrigin() != null) {
+            camera.lookAt(loader.getCameraOrigin(), loader.getCameraTarget(), new Vector3D(0, 1, 0));
+        }
+        createRenderer();
+    }
+
+
+    /**
+     * The plantForest method replaces the scene that initializeRenderer
+     * created with a forest of instances of a single tree, which is a Group
+     * of a trunk mesh and a crown of spheres. Every instance has its own
+     * position, rotation and size, but shares the tree and its hierarchy, so
+     * the memory of the scene barely grows with the amount of trees.
+     * @param trees An int value representing the amount of trees.
+     * @see geometries.Instance
+     * @see geometries.Group
+     */
+    public void plantForest(int trees) {
+        Group tree = createTree();
+        Random random = new Random(21);
+        int rows = (int) Math.ceil(Math.sqrt(trees));
+        double spacing = 12;
+        scene = new Scene();
+        scene.add(new Plane(new Vector3D(0, 0, 0), new Vector3D(0, 1, 0), new Color(0.3F, 0.6F, 0.2F), 0));
+        scene.add(new Light(new Vector3D(1, 1, 1), new Color(1F, 1F, 1F), 0.8F));
+        for (int i = 0; i < trees; i++) {
+            double x = (i % rows - rows / 2.0) * spacing + random.nextDouble() * spacing / 2;
+            double z = -(i / rows) * spacing + random.nextDouble() * spacing / 2;
+            Transform transform = Transform.scaling(0.7 + random.nextDouble() * 0.6)
+                    .then(Transform.rotation(new Vector3D(0, 1, 0), random.nextDouble() * 360))
+                    .then(Transform.translation(x, 0, z));
+            scene.add(new Instance(tree, transform));
+        }
+        System.out.println("Planted " + trees + " instances of a tree with " + tree.getGeometries().size()
+                + " geometries");
+
+        camera.lookAt(new Vector3D(0, 25, 40), new Vector3D(0, 0, -rows * spacing / 3), new Vector3D(0, 1, 0));
+        createRenderer();
+    }
+
+
+    /**
+     * The private createTree method creates the tree of the forest: a trunk
+     * with six sides and a crown of a few spheres on top of it.
+     * @return A Group object with the trunk and the crown.
+     */
+    private Group createTree() {
+        TriangleMesh trunk = new TriangleMesh(new Color(0.4F, 0.25F, 0.1F), 0);
+        int sides = 6;
+        for (int side = 0; side < sides; side++) {
+            double angle = 2 * Math.PI * side / sides;
+            trunk.addVertex(Math.cos(angle) * 0.6, 0, Math.sin(angle) * 0.6);
+            trunk.addVertex(Math.cos(angle) * 0.4, 6, Math.sin(angle) * 0.4);
+        }
+        for (int side = 0; side < sides; side++) {
+            int next = (side + 1) % sides;
+            trunk.addTriangle(side * 2, next * 2, side * 2 + 1);
+            trunk.addTriangle(next * 2, next * 2 + 1, side * 2 + 1);
+        }
+
+        SphereSet crown = new SphereSet();
+        int leaves = crown.addMaterial(new Color(0.1F, 0.5F, 0.1F), 0);
+        crown.add(0, 7, 0, 2.5, leaves);
+        crown.add(1.5, 6, 0.5, 1.8, leaves);
+        crown.add(-1.2, 6.2, -0.8, 1.9, leaves);
+        crown.add(0.2, 8.8, 0.3, 1.5, leaves);
+
+        Group tree = new Group();
+        tree.add(trunk);
+        tree.add(crown);
+        return tree;
+    }
+
+
     /**
      * The startRenderer function calls the render method of the renderer
      * object and passes the initialized Image object as an argument to it.
+     * Afterwards it prints the statistics of the Scene's bounding volume
+     * hierarchy and of the Renderer's shadow cache, the metrics of the
+     * render as JSON if they are enabled, a summary of the heatmap if the
+     * Options object has a heatmap file and how the render fit in its time
+     * budget if it has one.
+     * @throws IOException If the image couldn't be written.
+     * @see renderer.Renderer
+     * @see utilities.BoundingVolumeHierarchy
+     * @see renderer.RenderMetrics
+     * @see renderer.Heatmap
+     * @see renderer.BudgetReport
+     */
+    public void startRenderer() throws IOException {
+        if (options.isMemoryMapped()) {
+            try (MappedImage mappedImage = createMappedImage()) {
+                renderer.render(mappedImage);
+            }
+        } else {
+            renderer.render(image);
+        }
+        System.out.println(scene.getBoundingVolumeHierarchy());
+        System.out.println("Shadow cache: " + renderer.getShadowCacheHits() + " hits, "
+                + renderer.getShadowCacheMisses() + " misses");
+        RenderMetrics metrics = renderer.getMetrics();
+        if (metrics != null) {
+            long rays = metrics.getPrimaryRays() + metrics.getShadowRays() + metrics.getReflectionRays();
+            System.out.printf("BVH traversals: %d rays, %.2f nodes visited per ray%n", rays,
+                    (double) metrics.getNodesVisited() / Math.max(1, rays));
+            System.out.println(metrics.toJson());
+        }
+        if (options.getHeatmapFile() != null) {
+            System.out.println(renderer.getHeatmap());
+        }
+        if (renderer.getBudgetReport() != null) {
+            System.out.println(renderer.getBudgetReport());
+        }
+    }
+
+
+    /**
+     * The startRenderFarm method renders the image on the workers of a render
+     * farm instead of on this machine, and writes it to the output file of
+     * the Options object afterwards.
+     * Workers on other machines can connect to the port as well as the ones
+     * that are launched here.
+     * @param port An int value representing the port on which the workers
+     *             connect.
+     * @param localWorkers An int value representing the amount of worker
+     *                     processes to launch on this machine.
+     * @throws IOException If the port couldn't be opened, the workers
+     *                     couldn't be launched or the image couldn't be
+     *                     written.
+     * @see farm.Coordinator
+     * @see farm.Worker
+     */
+    public void startRenderFarm(int port, int localWorkers) throws IOException {
+        if (options.isMemoryMapped()) {
+            try (MappedImage mappedImage = createMappedImage()) {
+                renderFarm(port, localWorkers, mappedImage);
+            }
+        } else {
+            renderFarm(port, localWorkers, image);
+        }
+    }
+
+
+    private void renderFarm(int port, int localWorkers, Image target) throws IOException {
+        try (Coordinator coordinator = new Coordinator(camera, scene, options, port)) {
+            System.out.println("Waiting for workers on port " + coordinator.getPort());
+            coordinator.launchWorkers(localWorkers);
+            coordinator.render(target);
+        }
+        target.write(options.getOutputFile(), options.getCompressionLevel());
+    }
+
+
+    /**
+     * The startAnimation method renders a fly-through of the scene to numbered
+     * files, which are named after the output file of the Options object with
+     * the frame number before the extension. The camera moves from its start
+     * position around the spheres while it looks at the Scene's origin, and
+     * the small green sphere moves to the other side of the scene.
+     * @param frames An int value representing the amount of frames.
+     * @throws IOException If a frame couldn't be written.
+     * @see animation.SequenceRenderer
+     * @see animation.Animation
+     */
+    public void startAnimation(int frames) throws IOException {
+        Animation animation = new Animation();
+        animation.setCamera(
+                new Keyframes()
+                        .add(0, camera.getOrigin())
+                        .add(2, new Vector3D(30, 10, 40))
+                        .add(4, new Vector3D(0, 12, 25)),
+                new Keyframes().add(0, Scene.ORIGIN));
+        Shape sphere = scene.getGeometries().get(0);
+        animation.add(sphere, new Keyframes()
+                .add(0, sphere.getPosition())
+                .add(4, new Vector3D(-12, 5, 0)));
+
+        String outputFile = options.getOutputFile();
+        int extension = outputFile.length() - ImageFormat.forFile(outputFile).getExtension().length();
+        String filePattern = outputFile.substring(0, extension).replace("%", "%%") + "%05d"
+                + outputFile.substring(extension);
+
+        long start = System.nanoTime();
+        try (SequenceRenderer sequenceRenderer = new SequenceRenderer(camera, scene, options)) {
+            sequenceRenderer.render(animation, frames, filePattern);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Rendered %d frames in %.2f s (%.2f frames per second)%n", frames, seconds,
+                frames / seconds);
+        System.out.println(scene.getBoundingVolumeHierarchy());
+    }
+
+
+    /**
+     * @return The Scene object that was created by the initializeRenderer
+     *         method.
+     * @see renderer.Scene
+     */
+    public Scene getScene() {
+        return scene;
+    }
+
+
+    /**
+     * @return The Camera object that was created by the initializeRenderer
+     *         method.
+     * @see renderer.Camera
+     */
+    public Camera getCamera() {
+        return camera;
+    }
+
+
+    /**
+     * @return The Image object that was created by the initializeRenderer
+     *         method, or null if the Options object asks for a memory mapped
+     *         image.
+     * @see utilities.Image
+     */
+    public Image getImage() {
+        return image;
+    }
+
+
+    /**
+     * @return The Renderer object that was created by the initializeRenderer
+     *         method.
      * @see renderer.Renderer
      */
-    public void startRenderer() {
-        renderer.render(image);
+    public Renderer getRenderer() {
+        return renderer;
     }
 
 
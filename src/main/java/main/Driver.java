@@ -1,22 +1,164 @@
 package main;
 
+import farm.Coordinator;
+import farm.Worker;
+import loaders.SceneLoader;
+import utilities.Options;
+
+import java.io.IOException;
+
 /**
  * The Driver class which contains the main method. It creates a new Controller
  * object which it uses to call it's initializeRenderer function and after that
  * it calls its startRenderer function to render an image.
+ * With the argument 'coordinator' the image is rendered on a render farm
+ * instead, optionally followed by the port and the amount of workers to launch
+ * on this machine. With the argument 'worker' it renders tiles for a
+ * coordinator, optionally followed by its host and port. With the argument
+ * 'animation' it renders numbered frames of a fly-through, optionally followed
+ * by the amount of frames. With the argument 'poster' it renders a large image
+ * straight into a memory mapped file, optionally followed by the width, the
+ * height and the name of the PPM or PFM file. With the argument 'checkpoint'
+ * it records the finished tiles in a file, optionally followed by its name,
+ * and resumes from it if it exists. With the argument 'scene' followed by the
+ * name of a scene file it renders that scene, and with 'convert' followed by
+ * two names it converts a scene file to a binary scene file, both print their
+ * usage when a name is missing. With the argument 'forest' it renders
+ * instances of a single tree, optionally followed by the amount of trees. With
+ * the argument 'heatmap' it also writes the time spent on every pixel to a
+ * file, optionally followed by its name. With the argument 'budget' it renders
+ * the image with the quality that fits in a time budget, optionally followed
+ * by the amount of milliseconds.
  * @see main.Controller
  * @see renderer.Renderer
+ * @see farm.Coordinator
+ * @see farm.Worker
+ * @see animation.SequenceRenderer
+ * @see utilities.MappedImage
+ * @see renderer.Checkpoint
+ * @see loaders.SceneLoader
+ * @see geometries.Instance
+ * @see renderer.Heatmap
+ * @see renderer.BudgetReport
  *
  * @author Timothy
  */
 public class Driver {
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
 
-        Controller controller = new Controller();
-        controller.initializeRenderer();
-        controller.startRenderer();
+        String mode = args.length > 0 ? args[0] : "";
+        switch (mode) {
+            case "coordinator": {
+                int port = args.length > 1 ? Integer.parseInt(args[1]) : Coordinator.DEFAULT_PORT;
+                int workers = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+                Controller controller = new Controller(createOptions());
+                controller.initializeRenderer();
+                controller.startRenderFarm(port, workers);
+                break;
+            }
+            case "animation": {
+                int frames = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+                Controller controller = new Controller(createOptions());
+                controller.initializeRenderer();
+                controller.startAnimation(frames);
+                break;
+            }
+            case "poster": {
+                int width = args.length > 1 ? Integer.parseInt(args[1]) : 8192;
+                int height = args.length > 2 ? Integer.parseInt(args[2]) : width;
+                Options options = new Options(width, height);
+                options.setMetrics(true);
+                options.setOutputFile(args.length > 3 ? args[3] : "poster.ppm");
+                options.setMemoryMapped(true);
+                Controller controller = new Controller(options);
+                controller.initializeRenderer();
+                controller.startRenderer();
+                break;
+            }
+            case "checkpoint": {
+                Options options = createOptions();
+                options.setCheckpointFile(args.length > 1 ? args[1] : "renderedImage.checkpoint");
+                Controller controller = new Controller(options);
+                controller.initializeRenderer();
+                controller.startRenderer();
+                break;
+            }
+            case "scene": {
+                if (args.length < 2) {
+                    System.out.println("Usage: scene <scene file>");
+                    break;
+                }
+                Controller controller = new Controller(createOptions());
+                controller.initializeRenderer();
+                controller.loadScene(args[1]);
+                controller.startRenderer();
+                break;
+            }
+            case "forest": {
+                int trees = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+                Controller controller = new Controller(createOptions());
+                controller.initializeRenderer();
+                controller.plantForest(trees);
+                controller.startRenderer();
+                break;
+            }
+            case "heatmap": {
+                Options options = createOptions();
+                options.setHeatmapFile(args.length > 1 ? args[1] : "renderedImage.heatmap.png");
+                Controller controller = new Controller(options);
+                controller.initializeRenderer();
+                controller.startRenderer();
+                break;
+            }
+            case "budget": {
+                Options options = createOptions();
+                options.setTimeBudget(args.length > 1 ? Long.parseLong(args[1]) : 100);
+                options.setSamples(1, 16);
+                Controller controller = new Controller(options);
+                controller.initializeRenderer();
+                controller.startRenderer();
+                break;
+            }
+            case "convert": {
+                if (args.length < 3) {
+                    System.out.println("Usage: convert <scene file> <binary scene file>");
+                    break;
+                }
+                SceneLoader.convert(args[1], args[2]);
+                break;
+            }
+            case "worker": {
+                String host = args.length > 1 ? args[1] : "localhost";
+                int port = args.length > 2 ? Integer.parseInt(args[2]) : Coordinator.DEFAULT_PORT;
+                try {
+                    new Worker(host, port).run();
+                } catch (IOException e) {
+                    System.out.println(e.getMessage());
+                }
+                break;
+            }
+            default: {
+                Controller controller = new Controller(createOptions());
+                controller.initializeRenderer();
+                controller.startRenderer();
+            }
+        }
         
     }
 
+
+    /**
+     * The createOptions method creates the default Options object of the
+     * application, which measures its renders, so the metrics are printed
+     * after a render and can be watched through JMX while it runs.
+     * @return A new Options object with the metrics enabled.
+     * @see renderer.RenderMetrics
+     */
+    private static Options createOptions() {
+        Options options = new Options();
+        options.setMetrics(true);
+        return options;
+    }
+
 }
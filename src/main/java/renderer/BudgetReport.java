@@ -0,0 +1,152 @@
+package renderer;
+
+
+/**
+ * The BudgetReport class tells how a render with a time budget went: how
+ * long it took compared to the budget, and the quality that the Renderer
+ * picked to fit in it and actually reached. The resolution is reported as
+ * the block size of a progressive pass, 1 being the full resolution: the
+ * planned block size is the one the passes started at, the block size the
+ * one of the last pass that was completed.
+ * @see renderer.Renderer#renderImage(utilities.Image, long)
+ * @see utilities.Options#setTimeBudget(long)
+ *
+ * @author Timothy
+ */
+public final class BudgetReport {
+    private final long timeBudget;
+    private final long elapsedNanos;
+    private final int plannedBlockSize;
+    private final int blockSize;
+    private final int reflectionDepth;
+    private final int samples;
+    private final int sampledTiles;
+    private final int tiles;
+
+
+    /**
+     * Creates a new BudgetReport object.
+     * @param timeBudget A long value representing the budget in
+     *                   milliseconds.
+     * @param elapsedNanos A long value representing how long the render
+     *                     took in nanoseconds.
+     * @param plannedBlockSize An int value representing the block size that
+     *                         the estimate said would fit in the budget,
+     *                         with which the first pass was rendered.
+     * @param blockSize An int value representing the block size of the last
+     *                  completed pass, or 0 if not even the first one was.
+     * @param reflectionDepth An int value representing the amount of
+     *                        reflections that were traced per ray.
+     * @param samples An int value representing the maximum amount of samples
+     *                per pixel of the tiles that were sampled, or 1.
+     * @param sampledTiles An int value representing the amount of tiles that
+     *                     were rendered with that many samples.
+     * @param tiles An int value representing the amount of tiles of the
+     *              image.
+     */
+    BudgetReport(long timeBudget, long elapsedNanos, int plannedBlockSize, int blockSize, int reflectionDepth,
+                 int samples, int sampledTiles, int tiles) {
+        this.timeBudget = timeBudget;
+        this.elapsedNanos = elapsedNanos;
+        this.plannedBlockSize = plannedBlockSize;
+        this.blockSize = blockSize;
+        this.reflectionDepth = reflectionDepth;
+        this.samples = samples;
+        this.sampledTiles = sampledTiles;
+        this.tiles = tiles;
+    }
+
+
+    /**
+     * @return A long value that represents the budget in milliseconds.
+     */
+    public long getTimeBudget() {
+        return timeBudget;
+    }
+
+
+    /**
+     * @return A double value that represents how long the render took in
+     *         milliseconds.
+     */
+    public double getElapsedTime() {
+        return elapsedNanos / 1e6;
+    }
+
+
+    /**
+     * @return A boolean value which is true if the render finished within
+     *         the budget.
+     */
+    public boolean isWithinBudget() {
+        return elapsedNanos <= timeBudget * 1_000_000;
+    }
+
+
+    /**
+     * @return An int value that represents the block size that the estimate
+     *         said would fit in the budget, with which the first pass was
+     *         rendered, 1 for the full resolution.
+     */
+    public int getPlannedBlockSize() {
+        return plannedBlockSize;
+    }
+
+
+    /**
+     * @return An int value that represents the block size of the last
+     *         completed pass, 1 for the full resolution or 0 if not even the
+     *         first pass was completed.
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+
+    /**
+     * @return An int value that represents the amount of reflections that
+     *         were traced per ray.
+     */
+    public int getReflectionDepth() {
+        return reflectionDepth;
+    }
+
+
+    /**
+     * @return An int value that represents the maximum amount of samples per
+     *         pixel of the sampled tiles, or 1 if none were sampled.
+     */
+    public int getSamples() {
+        return samples;
+    }
+
+
+    /**
+     * @return An int value that represents the amount of tiles that were
+     *         rendered with more than one sample per pixel.
+     */
+    public int getSampledTiles() {
+        return sampledTiles;
+    }
+
+
+    /**
+     * @return An int value that represents the amount of tiles of the image.
+     */
+    public int getTiles() {
+        return tiles;
+    }
+
+
+    /**
+     * @return A String object that reports the time against the budget and
+     *         the quality that was reached.
+     */
+    @Override
+    public String toString() {
+        return String.format("Rendered in %.1f ms of a %d ms budget: block size %d (planned %d), "
+                        + "%d reflections, %d samples per pixel in %d of %d tiles.",
+                getElapsedTime(), timeBudget, blockSize, plannedBlockSize, reflectionDepth, samples,
+                sampledTiles, tiles);
+    }
+}
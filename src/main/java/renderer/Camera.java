@@ -1,8 +1,11 @@
 package renderer;
 
 import utilities.Ray;
+import utilities.RayPacket;
 import utilities.Vector3D;
 
+import java.io.Serializable;
+
 /**
  * The Camera class which creates the camera through which we see our Image
  * object and which creates Rays for our Renderer.
@@ -11,7 +14,8 @@ import utilities.Vector3D;
  *
  * @author Timothy
  */
-public class Camera {
+public class Camera implements Serializable {
+    private static final long serialVersionUID = 1L;
     private Vector3D origin;
     private Vector3D forward;
     private Vector3D horizontal;
@@ -39,15 +43,30 @@ public class Camera {
      *
      */
     public Camera(Vector3D origin, Vector3D target, Vector3D targetUpDirection, double fieldOfView, double aspectRatio) {
+        lookAt(origin, target, targetUpDirection);
+
+        this.height = Math.tan(Math.PI * fieldOfView * 0.5 / 180);
+        this.width = height * aspectRatio;
+
+    }
+
+
+    /**
+     * The lookAt method moves the Camera to a new origin and turns it towards
+     * a new target, for example to fly the Camera through a scene. The field
+     * of view and aspect ratio stay the same.
+     * @param origin A Vector3D representing the Camera's new origin.
+     * @param target A Vector3D representing the point the Camera looks at.
+     * @param targetUpDirection A Vector3D representing the direction that is
+     *                          up in the image.
+     * @see utilities.Vector3D
+     */
+    public void lookAt(Vector3D origin, Vector3D target, Vector3D targetUpDirection) {
         this.origin = origin;
 
         this.forward = target.subtract(origin).normalize();
         this.horizontal = forward.cross(targetUpDirection).normalize();
         this.vertical = horizontal.cross(forward);
-
-        this.height = Math.tan(Math.PI * fieldOfView * 0.5 / 180);
-        this.width = height * aspectRatio;
-
     }
 
 
@@ -84,9 +103,63 @@ public class Camera {
      * @see utilities.Ray
      */
     public Ray createRay(double u, double v) {
-        Vector3D direction = forward.add(horizontal.multiply(u * width))
-                .add(vertical.multiply(v * height));
+        return createRay(u, v, new Ray());
+    }
+
+
+    /**
+     * The createRay method with a Ray parameter does the same as the other
+     * createRay method, but reuses the given Ray object instead of creating a
+     * new one. The direction is calculated on its components so that no
+     * memory is allocated per pixel.
+     * @param u A double value which represents a normalized x coordinate on
+     *          the screen.
+     * @param v A double value which represents a normalized y coordinate on
+     *          the screen.
+     * @param ray A Ray object which gets the Camera's origin and the
+     *            calculated direction.
+     * @return The Ray object given as a parameter.
+     * @see utilities.Ray
+     */
+    public Ray createRay(double u, double v, Ray ray) {
+        double horizontalScale = u * width;
+        double verticalScale = v * height;
+        double directionX = forward.x + horizontal.x * horizontalScale + vertical.x * verticalScale;
+        double directionY = forward.y + horizontal.y * horizontalScale + vertical.y * verticalScale;
+        double directionZ = forward.z + horizontal.z * horizontalScale + vertical.z * verticalScale;
+        double length = Math.sqrt(directionX * directionX + directionY * directionY + directionZ * directionZ);
+
+        return ray.set(origin.x, origin.y, origin.z,
+                directionX / length, directionY / length, directionZ / length);
+    }
+
+
+    /**
+     * The createPacket method fills the lanes of a RayPacket object with the
+     * rays through the specified screen coordinates. Every lane gets exactly
+     * the same ray as the createRay method would create for its coordinates.
+     * @param u A double array with the normalized x coordinates of the rays.
+     * @param v A double array with the normalized y coordinates of the rays.
+     * @param count An int value representing the amount of rays, which are
+     *              put in the first lanes of the packet.
+     * @param packet A RayPacket object which gets the Camera's origin and the
+     *               calculated directions.
+     * @return The RayPacket object given as a parameter.
+     * @see utilities.RayPacket
+     */
+    public RayPacket createPacket(double[] u, double[] v, int count, RayPacket packet) {
+        packet.clear();
+        for (int lane = 0; lane < count; lane++) {
+            double horizontalScale = u[lane] * width;
+            double verticalScale = v[lane] * height;
+            double directionX = forward.x + horizontal.x * horizontalScale + vertical.x * verticalScale;
+            double directionY = forward.y + horizontal.y * horizontalScale + vertical.y * verticalScale;
+            double directionZ = forward.z + horizontal.z * horizontalScale + vertical.z * verticalScale;
+            double length = Math.sqrt(directionX * directionX + directionY * directionY + directionZ * directionZ);
 
-        return new Ray(origin, direction.normalize());
+            packet.set(lane, origin.x, origin.y, origin.z,
+                    directionX / length, directionY / length, directionZ / length);
+        }
+        return packet;
     }
 }
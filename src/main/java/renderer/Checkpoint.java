@@ -0,0 +1,314 @@
+package renderer;
+
+import utilities.Color;
+import utilities.Image;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+
+/**
+ * The Checkpoint class keeps a journal of the tiles of a render that are
+ * done, so that a render that is stopped or crashes can be resumed without
+ * rendering those tiles again. Every finished tile is appended to the file
+ * with its pixels, which are the final colors of the pixels after all their
+ * samples, or the unclamped colors of an image with a float buffer. The
+ * render threads only copy the pixels of a tile; a background thread
+ * appends them to the file and forces the file to the disk at most once
+ * per interval, so the checkpoint never stalls the render.
+ * <p>
+ * Opening an existing checkpoint of the same image size, tile size and
+ * dynamic range draws the tiles it contains on the image. A tile that was
+ * cut off or corrupted by a crash ends the journal, and is rendered again.
+ * An image without pixel arrays, like a MappedImage, is recorded with its
+ * tone mapped colors.
+ * @see renderer.Renderer#renderImage(Image, Checkpoint)
+ * @see utilities.Options#setCheckpointFile(String)
+ *
+ * @author Timothy
+ */
+public class Checkpoint implements Closeable {
+    private static final int MAGIC = 0x52544350;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 6 * Integer.BYTES;
+    private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+    private final Image image;
+    private final int tileSize;
+    private final int columns;
+    private final List<Tile> tiles;
+    private final BitSet completed = new BitSet();
+    private final int restored;
+    private final FileChannel channel;
+    private final long interval;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "checkpoint-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private long lastForce;
+    private volatile IOException failure;
+
+
+    private Checkpoint(Image image, int tileSize, FileChannel channel, long interval) throws IOException {
+        this.image = image;
+        this.tileSize = tileSize;
+        this.columns = (image.getWidth() + tileSize - 1) / tileSize;
+        this.tiles = Tile.split(image.getWidth(), image.getHeight(), tileSize);
+        this.channel = channel;
+        this.interval = interval * 1_000_000;
+        this.restored = restore();
+        this.lastForce = System.nanoTime();
+    }
+
+
+    /**
+     * The open method opens the checkpoint file of a render, and draws the
+     * tiles that were already rendered on the image. A file that doesn't
+     * exist or belongs to a different render is started anew.
+     * @param filename A String value representing the name of the file.
+     * @param image An Image object that is rendered, on which the tiles of
+     *              the checkpoint are drawn.
+     * @param tileSize An int value representing the width and height of the
+     *                 tiles.
+     * @param interval A long value representing the least amount of
+     *                 milliseconds between two times the file is forced to
+     *                 the disk.
+     * @return A Checkpoint object which records the tiles that are rendered
+     *         from now on.
+     * @throws IOException If the file can't be read or written.
+     */
+    public static Checkpoint open(String filename, Image image, int tileSize, long interval) throws IOException {
+        FileChannel channel = FileChannel.open(Path.of(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new Checkpoint(image, tileSize, channel, interval);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+
+    private int restore() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(header, 0);
+        header.flip();
+        boolean sameRender = header.remaining() == HEADER_SIZE && header.getInt() == MAGIC
+                && header.getInt() == VERSION && header.getInt() == image.getWidth()
+                && header.getInt() == image.getHeight() && header.getInt() == tileSize
+                && header.getInt() == (image.isHighDynamicRange() ? 1 : 0);
+        if (!sameRender) {
+            if (channel.size() > 0) {
+                System.out.println("The checkpoint belongs to a different render, starting over");
+            }
+            header.clear();
+            header.putInt(MAGIC).putInt(VERSION).putInt(image.getWidth()).putInt(image.getHeight())
+                    .putInt(tileSize).putInt(image.isHighDynamicRange() ? 1 : 0).flip();
+            channel.truncate(0);
+            channel.write(header, 0);
+            channel.position(HEADER_SIZE);
+            return 0;
+        }
+
+        long position = HEADER_SIZE;
+        ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        CRC32 checksum = new CRC32();
+        int count = 0;
+        while (true) {
+            recordHeader.clear();
+            readFully(recordHeader, position);
+            if (recordHeader.hasRemaining()) {
+                break;
+            }
+            int index = recordHeader.getInt(0);
+            if (index < 0 || index >= tiles.size()) {
+                break;
+            }
+            Tile tile = tiles.get(index);
+            ByteBuffer record = ByteBuffer.allocate(recordSize(tile));
+            readFully(record, position + RECORD_HEADER_SIZE);
+            checksum.reset();
+            checksum.update(record.array());
+            if (record.hasRemaining() || (int) checksum.getValue() != recordHeader.getInt(Integer.BYTES)) {
+                break;
+            }
+            record.flip();
+            draw(tile, record);
+            if (!completed.get(index)) {
+                completed.set(index);
+                count++;
+            }
+            position += RECORD_HEADER_SIZE + record.capacity();
+        }
+        // Drop what was cut off, so that new tiles are appended after the
+        // last complete one
+        channel.truncate(position);
+        channel.position(position);
+        return count;
+    }
+
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                return;
+            }
+        }
+    }
+
+
+    private int recordSize(Tile tile) {
+        int pixelSize = image.isHighDynamicRange() ? 3 * Float.BYTES : Integer.BYTES;
+        return tile.getWidth() * tile.getHeight() * pixelSize;
+    }
+
+
+    private void draw(Tile tile, ByteBuffer record) {
+        for (int y = tile.getY(); y < tile.getY() + tile.getHeight(); y++) {
+            for (int x = tile.getX(); x < tile.getX() + tile.getWidth(); x++) {
+                if (image.isHighDynamicRange()) {
+                    image.draw(x, y, new Color(record.getFloat(), record.getFloat(), record.getFloat()));
+                } else {
+                    image.draw(x, y, record.getInt());
+                }
+            }
+        }
+    }
+
+
+    /**
+     * The tileCompleted method copies the pixels of a tile that is done and
+     * hands them to the background thread, which appends them to the file.
+     * It can be called from any render thread. A tile that couldn't be
+     * written makes the close method fail.
+     * @param tile A Tile object of the image that is completely rendered.
+     */
+    public void tileCompleted(Tile tile) {
+        if (failure != null) {
+            return;
+        }
+        int index = tile.getY() / tileSize * columns + tile.getX() / tileSize;
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + recordSize(tile));
+        record.putInt(index).putInt(0);
+        copy(tile, record);
+        CRC32 checksum = new CRC32();
+        checksum.update(record.array(), RECORD_HEADER_SIZE, record.capacity() - RECORD_HEADER_SIZE);
+        record.putInt(Integer.BYTES, (int) checksum.getValue());
+        record.flip();
+
+        writer.execute(() -> append(record));
+    }
+
+
+    private void copy(Tile tile, ByteBuffer record) {
+        int width = image.getWidth();
+        int[] pixels = image.getPixels();
+        float[] colors = image.getColors();
+        for (int y = tile.getY(); y < tile.getY() + tile.getHeight(); y++) {
+            for (int x = tile.getX(); x < tile.getX() + tile.getWidth(); x++) {
+                int pixel = y * width + x;
+                if (colors != null) {
+                    record.putFloat(colors[pixel * 3]).putFloat(colors[pixel * 3 + 1])
+                            .putFloat(colors[pixel * 3 + 2]);
+                } else if (pixels == null && image.isHighDynamicRange()) {
+                    int rgb = image.getRGB(x, y);
+                    record.putFloat((rgb >> 16 & 0xFF) / 255F).putFloat((rgb >> 8 & 0xFF) / 255F)
+                            .putFloat((rgb & 0xFF) / 255F);
+                } else {
+                    record.putInt(pixels != null ? pixels[pixel] : image.getRGB(x, y));
+                }
+            }
+        }
+    }
+
+
+    private void append(ByteBuffer record) {
+        if (failure != null) {
+            return;
+        }
+        try {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            long now = System.nanoTime();
+            if (now - lastForce >= interval) {
+                channel.force(false);
+                lastForce = now;
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+
+    /**
+     * @return A java List object with the tiles of the image that aren't in
+     *         the checkpoint yet, row by row.
+     * @see renderer.Tile#split(int, int, int)
+     */
+    public List<Tile> getRemainingTiles() {
+        List<Tile> remaining = new ArrayList<>();
+        for (int index = 0; index < tiles.size(); index++) {
+            if (!completed.get(index)) {
+                remaining.add(tiles.get(index));
+            }
+        }
+        return remaining;
+    }
+
+
+    /**
+     * @return An int value that represents the amount of tiles that were
+     *         drawn from the file when it was opened.
+     */
+    public int getRestoredTiles() {
+        return restored;
+    }
+
+
+    /**
+     * @return An int value that represents the amount of tiles of the image.
+     */
+    public int getTileCount() {
+        return tiles.size();
+    }
+
+
+    /**
+     * The close method waits until all the tiles are appended, forces the
+     * file to the disk and closes it. The file is kept, so the render can
+     * still be resumed until the image is written.
+     * @throws IOException If a tile couldn't be written.
+     */
+    @Override
+    public void close() throws IOException {
+        writer.shutdown();
+        try {
+            while (!writer.awaitTermination(1, TimeUnit.MINUTES)) {
+                System.out.println("Waiting for the checkpoint");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the checkpoint", e);
+        } finally {
+            if (failure == null) {
+                channel.force(false);
+            }
+            channel.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package renderer;
+
+
+/**
+ * The ExecutionMode enum specifies on which kind of thread pool the Renderer
+ * renders the tiles of an Image.
+ * @see renderer.Renderer
+ * @see renderer.Tile
+ * @see utilities.Options
+ *
+ * @author Timothy
+ */
+public enum ExecutionMode {
+
+    /**
+     * Render all the tiles one after another on the calling thread.
+     */
+    SERIAL,
+
+    /**
+     * Render the tiles on a ForkJoinPool.
+     */
+    FORK_JOIN,
+
+    /**
+     * Render the tiles on a thread pool with a fixed amount of threads.
+     */
+    FIXED_POOL,
+
+    /**
+     * Render every tile on its own virtual thread. Virtual threads are only
+     * available from Java 21, on older versions a fixed pool is used instead.
+     */
+    VIRTUAL_THREADS
+}
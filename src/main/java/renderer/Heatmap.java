@@ -0,0 +1,226 @@
+package renderer;
+
+import utilities.Image;
+import utilities.ImageFormat;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+
+/**
+ * The Heatmap class records how many nanoseconds the Renderer spent on every
+ * pixel of an image, so the parts of a scene that dominate the render time,
+ * like reflective spheres or regions full of shadow rays, can be seen at a
+ * glance. Every pixel is written by the thread that traced it, so the render
+ * threads don't share anything. The pixels that a progressive pass fills
+ * without tracing them, and the tiles restored from a checkpoint, cost
+ * nothing. When the primary rays are traced in packets, the time of a
+ * packet is spread evenly over its pixels.
+ * <p>
+ * A heatmap is written as an image in which the cost runs from black
+ * through blue, red and yellow to white, scaled to the 99th percentile so a
+ * few extreme pixels don't leave the rest of the image black. A PFM file
+ * keeps the nanoseconds themselves instead, as the grey value of every
+ * pixel.
+ * @see renderer.Renderer#setHeatmap(Heatmap)
+ * @see utilities.Options#setHeatmapFile(String)
+ *
+ * @author Timothy
+ */
+public final class Heatmap {
+    private static final double PERCENTILE = 0.99;
+    private static final int MAX_PERCENTILE_SAMPLES = 1 << 20;
+    private static final float[][] RAMP = {
+            {0F, 0F, 0F},
+            {0F, 0F, 1F},
+            {1F, 0F, 0F},
+            {1F, 1F, 0F},
+            {1F, 1F, 1F}
+    };
+    private final int width;
+    private final int height;
+    private final float[] costs;
+
+
+    /**
+     * Creates a new Heatmap object in which every pixel costs nothing yet.
+     * @param width An int value representing the width of the image.
+     * @param height An int value representing the height of the image.
+     */
+    public Heatmap(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.costs = new float[width * height];
+    }
+
+
+    /**
+     * The record method sets the cost of a pixel.
+     * @param x An int value representing the x coordinate of the pixel.
+     * @param y An int value representing the y coordinate of the pixel.
+     * @param nanos A long value representing the nanoseconds spent on the
+     *              pixel.
+     */
+    public void record(int x, int y, long nanos) {
+        costs[y * width + x] = nanos;
+    }
+
+
+    /**
+     * @param x An int value representing the x coordinate of the pixel.
+     * @param y An int value representing the y coordinate of the pixel.
+     * @return A float value that represents the nanoseconds spent on the
+     *         pixel.
+     */
+    public float getCost(int x, int y) {
+        return costs[y * width + x];
+    }
+
+
+    /**
+     * The getCost method with a Tile parameter adds up the costs of the
+     * pixels of a tile, which estimates how long the tile takes to render
+     * again. The Renderer orders the tiles by it when their order is COST.
+     * @param tile A Tile object within the image.
+     * @return A double value that represents the nanoseconds spent on the
+     *         tile.
+     * @see renderer.Tile
+     * @see renderer.TileOrder#COST
+     */
+    public double getCost(Tile tile) {
+        double cost = 0;
+        for (int y = tile.getY(); y < tile.getY() + tile.getHeight(); y++) {
+            int row = y * width;
+            for (int x = tile.getX(); x < tile.getX() + tile.getWidth(); x++) {
+                cost += costs[row + x];
+            }
+        }
+        return cost;
+    }
+
+
+    /**
+     * @return An int value that represents the width of the image.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+
+    /**
+     * @return An int value that represents the height of the image.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+
+    /**
+     * The toImage method turns the costs into colors, from black for the
+     * pixels that cost nothing to white for the ones that cost the 99th
+     * percentile or more.
+     * @return A new Image object with the colors of the heatmap.
+     * @see utilities.Image
+     */
+    public Image toImage() {
+        Image image = new Image(width, height);
+        float scale = getPercentile(PERCENTILE);
+        float[] rgb = new float[3];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                float cost = costs[y * width + x];
+                ramp(scale == 0 ? 0 : Math.min(1F, cost / scale), rgb);
+                image.draw(x, y, 0xFF000000 | Math.round(255 * rgb[0]) << 16 | Math.round(255 * rgb[1]) << 8
+                        | Math.round(255 * rgb[2]));
+            }
+        }
+        return image;
+    }
+
+
+    /**
+     * The write method writes the heatmap to a file. A PFM file gets the
+     * nanoseconds of every pixel as its grey value, the other formats get
+     * the colors of the toImage method.
+     * @param filename A String value representing the name of the file.
+     * @param compressionLevel An int value between 0 and 9 that represents
+     *                         the compression level of a PNG file.
+     * @throws IOException If the file can't be written.
+     * @throws IllegalArgumentException If the extension of the file is
+     *                                  unknown.
+     * @see utilities.ImageFormat
+     */
+    public void write(String filename, int compressionLevel) throws IOException {
+        if (ImageFormat.forFile(filename) != ImageFormat.PFM) {
+            toImage().write(filename, compressionLevel);
+            return;
+        }
+
+        Image image = new Image(width, height, true);
+        float[] colors = image.getColors();
+        for (int pixel = 0; pixel < costs.length; pixel++) {
+            colors[pixel * 3] = costs[pixel];
+            colors[pixel * 3 + 1] = costs[pixel];
+            colors[pixel * 3 + 2] = costs[pixel];
+        }
+        image.write(filename, compressionLevel);
+    }
+
+
+    /**
+     * @return A String object that reports the total and mean cost of the
+     *         pixels and the pixel that cost the most.
+     */
+    @Override
+    public String toString() {
+        double total = 0;
+        int slowest = 0;
+        for (int pixel = 0; pixel < costs.length; pixel++) {
+            total += costs[pixel];
+            if (costs[pixel] > costs[slowest]) {
+                slowest = pixel;
+            }
+        }
+        return String.format("Heatmap of %dx%d pixels: %.3f ms in total, %.2f us per pixel, "
+                        + "%.2f us at the 99th percentile, slowest pixel %d, %d with %.2f us.",
+                width, height, total / 1e6, total / Math.max(1, costs.length) / 1e3,
+                getPercentile(PERCENTILE) / 1e3, slowest % width, slowest / width, costs[slowest] / 1e3);
+    }
+
+
+    /**
+     * The getPercentile method looks up the cost below which the specified
+     * fraction of the pixels lies. Large images are sampled at regular
+     * intervals, which is accurate enough for scaling the colors.
+     * @param fraction A double value between 0 and 1.
+     * @return A float value that represents the cost at the percentile.
+     */
+    private float getPercentile(double fraction) {
+        if (costs.length == 0) {
+            return 0;
+        }
+        int step = Math.max(1, costs.length / MAX_PERCENTILE_SAMPLES);
+        float[] samples = new float[(costs.length + step - 1) / step];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = costs[i * step];
+        }
+        Arrays.sort(samples);
+        return samples[(int) Math.min(samples.length - 1, Math.floor(fraction * samples.length))];
+    }
+
+
+    /**
+     * The ramp method interpolates between the colors of the ramp.
+     * @param value A float value between 0 and 1.
+     * @param rgb A float array in which the red, green and blue values are
+     *            stored.
+     */
+    private static void ramp(float value, float[] rgb) {
+        float position = value * (RAMP.length - 1);
+        int stop = Math.min((int) position, RAMP.length - 2);
+        float fraction = position - stop;
+        for (int channel = 0; channel < 3; channel++) {
+            rgb[channel] = RAMP[stop][channel] + (RAMP[stop + 1][channel] - RAMP[stop][channel]) * fraction;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package renderer;
+
+import utilities.Image;
+
+import java.io.IOException;
+
+
+/**
+ * The PreviewWriter class is a ProgressListener that writes every
+ * intermediate image of a progressive render to a file, so the render can
+ * be watched with any image viewer that reloads the file. A preview that
+ * can't be written doesn't stop the render.
+ * @see renderer.ProgressListener
+ * @see utilities.Options#setPreviewFile(String)
+ *
+ * @author Timothy
+ */
+public class PreviewWriter implements ProgressListener {
+    private final String filename;
+
+
+    /**
+     * Creates a new PreviewWriter object that writes to the specified file.
+     * @param filename A String value representing the name of the file.
+     */
+    public PreviewWriter(String filename) {
+        this.filename = filename;
+    }
+
+
+    @Override
+    public void passCompleted(Image image, int blockSize) {
+        try {
+            image.write(filename);
+        } catch (IOException e) {
+            System.out.println("Could not write the preview: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package renderer;
+
+import utilities.Image;
+
+
+/**
+ * The ProgressListener interface is used to get the intermediate images of a
+ * progressive render. The Renderer first traces one pixel per 8x8 block and
+ * then refines the image in passes with smaller blocks until every pixel is
+ * traced, and calls its listeners when a pass is done.
+ * @see renderer.Renderer#renderProgressive(Image)
+ * @see renderer.PreviewWriter
+ *
+ * @author Timothy
+ */
+public interface ProgressListener {
+
+    /**
+     * The passCompleted method is called on the thread that started the
+     * render after a pass is done. It isn't called for every pass when they
+     * finish quicker than the preview interval in the Options object, but it
+     * is always called for the first and the last pass.
+     * @param image The Image object that is being rendered. Every pixel is
+     *              filled, with the color of the traced pixel of its block.
+     * @param blockSize An int value representing the width and height of the
+     *                  blocks of the pass, 1 for the last pass.
+     */
+    void passCompleted(Image image, int blockSize);
+}
@@ -0,0 +1,317 @@
+package renderer;
+
+import geometries.Shape;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * The RenderMetrics class counts what a render costs: the primary, shadow
+ * and reflection rays, the intersection tests per class of Shape, the nodes
+ * of the scene's bounding volume hierarchy that were visited, how deep the
+ * rays recursed and how long the tiles took. Every render thread counts in
+ * its own Counters object with plain long fields, which are added to the
+ * shared LongAdder objects when the thread finishes a tile, so counting
+ * costs a few increments per ray and nothing is shared between the threads
+ * while they trace. A Renderer only has a RenderMetrics object if the
+ * Options object enables it, without one it skips the counting altogether.
+ * <p>
+ * The counters can be read while rendering through JMX after the register
+ * method is called, and are printed as JSON after a render by the
+ * Controller.
+ * @see renderer.Renderer#getMetrics()
+ * @see utilities.Options#setMetrics(boolean)
+ * @see renderer.RenderMetricsMXBean
+ *
+ * @author Timothy
+ */
+public final class RenderMetrics implements RenderMetricsMXBean {
+
+    /**
+     * The name under which the register method registers the RenderMetrics
+     * object with the platform MBeanServer.
+     */
+    public static final String OBJECT_NAME = "renderer:type=RenderMetrics";
+    private static final List<String> SHAPE_TYPE_NAMES = new ArrayList<>();
+    private static final ClassValue<Integer> SHAPE_TYPES = new ClassValue<>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            synchronized (SHAPE_TYPE_NAMES) {
+                int index = SHAPE_TYPE_NAMES.indexOf(type.getSimpleName());
+                if (index < 0) {
+                    index = SHAPE_TYPE_NAMES.size();
+                    SHAPE_TYPE_NAMES.add(type.getSimpleName());
+                }
+                return index;
+            }
+        }
+    };
+    private final LongAdder primaryRays = new LongAdder();
+    private final LongAdder shadowRays = new LongAdder();
+    private final LongAdder reflectionRays = new LongAdder();
+    private final LongAdder nodesVisited = new LongAdder();
+    private final LongAdder[] depths;
+    private final Map<String, LongAdder> tests = new ConcurrentHashMap<>();
+    private final LongAdder tiles = new LongAdder();
+    private final LongAdder tileTime = new LongAdder();
+    private final LongAccumulator maxTileTime = new LongAccumulator(Math::max, 0);
+
+
+    /**
+     * Creates a new RenderMetrics object with all counters at zero.
+     * @param maxDepth An int value representing the amount of recursion
+     *                 depths that a ray can be traced at.
+     */
+    RenderMetrics(int maxDepth) {
+        depths = new LongAdder[maxDepth];
+        for (int depth = 0; depth < maxDepth; depth++) {
+            depths[depth] = new LongAdder();
+        }
+    }
+
+
+    /**
+     * The createCounters method creates the Counters object of a render
+     * thread.
+     * @return A Counters object that can only be used by a single thread.
+     */
+    Counters createCounters() {
+        return new Counters(depths.length);
+    }
+
+
+    /**
+     * The tileCompleted method adds the counters of a thread that finished
+     * a tile and sets them back to zero.
+     * @param counters The Counters object of the thread that rendered the
+     *                 tile.
+     * @param nanos A long value representing how long the tile took in
+     *              nanoseconds.
+     */
+    void tileCompleted(Counters counters, long nanos) {
+        tiles.increment();
+        tileTime.add(nanos);
+        maxTileTime.accumulate(nanos);
+        add(counters);
+    }
+
+
+    /**
+     * The add method adds the counters of a thread to the shared counters
+     * and sets them back to zero.
+     * @param counters The Counters object of a render thread.
+     */
+    void add(Counters counters) {
+        long[] traced = counters.depths;
+        primaryRays.add(traced[0]);
+        for (int depth = 0; depth < traced.length; depth++) {
+            depths[depth].add(traced[depth]);
+            if (depth > 0) {
+                reflectionRays.add(traced[depth]);
+            }
+            traced[depth] = 0;
+        }
+
+        long[] tested = counters.tests;
+        for (int type = 0; type < tested.length; type++) {
+            if (tested[type] != 0) {
+                String name;
+                synchronized (SHAPE_TYPE_NAMES) {
+                    name = SHAPE_TYPE_NAMES.get(type);
+                }
+                tests.computeIfAbsent(name, key -> new LongAdder()).add(tested[type]);
+                tested[type] = 0;
+            }
+        }
+
+        shadowRays.add(counters.shadowRays);
+        nodesVisited.add(counters.nodesVisited);
+        counters.shadowRays = 0;
+        counters.nodesVisited = 0;
+    }
+
+
+    /**
+     * The register method registers the RenderMetrics object with the
+     * platform MBeanServer under the OBJECT_NAME, in place of the one of an
+     * earlier Renderer. A failure is printed, because the render doesn't
+     * depend on it.
+     * @return A boolean value which is true if it was registered.
+     */
+    public boolean register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+            return true;
+        } catch (JMException e) {
+            System.out.println("Couldn't register the render metrics: " + e.getMessage());
+            return false;
+        }
+    }
+
+
+    @Override
+    public long getPrimaryRays() {
+        return primaryRays.sum();
+    }
+
+
+    @Override
+    public long getShadowRays() {
+        return shadowRays.sum();
+    }
+
+
+    @Override
+    public long getReflectionRays() {
+        return reflectionRays.sum();
+    }
+
+
+    @Override
+    public long getNodesVisited() {
+        return nodesVisited.sum();
+    }
+
+
+    @Override
+    public long[] getDepthHistogram() {
+        long[] histogram = new long[depths.length];
+        for (int depth = 0; depth < depths.length; depth++) {
+            histogram[depth] = depths[depth].sum();
+        }
+        return histogram;
+    }
+
+
+    @Override
+    public Map<String, Long> getIntersectionTests() {
+        Map<String, Long> counts = new TreeMap<>();
+        tests.forEach((name, count) -> counts.put(name, count.sum()));
+        return counts;
+    }
+
+
+    @Override
+    public long getTiles() {
+        return tiles.sum();
+    }
+
+
+    @Override
+    public long getTileTime() {
+        return tileTime.sum();
+    }
+
+
+    @Override
+    public long getMaxTileTime() {
+        return maxTileTime.get();
+    }
+
+
+    @Override
+    public void reset() {
+        primaryRays.reset();
+        shadowRays.reset();
+        reflectionRays.reset();
+        nodesVisited.reset();
+        for (LongAdder depth : depths) {
+            depth.reset();
+        }
+        tests.clear();
+        tiles.reset();
+        tileTime.reset();
+        maxTileTime.reset();
+    }
+
+
+    @Override
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"primaryRays\": ").append(getPrimaryRays()).append(",\n");
+        json.append("  \"shadowRays\": ").append(getShadowRays()).append(",\n");
+        json.append("  \"reflectionRays\": ").append(getReflectionRays()).append(",\n");
+        json.append("  \"nodesVisited\": ").append(getNodesVisited()).append(",\n");
+
+        json.append("  \"depthHistogram\": [");
+        long[] histogram = getDepthHistogram();
+        for (int depth = 0; depth < histogram.length; depth++) {
+            json.append(depth == 0 ? "" : ", ").append(histogram[depth]);
+        }
+        json.append("],\n");
+
+        json.append("  \"intersectionTests\": {");
+        String separator = "";
+        for (Map.Entry<String, Long> entry : getIntersectionTests().entrySet()) {
+            json.append(separator).append('"').append(entry.getKey()).append("\": ").append(entry.getValue());
+            separator = ", ";
+        }
+        json.append("},\n");
+
+        long tileCount = getTiles();
+        json.append("  \"tiles\": ").append(tileCount).append(",\n");
+        json.append("  \"tileTimeNanos\": ").append(getTileTime()).append(",\n");
+        json.append("  \"meanTileTimeNanos\": ").append(tileCount == 0 ? 0 : getTileTime() / tileCount).append(",\n");
+        json.append("  \"maxTileTimeNanos\": ").append(getMaxTileTime()).append('\n');
+        return json.append('}').toString();
+    }
+
+
+    /**
+     * The Counters class holds the counters of a single render thread. It is
+     * kept in the thread's TraceContext and only touched by that thread, so
+     * its fields are plain longs.
+     */
+    static final class Counters {
+        private final long[] depths;
+        private long[] tests = new long[8];
+        private long shadowRays;
+        private long nodesVisited;
+
+        private Counters(int maxDepth) {
+            depths = new long[maxDepth];
+        }
+
+        void traced(int depth) {
+            depths[depth]++;
+        }
+
+        void shadowRay() {
+            shadowRays++;
+        }
+
+        void visited(long nodes) {
+            nodesVisited += nodes;
+        }
+
+        void tested(Shape shape) {
+            SceneObject object = shape;
+            int type = object.metricsType - 1;
+            if (type < 0) {
+                type = SHAPE_TYPES.get(shape.getClass());
+                object.metricsType = type + 1;
+            }
+            if (type >= tests.length) {
+                long[] grown = new long[Math.max(type + 1, tests.length * 2)];
+                System.arraycopy(tests, 0, grown, 0, tests.length);
+                tests = grown;
+            }
+            tests[type]++;
+        }
+    }
+}
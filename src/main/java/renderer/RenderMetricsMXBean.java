@@ -0,0 +1,93 @@
+package renderer;
+
+import java.util.Map;
+
+
+/**
+ * The RenderMetricsMXBean interface is the management interface of the
+ * RenderMetrics class, through which a JMX client like JConsole or
+ * VisualVM reads the counters of a render while it is running. The
+ * counters of a thread are added when it finishes a tile, so they lag
+ * behind by at most one tile per thread.
+ * @see renderer.RenderMetrics
+ *
+ * @author Timothy
+ */
+public interface RenderMetricsMXBean {
+
+    /**
+     * @return A long value that represents the amount of rays that were shot
+     *         from the camera, one per sample.
+     */
+    long getPrimaryRays();
+
+
+    /**
+     * @return A long value that represents the amount of rays that were shot
+     *         from hit points to the lights.
+     */
+    long getShadowRays();
+
+
+    /**
+     * @return A long value that represents the amount of rays that were
+     *         reflected off of reflective geometries.
+     */
+    long getReflectionRays();
+
+
+    /**
+     * @return A long value that represents the amount of nodes of the
+     *         scene's bounding volume hierarchy that were visited.
+     */
+    long getNodesVisited();
+
+
+    /**
+     * @return A long array with the amount of rays that were traced at every
+     *         recursion depth, starting with the primary rays at depth 0.
+     */
+    long[] getDepthHistogram();
+
+
+    /**
+     * @return A java Map object with the amount of intersection and
+     *         occlusion tests per class of Shape that was tested.
+     */
+    Map<String, Long> getIntersectionTests();
+
+
+    /**
+     * @return A long value that represents the amount of tiles that were
+     *         rendered. The parts of a tile that another thread took over
+     *         count as tiles of their own.
+     */
+    long getTiles();
+
+
+    /**
+     * @return A long value that represents the total time that the threads
+     *         spent rendering tiles in nanoseconds.
+     */
+    long getTileTime();
+
+
+    /**
+     * @return A long value that represents the time of the slowest tile in
+     *         nanoseconds.
+     */
+    long getMaxTileTime();
+
+
+    /**
+     * The reset method sets all the counters back to zero, for example
+     * between the frames of an animation.
+     */
+    void reset();
+
+
+    /**
+     * @return A String object with all the counters as a JSON object.
+     */
+    String toJson();
+}
@@ -3,26 +3,70 @@ package renderer;
 import geometries.Shape;
 import utilities.*;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
 /**
  * The Renderer class which does all the heavy lifting. Here we give a Camera
  * object and a Scene object and render the Scene with the help of the Camera
- * on an Image.
+ * on an Image. The threads of the execution mode are started by the first
+ * render that needs them and kept for the next renders, so they keep their
+ * scratch objects and shadow caches warm, until the Renderer is closed.
  * @see renderer.Camera
  * @see renderer.Scene
  * @see utilities.Image
  *
  * @author Timothy
  */
-public class Renderer {
+public class Renderer implements Closeable {
 
     private final static int MAX_RECURSION_LEVEL = 5;
+    private final static int PROGRESSIVE_BLOCK_SIZE = 8;
+    private final static int PRE_PASS_STEP = 8;
+    private final static int MIN_SPLIT_SIZE = 8;
+    private final static long NO_DEADLINE = Long.MAX_VALUE;
+    private final static Color BLACK = new Color();
     private Camera camera;
     private Scene scene;
+    private Options options;
+    private final ThreadLocal<TraceContext> contexts;
+    private final RenderMetrics metrics;
+    private volatile Heatmap heatmap;
+    private volatile TileCosts tileCosts;
+    private final List<ProgressListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean stopRequested;
+    private volatile long deadline = NO_DEADLINE;
+    private volatile int reflectionDepth = MAX_RECURSION_LEVEL + 1;
+    private volatile int budgetSamples;
+    private volatile BudgetReport budgetReport;
+    private ExecutorService executor;
+    private ExecutionMode executorMode;
+    private int executorThreads;
+    private final LongAdder samples = new LongAdder();
+    private final LongAdder shadowCacheHits = new LongAdder();
+    private final LongAdder shadowCacheMisses = new LongAdder();
 
 
     /**
      * Give a Camera and Scene object to the constructor and set them as
-     * private fields for usage in the Renderer.
+     * private fields for usage in the Renderer. The Renderer uses the default
+     * Options object to decide how the tiles are rendered.
      * @param camera A Camera object which we use to create Rays that can hit
      *               objects.
      * @param scene A Scene object in which we shoot the Rays from the camera
@@ -32,58 +76,1100 @@ public class Renderer {
      * @see utilities.Ray
      */
     public Renderer(Camera camera, Scene scene) {
+        this(camera, scene, new Options());
+    }
+
+
+    /**
+     * Give a Camera, Scene and Options object to the constructor and set them
+     * as private fields for usage in the Renderer.
+     * @param camera A Camera object which we use to create Rays that can hit
+     *               objects.
+     * @param scene A Scene object in which we shoot the Rays from the camera
+     *              to see if we hit objects.
+     * @param options An Options object which specifies the execution mode,
+     *                the amount of threads and the tile size, and if the
+     *                render is measured.
+     * @see renderer.Camera
+     * @see renderer.Scene
+     * @see utilities.Options
+     * @see renderer.RenderMetrics
+     */
+    public Renderer(Camera camera, Scene scene, Options options) {
         this.camera = camera;
         this.scene = scene;
+        this.options = options;
+        this.metrics = options.isMetrics() ? new RenderMetrics(MAX_RECURSION_LEVEL + 2) : null;
+        this.contexts = ThreadLocal.withInitial(() -> new TraceContext(scene.getBackgroundColor(),
+                metrics == null ? null : metrics.createCounters()));
     }
 
 
     /**
      * The render method which is the function that gets called from the
-     * controller. We give it an image and loop through all the pixels and set
-     * the colors of the pixels based on the Ray intersections.
+     * controller. We give it an image, color all of its pixels based on the
+     * Ray intersections and write the result to the output file of the
+     * Options object. If the Options object has a checkpoint file, the tiles
+     * that it already contains aren't rendered again, and it is deleted when
+     * the image is written. If it has a heatmap file, the time spent on
+     * every pixel is recorded in a new Heatmap object and written to it. If
+     * it has a time budget, the image is rendered with the quality that fits
+     * in it.
      * @param image An Image object whose pixels we color based on the
      *              intersections from the Rays
+     * @throws IOException If the image or the checkpoint couldn't be
+     *                     written.
      * @see main.Controller
+     * @see utilities.Options#setOutputFile(String)
+     * @see renderer.Checkpoint
+     * @see renderer.Heatmap
+     * @see renderer.BudgetReport
      * @see utilities.Image
      * @see utilities.Ray
      */
-    public void render(Image image) {
-        camera.setOrigin(new Vector3D(0,0,200));
-        for (int y = 0; y < image.getHeight(); y++) {
-            for (int x = 0; x < image.getWidth(); x++) {
+    public void render(Image image) throws IOException {
+        String heatmapFile = options.getHeatmapFile();
+        if (heatmapFile != null) {
+            heatmap = new Heatmap(image.getWidth(), image.getHeight());
+        }
+        String checkpointFile = options.getCheckpointFile();
+        if (checkpointFile != null) {
+            try (Checkpoint checkpoint = Checkpoint.open(checkpointFile, image, options.getTileSize(),
+                    options.getCheckpointInterval())) {
+                if (checkpoint.getRestoredTiles() > 0) {
+                    System.out.println("Resuming from " + checkpointFile + " with " + checkpoint.getRestoredTiles()
+                            + " of " + checkpoint.getTileCount() + " tiles");
+                }
+                renderImage(image, checkpoint);
+            }
+        } else if (options.getTimeBudget() > 0) {
+            budgetReport = renderImage(image, options.getTimeBudget());
+        } else if (options.isProgressive()) {
+            renderProgressive(image);
+        } else {
+            renderImage(image);
+        }
+        image.write(options.getOutputFile(), options.getCompressionLevel());
+        if (heatmapFile != null) {
+            heatmap.write(heatmapFile, options.getCompressionLevel());
+        }
+        if (checkpointFile != null) {
+            Files.deleteIfExists(Path.of(checkpointFile));
+        }
+    }
+
 
-                image.draw(x, y, getPixelColor(x, y, image.getWidth(), image.getHeight()).toInteger());
+    /**
+     * The renderImage method splits the image into tiles and renders them
+     * with the execution mode and in the tile order specified in the Options
+     * object. Every pixel is computed independently of the others, so the
+     * result is the same for every execution mode, tile order and amount of
+     * threads. The times of the tiles are kept for ordering the tiles of the
+     * next render by cost.
+     * @param image An Image object whose pixels we color based on the
+     *              intersections from the Rays
+     * @see renderer.Tile
+     * @see renderer.ExecutionMode
+     * @see renderer.TileOrder
+     * @see utilities.Options
+     */
+    public void renderImage(Image image) {
+        List<Tile> tiles = orderTiles(Tile.split(image.getWidth(), image.getHeight(), options.getTileSize()), image,
+                null);
+        TileCosts costs = new TileCosts(image.getWidth(), image.getHeight(), options.getTileSize());
+        renderTiles(tiles, costs, true, tile -> renderTile(tile, image));
+        tileCosts = costs;
+    }
+
+
+    /**
+     * The renderImage method with a Checkpoint object only renders the tiles
+     * that aren't in the checkpoint yet, and records every tile in it as
+     * soon as the tile is done. The tiles are never split, because the
+     * checkpoint records whole tiles.
+     * @param image An Image object whose pixels we color, on which the
+     *              Checkpoint object drew the tiles it already contains.
+     * @param checkpoint A Checkpoint object that was opened for the image
+     *                   and the tile size of the Options object.
+     * @see renderer.Checkpoint
+     */
+    public void renderImage(Image image, Checkpoint checkpoint) {
+        TileCosts costs = new TileCosts(image.getWidth(), image.getHeight(), options.getTileSize());
+        renderTiles(orderTiles(checkpoint.getRemainingTiles(), image, null), costs, false, tile -> {
+            renderTile(tile, image);
+            checkpoint.tileCompleted(tile);
+        });
+    }
+
+
+    /**
+     * The renderImage method with a time budget picks the quality that fits
+     * in the budget and returns the best image it reached when the time runs
+     * out. It first times the pre-pass of the COST tile order with all
+     * reflections, and if a full resolution pass wouldn't fit, without any
+     * as well, which estimates how long a full resolution pass takes for
+     * every amount of reflections. The pre-pass counts against the budget,
+     * and its times of the tiles are the costs that the COST tile order
+     * sorts by. It keeps as many reflections as fit and picks the smallest
+     * block size whose pass fits in the time that is left. The progressive
+     * passes start at that block size, so the coarser passes are skipped,
+     * and go on with smaller blocks until the deadline, which leaves the
+     * last completed resolution. If the full resolution is done early and
+     * the Options object allows more than one sample per pixel, the tiles
+     * are rendered again with as many samples as the passes suggest will
+     * fit, until the deadline. A tile that was started finishes, so the
+     * render can overrun the budget by about the time of one tile.
+     * @param image An Image object whose pixels we color.
+     * @param timeBudget A long value representing the budget in milliseconds.
+     * @return A BudgetReport object with the time that the render took and
+     *         the quality that it reached.
+     * @throws IllegalArgumentException If the budget isn't positive.
+     * @see renderer.BudgetReport
+     * @see utilities.Options#setTimeBudget(long)
+     */
+    public BudgetReport renderImage(Image image, long timeBudget) {
+        if (timeBudget <= 0) {
+            throw new IllegalArgumentException("The time budget must be positive, got " + timeBudget);
+        }
+        long start = System.nanoTime();
+        long end = start + timeBudget * 1_000_000;
+        deadline = end;
+        List<Tile> tiles = Tile.split(image.getWidth(), image.getHeight(), options.getTileSize());
+        TileCosts costs = new TileCosts(image.getWidth(), image.getHeight(), options.getTileSize());
+        try {
+            int depth = MAX_RECURSION_LEVEL + 1;
+            reflectionDepth = depth;
+            long deep = timePrePass(tiles, image, costs);
+            long shallow = deep;
+            long remaining = end - System.nanoTime();
+            if (estimatePass(shallow, deep, depth) > remaining) {
+                reflectionDepth = 0;
+                shallow = timePrePass(tiles, image, costs);
+                remaining = end - System.nanoTime();
+            }
+            while (depth > 0 && estimatePass(shallow, deep, depth) > remaining) {
+                depth--;
+            }
+            int plannedBlockSize = 1;
+            while (plannedBlockSize < PROGRESSIVE_BLOCK_SIZE
+                    && estimatePass(shallow, deep, depth) / (plannedBlockSize * plannedBlockSize) > remaining) {
+                plannedBlockSize *= 2;
+            }
+            reflectionDepth = depth;
+            tiles = orderTiles(tiles, image, costs);
+
+            long passStart = System.nanoTime();
+            int blockSize = renderProgressive(image, tiles, plannedBlockSize);
+            long passTime = System.nanoTime() - passStart;
+
+            int samples = 1;
+            AtomicInteger sampledTiles = new AtomicInteger();
+            remaining = end - System.nanoTime();
+            if (blockSize == 1 && options.getMaxSamples() > 1 && remaining / Math.max(1, passTime) > 1) {
+                samples = (int) Math.min(options.getMaxSamples(), remaining / Math.max(1, passTime));
+                budgetSamples = samples;
+                renderTiles(tiles, costs, false, tile -> {
+                    if (!isPastDeadline()) {
+                        renderTile(tile, image);
+                        sampledTiles.incrementAndGet();
+                    }
+                });
             }
+            return new BudgetReport(timeBudget, System.nanoTime() - start, plannedBlockSize, blockSize, depth,
+                    sampledTiles.get() > 0 ? samples : 1, sampledTiles.get(), tiles.size());
+        } finally {
+            deadline = NO_DEADLINE;
+            reflectionDepth = MAX_RECURSION_LEVEL + 1;
+            budgetSamples = 0;
         }
-        image.write();
     }
 
 
     /**
-     * The findHit method loops through all the shapes in the scene and looks
-     * if they intersect with the ray parameter. If it hits one, it checks if
-     * the 'distance'(t) to the object is smaller than that of the previous
-     * ray. If so, it means an object is hit that was closer to us. So replace
-     * the t value of the ray to that of the hitRay
+     * The timePrePass method renders the pre-pass of the tiles on all the
+     * threads.
+     * @param tiles A List of Tile objects whose pre-pass is rendered.
+     * @param image The Image object that the tiles belong to.
+     * @param costs A TileCosts object to which the times of the tiles are
+     *              added.
+     * @return A long value representing how long the pre-pass took in
+     *         nanoseconds.
+     */
+    private long timePrePass(List<Tile> tiles, Image image, TileCosts costs) {
+        long start = System.nanoTime();
+        renderTiles(tiles, costs, false, tile -> renderPrePass(tile, image.getWidth(), image.getHeight()));
+        return System.nanoTime() - start;
+    }
+
+
+    /**
+     * The estimatePass method estimates how long a full resolution pass with
+     * one sample per pixel takes from the times of the pre-pass, which traces
+     * one pixel out of every 8x8. The reflections are assumed to cost the
+     * same at every depth.
+     * @param shallow A long value representing the time of the pre-pass
+     *                without reflections in nanoseconds.
+     * @param deep A long value representing the time of the pre-pass with
+     *             all reflections in nanoseconds.
+     * @param depth An int value representing the amount of reflections.
+     * @return A double value representing the estimated time in
+     *         nanoseconds.
+     */
+    private static double estimatePass(long shallow, long deep, int depth) {
+        double reflections = Math.max(0, deep - shallow) * depth / (double) (MAX_RECURSION_LEVEL + 1);
+        return PRE_PASS_STEP * PRE_PASS_STEP * (shallow + reflections);
+    }
+
+
+    /**
+     * The isPastDeadline method looks if the deadline of a render with a
+     * time budget has passed, and stops a progressive render if so.
+     * @return A boolean value which is true if the time is up.
+     */
+    private boolean isPastDeadline() {
+        long current = deadline;
+        if (current != NO_DEADLINE && System.nanoTime() - current >= 0) {
+            stopRequested = true;
+            return true;
+        }
+        return false;
+    }
+
+
+    /**
+     * The renderProgressive method renders the image in passes. The first
+     * pass traces one pixel per 8x8 block and fills the whole block with its
+     * color, so a rough image is ready after 1/64th of the work. Every next
+     * pass halves the block size and only traces the pixels that weren't
+     * traced yet, so the last pass leaves exactly the same image as the
+     * renderImage method at the same total cost. The ProgressListener objects
+     * are called between the passes, and the render can be stopped after any
+     * pass with the requestStop method. Ray packets aren't used for the
+     * passes.
+     * @param image An Image object whose pixels we color based on the
+     *              intersections from the Rays
+     * @return An int value representing the block size of the last pass
+     *         that was completed, 1 if the image was rendered completely or
+     *         0 if it was stopped during the first pass.
+     * @see renderer.ProgressListener
+     * @see utilities.Options#setPreviewInterval(long)
+     */
+    public int renderProgressive(Image image) {
+        List<Tile> tiles = Tile.split(image.getWidth(), image.getHeight(), options.getTileSize());
+        return renderProgressive(image, orderTiles(tiles, image, null), PROGRESSIVE_BLOCK_SIZE);
+    }
+
+
+    /**
+     * The renderProgressive method with a first block size renders the
+     * passes of the already ordered tiles from that block size down.
+     * @param image An Image object whose pixels we color.
+     * @param tiles A List of Tile objects in the order in which they are
+     *              rendered.
+     * @param firstBlockSize An int value representing the block size of the
+     *                       first pass, a power of two up to 8.
+     * @return An int value representing the block size of the last pass
+     *         that was completed, 1 if the image was rendered completely or
+     *         0 if it was stopped during the first pass.
+     */
+    private int renderProgressive(Image image, List<Tile> tiles, int firstBlockSize) {
+        TileCosts costs = new TileCosts(image.getWidth(), image.getHeight(), options.getTileSize());
+        long interval = options.getPreviewInterval() * 1_000_000;
+        long lastUpdate = System.nanoTime();
+        int completed = 0;
+        stopRequested = false;
+
+        for (int blockSize = firstBlockSize; blockSize >= 1 && !stopRequested; blockSize /= 2) {
+            int size = blockSize;
+            boolean firstPass = blockSize == firstBlockSize;
+            renderTiles(tiles, costs, true, tile -> renderTileBlocks(tile, image, size, firstPass));
+            if (stopRequested) {
+                break;
+            }
+
+            completed = blockSize;
+            long now = System.nanoTime();
+            if (blockSize == firstBlockSize || blockSize == 1 || now - lastUpdate >= interval) {
+                lastUpdate = now;
+                for (ProgressListener listener : listeners) {
+                    listener.passCompleted(image, blockSize);
+                }
+            }
+        }
+        if (completed == 1) {
+            tileCosts = costs;
+        }
+        return completed;
+    }
+
+
+    /**
+     * The requestStop method asks a progressive render to stop as soon as
+     * possible. The pass that is running is abandoned, which leaves the
+     * image of the last completed pass with some of its blocks refined. It
+     * can be called from any thread, including from a ProgressListener.
+     * @see renderer.Renderer#renderProgressive(Image)
+     */
+    public void requestStop() {
+        stopRequested = true;
+    }
+
+
+    /**
+     * @param listener A ProgressListener object which gets the intermediate
+     *                 images of progressive renders.
+     * @see renderer.ProgressListener
+     */
+    public void addProgressListener(ProgressListener listener) {
+        listeners.add(listener);
+    }
+
+
+    /**
+     * @param listener A ProgressListener object which no longer gets the
+     *                 intermediate images of progressive renders.
+     * @see renderer.ProgressListener
+     */
+    public void removeProgressListener(ProgressListener listener) {
+        listeners.remove(listener);
+    }
+
+
+    /**
+     * The renderTiles method runs the work for every tile with the execution
+     * mode specified in the Options object and waits until all of it is done.
+     * The tiles are handed out in the order of the list, and the time of
+     * every tile is added to the TileCosts object. On a ForkJoinPool, a
+     * thread that starts a tile when no tiles are waiting anymore splits it
+     * in halves for as long as other threads take the halves, so the threads
+     * that would otherwise sit idle at the end of a render share the last
+     * expensive tiles.
+     * @param tiles A List of Tile objects to render.
+     * @param costs A TileCosts object to which the times of the tiles are
+     *              added.
+     * @param split A boolean value which specifies if the tiles may be
+     *              split, which requires that the work can render any part
+     *              of a tile.
+     * @param work A Consumer which renders a single tile.
+     * @see renderer.Tile
+     * @see renderer.ExecutionMode
+     */
+    private void renderTiles(List<Tile> tiles, TileCosts costs, boolean split, Consumer<Tile> work) {
+        Consumer<Tile> timedWork = tile -> {
+            long start = System.nanoTime();
+            work.accept(tile);
+            costs.add(tile, System.nanoTime() - start);
+        };
+        if (options.getExecutionMode() == ExecutionMode.SERIAL) {
+            for (Tile tile : tiles) {
+                timedWork.accept(tile);
+            }
+            return;
+        }
+
+        ExecutorService executor = getExecutor();
+        List<Future<?>> results = new ArrayList<>();
+        try {
+            for (Tile tile : tiles) {
+                if (executor instanceof ForkJoinPool) {
+                    results.add(((ForkJoinPool) executor).submit(new TileTask(tile, split, timedWork)));
+                } else {
+                    results.add(executor.submit(() -> timedWork.accept(tile)));
+                }
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rendering", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Rendering a tile failed", e.getCause());
+        } finally {
+            for (Future<?> result : results) {
+                result.cancel(true);
+            }
+        }
+    }
+
+
+    /**
+     * The TileTask class renders a tile on a ForkJoinPool. When no other
+     * tiles are waiting to be handed out, it splits off half of its tile for
+     * another thread to steal, and keeps splitting the rest for as long as
+     * the halves get stolen and the tile is large enough.
+     * @see renderer.Renderer#renderTiles(List, TileCosts, boolean, Consumer)
+     */
+    private static class TileTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Tile tile;
+        private final boolean split;
+        private final Consumer<Tile> work;
+
+        private TileTask(Tile tile, boolean split, Consumer<Tile> work) {
+            this.tile = tile;
+            this.split = split;
+            this.work = work;
+        }
+
+        @Override
+        protected void compute() {
+            Tile current = tile;
+            List<TileTask> halves = new ArrayList<>();
+            while (split && Math.max(current.getWidth(), current.getHeight()) >= 2 * MIN_SPLIT_SIZE
+                    && getPool().getQueuedSubmissionCount() == 0 && getSurplusQueuedTaskCount() <= 0) {
+                Tile rest;
+                if (current.getWidth() >= current.getHeight()) {
+                    int half = current.getWidth() / 2;
+                    rest = new Tile(current.getX() + half, current.getY(), current.getWidth() - half,
+                            current.getHeight());
+                    current = new Tile(current.getX(), current.getY(), half, current.getHeight());
+                } else {
+                    int half = current.getHeight() / 2;
+                    rest = new Tile(current.getX(), current.getY() + half, current.getWidth(),
+                            current.getHeight() - half);
+                    current = new Tile(current.getX(), current.getY(), current.getWidth(), half);
+                }
+                TileTask task = new TileTask(rest, true, work);
+                task.fork();
+                halves.add(task);
+            }
+
+            work.accept(current);
+            for (TileTask task : halves) {
+                task.join();
+            }
+        }
+    }
+
+
+    /**
+     * The orderTiles method puts the tiles in the order specified in the
+     * Options object. Ordering them by cost needs costs that were measured
+     * for this image, the costs of the pixels in a Heatmap object of the same
+     * size, or the costs of the previous render of an image with the same
+     * size and tile size, without them a pre-pass is rendered first to
+     * estimate them.
+     * @param tiles A List of Tile objects to order.
+     * @param image The Image object that the tiles belong to.
+     * @param measured A TileCosts object with the costs that were already
+     *                 measured for the image, or null.
+     * @return A List of Tile objects in the order in which they are
+     *         rendered.
+     * @see renderer.TileOrder
+     */
+    private List<Tile> orderTiles(List<Tile> tiles, Image image, TileCosts measured) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int tileSize = options.getTileSize();
+        List<Tile> ordered = new ArrayList<>(tiles);
+
+        switch (options.getTileOrder()) {
+            case COST: {
+                TileCosts costs = measured != null ? measured : getHeatmapCosts(tiles, width, height);
+                if (costs == null) {
+                    costs = tileCosts;
+                }
+                if (costs == null || !costs.matches(width, height, tileSize)) {
+                    costs = new TileCosts(width, height, tileSize);
+                    renderTiles(tiles, costs, false, tile -> renderPrePass(tile, width, height));
+                }
+                TileCosts estimates = costs;
+                ordered.sort(Comparator.comparingLong((Tile tile) -> estimates.get(tile)).reversed());
+                break;
+            }
+            case SPIRAL: {
+                // Sort by the ring of tiles around the center, and within a
+                // ring by the angle
+                double centerX = width / 2.0;
+                double centerY = height / 2.0;
+                ordered.sort(Comparator.comparingInt((Tile tile) -> (int) Math.max(
+                                Math.abs(tile.getX() + tile.getWidth() / 2.0 - centerX),
+                                Math.abs(tile.getY() + tile.getHeight() / 2.0 - centerY)) / tileSize)
+                        .thenComparingDouble(tile -> Math.atan2(tile.getY() + tile.getHeight() / 2.0 - centerY,
+                                tile.getX() + tile.getWidth() / 2.0 - centerX)));
+                break;
+            }
+            default:
+                break;
+        }
+        return ordered;
+    }
+
+
+    /**
+     * The getHeatmapCosts method adds up the costs that the Heatmap object
+     * recorded for the pixels of every tile, so the tiles can be ordered by
+     * them with any tile size.
+     * @param tiles A List of Tile objects whose costs are added up.
+     * @param width An int value representing the width of the image.
+     * @param height An int value representing the height of the image.
+     * @return A TileCosts object with the costs of the tiles, or null if
+     *         there is no Heatmap object of the same size or it didn't
+     *         record anything yet.
+     * @see renderer.Heatmap#getCost(Tile)
+     */
+    private TileCosts getHeatmapCosts(List<Tile> tiles, int width, int height) {
+        Heatmap recorded = heatmap;
+        if (recorded == null || recorded.getWidth() != width || recorded.getHeight() != height) {
+            return null;
+        }
+        TileCosts costs = new TileCosts(width, height, options.getTileSize());
+        double total = 0;
+        for (Tile tile : tiles) {
+            double cost = recorded.getCost(tile);
+            costs.add(tile, Math.round(cost));
+            total += cost;
+        }
+        return total > 0 ? costs : null;
+    }
+
+
+    /**
+     * The renderPrePass method traces a single primary ray, with its shadow
+     * and reflection rays, through one pixel out of every 8x8 of a tile
+     * without drawing anything. The time it takes is the estimated cost of
+     * the tile. It stops at the deadline of a render with a time budget. Its
+     * rays are added to the metrics, but not as a tile.
+     * @param tile A Tile object whose cost is estimated.
+     * @param width An int value representing the width of the image.
+     * @param height An int value representing the height of the image.
+     */
+    private void renderPrePass(Tile tile, int width, int height) {
+        TraceContext context = contexts.get();
+        int offsetX = Math.min(PRE_PASS_STEP, tile.getWidth()) / 2;
+        int offsetY = Math.min(PRE_PASS_STEP, tile.getHeight()) / 2;
+        for (int y = tile.getY() + offsetY; y < tile.getY() + tile.getHeight() && !isPastDeadline();
+             y += PRE_PASS_STEP) {
+            for (int x = tile.getX() + offsetX; x < tile.getX() + tile.getWidth(); x += PRE_PASS_STEP) {
+                Ray ray = camera.createRay(2 * (x + 0.5) / width - 1, 1 - 2 * (y + 0.5) / height, context.rays[0]);
+                trace(ray, 0, context);
+            }
+        }
+        if (metrics != null) {
+            metrics.add(context.counters);
+        }
+        addCounts(context);
+    }
+
+
+    /**
+     * The renderTile method loops through all the pixels of a single tile and
+     * sets the colors of the pixels based on the Ray intersections. It is
+     * rendered on the calling thread, which is how the workers of a render
+     * farm render the tiles they get from the coordinator. Other threads can
+     * render other tiles of the same image at the same time. When the render
+     * is measured, the counters of the thread are added to the RenderMetrics
+     * object together with the time of the tile, and the time of every pixel
+     * is recorded if the Renderer has a Heatmap object.
+     * @param tile A Tile object that specifies which pixels to render.
+     * @param image An Image object whose pixels we color.
+     * @see renderer.Tile
+     * @see utilities.Image
+     * @see farm.Worker
+     * @see renderer.RenderMetrics
+     */
+    public void renderTile(Tile tile, Image image) {
+        renderTile(tile, image.getWidth(), image.getHeight(), image, 0, 0);
+    }
+
+
+    /**
+     * The renderTile method with the size of the image renders a tile into a
+     * buffer of its own size instead of into the whole image, so a worker of
+     * a render farm only needs the memory of the tiles it is rendering. The
+     * top left pixel of the tile ends up at the top left of the buffer.
+     * @param tile A Tile object that specifies which pixels to render.
+     * @param width An int value representing the width of the image that
+     *              the tile belongs to.
+     * @param height An int value representing the height of the image that
+     *               the tile belongs to.
+     * @param buffer An Image object of at least the size of the tile, whose
+     *               pixels we color.
+     * @see renderer.Tile
+     * @see farm.Worker
+     */
+    public void renderTile(Tile tile, int width, int height, Image buffer) {
+        renderTile(tile, width, height, buffer, tile.getX(), tile.getY());
+    }
+
+
+    private void renderTile(Tile tile, int width, int height, Image image, int offsetX, int offsetY) {
+        TraceContext context = contexts.get();
+        Heatmap costs = heatmap;
+        long start = metrics == null ? 0 : System.nanoTime();
+        if (options.getPacketSize() > 1 && getMaxSamples() == 1) {
+            renderTilePackets(tile, width, height, image, offsetX, offsetY, context, costs);
+        } else if (costs != null) {
+            for (int y = tile.getY(); y < tile.getY() + tile.getHeight(); y++) {
+                for (int x = tile.getX(); x < tile.getX() + tile.getWidth(); x++) {
+                    long pixelStart = System.nanoTime();
+                    image.draw(x - offsetX, y - offsetY, tracePixel(x, y, width, height, context));
+                    costs.record(x, y, System.nanoTime() - pixelStart);
+                }
+            }
+        } else {
+            for (int y = tile.getY(); y < tile.getY() + tile.getHeight(); y++) {
+                for (int x = tile.getX(); x < tile.getX() + tile.getWidth(); x++) {
+                    image.draw(x - offsetX, y - offsetY, tracePixel(x, y, width, height, context));
+                }
+            }
+        }
+
+        if (metrics != null) {
+            metrics.tileCompleted(context.counters, System.nanoTime() - start);
+        }
+        addCounts(context);
+    }
+
+
+    /**
+     * The renderTileBlocks method renders one progressive pass of a tile. It
+     * traces the top left pixel of every block whose top left pixel lies in
+     * the tile and fills the block with its color. The pixels that were
+     * already traced by a pass with twice the block size are skipped, except
+     * in the first pass. Blocks never overlap within a pass, so they can
+     * stick out of the tile without two threads writing the same pixel.
+     * @param tile A Tile object that specifies which pixels to render.
+     * @param image An Image object whose pixels we color.
+     * @param blockSize An int value representing the width and height of the
+     *                  blocks.
+     * @param firstPass A boolean value which is true for the first pass,
+     *                  which traces every block.
+     */
+    private void renderTileBlocks(Tile tile, Image image, int blockSize, boolean firstPass) {
+        TraceContext context = contexts.get();
+        Heatmap costs = heatmap;
+        long start = metrics == null ? 0 : System.nanoTime();
+        int startX = (tile.getX() + blockSize - 1) / blockSize * blockSize;
+        int startY = (tile.getY() + blockSize - 1) / blockSize * blockSize;
+
+        for (int y = startY; y < tile.getY() + tile.getHeight() && !stopRequested && !isPastDeadline();
+             y += blockSize) {
+            for (int x = startX; x < tile.getX() + tile.getWidth(); x += blockSize) {
+                if (!firstPass && x % (blockSize * 2) == 0 && y % (blockSize * 2) == 0) {
+                    continue;
+                }
+                long pixelStart = costs == null ? 0 : System.nanoTime();
+                Color color = tracePixel(x, y, image.getWidth(), image.getHeight(), context);
+                image.fill(x, y, blockSize, blockSize, color);
+                if (costs != null) {
+                    costs.record(x, y, System.nanoTime() - pixelStart);
+                }
+            }
+        }
+
+        if (metrics != null) {
+            metrics.tileCompleted(context.counters, System.nanoTime() - start);
+        }
+        addCounts(context);
+    }
+
+
+    /**
+     * The renderTilePackets method renders a tile in blocks of packet size
+     * by packet size pixels. The primary rays of a block are traced as one
+     * RayPacket object, after which every pixel that hit something is shaded
+     * on its own, because the shadow and reflection rays aren't coherent
+     * anymore. Blocks at the border of the tile can have fewer pixels.
+     * @param tile A Tile object that specifies which pixels to render.
+     * @param width An int value representing the width of the image.
+     * @param height An int value representing the height of the image.
+     * @param image An Image object whose pixels we color.
+     * @param offsetX An int value representing the x coordinate of the image
+     *                at which the pixels of the Image object start.
+     * @param offsetY An int value representing the y coordinate of the image
+     *                at which the pixels of the Image object start.
+     * @param context The TraceContext object of the current thread.
+     * @param costs A Heatmap object which gets the time of every block
+     *              spread over its pixels, or null.
+     * @see utilities.RayPacket
+     */
+    private void renderTilePackets(Tile tile, int width, int height, Image image, int offsetX, int offsetY,
+                                   TraceContext context, Heatmap costs) {
+        int packetSize = options.getPacketSize();
+        int[] pixelX = context.pixelX;
+        int[] pixelY = context.pixelY;
+
+        for (int blockY = tile.getY(); blockY < tile.getY() + tile.getHeight(); blockY += packetSize) {
+            for (int blockX = tile.getX(); blockX < tile.getX() + tile.getWidth(); blockX += packetSize) {
+                long blockStart = costs == null ? 0 : System.nanoTime();
+                int endY = Math.min(blockY + packetSize, tile.getY() + tile.getHeight());
+                int endX = Math.min(blockX + packetSize, tile.getX() + tile.getWidth());
+                int count = 0;
+                for (int y = blockY; y < endY; y++) {
+                    for (int x = blockX; x < endX; x++) {
+                        pixelX[count] = x;
+                        pixelY[count] = y;
+                        context.u[count] = 2 * (x + 0.5) / width - 1;
+                        context.v[count] = 1 - 2 * (y + 0.5) / height;
+                        count++;
+                    }
+                }
+
+                RayPacket packet = camera.createPacket(context.u, context.v, count, context.packet);
+                RayHit[] hits = findHits(packet, context);
+                for (int lane = 0; lane < count; lane++) {
+                    if (context.counters != null) {
+                        context.counters.traced(0);
+                    }
+                    Color color = context.colors[0];
+                    color.set(context.background);
+                    if (hits[lane] != null) {
+                        shade(hits[lane], 0, context, color);
+                    }
+                    image.draw(pixelX[lane] - offsetX, pixelY[lane] - offsetY, color);
+                }
+
+                if (costs != null) {
+                    long cost = (System.nanoTime() - blockStart) / count;
+                    for (int lane = 0; lane < count; lane++) {
+                        costs.record(pixelX[lane], pixelY[lane], cost);
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * The getExecutor method returns the thread pool that belongs to the
+     * execution mode in the Options object. It is created by the first render
+     * and reused by the next ones, unless the execution mode or the amount of
+     * threads was changed in the meantime.
+     * @return An ExecutorService object on which the tiles get rendered.
+     * @see renderer.ExecutionMode
+     */
+    private synchronized ExecutorService getExecutor() {
+        ExecutionMode mode = options.getExecutionMode();
+        int threads = options.getThreads();
+        if (executor == null || executorMode != mode || executorThreads != threads) {
+            close();
+            executor = createExecutor(mode, threads);
+            executorMode = mode;
+            executorThreads = threads;
+        }
+        return executor;
+    }
+
+
+    /**
+     * The createExecutor method creates the thread pool that belongs to an
+     * execution mode. Its threads are daemon threads, so a Renderer that
+     * isn't closed doesn't keep the application running.
+     * @param mode An ExecutionMode value other than SERIAL.
+     * @param threads An int value representing the amount of threads.
+     * @return An ExecutorService object on which the tiles get rendered.
+     * @see renderer.ExecutionMode
+     */
+    private static ExecutorService createExecutor(ExecutionMode mode, int threads) {
+        switch (mode) {
+            case FIXED_POOL:
+                return createFixedThreadPool(threads);
+            case VIRTUAL_THREADS:
+                return createVirtualThreadExecutor(threads);
+            default:
+                return new ForkJoinPool(threads);
+        }
+    }
+
+
+    private static ExecutorService createFixedThreadPool(int threads) {
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "renderer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+
+    /**
+     * The createVirtualThreadExecutor method looks up the virtual thread
+     * executor by reflection, because it only exists from Java 21 onwards.
+     * @return An ExecutorService object that starts a virtual thread per
+     *         tile, or a fixed thread pool if virtual threads aren't
+     *         available.
+     * @param threads An int value representing the amount of threads of the
+     *                fixed thread pool.
+     */
+    private static ExecutorService createVirtualThreadExecutor(int threads) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return createFixedThreadPool(threads);
+        }
+    }
+
+
+    /**
+     * The close method stops the threads that render the tiles. A render
+     * after it starts new ones.
+     */
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+
+    /**
+     * The findHit method loops through all the unbounded shapes in the scene
+     * and traverses the scene's bounding volume hierarchy for the bounded
+     * ones to look if they intersect with the ray parameter. If it hits one,
+     * it checks if the 'distance'(t) to the object is smaller than that of
+     * the previous ray. If so, it means an object is hit that was closer to
+     * us. So replace the t value of the ray to that of the hitRay
      * @param ray A Ray object which is shot through a pixel. Used to look for
      *            an intersection with an Object
+     * @param depth An int value representing the recursion depth of the ray,
+     *              whose RayHit object in the context is reused.
+     * @param context The TraceContext object of the current thread.
      * @return A RayHit object which contains information about the
-     *         intersection and the object it hit.
+     *         intersection and the object it hit, or null if nothing was hit.
+     *         It belongs to the TraceContext object.
      * @see utilities.RayHit
      * @see utilities.Ray
      * @see geometries.Shape
+     * @see utilities.BoundingVolumeHierarchy
+     */
+    private RayHit findHit(Ray ray, int depth, TraceContext context) {
+        ClosestHit closest = context.closest;
+        closest.reset(scene.getBoundedGeometries(), context.hits[depth]);
+
+        for (Shape geometry : scene.getUnboundedGeometries()) {
+            closest.test(geometry, ray);
+        }
+        long visited = context.stack.getNodesVisited();
+        scene.getBoundingVolumeHierarchy().traverse(ray, closest, context.stack);
+        if (context.counters != null) {
+            context.counters.visited(context.stack.getNodesVisited() - visited);
+        }
+        return closest.found ? closest.hit : null;
+    }
+
+
+    /**
+     * The findHits method does the same as the findHit method for all the
+     * rays of a RayPacket object. The unbounded shapes are tested per lane,
+     * while the bounding volume hierarchy is traversed once for the whole
+     * packet.
+     * @param packet A RayPacket object with the rays to look for hits with.
+     * @param context The TraceContext object of the current thread.
+     * @return A RayHit array with the closest hit of every lane, or null for
+     *         the lanes that didn't hit anything. It belongs to the
+     *         TraceContext object.
+     * @see utilities.RayPacket
+     * @see utilities.BoundingVolumeHierarchy
+     */
+    private RayHit[] findHits(RayPacket packet, TraceContext context) {
+        ClosestPacketHit closest = context.closestPacket;
+        closest.reset(scene.getBoundedGeometries());
+
+        for (int lanes = packet.getActiveMask(); lanes != 0; lanes &= lanes - 1) {
+            int lane = Integer.numberOfTrailingZeros(lanes);
+            Ray ray = packet.getRay(lane, closest.rays[lane]);
+            for (Shape geometry : scene.getUnboundedGeometries()) {
+                closest.test(geometry, lane, ray);
+            }
+            packet.t[lane] = ray.getT();
+        }
+        long visited = context.stack.getNodesVisited();
+        scene.getBoundingVolumeHierarchy().traverse(packet, closest, context.stack);
+        if (context.counters != null) {
+            context.counters.visited(context.stack.getNodesVisited() - visited);
+        }
+        for (int lanes = packet.getActiveMask(); lanes != 0; lanes &= lanes - 1) {
+            int lane = Integer.numberOfTrailingZeros(lanes);
+            closest.results[lane] = (closest.found & 1 << lane) != 0 ? closest.hits[lane] : null;
+        }
+        return closest.results;
+    }
+
+
+    /**
+     * The ClosestHit class is the visitor that findHit passes to the bounding
+     * volume hierarchy. The shapes only store the closest hit of all the
+     * shapes it tests in a single RayHit object, so the hit point and normal
+     * are only calculated for the hit that is shaded.
+     * @see utilities.BoundingVolumeHierarchy.LeafVisitor
+     */
+    private static class ClosestHit implements BoundingVolumeHierarchy.LeafVisitor {
+        private Shape[] shapes;
+        private RayHit hit;
+        private boolean found;
+        private RenderMetrics.Counters counters;
+
+        private void reset(Shape[] shapes, RayHit hit) {
+            this.shapes = shapes;
+            this.hit = hit;
+            this.found = false;
+        }
+
+        private void test(Shape geometry, Ray ray) {
+            if (counters != null) {
+                counters.tested(geometry);
+            }
+            found |= geometry.intersect(ray, hit);
+        }
+
+        @Override
+        public boolean visit(int first, int count, Ray ray) {
+            for (int i = first; i < first + count; i++) {
+                test(shapes[i], ray);
+            }
+            return false;
+        }
+    }
+
+
+    /**
+     * The ClosestPacketHit class is the visitor that findHits passes to the
+     * bounding volume hierarchy. The shapes only take a single Ray object, so
+     * every lane has its own Ray object that is kept in sync with the t value
+     * of its lane in the packet, and its own RayHit object. The found mask
+     * has a bit set for every lane that hit something.
+     * @see utilities.BoundingVolumeHierarchy.PacketVisitor
      */
-    private RayHit findHit(Ray ray) {
-        RayHit hit = null;
+    private static class ClosestPacketHit implements BoundingVolumeHierarchy.PacketVisitor {
+        private final Ray[] rays = new Ray[RayPacket.MAX_SIZE];
+        private final RayHit[] hits = new RayHit[RayPacket.MAX_SIZE];
+        private final RayHit[] results = new RayHit[RayPacket.MAX_SIZE];
+        private Shape[] shapes;
+        private int found;
+        private RenderMetrics.Counters counters;
+
+        private ClosestPacketHit() {
+            for (int lane = 0; lane < rays.length; lane++) {
+                rays[lane] = new Ray();
+                hits[lane] = new RayHit();
+            }
+        }
+
+        private void reset(Shape[] shapes) {
+            this.shapes = shapes;
+            this.found = 0;
+        }
+
+        private void test(Shape geometry, int lane, Ray ray) {
+            if (counters != null) {
+                counters.tested(geometry);
+            }
+            if (geometry.intersect(ray, hits[lane])) {
+                found |= 1 << lane;
+            }
+        }
+
+        @Override
+        public void visit(int first, int count, RayPacket packet, int mask) {
+            for (int lanes = mask; lanes != 0; lanes &= lanes - 1) {
+                int lane = Integer.numberOfTrailingZeros(lanes);
+                Ray ray = rays[lane];
+                for (int i = first; i < first + count; i++) {
+                    test(shapes[i], lane, ray);
+                }
+                packet.t[lane] = ray.getT();
+            }
+        }
+    }
+
+
+    /**
+     * The TraceContext class holds the objects that a render thread reuses
+     * for every pixel, so that tracing a pixel doesn't have to allocate new
+     * rays, colors and traversal stacks. Every recursion depth gets its own
+     * Ray, Color and RayHit object, because the ones of the lower depths are
+     * still in use while a reflection ray is traced. The packet fields are only used
+     * when the primary rays are traced in packets, and the sample fields when
+     * a pixel is traced with more than one sample. The random numbers for the
+     * samples are seeded per pixel, so that an image is the same no matter
+     * which thread traced which pixel. The occluders hold the geometry that
+     * last blocked a shadow ray to each light, and are forgotten when the
+     * scene's bounding volume hierarchy is rebuilt. The counters are null
+     * when the render isn't measured, while the shadow cache and sample
+     * counts are always kept here and added to those of the Renderer once
+     * per tile.
+     * @see utilities.Ray
+     * @see utilities.RayPacket
+     * @see utilities.Color
+     */
+    private static class TraceContext {
+        private final Ray[] rays = new Ray[MAX_RECURSION_LEVEL + 2];
+        private final Color[] colors = new Color[MAX_RECURSION_LEVEL + 2];
+        private final RayHit[] hits = new RayHit[MAX_RECURSION_LEVEL + 2];
+        private final MutableVector3D point = new MutableVector3D();
+        private final Ray shadowRay = new Ray();
+        private final ClosestHit closest = new ClosestHit();
+        private final ClosestPacketHit closestPacket = new ClosestPacketHit();
+        private final RayPacket packet = new RayPacket(RayPacket.MAX_SIZE);
+        private final double[] u = new double[RayPacket.MAX_SIZE];
+        private final double[] v = new double[RayPacket.MAX_SIZE];
+        private final int[] pixelX = new int[RayPacket.MAX_SIZE];
+        private final int[] pixelY = new int[RayPacket.MAX_SIZE];
+        private final BoundingVolumeHierarchy.Stack stack = new BoundingVolumeHierarchy.Stack();
+        private final Color background;
+        private final RenderMetrics.Counters counters;
+        private final Color sample = new Color();
+        private int[] strata = new int[0];
+        private long random;
+        private Shape[] occluders = new Shape[0];
+        private BoundingVolumeHierarchy occludersHierarchy;
+        private long shadowCacheHits;
+        private long shadowCacheMisses;
+        private long samples;
+
+        private TraceContext(Color background, RenderMetrics.Counters counters) {
+            this.background = background;
+            this.counters = counters;
+            closest.counters = counters;
+            closestPacket.counters = counters;
+            for (int depth = 0; depth < rays.length; depth++) {
+                rays[depth] = new Ray();
+                colors[depth] = new Color();
+                hits[depth] = new RayHit();
+            }
+        }
+
+        private Shape[] getOccluders(Scene scene, int lights) {
+            BoundingVolumeHierarchy hierarchy = scene.getBoundingVolumeHierarchy();
+            if (occluders.length != lights || occludersHierarchy != hierarchy) {
+                occluders = new Shape[lights];
+                occludersHierarchy = hierarchy;
+            }
+            return occluders;
+        }
 
-        for (Shape geometry : scene.getGeometries()) {
-            RayHit h = geometry.intersects(ray);
-            if(h != null && h.getT() < ray.getT()) {
-                hit = h;
-                ray.setT(h.getT());
+        private void seed(int x, int y) {
+            random = (long) x << 32 ^ y;
+        }
+
+        // The SplitMix64 generator, which gives good numbers even for the
+        // seeds of neighbouring pixels
+        private double nextDouble() {
+            long z = random += 0x9E3779B97F4A7C15L;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            z = z ^ (z >>> 31);
+            return (z >>> 11) * 0x1.0p-53;
+        }
+
+        private int[] shuffleStrata(int count) {
+            if (strata.length != count) {
+                strata = new int[count];
+            }
+            for (int i = 0; i < count; i++) {
+                strata[i] = i;
+            }
+            for (int i = count - 1; i > 0; i--) {
+                int j = (int) (nextDouble() * (i + 1));
+                int stratum = strata[i];
+                strata[i] = strata[j];
+                strata[j] = stratum;
             }
+            return strata;
         }
-        return hit;
     }
 
 
@@ -94,17 +1180,23 @@ public class Renderer {
      * @param ray A Ray object which we pass to the findHit method.
      * @param depth An int value to keep track of the recursion depth.
      *              (How many secondary rays are spawned from the primary one).
-     * @return A Color Object which we use to color the pixel.
+     * @param context The TraceContext object of the current thread.
+     * @return A Color Object which we use to color the pixel. It belongs to
+     *         the TraceContext and is reused for the next ray of this depth.
      * @see utilities.RayHit
      * @see utilities.Ray
      * @see utilities.Color
      */
-    private Color trace(Ray ray, int depth) {
-        RayHit hit = findHit(ray);
-        Color color = scene.getBackgroundColor();
+    private Color trace(Ray ray, int depth, TraceContext context) {
+        if (context.counters != null) {
+            context.counters.traced(depth);
+        }
+        RayHit hit = findHit(ray, depth, context);
+        Color color = context.colors[depth];
+        color.set(context.background);
 
         if(hit != null) {
-            color = shade(hit, depth);
+            shade(hit, depth, context, color);
         }
 
         return color;
@@ -120,38 +1212,75 @@ public class Renderer {
      * @param hit A RayHit object that has information about the hit object.
      * @param depth A int value which specifies the amount of secondary rays
      *              spawned from the primary ray.
-     * @return A Color Object which we pass up to the trace function that uses
-     *         it to color the pixels.
+     * @param context The TraceContext object of the current thread.
+     * @param color A Color Object to which the light and reflection colors
+     *              are added.
      * @see utilities.RayHit
      * @see utilities.Ray
      * @see utilities.Light
      * @see utilities.Color
      */
-    private Color shade(RayHit hit, int depth) {
-        Color color = scene.getBackgroundColor();
+    private void shade(RayHit hit, int depth, TraceContext context, Color color) {
+        MutableVector3D hitPoint = hit.getHitPoint(context.point);
+
+        List<Light> lights = scene.getLights();
+        Shape[] occluders = context.getOccluders(scene, lights.size());
 
-        for(Light light : scene.getLights()) {
-            Vector3D lightTarget = hit.getHitPoint().subtract(light.getPosition());
-            Ray lightRay = new Ray(hit.getHitPoint(), lightTarget);
-            lightRay.setT(lightTarget.length());
+        for (int i = 0; i < lights.size(); i++) {
+            Light light = lights.get(i);
+            Vector3D lightPosition = light.getPosition();
+            double targetX = hitPoint.x - lightPosition.x;
+            double targetY = hitPoint.y - lightPosition.y;
+            double targetZ = hitPoint.z - lightPosition.z;
+            Ray lightRay = context.shadowRay.set(hitPoint.x, hitPoint.y, hitPoint.z, targetX, targetY, targetZ);
+            double distance = Math.sqrt(targetX * targetX + targetY * targetY + targetZ * targetZ);
+            if (context.counters != null) {
+                context.counters.shadowRay();
+                if (occluders[i] != null) {
+                    context.counters.tested(occluders[i]);
+                }
+            }
+
+            // The geometry that blocked the previous shadow ray to this light
+            // most likely blocks this one too
+            if (occluders[i] != null && occluders[i].occludes(lightRay, distance)) {
+                context.shadowCacheHits++;
+                continue;
+            }
+            context.shadowCacheMisses++;
 
-            RayHit obstruction = findHit(lightRay);
-            if (obstruction == null) {
-                Color lightColor = light.getColor(hit);
-                color.add(lightColor);
+            // Any geometry in between blocks the light, so there is no need
+            // to look for the closest one
+            occluders[i] = scene.findOccluder(lightRay, distance, context.counters);
+            if (occluders[i] == null) {
+                light.addColor(hit, color);
             }
         }
 
-        if (depth <= MAX_RECURSION_LEVEL && hit.getShape().isReflective()) {
-            // Create temporary color to store the color we get from trace so
-            // that we can use the intensify function which operates on the
-            // color object itself and multiplies the geometry its reflection
-            // value with the color.
-            Color temp = trace(hit.getReflectionRay(), depth + 1);
-            temp.intensify(hit.getShape().getReflection());
-            color.add(temp);
+        float reflection = hit.getShape().getReflection(hit.getPrimitive());
+        if (depth < reflectionDepth && reflection > 0) {
+            // The reflected color belongs to the next depth, so it can be
+            // scaled with the geometry its reflection value and added to
+            // this color without allocating a temporary color.
+            Color reflected = trace(hit.getReflectionRay(context.rays[depth + 1]), depth + 1, context);
+            color.addScaled(reflected, reflection);
         }
-        return color;
+    }
+
+
+    /**
+     * The addCounts method adds the shadow cache and sample counts of a
+     * thread to those of the Renderer and sets them back to zero, so the
+     * threads only share the counters once per tile instead of once per ray.
+     * @param context The TraceContext object of the current thread.
+     */
+    private void addCounts(TraceContext context) {
+        shadowCacheHits.add(context.shadowCacheHits);
+        shadowCacheMisses.add(context.shadowCacheMisses);
+        samples.add(context.samples);
+        context.shadowCacheHits = 0;
+        context.shadowCacheMisses = 0;
+        context.samples = 0;
     }
 
 
@@ -172,9 +1301,171 @@ public class Renderer {
      * @see utilities.Color
      */
     public Color getPixelColor(int x, int y, int width, int height) {
+        TraceContext context = contexts.get();
+        Color color = new Color(tracePixel(x, y, width, height, context));
+        if (metrics != null) {
+            metrics.add(context.counters);
+        }
+        addCounts(context);
+        return color;
+    }
+
+
+    /**
+     * The tracePixel method does the same as the getPixelColor method, but
+     * reuses the rays and colors of the given TraceContext object.
+     * @return A Color object which represents the color of the pixel on the
+     *         image. It belongs to the TraceContext object.
+     */
+    private Color tracePixel(int x, int y, int width, int height, TraceContext context) {
+        if (getMaxSamples() > 1) {
+            return samplePixel(x, y, width, height, context);
+        }
+
         double pixelX = 2 * (x + 0.5) / width - 1;
         double pixelY = 1 - 2 * (y + 0.5) / height;
-        Ray ray = camera.createRay(pixelX, pixelY);
-        return trace(ray, 0);
+        Ray ray = camera.createRay(pixelX, pixelY, context.rays[0]);
+        return trace(ray, 0, context);
+    }
+
+
+    /**
+     * The samplePixel method traces several jittered samples through the
+     * pixel and averages their colors. The pixel is divided in a grid of
+     * strata with at least as many cells as the maximum amount of samples,
+     * and every sample is placed at a random position in its own cell, so
+     * the samples are spread over the whole pixel. The samples are taken in
+     * batches of the minimum amount of samples, and another batch is only
+     * taken while the variance of the average brightness is above the
+     * threshold in the Options object. Flat areas of the image get the
+     * minimum amount of samples, edges and reflections get more.
+     * @return A Color object which represents the average color of the
+     *         samples. It belongs to the TraceContext object.
+     * @see utilities.Options#setSamples(int, int)
+     * @see utilities.Options#setVarianceThreshold(double)
+     */
+    private Color samplePixel(int x, int y, int width, int height, TraceContext context) {
+        int maxSamples = getMaxSamples();
+        int batch = Math.min(options.getMinSamples(), maxSamples);
+        double threshold = options.getVarianceThreshold();
+        int grid = (int) Math.ceil(Math.sqrt(maxSamples));
+        context.seed(x, y);
+        int[] strata = context.shuffleStrata(grid * grid);
+
+        Color sum = context.sample;
+        sum.set(BLACK);
+        double mean = 0;
+        double squares = 0;
+        int count = 0;
+        int target = batch;
+        while (true) {
+            for (; count < target; count++) {
+                int stratum = strata[count];
+                double sampleX = x + (stratum % grid + context.nextDouble()) / grid;
+                double sampleY = y + (stratum / grid + context.nextDouble()) / grid;
+                Ray ray = camera.createRay(2 * sampleX / width - 1, 1 - 2 * sampleY / height, context.rays[0]);
+                Color color = trace(ray, 0, context);
+                sum.add(color);
+
+                // Welford's method keeps the variance without storing samples
+                double brightness = 0.2126 * color.getRed() + 0.7152 * color.getGreen() + 0.0722 * color.getBlue();
+                double delta = brightness - mean;
+                mean += delta / (count + 1);
+                squares += delta * (brightness - mean);
+            }
+
+            if (count >= maxSamples || (count > 1 && squares / (count - 1) / count <= threshold)) {
+                break;
+            }
+            target = Math.min(maxSamples, count + batch);
+        }
+
+        context.samples += count;
+        sum.divide(count);
+        return sum;
+    }
+
+
+    /**
+     * @return An int value that represents the maximum amount of samples per
+     *         pixel, which a render with a time budget lowers to what fits.
+     */
+    private int getMaxSamples() {
+        int limit = budgetSamples;
+        return limit > 0 ? limit : options.getMaxSamples();
+    }
+
+
+    /**
+     * @param heatmap A Heatmap object with the size of the images that are
+     *                rendered next, in which the time spent on every pixel
+     *                is recorded, or null to stop recording. The render
+     *                method creates its own when the Options object has a
+     *                heatmap file. The costs that it already recorded are
+     *                used to order the tiles by cost.
+     * @see renderer.Heatmap
+     */
+    public void setHeatmap(Heatmap heatmap) {
+        this.heatmap = heatmap;
+    }
+
+
+    /**
+     * @return A Heatmap object with the time spent on every pixel of the
+     *         last render, or null if it wasn't recorded.
+     * @see utilities.Options#setHeatmapFile(String)
+     */
+    public Heatmap getHeatmap() {
+        return heatmap;
+    }
+
+
+    /**
+     * @return A BudgetReport object of the last render with a time budget
+     *         through the render method, or null if there was none.
+     * @see utilities.Options#setTimeBudget(long)
+     */
+    public BudgetReport getBudgetReport() {
+        return budgetReport;
+    }
+
+
+    /**
+     * @return A RenderMetrics object with the counters of the renders of this
+     *         Renderer, or null if the Options object disabled them.
+     * @see utilities.Options#setMetrics(boolean)
+     */
+    public RenderMetrics getMetrics() {
+        return metrics;
+    }
+
+
+    /**
+     * @return A long value that represents the amount of shadow rays that
+     *         were blocked by the geometry that blocked the previous shadow
+     *         ray to the same light on the same thread.
+     */
+    public long getShadowCacheHits() {
+        return shadowCacheHits.sum();
+    }
+
+
+    /**
+     * @return A long value that represents the amount of shadow rays that
+     *         needed a query on the whole scene.
+     */
+    public long getShadowCacheMisses() {
+        return shadowCacheMisses.sum();
+    }
+
+
+    /**
+     * @return A long value that represents the amount of samples that were
+     *         traced for pixels with more than one sample since the Renderer
+     *         was created.
+     * @see utilities.Options#setSamples(int, int)
+     */
+    public long getSampleCount() {
+        return samples.sum();
     }
 }
@@ -1,19 +1,29 @@
 package renderer;
 
 import geometries.Shape;
+import utilities.BoundingBox;
+import utilities.BoundingVolumeHierarchy;
 import utilities.Color;
 import utilities.Light;
+import utilities.Ray;
 import utilities.Vector3D;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 
 /**
  * The Scene class holds everything that can be viewed through the camera.
  * All the lights and shapes are derivatives from the abstract SceneObject
  * class so the Scene also holds a list of all the SceneObjects currently
- * contained in the Scene.
+ * contained in the Scene. A Scene is serializable so it can be sent to the
+ * workers of a render farm, without its bounding volume hierarchy, which is
+ * built again the first time a worker needs it.
  * @see renderer.Camera
  * @see utilities.Light
  * @see geometries.Shape
@@ -21,7 +31,8 @@ import java.util.List;
  *
  * @author Timothy
  */
-public class Scene {
+public class Scene implements Serializable {
+    private static final long serialVersionUID = 1L;
 
 
     /**
@@ -30,10 +41,18 @@ public class Scene {
      * @see utilities.Vector3D
      */
     public final static Vector3D ORIGIN = new Vector3D(0, 0, 0);
+    private final static ThreadLocal<Occluder> OCCLUDERS = ThreadLocal.withInitial(Occluder::new);
+    private final static int REBUILD_FRACTION = 4;
     private Color backgroundColor;
     private List<SceneObject> sceneObjects;
     private List<Shape> geometries;
     private List<Light> lights;
+    private transient volatile BoundingVolumeHierarchy hierarchy;
+    private transient Shape[] boundedGeometries;
+    private transient List<Shape> unboundedGeometries;
+    private transient volatile boolean moved;
+    private transient Set<Shape> movedGeometries;
+    private transient int movedSinceBuild;
 
 
     /**
@@ -54,12 +73,13 @@ public class Scene {
 
 
     /**
-     * @return A Color object that represents the method returns the background
-     *         color of the Scene.
+     * @return A new Color object that is a copy of the background color of the
+     *         Scene, so the caller can add other colors to it without
+     *         changing the Scene itself.
      * @see utilities.Color
      */
     public Color getBackgroundColor() {
-        return backgroundColor;
+        return new Color(backgroundColor);
     }
 
 
@@ -72,6 +92,251 @@ public class Scene {
         return geometries;
     }
 
+    /**
+     * The getBoundingVolumeHierarchy method returns the bounding volume
+     * hierarchy over all the geometries that have a bounding box. It is built
+     * the first time it is needed after the geometries have changed, and
+     * refitted the first time it is needed after geometries have moved.
+     * @return A BoundingVolumeHierarchy object over the bounded geometries.
+     * @see utilities.BoundingVolumeHierarchy
+     * @see geometries.Shape#getBoundingBox()
+     */
+    public BoundingVolumeHierarchy getBoundingVolumeHierarchy() {
+        BoundingVolumeHierarchy current = hierarchy;
+        if (current == null || moved) {
+            current = buildHierarchy();
+        }
+        return current;
+    }
+
+
+    /**
+     * The move method moves a geometry in the scene to a new position. The
+     * bounding volume hierarchy is refitted to the new bounding boxes the
+     * next time it is needed, which keeps the tree and is much cheaper than
+     * building a new one. Once more than a quarter of the bounded geometries
+     * have moved since the tree was built it is built again instead, because
+     * a refitted tree gets worse the further the geometries move. It must
+     * not be called while the scene is rendered.
+     * @param geometry A Shape object in this scene to move.
+     * @param position A Vector3D object that specifies the new position.
+     * @see utilities.BoundingVolumeHierarchy#refit(double[])
+     */
+    public synchronized void move(Shape geometry, Vector3D position) {
+        geometry.setPosition(position);
+        if (hierarchy != null && geometry.getBoundingBox() != null) {
+            if (movedGeometries == null) {
+                movedGeometries = Collections.newSetFromMap(new IdentityHashMap<>());
+            }
+            movedGeometries.add(geometry);
+            moved = true;
+        }
+    }
+
+
+    /**
+     * @return A Shape array that contains the geometries with a bounding box
+     *         in the primitive order of the bounding volume hierarchy.
+     * @see utilities.BoundingVolumeHierarchy#getPrimitiveOrder()
+     */
+    public Shape[] getBoundedGeometries() {
+        getBoundingVolumeHierarchy();
+        return boundedGeometries;
+    }
+
+
+    /**
+     * @return A java List object that contains the geometries without a
+     *         bounding box, which have to be tested by every ray.
+     * @see geometries.Plane
+     */
+    public List<Shape> getUnboundedGeometries() {
+        getBoundingVolumeHierarchy();
+        return unboundedGeometries;
+    }
+
+
+    /**
+     * The buildHierarchy method splits the geometries into bounded and
+     * unbounded ones and builds the bounding volume hierarchy over the
+     * bounded geometries, or refits it if geometries only moved. It is
+     * synchronized so that render threads which need the hierarchy at the
+     * same time only build it once.
+     * @return The BoundingVolumeHierarchy object that was built.
+     */
+    private synchronized BoundingVolumeHierarchy buildHierarchy() {
+        if (hierarchy != null && moved) {
+            movedSinceBuild += movedGeometries.size();
+            if (movedSinceBuild * REBUILD_FRACTION > boundedGeometries.length) {
+                hierarchy = null;
+            } else {
+                BoundingBox[] boxes = new BoundingBox[boundedGeometries.length];
+                for (int i = 0; i < boxes.length; i++) {
+                    boxes[i] = boundedGeometries[i].getBoundingBox();
+                }
+                hierarchy.refit(toBounds(Arrays.asList(boxes)));
+            }
+            movedGeometries.clear();
+            moved = false;
+        }
+
+        if (hierarchy == null) {
+            List<Shape> bounded = new ArrayList<>();
+            List<Shape> unbounded = new ArrayList<>();
+            List<BoundingBox> boxes = new ArrayList<>();
+
+            for (Shape geometry : geometries) {
+                BoundingBox box = geometry.getBoundingBox();
+                if (box == null) {
+                    unbounded.add(geometry);
+                } else {
+                    bounded.add(geometry);
+                    boxes.add(box);
+                }
+            }
+
+            BoundingVolumeHierarchy built = new BoundingVolumeHierarchy(toBounds(boxes));
+            int[] order = built.getPrimitiveOrder();
+            boundedGeometries = new Shape[order.length];
+            for (int i = 0; i < order.length; i++) {
+                boundedGeometries[i] = bounded.get(order[i]);
+            }
+            unboundedGeometries = unbounded;
+            if (movedGeometries != null) {
+                movedGeometries.clear();
+            }
+            movedSinceBuild = 0;
+            moved = false;
+            hierarchy = built;
+        }
+        return hierarchy;
+    }
+
+
+    private static double[] toBounds(List<BoundingBox> boxes) {
+        double[] bounds = new double[boxes.size() * 6];
+        for (int i = 0; i < boxes.size(); i++) {
+            Vector3D min = boxes.get(i).getMin();
+            Vector3D max = boxes.get(i).getMax();
+            bounds[i * 6] = min.x;
+            bounds[i * 6 + 1] = min.y;
+            bounds[i * 6 + 2] = min.z;
+            bounds[i * 6 + 3] = max.x;
+            bounds[i * 6 + 4] = max.y;
+            bounds[i * 6 + 5] = max.z;
+        }
+        return bounds;
+    }
+
+    /**
+     * The isOccluded method looks if any geometry blocks the ray between
+     * T_MIN and maxT. It stops at the first geometry that does, so it is
+     * cheaper than looking for the closest hit, which is all a shadow ray
+     * needs to know.
+     * @param ray A Ray object representing the ray to check. Its t value is
+     *            used while traversing, but restored afterwards.
+     * @param maxT A double value representing the 'distance' up to which the
+     *             ray can be blocked.
+     * @return A boolean value which states if any geometry blocks the ray.
+     * @see geometries.Shape#occludes(Ray, double)
+     */
+    public boolean isOccluded(Ray ray, double maxT) {
+        return findOccluder(ray, maxT) != null;
+    }
+
+
+    /**
+     * The findOccluder method does the same as the isOccluded method, but
+     * returns the geometry that blocks the ray, so the caller can test that
+     * geometry first for the next ray.
+     * @param ray A Ray object representing the ray to check. Its t value is
+     *            used while traversing, but restored afterwards.
+     * @param maxT A double value representing the 'distance' up to which the
+     *             ray can be blocked.
+     * @return The first Shape object found that blocks the ray, which isn't
+     *         necessarily the closest one, or null if none does.
+     * @see geometries.Shape#occludes(Ray, double)
+     */
+    public Shape findOccluder(Ray ray, double maxT) {
+        return findOccluder(ray, maxT, null);
+    }
+
+
+    /**
+     * The findOccluder method with a Counters parameter does the same as the
+     * other findOccluder method, and counts the geometries it tests and the
+     * nodes it visits for the metrics of a render.
+     * @param ray A Ray object representing the ray to check.
+     * @param maxT A double value representing the 'distance' up to which the
+     *             ray can be blocked.
+     * @param counters The Counters object of the current thread, or null if
+     *                 nothing is counted.
+     * @return The first Shape object found that blocks the ray, or null if
+     *         none does.
+     * @see renderer.RenderMetrics
+     */
+    Shape findOccluder(Ray ray, double maxT, RenderMetrics.Counters counters) {
+        for (Shape geometry : getUnboundedGeometries()) {
+            if (counters != null) {
+                counters.tested(geometry);
+            }
+            if (geometry.occludes(ray, maxT)) {
+                return geometry;
+            }
+        }
+
+        Occluder occluder = OCCLUDERS.get();
+        occluder.shapes = getBoundedGeometries();
+        occluder.maxT = maxT;
+        occluder.shape = null;
+        occluder.counters = counters;
+        long visited = occluder.stack.getNodesVisited();
+        double rayT = ray.getT();
+        ray.setT(maxT);
+        getBoundingVolumeHierarchy().traverse(ray, occluder, occluder.stack);
+        ray.setT(rayT);
+        if (counters != null) {
+            counters.visited(occluder.stack.getNodesVisited() - visited);
+        }
+
+        Shape shape = occluder.shape;
+        occluder.shapes = null;
+        occluder.shape = null;
+        occluder.counters = null;
+        return shape;
+    }
+
+
+    /**
+     * The Occluder class is the visitor that isOccluded passes to the
+     * bounding volume hierarchy. It stops the traversal at the first shape
+     * that blocks the ray. Every thread has its own, together with the
+     * traversal stack, so that the query doesn't allocate anything.
+     * @see utilities.BoundingVolumeHierarchy.LeafVisitor
+     */
+    private static class Occluder implements BoundingVolumeHierarchy.LeafVisitor {
+        private final BoundingVolumeHierarchy.Stack stack = new BoundingVolumeHierarchy.Stack();
+        private Shape[] shapes;
+        private double maxT;
+        private Shape shape;
+        private RenderMetrics.Counters counters;
+
+        @Override
+        public boolean visit(int first, int count, Ray ray) {
+            for (int i = first; i < first + count; i++) {
+                if (counters != null) {
+                    counters.tested(shapes[i]);
+                }
+                if (shapes[i].occludes(ray, maxT)) {
+                    shape = shapes[i];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+
     /**
      * @return A java List object that contains all the lights currently in the
      *         scene.
@@ -93,6 +358,7 @@ public class Scene {
         sceneObjects.add(sceneObject);
         if (sceneObject instanceof Shape) {
             geometries.add((Shape) sceneObject);
+            hierarchy = null;
         }
 
         if (sceneObject instanceof Light) {
@@ -111,6 +377,7 @@ public class Scene {
         sceneObjects.remove(sceneObject);
         if (sceneObject instanceof Shape) {
             geometries.remove(sceneObject);
+            hierarchy = null;
         }
 
         if (sceneObject instanceof Light) {
@@ -3,6 +3,8 @@ package renderer;
 import utilities.Color;
 import utilities.Vector3D;
 
+import java.io.Serializable;
+
 
 /**
  * The SceneObject is the abstract parent class of all the objects that can be
@@ -13,16 +15,28 @@ import utilities.Vector3D;
  *
  * @author Timothy
  */
-public abstract class SceneObject {
+public abstract class SceneObject implements Serializable {
+    private static final long serialVersionUID = 1L;
     protected Vector3D position;
     protected Color color;
 
+    /**
+     * The index of the class of the object in the RenderMetrics plus one, or
+     * 0 until it is first counted, so the metrics don't look the class up
+     * on every intersection test. It isn't sent to the workers of a render
+     * farm, because the indices differ per process.
+     */
+    transient int metricsType;
+
 
     /**
-     * Currently not in use, but might be useful at a later stage.
+     * The setPosition method moves the object. A geometry that is in a Scene
+     * is moved with the Scene's move method instead, so that the Scene's
+     * bounding volume hierarchy follows.
      * @param position A Vector3D object that specifies the new position that
      *                 the object needs to be set to.
      * @see utilities.Vector3D
+     * @see renderer.Scene#move(geometries.Shape, Vector3D)
      */
     public void setPosition(Vector3D position) {
         this.position = position;
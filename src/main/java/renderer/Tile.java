@@ -0,0 +1,99 @@
+package renderer;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * The Tile class represents a rectangular part of an Image. The Renderer
+ * splits an Image up into tiles so that they can be rendered at the same
+ * time by multiple threads.
+ * @see renderer.Renderer
+ * @see utilities.Image
+ *
+ * @author Timothy
+ */
+public class Tile implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private final int x;
+    private final int y;
+    private final int width;
+    private final int height;
+
+
+    /**
+     * Creates a new Tile object with the specified top left corner, width and
+     * height.
+     * @param x An int value representing the x coordinate of the top left
+     *          pixel of the tile.
+     * @param y An int value representing the y coordinate of the top left
+     *          pixel of the tile.
+     * @param width An int value representing the width of the tile.
+     * @param height An int value representing the height of the tile.
+     */
+    public Tile(int x, int y, int width, int height) {
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+    }
+
+
+    /**
+     * The split method divides an image with the specified width and height
+     * into square tiles of the given size, row by row. The tiles on the right
+     * and bottom edge are cut off if the image size isn't a multiple of the
+     * tile size.
+     * @param width An int value representing the width of the image.
+     * @param height An int value representing the height of the image.
+     * @param tileSize An int value representing the width and height of a
+     *                 single tile.
+     * @return A java List object that contains all the tiles covering the
+     *         image.
+     */
+    public static List<Tile> split(int width, int height, int tileSize) {
+        List<Tile> tiles = new ArrayList<>();
+
+        for (int y = 0; y < height; y += tileSize) {
+            for (int x = 0; x < width; x += tileSize) {
+                tiles.add(new Tile(x, y, Math.min(tileSize, width - x), Math.min(tileSize, height - y)));
+            }
+        }
+        return tiles;
+    }
+
+
+    /**
+     * @return An int value that represents the x coordinate of the top left
+     *         pixel of the tile.
+     */
+    public int getX() {
+        return x;
+    }
+
+
+    /**
+     * @return An int value that represents the y coordinate of the top left
+     *         pixel of the tile.
+     */
+    public int getY() {
+        return y;
+    }
+
+
+    /**
+     * @return An int value that represents the width of the tile.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+
+    /**
+     * @return An int value that represents the height of the tile.
+     */
+    public int getHeight() {
+        return height;
+    }
+}
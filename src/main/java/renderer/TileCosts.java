@@ -0,0 +1,78 @@
+package renderer;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * The TileCosts class keeps the nanoseconds that the tiles of an image
+ * took to render, per cell of the grid that the Tile class splits the image
+ * in. The parts of a tile that other threads took over are added to the
+ * cell of the tile, so it always ends up with the time of the whole tile.
+ * The Renderer orders the tiles of the next render of an image with the
+ * same size and tile size by these costs.
+ * @see renderer.TileOrder#COST
+ * @see renderer.Tile
+ *
+ * @author Timothy
+ */
+final class TileCosts {
+    private final int width;
+    private final int height;
+    private final int tileSize;
+    private final int columns;
+    private final AtomicLongArray costs;
+
+
+    /**
+     * Creates a new TileCosts object in which every tile costs nothing yet.
+     * @param width An int value representing the width of the image.
+     * @param height An int value representing the height of the image.
+     * @param tileSize An int value representing the width and height of a
+     *                 single tile.
+     */
+    TileCosts(int width, int height, int tileSize) {
+        this.width = width;
+        this.height = height;
+        this.tileSize = tileSize;
+        this.columns = (width + tileSize - 1) / tileSize;
+        this.costs = new AtomicLongArray(columns * ((height + tileSize - 1) / tileSize));
+    }
+
+
+    /**
+     * @param width An int value representing the width of an image.
+     * @param height An int value representing the height of an image.
+     * @param tileSize An int value representing the tile size.
+     * @return A boolean value which is true if the costs belong to tiles of
+     *         the same image size and tile size.
+     */
+    boolean matches(int width, int height, int tileSize) {
+        return this.width == width && this.height == height && this.tileSize == tileSize;
+    }
+
+
+    /**
+     * The add method adds the time of a tile, or of a part of one, to the
+     * cell that contains its top left pixel.
+     * @param tile A Tile object that was rendered.
+     * @param nanos A long value representing how long it took.
+     */
+    void add(Tile tile, long nanos) {
+        costs.addAndGet(index(tile), nanos);
+    }
+
+
+    /**
+     * @param tile A Tile object of the grid.
+     * @return A long value that represents the nanoseconds that the tile
+     *         took.
+     */
+    long get(Tile tile) {
+        return costs.get(index(tile));
+    }
+
+
+    private int index(Tile tile) {
+        return tile.getY() / tileSize * columns + tile.getX() / tileSize;
+    }
+}
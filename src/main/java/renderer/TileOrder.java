@@ -0,0 +1,40 @@
+package renderer;
+
+
+/**
+ * The TileOrder enum specifies in which order the Renderer hands out the
+ * tiles of an Image to its threads. The order doesn't change the image,
+ * only how evenly the work is spread over the threads and which part of the
+ * image is done first.
+ * @see renderer.Renderer
+ * @see renderer.Tile
+ * @see utilities.Options#setTileOrder(TileOrder)
+ *
+ * @author Timothy
+ */
+public enum TileOrder {
+
+    /**
+     * Render the tiles row by row, from the top left to the bottom right.
+     */
+    ROWS,
+
+    /**
+     * Render the most expensive tiles first, so the cheap ones fill up the
+     * threads at the end instead of a single expensive tile holding up the
+     * whole image. The costs are the times of the pixels in the heatmap of
+     * the Renderer, the times of the tiles in the previous render of an
+     * image with the same size and tile size, like the previous frame of an
+     * animation, or else the times of a low resolution pre-pass that traces
+     * one pixel out of every 8x8. The rays of the pre-pass are counted in the
+     * RenderMetrics as well.
+     */
+    COST,
+
+    /**
+     * Render the tiles in a spiral from the center of the image outwards,
+     * so the part that is usually looked at is done first. Meant for
+     * previews and progressive renders.
+     */
+    SPIRAL
+}
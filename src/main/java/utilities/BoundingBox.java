@@ -0,0 +1,62 @@
+package utilities;
+
+
+/**
+ * The BoundingBox class represents an axis aligned box which fully contains
+ * a Shape object. It is used by the BoundingVolumeHierarchy to skip shapes
+ * that a Ray can't possibly hit.
+ * @see geometries.Shape
+ * @see utilities.BoundingVolumeHierarchy
+ *
+ * @author Timothy
+ */
+public class BoundingBox {
+    private final Vector3D min;
+    private final Vector3D max;
+
+
+    /**
+     * Creates a new BoundingBox object with the specified corners.
+     * @param min A Vector3D object representing the corner with the smallest
+     *            x, y and z coordinates.
+     * @param max A Vector3D object representing the corner with the biggest
+     *            x, y and z coordinates.
+     * @see utilities.Vector3D
+     */
+    public BoundingBox(Vector3D min, Vector3D max) {
+        this.min = new Vector3D(min);
+        this.max = new Vector3D(max);
+    }
+
+
+    /**
+     * The union method creates the smallest BoundingBox object which
+     * contains both this BoundingBox and the BoundingBox given as a
+     * parameter.
+     * @param box A BoundingBox object to combine with this BoundingBox.
+     * @return A new BoundingBox object that contains both boxes.
+     */
+    public BoundingBox union(BoundingBox box) {
+        return new BoundingBox(
+                new Vector3D(Math.min(min.x, box.min.x), Math.min(min.y, box.min.y), Math.min(min.z, box.min.z)),
+                new Vector3D(Math.max(max.x, box.max.x), Math.max(max.y, box.max.y), Math.max(max.z, box.max.z)));
+    }
+
+
+    /**
+     * @return A Vector3D object that represents the corner with the smallest
+     *         x, y and z coordinates.
+     */
+    public Vector3D getMin() {
+        return min;
+    }
+
+
+    /**
+     * @return A Vector3D object that represents the corner with the biggest
+     *         x, y and z coordinates.
+     */
+    public Vector3D getMax() {
+        return max;
+    }
+}
@@ -0,0 +1,737 @@
+package utilities;
+
+import java.util.Arrays;
+
+
+/**
+ * The BoundingVolumeHierarchy class is a binary tree of axis aligned boxes
+ * built over a list of primitives (for example the shapes in a Scene). A Ray
+ * only has to test the primitives in the leaves whose boxes it passes
+ * through, which makes finding the closest hit logarithmic instead of linear
+ * in the amount of primitives.
+ *
+ * The tree is built with the surface area heuristic (SAH) on binned
+ * centroids and stored in flat arrays. The primitives are reordered so that
+ * every leaf covers a contiguous range, the owner of the primitives uses
+ * getPrimitiveOrder to put its own data in the same order.
+ * @see utilities.BoundingBox
+ * @see renderer.Scene
+ *
+ * @author Timothy
+ */
+public class BoundingVolumeHierarchy {
+    private static final int BINS = 16;
+    private static final int DEFAULT_MAX_LEAF_SIZE = 4;
+    private static final int MAX_DEPTH = 60;
+    private static final double TRAVERSAL_COST = 1.0;
+
+    private final int maxLeafSize;
+    private final int[] primitives;
+    private final double[] primitiveBounds;
+    private double[] centroids;
+    private double[] nodeBounds;
+    private int[] nodeFirst;
+    private int[] nodeCount;
+    private int nodes;
+    private int leaves;
+    private int depth;
+    private final long buildTime;
+    private int refits;
+    private long refitTime;
+
+    private final int[] binCounts = new int[BINS];
+    private final double[] binBounds = new double[BINS * 6];
+    private final double[] rightAreas = new double[BINS];
+    private final double[] sweep = new double[6];
+
+
+    /**
+     * The visitor interface which the traverse method calls for every leaf
+     * that the Ray passes through.
+     */
+    public interface LeafVisitor {
+
+        /**
+         * @param first An int value representing the index of the first
+         *              primitive of the leaf, in the primitive order of the
+         *              hierarchy.
+         * @param count An int value representing the amount of primitives in
+         *              the leaf.
+         * @param ray The Ray object that traverses the hierarchy. Lowering its
+         *            t value prunes the leaves that are further away.
+         * @return A boolean value which is true if the traversal can stop
+         *         right away.
+         */
+        boolean visit(int first, int count, Ray ray);
+    }
+
+
+    /**
+     * The visitor interface which the packet traverse method calls for every
+     * leaf that at least one ray of the RayPacket passes through.
+     */
+    public interface PacketVisitor {
+
+        /**
+         * @param first An int value representing the index of the first
+         *              primitive of the leaf, in the primitive order of the
+         *              hierarchy.
+         * @param count An int value representing the amount of primitives in
+         *              the leaf.
+         * @param packet The RayPacket object that traverses the hierarchy.
+         *               Lowering the t value of a lane prunes the leaves that
+         *               are further away for that lane.
+         * @param mask An int value with a bit set for every lane whose ray
+         *             passes through the box of the leaf.
+         */
+        void visit(int first, int count, RayPacket packet, int mask);
+    }
+
+
+    /**
+     * The Stack class holds the nodes that still have to be visited during a
+     * traversal. A render thread can keep one Stack object and pass it to
+     * every traversal so that no memory is allocated per ray. It also counts
+     * the nodes visited by the traversals it was passed to, which only that
+     * thread touches, so the hierarchy itself shares no counters between
+     * the threads.
+     */
+    public static class Stack {
+        private final int[] nodes = new int[MAX_DEPTH + 1];
+        private final double[] distances = new double[MAX_DEPTH + 1];
+        private final int[] masks = new int[MAX_DEPTH + 1];
+        private final double[] inverseX = new double[RayPacket.MAX_SIZE];
+        private final double[] inverseY = new double[RayPacket.MAX_SIZE];
+        private final double[] inverseZ = new double[RayPacket.MAX_SIZE];
+        private double packetDistance;
+        private long nodesVisited;
+
+        /**
+         * @return A long value that represents the total amount of nodes
+         *         visited by the traversals that used this Stack object.
+         */
+        public long getNodesVisited() {
+            return nodesVisited;
+        }
+    }
+
+
+    /**
+     * Creates a new BoundingVolumeHierarchy object over the primitives whose
+     * bounds are specified by the parameter.
+     * @param primitiveBounds A double array with six values per primitive,
+     *                        the minimum x, y, z followed by the maximum
+     *                        x, y, z of its bounding box.
+     */
+    public BoundingVolumeHierarchy(double[] primitiveBounds) {
+        this(primitiveBounds, DEFAULT_MAX_LEAF_SIZE);
+    }
+
+
+    /**
+     * Creates a new BoundingVolumeHierarchy object over the primitives whose
+     * bounds are specified by the parameter, with leaves that hold up to the
+     * specified amount of primitives. Primitives that are cheap to test in
+     * one loop, like the spheres of a SphereSet, use bigger leaves.
+     * @param primitiveBounds A double array with six values per primitive,
+     *                        the minimum x, y, z followed by the maximum
+     *                        x, y, z of its bounding box.
+     * @param maxLeafSize An int value representing the amount of primitives
+     *                    below which a node always becomes a leaf.
+     * @see geometries.SphereSet
+     */
+    public BoundingVolumeHierarchy(double[] primitiveBounds, int maxLeafSize) {
+        long start = System.nanoTime();
+        int count = primitiveBounds.length / 6;
+
+        this.maxLeafSize = maxLeafSize;
+        this.primitiveBounds = primitiveBounds;
+        this.primitives = new int[count];
+        this.centroids = new double[count * 3];
+        for (int i = 0; i < count; i++) {
+            primitives[i] = i;
+            for (int axis = 0; axis < 3; axis++) {
+                centroids[i * 3 + axis] = 0.5 * (primitiveBounds[i * 6 + axis] + primitiveBounds[i * 6 + 3 + axis]);
+            }
+        }
+
+        int capacity = Math.max(1, 2 * count - 1);
+        nodeBounds = new double[capacity * 6];
+        nodeFirst = new int[capacity];
+        nodeCount = new int[capacity];
+
+        if (count > 0) {
+            nodes = 1;
+            build(0, 0, count, 1);
+        }
+
+        nodeBounds = Arrays.copyOf(nodeBounds, nodes * 6);
+        nodeFirst = Arrays.copyOf(nodeFirst, nodes);
+        nodeCount = Arrays.copyOf(nodeCount, nodes);
+        centroids = null;
+        buildTime = System.nanoTime() - start;
+    }
+
+
+    /**
+     * The build method computes the box of a node and either turns it into a
+     * leaf or splits its primitives in two with the surface area heuristic
+     * and recursively builds both children.
+     * @param node An int value representing the index of the node to build.
+     * @param first An int value representing the first primitive of the node.
+     * @param count An int value representing the amount of primitives.
+     * @param level An int value representing the depth of the node.
+     */
+    private void build(int node, int first, int count, int level) {
+        depth = Math.max(depth, level);
+
+        double[] centroidBounds = {
+                Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        int box = node * 6;
+        resetBounds(nodeBounds, box);
+        for (int i = first; i < first + count; i++) {
+            int primitive = primitives[i];
+            growBounds(nodeBounds, box, primitiveBounds, primitive * 6);
+            for (int axis = 0; axis < 3; axis++) {
+                double centroid = centroids[primitive * 3 + axis];
+                centroidBounds[axis] = Math.min(centroidBounds[axis], centroid);
+                centroidBounds[axis + 3] = Math.max(centroidBounds[axis + 3], centroid);
+            }
+        }
+
+        if (count <= maxLeafSize || level >= MAX_DEPTH) {
+            makeLeaf(node, first, count);
+            return;
+        }
+
+        // Find the cheapest split over all three axes
+        int bestAxis = -1;
+        int bestBin = 0;
+        double bestCost = Double.POSITIVE_INFINITY;
+        for (int axis = 0; axis < 3; axis++) {
+            double extent = centroidBounds[axis + 3] - centroidBounds[axis];
+            if (extent <= 0) {
+                continue;
+            }
+            double scale = BINS / extent;
+
+            Arrays.fill(binCounts, 0);
+            for (int bin = 0; bin < BINS; bin++) {
+                resetBounds(binBounds, bin * 6);
+            }
+            for (int i = first; i < first + count; i++) {
+                int primitive = primitives[i];
+                int bin = binIndex(centroids[primitive * 3 + axis], centroidBounds[axis], scale);
+                binCounts[bin]++;
+                growBounds(binBounds, bin * 6, primitiveBounds, primitive * 6);
+            }
+
+            // Sweep from the right to get the area of everything right of a
+            // split, then from the left to evaluate the cost of every split
+            resetBounds(sweep, 0);
+            for (int bin = BINS - 1; bin > 0; bin--) {
+                growBounds(sweep, 0, binBounds, bin * 6);
+                rightAreas[bin] = surfaceArea(sweep, 0);
+            }
+
+            int rightCount = count;
+            int leftCount = 0;
+            resetBounds(sweep, 0);
+            for (int bin = 0; bin < BINS - 1; bin++) {
+                growBounds(sweep, 0, binBounds, bin * 6);
+                leftCount += binCounts[bin];
+                rightCount -= binCounts[bin];
+                if (leftCount == 0 || rightCount == 0) {
+                    continue;
+                }
+                double cost = surfaceArea(sweep, 0) * leftCount + rightAreas[bin + 1] * rightCount;
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestAxis = axis;
+                    bestBin = bin + 1;
+                }
+            }
+        }
+
+        double leafCost = count;
+        double splitCost = TRAVERSAL_COST + bestCost / surfaceArea(nodeBounds, box);
+        if (bestAxis < 0 || splitCost >= leafCost && count <= 4 * maxLeafSize) {
+            makeLeaf(node, first, count);
+            return;
+        }
+
+        // Partition the primitives in place on the chosen bin
+        double scale = BINS / (centroidBounds[bestAxis + 3] - centroidBounds[bestAxis]);
+        int middle = first;
+        for (int i = first; i < first + count; i++) {
+            int primitive = primitives[i];
+            if (binIndex(centroids[primitive * 3 + bestAxis], centroidBounds[bestAxis], scale) < bestBin) {
+                primitives[i] = primitives[middle];
+                primitives[middle] = primitive;
+                middle++;
+            }
+        }
+
+        int left = nodes;
+        nodes += 2;
+        nodeFirst[node] = left;
+        nodeCount[node] = 0;
+
+        build(left, first, middle - first, level + 1);
+        build(left + 1, middle, first + count - middle, level + 1);
+    }
+
+
+    /**
+     * The refit method updates the boxes of all the nodes to new bounds of
+     * the primitives, without changing which primitives are in which leaf.
+     * This is much cheaper than building a new tree when only some of the
+     * primitives moved, but the tree gets worse the further they move from
+     * where they were when it was built. The children of a node always come
+     * after it, so the nodes are refitted from the last to the first.
+     * It must not be called while the tree is traversed.
+     * @param bounds A double array with six values per primitive, like the
+     *               one passed to the constructor, but in the primitive
+     *               order of the hierarchy.
+     * @throws IllegalArgumentException If the amount of primitives differs
+     *                                  from the one of the hierarchy.
+     * @see utilities.BoundingVolumeHierarchy#getPrimitiveOrder()
+     */
+    public void refit(double[] bounds) {
+        if (bounds.length != primitiveBounds.length) {
+            throw new IllegalArgumentException("Expected bounds for " + primitives.length + " primitives, got "
+                    + bounds.length / 6);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < primitives.length; i++) {
+            System.arraycopy(bounds, i * 6, primitiveBounds, primitives[i] * 6, 6);
+        }
+
+        for (int node = nodes - 1; node >= 0; node--) {
+            int box = node * 6;
+            resetBounds(nodeBounds, box);
+            if (nodeCount[node] > 0) {
+                for (int i = nodeFirst[node]; i < nodeFirst[node] + nodeCount[node]; i++) {
+                    growBounds(nodeBounds, box, primitiveBounds, primitives[i] * 6);
+                }
+            } else {
+                growBounds(nodeBounds, box, nodeBounds, nodeFirst[node] * 6);
+                growBounds(nodeBounds, box, nodeBounds, (nodeFirst[node] + 1) * 6);
+            }
+        }
+        refits++;
+        refitTime += System.nanoTime() - start;
+    }
+
+
+    private void makeLeaf(int node, int first, int count) {
+        nodeFirst[node] = first;
+        nodeCount[node] = count;
+        leaves++;
+    }
+
+
+    private static int binIndex(double centroid, double min, double scale) {
+        return Math.min(BINS - 1, (int) ((centroid - min) * scale));
+    }
+
+
+    private static void resetBounds(double[] bounds, int offset) {
+        for (int axis = 0; axis < 3; axis++) {
+            bounds[offset + axis] = Double.POSITIVE_INFINITY;
+            bounds[offset + 3 + axis] = Double.NEGATIVE_INFINITY;
+        }
+    }
+
+
+    private static void growBounds(double[] bounds, int offset, double[] other, int otherOffset) {
+        for (int axis = 0; axis < 3; axis++) {
+            bounds[offset + axis] = Math.min(bounds[offset + axis], other[otherOffset + axis]);
+            bounds[offset + 3 + axis] = Math.max(bounds[offset + 3 + axis], other[otherOffset + 3 + axis]);
+        }
+    }
+
+
+    private static double surfaceArea(double[] bounds, int offset) {
+        double dx = bounds[offset + 3] - bounds[offset];
+        double dy = bounds[offset + 4] - bounds[offset + 1];
+        double dz = bounds[offset + 5] - bounds[offset + 2];
+        return dx < 0 ? 0 : 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+
+    /**
+     * The traverse method walks through the tree front to back and calls the
+     * visitor for every leaf whose box the Ray passes through before its
+     * current t value.
+     * @param ray A Ray object that traverses the hierarchy.
+     * @param visitor A LeafVisitor object that tests the primitives of the
+     *                visited leaves.
+     * @return A boolean value which is true if the visitor stopped the
+     *         traversal early.
+     * @see utilities.Ray
+     */
+    public boolean traverse(Ray ray, LeafVisitor visitor) {
+        return traverse(ray, visitor, new Stack());
+    }
+
+
+    /**
+     * The traverse method with a Stack parameter does the same as the other
+     * traverse method, but reuses the given Stack object.
+     * @param ray A Ray object that traverses the hierarchy.
+     * @param visitor A LeafVisitor object that tests the primitives of the
+     *                visited leaves.
+     * @param traversalStack A Stack object that is used to remember the
+     *                       nodes which still have to be visited.
+     * @return A boolean value which is true if the visitor stopped the
+     *         traversal early.
+     * @see utilities.Ray
+     */
+    public boolean traverse(Ray ray, LeafVisitor visitor, Stack traversalStack) {
+        if (nodes == 0) {
+            return false;
+        }
+
+        double ox = ray.getOriginX();
+        double oy = ray.getOriginY();
+        double oz = ray.getOriginZ();
+        double inverseX = 1 / ray.getDirectionX();
+        double inverseY = 1 / ray.getDirectionY();
+        double inverseZ = 1 / ray.getDirectionZ();
+
+        int[] stack = traversalStack.nodes;
+        double[] distances = traversalStack.distances;
+        int size = 0;
+        long visited = 0;
+        boolean stopped = false;
+
+        int node = 0;
+        double distance = boxDistance(0, ox, oy, oz, inverseX, inverseY, inverseZ, ray.getT());
+        while (true) {
+            if (distance < ray.getT()) {
+                visited++;
+                int count = nodeCount[node];
+                if (count > 0) {
+                    if (visitor.visit(nodeFirst[node], count, ray)) {
+                        stopped = true;
+                        break;
+                    }
+                } else {
+                    int left = nodeFirst[node];
+                    double leftDistance = boxDistance(left, ox, oy, oz, inverseX, inverseY, inverseZ, ray.getT());
+                    double rightDistance = boxDistance(left + 1, ox, oy, oz, inverseX, inverseY, inverseZ, ray.getT());
+
+                    // Visit the closest child first and remember the other one
+                    if (leftDistance <= rightDistance) {
+                        if (rightDistance != Double.POSITIVE_INFINITY) {
+                            stack[size] = left + 1;
+                            distances[size++] = rightDistance;
+                        }
+                        node = left;
+                        distance = leftDistance;
+                    } else {
+                        if (leftDistance != Double.POSITIVE_INFINITY) {
+                            stack[size] = left;
+                            distances[size++] = leftDistance;
+                        }
+                        node = left + 1;
+                        distance = rightDistance;
+                    }
+                    continue;
+                }
+            }
+
+            if (size == 0) {
+                break;
+            }
+            node = stack[--size];
+            distance = distances[size];
+        }
+
+        traversalStack.nodesVisited += visited;
+        return stopped;
+    }
+
+
+    /**
+     * The traverse method with a RayPacket parameter walks through the tree
+     * with all the active rays of the packet at once. Every node keeps a mask
+     * of the lanes whose rays pass through its box, only those lanes are
+     * tested against its children, and a node is skipped when none of them
+     * does. The children are visited in the order in which the closest ray
+     * of the packet enters them. This pays off for coherent rays, that
+     * mostly pass through the same nodes.
+     * @param packet A RayPacket object that traverses the hierarchy.
+     * @param visitor A PacketVisitor object that tests the primitives of the
+     *                visited leaves.
+     * @param traversalStack A Stack object that is used to remember the
+     *                       nodes which still have to be visited.
+     * @see utilities.RayPacket
+     */
+    public void traverse(RayPacket packet, PacketVisitor visitor, Stack traversalStack) {
+        int active = packet.getActiveMask();
+        if (nodes == 0 || active == 0) {
+            return;
+        }
+
+        int[] stack = traversalStack.nodes;
+        double[] distances = traversalStack.distances;
+        int[] masks = traversalStack.masks;
+        int size = 0;
+        long visited = 0;
+
+        for (int lanes = active; lanes != 0; lanes &= lanes - 1) {
+            int lane = Integer.numberOfTrailingZeros(lanes);
+            traversalStack.inverseX[lane] = 1 / packet.directionX[lane];
+            traversalStack.inverseY[lane] = 1 / packet.directionY[lane];
+            traversalStack.inverseZ[lane] = 1 / packet.directionZ[lane];
+        }
+
+        int node = 0;
+        int mask = packetMask(0, packet, active, traversalStack);
+        double distance = traversalStack.packetDistance;
+        while (true) {
+            if (mask != 0 && distance < furthestT(packet, mask)) {
+                visited++;
+                int count = nodeCount[node];
+                if (count > 0) {
+                    visitor.visit(nodeFirst[node], count, packet, mask);
+                } else {
+                    int left = nodeFirst[node];
+                    int leftMask = packetMask(left, packet, mask, traversalStack);
+                    double leftDistance = traversalStack.packetDistance;
+                    int rightMask = packetMask(left + 1, packet, mask, traversalStack);
+                    double rightDistance = traversalStack.packetDistance;
+
+                    // Visit the child that the closest ray enters first
+                    if (leftDistance <= rightDistance) {
+                        if (rightMask != 0) {
+                            stack[size] = left + 1;
+                            masks[size] = rightMask;
+                            distances[size++] = rightDistance;
+                        }
+                        node = left;
+                        mask = leftMask;
+                        distance = leftDistance;
+                    } else {
+                        if (leftMask != 0) {
+                            stack[size] = left;
+                            masks[size] = leftMask;
+                            distances[size++] = leftDistance;
+                        }
+                        node = left + 1;
+                        mask = rightMask;
+                        distance = rightDistance;
+                    }
+                    continue;
+                }
+            }
+
+            if (size == 0) {
+                break;
+            }
+            node = stack[--size];
+            mask = masks[size];
+            distance = distances[size];
+        }
+
+        traversalStack.nodesVisited += visited;
+    }
+
+
+    /**
+     * The packetMask method tests the lanes in the mask against the box of a
+     * node and stores the closest entry distance in the Stack object, which
+     * also holds the inverse directions of the lanes.
+     * @return An int value with a bit set for every lane that enters the box
+     *         before its t value.
+     */
+    private int packetMask(int node, RayPacket packet, int mask, Stack traversalStack) {
+        int hits = 0;
+        double closest = Double.POSITIVE_INFINITY;
+        for (int lanes = mask; lanes != 0; lanes &= lanes - 1) {
+            int lane = Integer.numberOfTrailingZeros(lanes);
+            double distance = boxDistance(node, packet.originX[lane], packet.originY[lane], packet.originZ[lane],
+                    traversalStack.inverseX[lane], traversalStack.inverseY[lane], traversalStack.inverseZ[lane],
+                    packet.t[lane]);
+            if (distance != Double.POSITIVE_INFINITY) {
+                hits |= 1 << lane;
+                closest = Math.min(closest, distance);
+            }
+        }
+        traversalStack.packetDistance = closest;
+        return hits;
+    }
+
+
+    private static double furthestT(RayPacket packet, int mask) {
+        double furthest = 0;
+        for (int lanes = mask; lanes != 0; lanes &= lanes - 1) {
+            furthest = Math.max(furthest, packet.t[Integer.numberOfTrailingZeros(lanes)]);
+        }
+        return furthest;
+    }
+
+
+    /**
+     * The boxDistance method uses the slab test to find where a Ray enters
+     * the box of a node. A Ray that runs parallel to an axis, with its origin
+     * exactly on a plane of the box along that axis, gives 0 times infinity,
+     * which is NaN. It lies within that slab, so the rare NaN is handled by
+     * the parallelBoxDistance method, which ignores the slab.
+     * @return A double value representing the t value at which the Ray enters
+     *         the box, or positive infinity if it misses the box or enters it
+     *         after maxT.
+     */
+    private double boxDistance(int node, double ox, double oy, double oz,
+                               double inverseX, double inverseY, double inverseZ, double maxT) {
+        int box = node * 6;
+        double t1 = (nodeBounds[box] - ox) * inverseX;
+        double t2 = (nodeBounds[box + 3] - ox) * inverseX;
+        double near = Math.min(t1, t2);
+        double far = Math.max(t1, t2);
+
+        t1 = (nodeBounds[box + 1] - oy) * inverseY;
+        t2 = (nodeBounds[box + 4] - oy) * inverseY;
+        near = Math.max(near, Math.min(t1, t2));
+        far = Math.min(far, Math.max(t1, t2));
+
+        t1 = (nodeBounds[box + 2] - oz) * inverseZ;
+        t2 = (nodeBounds[box + 5] - oz) * inverseZ;
+        near = Math.max(near, Math.min(t1, t2));
+        far = Math.min(far, Math.max(t1, t2));
+
+        if (!(far >= near)) {
+            if (Double.isNaN(near) || Double.isNaN(far)) {
+                return parallelBoxDistance(box, ox, oy, oz, inverseX, inverseY, inverseZ, maxT);
+            }
+            return Double.POSITIVE_INFINITY;
+        }
+        if (far < 0 || near >= maxT) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Math.max(near, 0);
+    }
+
+
+    /**
+     * The parallelBoxDistance method does the same as the boxDistance method,
+     * but skips the slabs whose distances are NaN, because the Ray runs
+     * through one of their planes.
+     * @return A double value representing the t value at which the Ray enters
+     *         the box, or positive infinity if it misses the box or enters it
+     *         after maxT.
+     */
+    private double parallelBoxDistance(int box, double ox, double oy, double oz,
+                                       double inverseX, double inverseY, double inverseZ, double maxT) {
+        double near = Double.NEGATIVE_INFINITY;
+        double far = Double.POSITIVE_INFINITY;
+        for (int axis = 0; axis < 3; axis++) {
+            double origin = axis == 0 ? ox : axis == 1 ? oy : oz;
+            double inverse = axis == 0 ? inverseX : axis == 1 ? inverseY : inverseZ;
+            double t1 = (nodeBounds[box + axis] - origin) * inverse;
+            double t2 = (nodeBounds[box + axis + 3] - origin) * inverse;
+            if (Double.isNaN(t1) || Double.isNaN(t2)) {
+                continue;
+            }
+            near = Math.max(near, Math.min(t1, t2));
+            far = Math.min(far, Math.max(t1, t2));
+        }
+
+        if (!(far >= near) || far < 0 || near >= maxT) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Math.max(near, 0);
+    }
+
+
+    /**
+     * @return An int array that maps every position in the hierarchy's
+     *         primitive order to the index of the primitive that was passed
+     *         to the constructor.
+     */
+    public int[] getPrimitiveOrder() {
+        return primitives.clone();
+    }
+
+
+    /**
+     * @return A BoundingBox object that represents the box of the root node,
+     *         which contains all the primitives, or null if the tree is
+     *         empty. Geometries with their own hierarchy use it as their
+     *         bounding box instead of looping over their primitives.
+     */
+    public BoundingBox getBounds() {
+        if (nodes == 0) {
+            return null;
+        }
+        return new BoundingBox(new Vector3D(nodeBounds[0], nodeBounds[1], nodeBounds[2]),
+                new Vector3D(nodeBounds[3], nodeBounds[4], nodeBounds[5]));
+    }
+
+
+    /**
+     * @return An int value that represents the amount of nodes in the tree.
+     */
+    public int getNodeCount() {
+        return nodes;
+    }
+
+
+    /**
+     * @return An int value that represents the amount of leaves in the tree.
+     */
+    public int getLeafCount() {
+        return leaves;
+    }
+
+
+    /**
+     * @return An int value that represents the depth of the deepest leaf.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+
+    /**
+     * @return A long value that represents the time it took to build the
+     *         tree in nanoseconds.
+     */
+    public long getBuildTime() {
+        return buildTime;
+    }
+
+
+    /**
+     * @return An int value that represents how many times the tree was
+     *         refitted.
+     */
+    public int getRefitCount() {
+        return refits;
+    }
+
+
+    /**
+     * @return A long value that represents the total time it took to refit
+     *         the tree in nanoseconds.
+     */
+    public long getRefitTime() {
+        return refitTime;
+    }
+
+
+    /**
+     * @return A String object that reports the build statistics of the tree.
+     *         The traversals are counted by the RenderMetrics of a
+     *         Renderer instead.
+     * @see renderer.RenderMetrics
+     */
+    @Override
+    public String toString() {
+        return String.format("BVH over %d primitives: %d nodes, %d leaves, depth %d, built in %.3f ms.",
+                primitives.length, nodes, leaves, depth, buildTime / 1e6);
+    }
+}
@@ -1,5 +1,7 @@
 package utilities;
 
+import java.io.Serializable;
+
 
 /**
  * The Color class is used to give the SceneObjects a color. It needs three
@@ -8,7 +10,8 @@ package utilities;
  *
  * @author Timothy
  */
-public class Color {
+public class Color implements Serializable {
+    private static final long serialVersionUID = 1L;
     private float r;
     private float g;
     private float b;
@@ -51,6 +54,18 @@ public class Color {
     }
 
 
+    /**
+     * The set method copies the fields of the Color parameter into the
+     * current Color object, so that a Color object can be reused.
+     * @param color A Color object from which we copy the fields from.
+     */
+    public void set(Color color) {
+        this.r = color.r;
+        this.g = color.g;
+        this.b = color.b;
+    }
+
+
     /**
      * The add method adds the Color parameter to the current Color object.
      * Useful for adding a lights Color to a SceneObject Color
@@ -65,6 +80,20 @@ public class Color {
         this.b += color.b;
     }
 
+    /**
+     * The addScaled method adds the Color parameter multiplied by a scalar to
+     * the current Color object, without changing the Color parameter itself.
+     * @param color A Color object that represents the color to add to this
+     *              Color object.
+     * @param scalar A float value that represents the scalar to multiply the
+     *               added color with.
+     */
+    public void addScaled(Color color, float scalar) {
+        this.r += color.r * scalar;
+        this.g += color.g * scalar;
+        this.b += color.b * scalar;
+    }
+
     /**
      * The multiply method multiplies the Color parameter fields with the
      * current Color object fields. (Haven't found a use for it yet.
@@ -107,6 +136,30 @@ public class Color {
     }
 
 
+    /**
+     * @return A float value that represents the red value of the color.
+     */
+    public float getRed() {
+        return r;
+    }
+
+
+    /**
+     * @return A float value that represents the green value of the color.
+     */
+    public float getGreen() {
+        return g;
+    }
+
+
+    /**
+     * @return A float value that represents the blue value of the color.
+     */
+    public float getBlue() {
+        return b;
+    }
+
+
     /**
      * The toInteger method uses bit shifting to get an integer color value.
      * @return The color as an integer value.
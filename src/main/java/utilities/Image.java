@@ -1,62 +1,265 @@
 package utilities;
 
+import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
 import java.awt.image.BufferedImage;
-import java.io.File;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 
 /**
  * The Image class is used to represent an Image (or frame if you will) that
  * gets projected on the screen by the renderer and is seen by the Camera.
- * Underneath it writes the pixels to the java BufferedImage class.
+ * The pixels are stored in a plain int array that the render threads fill
+ * directly, and are only copied to a java BufferedImage in one bulk transfer
+ * when the image is written. An Image object can also keep a float buffer
+ * with the unclamped colors, in which case the colors are tone mapped once
+ * when the image is written instead of for every color that is drawn.
  * @see renderer.Renderer
  * @see renderer.Camera
  *
  * @author Timothy
  */
 public class Image {
-    private static final String FILETYPE = "PNG";
-    private static final String FILENAME = "renderedImage.png";
+
+
+    /**
+     * The compression level with which PNG files are written by default,
+     * which is the same one that ImageIO uses.
+     */
+    public static final int DEFAULT_COMPRESSION_LEVEL = 4;
+    private static final int BUFFER_SIZE = 1 << 16;
     private int width;
     private int height;
-    private File image;
-    private BufferedImage buffer;
+    private final int[] pixels;
+    private final float[] colors;
 
 
     /**
      * The Image constructor gets a width and height as parameter and creates
-     * an Image with the specified width and height. It also creates a file
-     * to write to later and the actual BufferedImage which will contain the
-     * data.
+     * an Image with the specified width and height. It also creates the int
+     * array which will contain the data.
      * @param width An int value representing the width of the image.
      * @param height An int value representing the height of the image.
-     * @see java.io.File
-     * @see java.awt.image.BufferedImage
      */
     public Image(int width, int height) {
+        this(width, height, false);
+    }
+
+
+    /**
+     * This Image constructor also creates a float buffer with three floats
+     * per pixel if highDynamicRange is true. The colors drawn on such an
+     * image keep values above 1 until they are tone mapped when the image is
+     * written.
+     * @param width An int value representing the width of the image.
+     * @param height An int value representing the height of the image.
+     * @param highDynamicRange A boolean value which specifies if the float
+     *                         buffer is created.
+     */
+    public Image(int width, int height, boolean highDynamicRange) {
+        this.width = width;
+        this.height = height;
+        pixels = new int[width * height];
+        colors = highDynamicRange ? new float[width * height * 3] : null;
+    }
+
+
+    /**
+     * This Image constructor is used by images that store their pixels
+     * somewhere else than in arrays, which override the methods that access
+     * them.
+     * @param width An int value representing the width of the image.
+     * @param height An int value representing the height of the image.
+     * @param pixels An int array with the rgb value of every pixel, or null.
+     * @param colors A float array with three floats per pixel, or null.
+     * @see utilities.MappedImage
+     */
+    Image(int width, int height, int[] pixels, float[] colors) {
         this.width = width;
         this.height = height;
-        image = new File(FILENAME);
-        buffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        this.pixels = pixels;
+        this.colors = colors;
+    }
+
+
+    /**
+     * The Image copy constructor creates a new Image object with a copy of
+     * the pixels of the specified image, for example to write it while the
+     * image itself is used for the next frame.
+     * @param image An Image object to copy.
+     * @throws IllegalArgumentException If the image has no pixel arrays, like
+     *                                  a MappedImage.
+     */
+    public Image(Image image) {
+        if (image.pixels == null) {
+            throw new IllegalArgumentException("An image without pixel arrays can't be copied");
+        }
+        this.width = image.width;
+        this.height = image.height;
+        this.pixels = image.pixels.clone();
+        this.colors = image.colors == null ? null : image.colors.clone();
+    }
+
+
+    /**
+     * The write method is used to write all the data from the pixels to the
+     * specified file. The format is chosen by the extension of the filename,
+     * and PNG files are written with the default compression level.
+     * @param filename A String value representing the name of the file.
+     * @throws IOException If the file can't be written.
+     * @throws IllegalArgumentException If the extension of the file is
+     *                                  unknown.
+     * @see utilities.ImageFormat
+     */
+    public void write(String filename) throws IOException {
+        write(filename, DEFAULT_COMPRESSION_LEVEL);
+    }
+
+
+    /**
+     * The write method with a compression level also specifies how much a
+     * PNG file is compressed, from 0 for no compression to 9 for the best
+     * compression. The other formats aren't compressed.
+     * @param filename A String value representing the name of the file.
+     * @param compressionLevel An int value between 0 and 9 that represents
+     *                         the compression level of a PNG file.
+     * @throws IOException If the file can't be written.
+     * @throws IllegalArgumentException If the extension of the file is
+     *                                  unknown.
+     * @see utilities.ImageFormat
+     */
+    public void write(String filename, int compressionLevel) throws IOException {
+        switch (ImageFormat.forFile(filename)) {
+            case PPM:
+                writePpm(filename);
+                break;
+            case PFM:
+                writePfm(filename);
+                break;
+            default:
+                writePng(filename, compressionLevel);
+        }
+    }
+
+
+    private void writePng(String filename, int compressionLevel) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+        ImageWriteParam parameters = writer.getDefaultWriteParam();
+        parameters.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        // The writer turns the quality back into a level by truncating
+        // (1 - quality) * 9, so aim for the middle of the level
+        parameters.setCompressionQuality(Math.max(0F, 1F - (compressionLevel + 0.5F) / 9F));
+
+        try (OutputStream file = new FileOutputStream(filename);
+             ImageOutputStream output = ImageIO.createImageOutputStream(file)) {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(toBufferedImage(), null, null), parameters);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+
+    private void writePpm(String filename) throws IOException {
+        if (colors != null) {
+            toneMap();
+        }
+        try (OutputStream output = new BufferedOutputStream(new FileOutputStream(filename), BUFFER_SIZE)) {
+            output.write(ImageFormat.PPM.getHeader(width, height));
+            byte[] row = new byte[width * 3];
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int pixel = pixels[y * width + x];
+                    row[x * 3] = (byte) (pixel >> 16);
+                    row[x * 3 + 1] = (byte) (pixel >> 8);
+                    row[x * 3 + 2] = (byte) pixel;
+                }
+                output.write(row);
+            }
+        }
+    }
+
+
+    private void writePfm(String filename) throws IOException {
+        try (OutputStream output = new BufferedOutputStream(new FileOutputStream(filename), BUFFER_SIZE)) {
+            // A negative scale means little endian floats, and the rows go
+            // from the bottom to the top
+            output.write(ImageFormat.PFM.getHeader(width, height));
+            ByteBuffer row = ByteBuffer.allocate(width * 3 * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (int y = height - 1; y >= 0; y--) {
+                row.clear();
+                for (int x = 0; x < width; x++) {
+                    int pixel = y * width + x;
+                    if (colors != null) {
+                        row.putFloat(colors[pixel * 3]);
+                        row.putFloat(colors[pixel * 3 + 1]);
+                        row.putFloat(colors[pixel * 3 + 2]);
+                    } else {
+                        row.putFloat((pixels[pixel] >> 16 & 0xFF) / 255F);
+                        row.putFloat((pixels[pixel] >> 8 & 0xFF) / 255F);
+                        row.putFloat((pixels[pixel] & 0xFF) / 255F);
+                    }
+                }
+                output.write(row.array());
+            }
+        }
     }
 
 
     /**
-     * The write method is used to write all the data from the BufferedImage
-     * object to the file we created in the constructor of the image object.
-     * @see java.io.File
+     * The toBufferedImage method tone maps the float buffer if there is one
+     * and copies all the pixels at once into the data buffer of a new
+     * BufferedImage object.
+     * @return A BufferedImage object with the pixels of this image.
      * @see java.awt.image.BufferedImage
      */
-    public void write() {
-        try {
-            ImageIO.write(buffer, FILETYPE, image);
-        } catch (IOException e) {
-            System.out.println(e.getMessage());
+    public BufferedImage toBufferedImage() {
+        if (colors != null) {
+            toneMap();
+        }
+        BufferedImage buffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] data = ((DataBufferInt) buffer.getRaster().getDataBuffer()).getData();
+        System.arraycopy(pixels, 0, data, 0, pixels.length);
+        return buffer;
+    }
+
+
+    /**
+     * The toneMap method converts the float buffer to the int pixels. The
+     * color values are clamped between 0 and 1, so the colors that are too
+     * bright become white instead of wrapping around like they do with
+     * Color.toInteger.
+     * @see utilities.Color#toInteger()
+     */
+    public void toneMap() {
+        for (int pixel = 0; pixel < pixels.length; pixel++) {
+            pixels[pixel] = toneMap(pixel);
         }
     }
 
 
+    private int toneMap(int pixel) {
+        return toneMap(colors[pixel * 3], colors[pixel * 3 + 1], colors[pixel * 3 + 2]);
+    }
+
+
+    static int toneMap(float red, float green, float blue) {
+        int r = Math.round(255 * Math.min(1F, Math.max(0F, red)));
+        int g = Math.round(255 * Math.min(1F, Math.max(0F, green)));
+        int b = Math.round(255 * Math.min(1F, Math.max(0F, blue)));
+        return 0xFF000000 | r << 16 | g << 8 | b;
+    }
+
+
     /**
      * The draw method is used to give each pixel (specified by the x and y)
      * a rgb color value.
@@ -64,10 +267,94 @@ public class Image {
      * @param y An int value representing the y coordinate of a pixel.
      * @param rgb An int value representing the rgb value.
      * @see utilities.Color
-     * @see java.awt.image.BufferedImage
      */
     public void draw(int x, int y, int rgb) {
-        buffer.setRGB(x, y, rgb);
+        pixels[y * width + x] = rgb;
+    }
+
+
+    /**
+     * The draw method with a Color parameter stores the color in the float
+     * buffer if there is one, and its rgb color value otherwise.
+     * @param x An int value representing the x coordinate of a pixel.
+     * @param y An int value representing the y coordinate of a pixel.
+     * @param color A Color object representing the color of the pixel.
+     * @see utilities.Color
+     */
+    public void draw(int x, int y, Color color) {
+        int pixel = y * width + x;
+        if (colors == null) {
+            pixels[pixel] = color.toInteger();
+        } else {
+            colors[pixel * 3] = color.getRed();
+            colors[pixel * 3 + 1] = color.getGreen();
+            colors[pixel * 3 + 2] = color.getBlue();
+        }
+    }
+
+
+    /**
+     * The fill method gives every pixel of a rectangle the same color. Pixels
+     * outside the image are skipped.
+     * @param x An int value representing the x coordinate of the top left
+     *          pixel.
+     * @param y An int value representing the y coordinate of the top left
+     *          pixel.
+     * @param width An int value representing the width of the rectangle.
+     * @param height An int value representing the height of the rectangle.
+     * @param color A Color object representing the color of the pixels.
+     */
+    public void fill(int x, int y, int width, int height, Color color) {
+        int endX = Math.min(x + width, this.width);
+        int endY = Math.min(y + height, this.height);
+        for (int row = y; row < endY; row++) {
+            for (int column = x; column < endX; column++) {
+                draw(column, row, color);
+            }
+        }
+    }
+
+
+    /**
+     * @param x An int value representing the x coordinate of a pixel.
+     * @param y An int value representing the y coordinate of a pixel.
+     * @return An int value that represents the rgb value of the pixel, tone
+     *         mapped if the image has a float buffer.
+     */
+    public int getRGB(int x, int y) {
+        int pixel = y * width + x;
+        return colors == null ? 0xFF000000 | pixels[pixel] : toneMap(pixel);
+    }
+
+
+    /**
+     * @return An int array with the rgb value of every pixel, row by row.
+     *         This is the array of the image itself, so writing to it
+     *         changes the image. Pixels of an image with a float buffer are
+     *         only filled when it is tone mapped. A MappedImage returns null,
+     *         because its pixels are in its file.
+     */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+
+    /**
+     * @return A float array with the red, green and blue value of every
+     *         pixel, row by row, or null if the image has no float buffer.
+     *         Like the getPixels method, this is the array of the image
+     *         itself. A MappedImage returns null as well.
+     */
+    public float[] getColors() {
+        return colors;
+    }
+
+
+    /**
+     * @return A boolean value which is true if the image has a float buffer.
+     */
+    public boolean isHighDynamicRange() {
+        return colors != null;
     }
 
 
@@ -0,0 +1,115 @@
+package utilities;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * The ImageEncoder class writes images to files on a background thread, so
+ * that a renderer can start on the next frame while the last one is encoded.
+ * Every image is copied when it is submitted, so the caller can reuse it
+ * right away. The queue holds a limited amount of images: when it is full,
+ * submitting waits until an image is written, so a renderer that is faster
+ * than the encoder slows down instead of filling up the memory with frames.
+ * An image that can't be written fails the next call to submit or close.
+ * @see utilities.Image#write(String, int)
+ * @see animation.SequenceRenderer
+ *
+ * @author Timothy
+ */
+public class ImageEncoder implements Closeable {
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "image-encoder");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Semaphore capacity;
+    private final int compressionLevel;
+    private volatile IOException failure;
+
+
+    /**
+     * Creates a new ImageEncoder object with the specified queue size.
+     * @param queueSize An int value representing the amount of images that
+     *                  can wait to be written, including the one that is
+     *                  being written.
+     * @param compressionLevel An int value between 0 and 9 that represents
+     *                         the compression level of PNG files.
+     * @throws IllegalArgumentException If the queue size isn't positive.
+     */
+    public ImageEncoder(int queueSize, int compressionLevel) {
+        if (queueSize < 1) {
+            throw new IllegalArgumentException("The queue size must be positive, got " + queueSize);
+        }
+        this.capacity = new Semaphore(queueSize);
+        this.compressionLevel = compressionLevel;
+    }
+
+
+    /**
+     * The submit method queues a copy of the image to be written to the
+     * specified file, and waits first if the queue is full.
+     * @param image An Image object to write.
+     * @param filename A String value representing the name of the file, whose
+     *                 extension specifies the format.
+     * @throws IOException If an image that was submitted before couldn't be
+     *                     written.
+     * @throws IllegalArgumentException If the extension of the file is
+     *                                  unknown.
+     * @see utilities.ImageFormat
+     */
+    public void submit(Image image, String filename) throws IOException {
+        ImageFormat.forFile(filename);
+        checkFailure();
+        try {
+            capacity.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the encoder", e);
+        }
+
+        Image copy = new Image(image);
+        writer.execute(() -> {
+            try {
+                copy.write(filename, compressionLevel);
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = new IOException("Could not write " + filename, e);
+                }
+            } finally {
+                capacity.release();
+            }
+        });
+    }
+
+
+    /**
+     * The close method waits until all the submitted images are written.
+     * @throws IOException If an image couldn't be written.
+     */
+    @Override
+    public void close() throws IOException {
+        writer.shutdown();
+        try {
+            while (!writer.awaitTermination(1, TimeUnit.MINUTES)) {
+                System.out.println("Waiting for the image encoder");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the encoder", e);
+        }
+        checkFailure();
+    }
+
+
+    private void checkFailure() throws IOException {
+        IOException exception = failure;
+        if (exception != null) {
+            throw exception;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package utilities;
+
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * The ImageFormat enum specifies the file format in which an Image is
+ * written. The format of a file is chosen by its extension.
+ * @see utilities.Image#write(String, int)
+ * @see utilities.Options#setOutputFile(String)
+ *
+ * @author Timothy
+ */
+public enum ImageFormat {
+
+    /**
+     * A compressed PNG file, written with ImageIO. The compression level
+     * trades the size of the file for the time it takes to write it.
+     */
+    PNG(".png"),
+
+    /**
+     * An uncompressed binary PPM file with 8 bits per color, which is much
+     * faster to write than a PNG file.
+     */
+    PPM(".ppm"),
+
+    /**
+     * An uncompressed PFM file with a 32 bit float per color, which keeps
+     * the colors of a high dynamic range Image that are brighter than 1.
+     */
+    PFM(".pfm");
+
+    private final String extension;
+
+
+    ImageFormat(String extension) {
+        this.extension = extension;
+    }
+
+
+    /**
+     * @return A String value that represents the file extension of the
+     *         format, including the dot.
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+
+    /**
+     * The getHeader method creates the header of an uncompressed file, after
+     * which the pixels follow. A PFM file has a negative scale, which means
+     * that its floats are little endian.
+     * @param width An int value representing the width of the image.
+     * @param height An int value representing the height of the image.
+     * @return A byte array with the header in ASCII.
+     * @throws IllegalStateException If the format is PNG, which has no such
+     *                               header.
+     */
+    public byte[] getHeader(int width, int height) {
+        switch (this) {
+            case PPM:
+                return ("P6\n" + width + " " + height + "\n255\n").getBytes(StandardCharsets.US_ASCII);
+            case PFM:
+                return ("PF\n" + width + " " + height + "\n-1.0\n").getBytes(StandardCharsets.US_ASCII);
+            default:
+                throw new IllegalStateException("A PNG file has no raw header");
+        }
+    }
+
+
+    /**
+     * @return An int value that represents the amount of bytes of a pixel in
+     *         an uncompressed file, or 0 for a PNG file.
+     */
+    public int getBytesPerPixel() {
+        switch (this) {
+            case PPM:
+                return 3;
+            case PFM:
+                return 3 * Float.BYTES;
+            default:
+                return 0;
+        }
+    }
+
+
+    /**
+     * The forFile method looks up the format of a file by its extension.
+     * @param filename A String value representing the name of the file.
+     * @return The ImageFormat value whose extension the filename ends with,
+     *         ignoring case.
+     * @throws IllegalArgumentException If the extension is unknown.
+     */
+    public static ImageFormat forFile(String filename) {
+        String lowerCase = filename.toLowerCase();
+        for (ImageFormat format : values()) {
+            if (lowerCase.endsWith(format.extension)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown image format of " + filename
+                + ", expected a .png, .ppm or .pfm file");
+    }
+}
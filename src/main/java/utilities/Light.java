@@ -10,6 +10,7 @@ import renderer.SceneObject;
  * @author Timothy
  */
 public class Light extends SceneObject {
+    private static final long serialVersionUID = 1L;
     private float intensity;
 
 
@@ -33,17 +34,32 @@ public class Light extends SceneObject {
 
 
     /**
-     * The getColor method gets the color of the shape that the RayHit object
-     * has hit and multiplies the lights intensity with its color so that the
-     * object looks brighter.
+     * The getColor method copies the color of the shape that the RayHit object
+     * has hit and multiplies the lights intensity with the copy so that the
+     * object looks brighter. The shape's own color is left untouched so it
+     * can be shared between render threads.
      * @param hit A RayHit object that has information about the shape that it
      *            hit.
      * @return A Color object that represents the color of the hit shape
      *         multiplied with the lights intensity.
      */
     public Color getColor(RayHit hit) {
-        Color shapeColor = hit.getShape().getColor();
+        Color shapeColor = new Color(hit.getShape().getColor(hit.getPrimitive()));
         shapeColor.multiply(intensity);
         return shapeColor;
     }
+
+
+    /**
+     * The addColor method does the same as the getColor method, but adds the
+     * result straight to the given Color object instead of creating a new
+     * one.
+     * @param hit A RayHit object that has information about the shape that it
+     *            hit.
+     * @param color A Color object to which the color of the hit shape
+     *              multiplied with the lights intensity is added.
+     */
+    public void addColor(RayHit hit, Color color) {
+        color.addScaled(hit.getShape().getColor(hit.getPrimitive()), intensity);
+    }
 }
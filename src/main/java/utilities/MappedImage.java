@@ -0,0 +1,284 @@
+package utilities;
+
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * The MappedImage class is an Image whose pixels are stored in a memory
+ * mapped PPM or PFM file instead of in arrays, so that the size of the heap
+ * doesn't limit the resolution of a render. The render threads draw straight
+ * into the mapping and the operating system writes the pages to the file, so
+ * when the render is done the file is complete without encoding it. Because
+ * a single mapping can't be larger than 2 GB, the file is mapped in segments
+ * of whole rows.
+ * <p>
+ * The file has the same content as the one an Image with the same dynamic
+ * range writes: a PPM file gets the tone mapped colors of an image with a
+ * float buffer, and a PFM file gets the rgb values divided by 255 of an image
+ * without one. A MappedImage has no pixel arrays, so it can't be copied or
+ * submitted to an ImageEncoder.
+ * @see utilities.Image
+ * @see utilities.Options#setMemoryMapped(boolean)
+ *
+ * @author Timothy
+ */
+public class MappedImage extends Image implements Closeable {
+
+
+    /**
+     * The largest size of a single mapping in bytes.
+     */
+    public static final int MAX_SEGMENT_SIZE = 1 << 30;
+    private final Path path;
+    private final ImageFormat format;
+    private final boolean highDynamicRange;
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final int rowsPerSegment;
+    private final int rowSize;
+    private final int pixelSize;
+
+
+    /**
+     * Creates a new MappedImage object which creates the file, writes its
+     * header and maps the pixels. All the pixels start out black.
+     * @param filename A String value representing the name of the file,
+     *                 whose extension specifies the format.
+     * @param width An int value representing the width of the image.
+     * @param height An int value representing the height of the image.
+     * @param highDynamicRange A boolean value which specifies if the colors
+     *                         are drawn like on an Image with a float buffer.
+     * @throws IOException If the file can't be created or mapped.
+     * @throws IllegalArgumentException If the file isn't a PPM or PFM file.
+     */
+    public MappedImage(String filename, int width, int height, boolean highDynamicRange) throws IOException {
+        this(filename, width, height, highDynamicRange, MAX_SEGMENT_SIZE);
+    }
+
+
+    /**
+     * This MappedImage constructor also specifies the largest size of a
+     * mapping, which is mainly useful to test images with many segments.
+     * @param filename A String value representing the name of the file,
+     *                 whose extension specifies the format.
+     * @param width An int value representing the width of the image.
+     * @param height An int value representing the height of the image.
+     * @param highDynamicRange A boolean value which specifies if the colors
+     *                         are drawn like on an Image with a float buffer.
+     * @param segmentSize An int value representing the largest size of a
+     *                    mapping in bytes, which has to fit at least one row.
+     * @throws IOException If the file can't be created or mapped.
+     * @throws IllegalArgumentException If the file isn't a PPM or PFM file,
+     *                                  or a row doesn't fit in a segment.
+     */
+    public MappedImage(String filename, int width, int height, boolean highDynamicRange, int segmentSize)
+            throws IOException {
+        super(width, height, null, null);
+        this.path = Path.of(filename);
+        this.format = ImageFormat.forFile(filename);
+        this.highDynamicRange = highDynamicRange;
+        if (format == ImageFormat.PNG) {
+            throw new IllegalArgumentException("Only PPM and PFM files can be memory mapped, got " + filename);
+        }
+
+        pixelSize = format.getBytesPerPixel();
+        long rowBytes = (long) width * pixelSize;
+        if (rowBytes > segmentSize) {
+            throw new IllegalArgumentException("A row of " + rowBytes + " bytes doesn't fit in a segment of "
+                    + segmentSize + " bytes");
+        }
+        rowSize = (int) rowBytes;
+        rowsPerSegment = segmentSize / rowSize;
+
+        byte[] header = format.getHeader(width, height);
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            channel.write(ByteBuffer.wrap(header), 0);
+            segments = new MappedByteBuffer[(height + rowsPerSegment - 1) / rowsPerSegment];
+            for (int segment = 0; segment < segments.length; segment++) {
+                int rows = Math.min(rowsPerSegment, height - segment * rowsPerSegment);
+                // Mapping past the end of the file makes it grow, and the new
+                // bytes are zero, which is black in both formats
+                segments[segment] = channel.map(FileChannel.MapMode.READ_WRITE,
+                        header.length + (long) segment * rowsPerSegment * rowSize, (long) rows * rowSize);
+                segments[segment].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+
+    @Override
+    public void draw(int x, int y, int rgb) {
+        ByteBuffer segment = segment(y);
+        int offset = offset(x, y);
+        if (format == ImageFormat.PPM) {
+            segment.put(offset, (byte) (rgb >> 16));
+            segment.put(offset + 1, (byte) (rgb >> 8));
+            segment.put(offset + 2, (byte) rgb);
+        } else {
+            segment.putFloat(offset, (rgb >> 16 & 0xFF) / 255F);
+            segment.putFloat(offset + Float.BYTES, (rgb >> 8 & 0xFF) / 255F);
+            segment.putFloat(offset + 2 * Float.BYTES, (rgb & 0xFF) / 255F);
+        }
+    }
+
+
+    @Override
+    public void draw(int x, int y, Color color) {
+        if (!highDynamicRange) {
+            draw(x, y, color.toInteger());
+        } else if (format == ImageFormat.PPM) {
+            draw(x, y, toneMap(color.getRed(), color.getGreen(), color.getBlue()));
+        } else {
+            ByteBuffer segment = segment(y);
+            int offset = offset(x, y);
+            segment.putFloat(offset, color.getRed());
+            segment.putFloat(offset + Float.BYTES, color.getGreen());
+            segment.putFloat(offset + 2 * Float.BYTES, color.getBlue());
+        }
+    }
+
+
+    @Override
+    public int getRGB(int x, int y) {
+        ByteBuffer segment = segment(y);
+        int offset = offset(x, y);
+        if (format == ImageFormat.PPM) {
+            return 0xFF000000 | (segment.get(offset) & 0xFF) << 16 | (segment.get(offset + 1) & 0xFF) << 8
+                    | segment.get(offset + 2) & 0xFF;
+        }
+        return toneMap(segment.getFloat(offset), segment.getFloat(offset + Float.BYTES),
+                segment.getFloat(offset + 2 * Float.BYTES));
+    }
+
+
+    private ByteBuffer segment(int y) {
+        return segments[row(y) / rowsPerSegment];
+    }
+
+
+    private int offset(int x, int y) {
+        return row(y) % rowsPerSegment * rowSize + x * pixelSize;
+    }
+
+
+    private int row(int y) {
+        // The rows of a PFM file go from the bottom to the top
+        return format == ImageFormat.PFM ? getHeight() - 1 - y : y;
+    }
+
+
+    /**
+     * The toneMap method does nothing, because the colors are already
+     * converted to the format of the file when they are drawn.
+     */
+    @Override
+    public void toneMap() {
+    }
+
+
+    /**
+     * The toBufferedImage method reads the pixels back from the mapping,
+     * which needs as much heap as an Image of the same size, so it is only
+     * meant for small images and previews.
+     * @return A BufferedImage object with the pixels of this image.
+     */
+    @Override
+    public BufferedImage toBufferedImage() {
+        int width = getWidth();
+        BufferedImage buffer = new BufferedImage(width, getHeight(), BufferedImage.TYPE_INT_RGB);
+        int[] row = new int[width];
+        for (int y = 0; y < getHeight(); y++) {
+            for (int x = 0; x < width; x++) {
+                row[x] = getRGB(x, y);
+            }
+            buffer.setRGB(0, y, width, 1, row, 0, width);
+        }
+        return buffer;
+    }
+
+
+    /**
+     * The write method flushes the mapping to its own file. A file with the
+     * same format is a copy of it, and a PNG file is encoded from the pixels
+     * that are read back, which is only meant for previews.
+     * @param filename A String value representing the name of the file.
+     * @param compressionLevel An int value between 0 and 9 that represents
+     *                         the compression level of a PNG file.
+     * @throws IOException If the file can't be written.
+     * @throws IllegalArgumentException If the file is a PPM or PFM file
+     *                                  with the other format.
+     */
+    @Override
+    public void write(String filename, int compressionLevel) throws IOException {
+        ImageFormat target = ImageFormat.forFile(filename);
+        if (target == ImageFormat.PNG) {
+            super.write(filename, compressionLevel);
+        } else if (target != format) {
+            throw new IllegalArgumentException("A memory mapped " + format + " image can't be written as "
+                    + target);
+        } else {
+            force();
+            Path file = Path.of(filename);
+            if (!Files.exists(file) || !Files.isSameFile(path, file)) {
+                Files.copy(path, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+
+    /**
+     * The force method writes the pixels that changed to the file, so that
+     * other programs see them while the image is still open.
+     * @see java.nio.MappedByteBuffer#force()
+     */
+    public void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+
+    /**
+     * The close method writes the pixels to the file and closes it. The
+     * image mustn't be drawn on afterwards.
+     * @throws IOException If the file can't be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+
+    /**
+     * @return A boolean value which is true if the colors are drawn like on
+     *         an Image with a float buffer.
+     */
+    @Override
+    public boolean isHighDynamicRange() {
+        return highDynamicRange;
+    }
+
+
+    /**
+     * @return The ImageFormat value of the file.
+     */
+    public ImageFormat getFormat() {
+        return format;
+    }
+}
@@ -0,0 +1,147 @@
+package utilities;
+
+
+/**
+ * The MutableVector3D class is the mutable counterpart of the Vector3D class.
+ * Its methods change the vector itself instead of creating a new object, so
+ * that the renderer can reuse the same vectors for every ray without
+ * allocating memory. The immutable Vector3D class is still used everywhere
+ * else.
+ * @see utilities.Vector3D
+ * @see utilities.Ray
+ *
+ * @author Timothy
+ */
+public class MutableVector3D {
+    public double x;
+    public double y;
+    public double z;
+
+
+    /**
+     * This MutableVector3D constructor sets the x, y and z fields to 0.0.
+     */
+    public MutableVector3D() {
+        this(0.0, 0.0, 0.0);
+    }
+
+
+    /**
+     * This MutableVector3D constructor needs three double values and sets the
+     * corresponding x, y, z fields.
+     * @param x A double value that represents the x coordinate.
+     * @param y A double value that represents the y coordinate.
+     * @param z A double value that represents the z coordinate.
+     */
+    public MutableVector3D(double x, double y, double z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+
+    /**
+     * The set method overwrites the x, y and z fields.
+     * @param x A double value that represents the new x coordinate.
+     * @param y A double value that represents the new y coordinate.
+     * @param z A double value that represents the new z coordinate.
+     * @return This MutableVector3D object so calls can be chained.
+     */
+    public MutableVector3D set(double x, double y, double z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        return this;
+    }
+
+
+    /**
+     * The set method copies the fields of a Vector3D object.
+     * @param vector A Vector3D object from which we copy the fields from.
+     * @return This MutableVector3D object so calls can be chained.
+     */
+    public MutableVector3D set(Vector3D vector) {
+        return set(vector.x, vector.y, vector.z);
+    }
+
+
+    /**
+     * The set method copies the fields of another MutableVector3D object.
+     * @param vector A MutableVector3D object from which we copy the fields
+     *               from.
+     * @return This MutableVector3D object so calls can be chained.
+     */
+    public MutableVector3D set(MutableVector3D vector) {
+        return set(vector.x, vector.y, vector.z);
+    }
+
+
+    /**
+     * The add method adds a Vector3D object to this vector.
+     * @param vector A Vector3D object to add to this vector.
+     * @return This MutableVector3D object so calls can be chained.
+     */
+    public MutableVector3D add(Vector3D vector) {
+        return set(x + vector.x, y + vector.y, z + vector.z);
+    }
+
+
+    /**
+     * The subtract method subtracts a Vector3D object from this vector.
+     * @param vector A Vector3D object to subtract from this vector.
+     * @return This MutableVector3D object so calls can be chained.
+     */
+    public MutableVector3D subtract(Vector3D vector) {
+        return set(x - vector.x, y - vector.y, z - vector.z);
+    }
+
+
+    /**
+     * The multiply method multiplies this vector with a scalar value.
+     * @param scalar A double value to multiply the fields with.
+     * @return This MutableVector3D object so calls can be chained.
+     */
+    public MutableVector3D multiply(double scalar) {
+        return set(x * scalar, y * scalar, z * scalar);
+    }
+
+
+    /**
+     * The dot method calculates the dot product of this vector and a
+     * Vector3D object.
+     * @param vector A Vector3D object that is used in the dot product
+     *               calculation.
+     * @return A double value that is the result of the dot product.
+     */
+    public double dot(Vector3D vector) {
+        return x * vector.x + y * vector.y + z * vector.z;
+    }
+
+
+    /**
+     * The length method calculates the length of the vector.
+     * @return A double value that represents the length of this vector.
+     */
+    public double length() {
+        return Math.sqrt(x * x + y * y + z * z);
+    }
+
+
+    /**
+     * The normalize method scales this vector to length 1.
+     * @return This MutableVector3D object so calls can be chained.
+     */
+    public MutableVector3D normalize() {
+        double length = length();
+        return set(x / length, y / length, z / length);
+    }
+
+
+    /**
+     * @return A new Vector3D object with the same fields as this vector.
+     * @see utilities.Vector3D
+     */
+    public Vector3D toVector3D() {
+        return new Vector3D(x, y, z);
+    }
+}
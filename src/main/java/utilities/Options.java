@@ -1,5 +1,9 @@
 package utilities;
 
+import renderer.ExecutionMode;
+import renderer.TileOrder;
+
+import java.io.Serializable;
 
 /**
  * The Options class is used to store all the options relating to the
@@ -7,16 +11,46 @@ package utilities;
  *
  * @author  Timothy
  */
-public class Options {
+public class Options implements Serializable {
+    private static final long serialVersionUID = 1L;
     private static final int DEFAULT_SIZE = 640;
     private static final int DEFAULT_FOV = 90;
+    private static final int DEFAULT_TILE_SIZE = 32;
+    private static final long DEFAULT_PREVIEW_INTERVAL = 500;
+    private static final double DEFAULT_VARIANCE_THRESHOLD = 0.0001;
+    private static final String DEFAULT_OUTPUT_FILE = "renderedImage.png";
+    private static final int DEFAULT_ENCODER_QUEUE_SIZE = 2;
+    private static final long DEFAULT_CHECKPOINT_INTERVAL = 10000;
     private final int height;
     private final int width;
     private final int fieldOfView;
+    private ExecutionMode executionMode;
+    private int threads;
+    private int tileSize;
+    private TileOrder tileOrder;
+    private int packetSize;
+    private boolean progressive;
+    private long previewInterval;
+    private String previewFile;
+    private boolean highDynamicRange;
+    private int minSamples;
+    private int maxSamples;
+    private double varianceThreshold;
+    private String outputFile;
+    private int compressionLevel;
+    private int encoderQueueSize;
+    private boolean memoryMapped;
+    private String checkpointFile;
+    private long checkpointInterval;
+    private boolean metrics;
+    private String heatmapFile;
+    private long timeBudget;
 
 
     /**
-     * This Options constructor sets the width, height and field of view.
+     * This Options constructor sets the width, height and field of view. The
+     * image gets rendered in tiles on a ForkJoinPool with one thread per
+     * available processor by default.
      * @param width An int value representing the specified width.
      * @param height An int value representing the specified height.
      * @param fieldOfView An int value representing the specified field of
@@ -26,6 +60,18 @@ public class Options {
         this.width = width;
         this.height = height;
         this.fieldOfView = fieldOfView;
+        this.executionMode = ExecutionMode.FORK_JOIN;
+        this.tileSize = DEFAULT_TILE_SIZE;
+        this.tileOrder = TileOrder.ROWS;
+        this.packetSize = 1;
+        this.previewInterval = DEFAULT_PREVIEW_INTERVAL;
+        this.minSamples = 1;
+        this.maxSamples = 1;
+        this.varianceThreshold = DEFAULT_VARIANCE_THRESHOLD;
+        this.outputFile = DEFAULT_OUTPUT_FILE;
+        this.compressionLevel = Image.DEFAULT_COMPRESSION_LEVEL;
+        this.encoderQueueSize = DEFAULT_ENCODER_QUEUE_SIZE;
+        this.checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
     }
 
     /**
@@ -73,6 +119,490 @@ public class Options {
     }
 
 
+    /**
+     * @return An ExecutionMode value that represents the kind of thread pool
+     *         on which the tiles get rendered.
+     * @see renderer.ExecutionMode
+     */
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+
+    /**
+     * @param executionMode An ExecutionMode value that specifies the kind of
+     *                      thread pool on which the tiles get rendered.
+     * @see renderer.ExecutionMode
+     */
+    public void setExecutionMode(ExecutionMode executionMode) {
+        this.executionMode = executionMode;
+    }
+
+
+    /**
+     * @return An int value that represents the amount of threads used to
+     *         render the tiles. Unless it was set, it is the amount of
+     *         processors of the machine that asks, so a worker of a render
+     *         farm uses its own processors rather than those of the
+     *         coordinator that sent it the Options object.
+     */
+    public int getThreads() {
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+
+    /**
+     * @param threads An int value that specifies the amount of threads used
+     *                to render the tiles. Ignored when rendering serially or
+     *                on virtual threads.
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one render thread is needed, got " + threads);
+        }
+        this.threads = threads;
+    }
+
+
+    /**
+     * @return An int value that represents the width and height of a single
+     *         tile in pixels.
+     * @see renderer.Tile
+     */
+    public int getTileSize() {
+        return tileSize;
+    }
+
+
+    /**
+     * @param tileSize An int value that specifies the width and height of a
+     *                 single tile in pixels.
+     * @see renderer.Tile
+     */
+    public void setTileSize(int tileSize) {
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("The tile size must be positive, got " + tileSize);
+        }
+        this.tileSize = tileSize;
+    }
+
+
+    /**
+     * @return A TileOrder value that represents the order in which the tiles
+     *         get rendered.
+     * @see renderer.TileOrder
+     */
+    public TileOrder getTileOrder() {
+        return tileOrder;
+    }
+
+
+    /**
+     * @param tileOrder A TileOrder value that specifies the order in which
+     *                  the tiles get rendered, row by row by default.
+     * @see renderer.TileOrder
+     */
+    public void setTileOrder(TileOrder tileOrder) {
+        this.tileOrder = tileOrder;
+    }
+
+
+    /**
+     * @return An int value that represents the width and height in pixels of
+     *         the blocks whose primary rays are traced as one packet. A value
+     *         of 1 traces every ray on its own.
+     * @see utilities.RayPacket
+     */
+    public int getPacketSize() {
+        return packetSize;
+    }
+
+
+    /**
+     * @param packetSize An int value that specifies the width and height in
+     *                   pixels of the blocks whose primary rays are traced as
+     *                   one packet, such as 2 or 4. A value of 1 turns packet
+     *                   tracing off.
+     * @see utilities.RayPacket
+     */
+    public void setPacketSize(int packetSize) {
+        if (packetSize < 1 || packetSize * packetSize > RayPacket.MAX_SIZE) {
+            throw new IllegalArgumentException("The packet size must be between 1 and "
+                    + (int) Math.sqrt(RayPacket.MAX_SIZE) + ", got " + packetSize);
+        }
+        this.packetSize = packetSize;
+    }
+
+
+    /**
+     * @return A boolean value which is true if the image is rendered in
+     *         progressive passes.
+     * @see renderer.Renderer#renderProgressive(Image)
+     */
+    public boolean isProgressive() {
+        return progressive;
+    }
+
+
+    /**
+     * @param progressive A boolean value which specifies if the image is
+     *                    rendered in progressive passes, from one pixel per
+     *                    8x8 block down to every pixel.
+     * @see renderer.Renderer#renderProgressive(Image)
+     */
+    public void setProgressive(boolean progressive) {
+        this.progressive = progressive;
+    }
+
+
+    /**
+     * @return A long value that represents the least amount of milliseconds
+     *         between two intermediate images of a progressive render.
+     * @see renderer.ProgressListener
+     */
+    public long getPreviewInterval() {
+        return previewInterval;
+    }
+
+
+    /**
+     * @param previewInterval A long value that specifies the least amount of
+     *                        milliseconds between two intermediate images of
+     *                        a progressive render. The first and last pass
+     *                        are always passed on.
+     * @see renderer.ProgressListener
+     */
+    public void setPreviewInterval(long previewInterval) {
+        if (previewInterval < 0) {
+            throw new IllegalArgumentException("The preview interval can't be negative, got " + previewInterval);
+        }
+        this.previewInterval = previewInterval;
+    }
+
+
+    /**
+     * @return A String value that represents the file to which the
+     *         intermediate images are written, or null if they aren't.
+     * @see renderer.PreviewWriter
+     */
+    public String getPreviewFile() {
+        return previewFile;
+    }
+
+
+    /**
+     * @param previewFile A String value that specifies the file to which the
+     *                    intermediate images of a progressive render are
+     *                    written, or null to not write them.
+     * @see renderer.PreviewWriter
+     */
+    public void setPreviewFile(String previewFile) {
+        this.previewFile = previewFile;
+    }
+
+
+    /**
+     * @return A boolean value which is true if the image keeps the unclamped
+     *         colors in a float buffer until it is written.
+     * @see utilities.Image
+     */
+    public boolean isHighDynamicRange() {
+        return highDynamicRange;
+    }
+
+
+    /**
+     * @param highDynamicRange A boolean value which specifies if the image
+     *                         keeps the unclamped colors in a float buffer
+     *                         and tone maps them when it is written.
+     * @see utilities.Image
+     */
+    public void setHighDynamicRange(boolean highDynamicRange) {
+        this.highDynamicRange = highDynamicRange;
+    }
+
+
+    /**
+     * @return An int value that represents the amount of samples that are at
+     *         least traced per pixel, and the amount of samples that are
+     *         added at once while the variance is too high.
+     */
+    public int getMinSamples() {
+        return minSamples;
+    }
+
+
+    /**
+     * @return An int value that represents the most samples traced per
+     *         pixel. A value of 1 traces a single ray through the center of
+     *         every pixel.
+     */
+    public int getMaxSamples() {
+        return maxSamples;
+    }
+
+
+    /**
+     * The setSamples method sets how many jittered samples are traced per
+     * pixel for anti-aliasing. Every pixel gets the minimum amount of
+     * samples, and more are added until the variance of the pixel is below
+     * the variance threshold or the maximum is reached. Ray packets aren't
+     * used when the maximum is above 1.
+     * @param minSamples An int value that specifies the amount of samples
+     *                   that are at least traced per pixel.
+     * @param maxSamples An int value that specifies the most samples traced
+     *                   per pixel.
+     */
+    public void setSamples(int minSamples, int maxSamples) {
+        if (minSamples < 1 || maxSamples < minSamples) {
+            throw new IllegalArgumentException("Need 1 <= minimum <= maximum samples, got "
+                    + minSamples + " and " + maxSamples);
+        }
+        this.minSamples = minSamples;
+        this.maxSamples = maxSamples;
+    }
+
+
+    /**
+     * @return A double value that represents the variance of the average
+     *         brightness of a pixel below which no more samples are added.
+     */
+    public double getVarianceThreshold() {
+        return varianceThreshold;
+    }
+
+
+    /**
+     * @param varianceThreshold A double value that specifies the variance of
+     *                          the average brightness of a pixel below which
+     *                          no more samples are added. Lower values add
+     *                          more samples to the edges.
+     */
+    public void setVarianceThreshold(double varianceThreshold) {
+        if (varianceThreshold < 0) {
+            throw new IllegalArgumentException("The variance threshold can't be negative, got " + varianceThreshold);
+        }
+        this.varianceThreshold = varianceThreshold;
+    }
+
+
+    /**
+     * @return A String value that represents the file to which the image is
+     *         written.
+     */
+    public String getOutputFile() {
+        return outputFile;
+    }
+
+
+    /**
+     * @param outputFile A String value that specifies the file to which the
+     *                   image is written. Its extension specifies the format,
+     *                   renderedImage.png by default. The frames of an
+     *                   animation get their number before the extension.
+     * @throws IllegalArgumentException If the extension is unknown.
+     * @see utilities.ImageFormat
+     */
+    public void setOutputFile(String outputFile) {
+        ImageFormat.forFile(outputFile);
+        this.outputFile = outputFile;
+    }
+
+
+    /**
+     * @return An int value that represents the compression level of PNG
+     *         files.
+     */
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+
+    /**
+     * @param compressionLevel An int value that specifies the compression
+     *                         level of PNG files, from 0 for the fastest to
+     *                         9 for the smallest files.
+     */
+    public void setCompressionLevel(int compressionLevel) {
+        if (compressionLevel < 0 || compressionLevel > 9) {
+            throw new IllegalArgumentException("The compression level must be between 0 and 9, got "
+                    + compressionLevel);
+        }
+        this.compressionLevel = compressionLevel;
+    }
+
+
+    /**
+     * @return An int value that represents the amount of frames that can
+     *         wait to be written.
+     */
+    public int getEncoderQueueSize() {
+        return encoderQueueSize;
+    }
+
+
+    /**
+     * @param encoderQueueSize An int value that specifies the amount of
+     *                         frames that can wait to be written before the
+     *                         renderer waits for the encoder.
+     * @see utilities.ImageEncoder
+     */
+    public void setEncoderQueueSize(int encoderQueueSize) {
+        if (encoderQueueSize < 1) {
+            throw new IllegalArgumentException("The encoder queue size must be positive, got " + encoderQueueSize);
+        }
+        this.encoderQueueSize = encoderQueueSize;
+    }
+
+
+    /**
+     * @return A boolean value which is true if the image is rendered
+     *         straight into a memory mapped output file.
+     * @see utilities.MappedImage
+     */
+    public boolean isMemoryMapped() {
+        return memoryMapped;
+    }
+
+
+    /**
+     * @param memoryMapped A boolean value which specifies if the image is
+     *                     rendered straight into a memory mapped output
+     *                     file instead of into arrays on the heap, for
+     *                     images that are too large for the heap. The
+     *                     output file has to be a PPM or PFM file.
+     * @see utilities.MappedImage
+     */
+    public void setMemoryMapped(boolean memoryMapped) {
+        this.memoryMapped = memoryMapped;
+    }
+
+
+    /**
+     * @return A String value that represents the file in which the finished
+     *         tiles are recorded, or null if there is no checkpoint.
+     */
+    public String getCheckpointFile() {
+        return checkpointFile;
+    }
+
+
+    /**
+     * @param checkpointFile A String value that specifies the file in which
+     *                       the finished tiles are recorded, so that a render
+     *                       that is stopped can be resumed by rendering with
+     *                       the same file again. The file is deleted once the
+     *                       image is written. A render with a checkpoint
+     *                       isn't progressive. Null disables it, which is
+     *                       the default.
+     * @see renderer.Checkpoint
+     */
+    public void setCheckpointFile(String checkpointFile) {
+        this.checkpointFile = checkpointFile;
+    }
+
+
+    /**
+     * @return A long value that represents the least amount of milliseconds
+     *         between two times the checkpoint is forced to the disk.
+     */
+    public long getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+
+    /**
+     * @param checkpointInterval A long value that specifies the least amount
+     *                           of milliseconds between two times the
+     *                           checkpoint is forced to the disk, 10 seconds
+     *                           by default. The tiles are written as soon as
+     *                           they are done either way, so they survive if
+     *                           the program crashes.
+     */
+    public void setCheckpointInterval(long checkpointInterval) {
+        if (checkpointInterval < 0) {
+            throw new IllegalArgumentException("The checkpoint interval can't be negative, got "
+                    + checkpointInterval);
+        }
+        this.checkpointInterval = checkpointInterval;
+    }
+
+
+    /**
+     * @return A boolean value which is true if the Renderer counts the rays,
+     *         intersection tests and tile times of a render.
+     * @see renderer.RenderMetrics
+     */
+    public boolean isMetrics() {
+        return metrics;
+    }
+
+
+    /**
+     * @param metrics A boolean value which specifies if the Renderer counts
+     *                the rays, intersection tests and tile times of a
+     *                render. It doesn't by default, and skips the counting
+     *                altogether, so benchmarks and other renders that
+     *                aren't measured don't pay for it. The Driver enables
+     *                it for the application.
+     * @see renderer.RenderMetrics
+     */
+    public void setMetrics(boolean metrics) {
+        this.metrics = metrics;
+    }
+
+
+    /**
+     * @return A String value that represents the file to which the time
+     *         spent on every pixel is written, or null if it isn't recorded.
+     * @see renderer.Heatmap
+     */
+    public String getHeatmapFile() {
+        return heatmapFile;
+    }
+
+
+    /**
+     * @param heatmapFile A String value that specifies the file to which the
+     *                    time spent on every pixel is written after the
+     *                    image, as colors for a PNG or PPM file or as the
+     *                    nanoseconds themselves for a PFM file. Null
+     *                    disables it, which is the default.
+     * @see renderer.Heatmap
+     */
+    public void setHeatmapFile(String heatmapFile) {
+        this.heatmapFile = heatmapFile;
+    }
+
+
+    /**
+     * @return A long value that represents the amount of milliseconds in
+     *         which an image has to be rendered, or 0 if there is no limit.
+     * @see renderer.BudgetReport
+     */
+    public long getTimeBudget() {
+        return timeBudget;
+    }
+
+
+    /**
+     * @param timeBudget A long value that specifies the amount of
+     *                   milliseconds in which an image has to be rendered.
+     *                   The Renderer lowers the resolution and the amount of
+     *                   reflections to fit, and uses up to the maximum
+     *                   amount of samples per pixel if there is time left.
+     *                   0 means there is no limit, which is the default. A
+     *                   render with a checkpoint ignores it.
+     * @see renderer.Renderer#renderImage(Image, long)
+     */
+    public void setTimeBudget(long timeBudget) {
+        if (timeBudget < 0) {
+            throw new IllegalArgumentException("The time budget can't be negative, got " + timeBudget);
+        }
+        this.timeBudget = timeBudget;
+    }
+
+
     /**
      * The getAspectRatio method calculates the aspect ratio based on the
      * specified width and height. If width is bigger divide width by height.
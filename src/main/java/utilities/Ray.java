@@ -4,7 +4,9 @@ package utilities;
 /**
  * The Ray class is used to represent a ray that gets shot from the Camera
  * object and into the scene to look for intersections with Shape objects or
- * Light objects.
+ * Light objects. The origin and direction are stored in MutableVector3D
+ * objects so the renderer can reuse the same Ray object for many rays with
+ * the set method.
  * @see renderer.Camera
  * @see renderer.Scene
  * @see geometries.Shape
@@ -23,8 +25,8 @@ public class Ray {
      * t variable. In this case 'Infinity'.
      */
     public final static double T_MAX = Double.POSITIVE_INFINITY;
-    private Vector3D origin;
-    private Vector3D direction;
+    private final MutableVector3D origin;
+    private final MutableVector3D direction;
     private double t;
 
 
@@ -38,26 +40,131 @@ public class Ray {
      *                  object.
      */
     public Ray(Vector3D origin, Vector3D direction) {
-        this.origin = origin;
-        this.direction = direction;
+        this.origin = new MutableVector3D().set(origin);
+        this.direction = new MutableVector3D().set(direction);
         this.t = T_MAX;
     }
 
 
     /**
-     * @return A Vector3D object that represents the origin of the Ray object.
+     * The empty Ray constructor creates a Ray object with its origin and
+     * direction set to zero, that is meant to be filled in with the set
+     * method.
+     */
+    public Ray() {
+        this.origin = new MutableVector3D();
+        this.direction = new MutableVector3D();
+        this.t = T_MAX;
+    }
+
+
+    /**
+     * The set method reuses this Ray object for a new ray with the specified
+     * origin and direction and resets the t value to T_MAX.
+     * @param originX A double value representing the x coordinate of the
+     *                origin.
+     * @param originY A double value representing the y coordinate of the
+     *                origin.
+     * @param originZ A double value representing the z coordinate of the
+     *                origin.
+     * @param directionX A double value representing the x coordinate of the
+     *                   direction.
+     * @param directionY A double value representing the y coordinate of the
+     *                   direction.
+     * @param directionZ A double value representing the z coordinate of the
+     *                   direction.
+     * @return This Ray object so calls can be chained.
+     */
+    public Ray set(double originX, double originY, double originZ,
+                   double directionX, double directionY, double directionZ) {
+        origin.set(originX, originY, originZ);
+        direction.set(directionX, directionY, directionZ);
+        t = T_MAX;
+        return this;
+    }
+
+
+    /**
+     * The set method reuses this Ray object for a new ray with the specified
+     * origin and direction and resets the t value to T_MAX.
+     * @param origin A MutableVector3D object representing the new origin.
+     * @param direction A MutableVector3D object representing the new
+     *                  direction.
+     * @return This Ray object so calls can be chained.
+     */
+    public Ray set(MutableVector3D origin, MutableVector3D direction) {
+        return set(origin.x, origin.y, origin.z, direction.x, direction.y, direction.z);
+    }
+
+
+    /**
+     * @return A new Vector3D object that represents the origin of the Ray
+     *         object. The hot paths use the getOriginX, getOriginY and
+     *         getOriginZ methods instead to avoid the allocation.
      */
     public Vector3D getOrigin() {
-        return origin;
+        return origin.toVector3D();
     }
 
 
     /**
-     * @return A Vector3D object that represents the direction of the Ray
-     *         object.
+     * @return A new Vector3D object that represents the direction of the Ray
+     *         object. The hot paths use the getDirectionX, getDirectionY and
+     *         getDirectionZ methods instead to avoid the allocation.
      */
     public Vector3D getDirection() {
-        return direction;
+        return direction.toVector3D();
+    }
+
+
+    /**
+     * @return A double value that represents the x coordinate of the origin.
+     */
+    public double getOriginX() {
+        return origin.x;
+    }
+
+
+    /**
+     * @return A double value that represents the y coordinate of the origin.
+     */
+    public double getOriginY() {
+        return origin.y;
+    }
+
+
+    /**
+     * @return A double value that represents the z coordinate of the origin.
+     */
+    public double getOriginZ() {
+        return origin.z;
+    }
+
+
+    /**
+     * @return A double value that represents the x coordinate of the
+     *         direction.
+     */
+    public double getDirectionX() {
+        return direction.x;
+    }
+
+
+    /**
+     * @return A double value that represents the y coordinate of the
+     *         direction.
+     */
+    public double getDirectionY() {
+        return direction.y;
+    }
+
+
+    /**
+     * @return A double value that represents the z coordinate of the
+     *         direction.
+     */
+    public double getDirectionZ() {
+        return direction.z;
     }
 
 
@@ -86,7 +193,21 @@ public class Ray {
      *         Ray object with a Shape object.
      */
     public Vector3D getEndPoint(double t) {
-        return origin.add(direction.multiply(t));
+        return new Vector3D(origin.x + direction.x * t, origin.y + direction.y * t, origin.z + direction.z * t);
+    }
+
+
+    /**
+     * The getEndpoint method calculates the intersection point of the Ray
+     * object based on the t value and stores it in the given vector.
+     * @param t A double value that represents the 'distance' to the
+     *          intersection point.
+     * @param point A MutableVector3D object in which the intersection point
+     *              is stored.
+     * @return The MutableVector3D object given as a parameter.
+     */
+    public MutableVector3D getEndPoint(double t, MutableVector3D point) {
+        return point.set(origin.x + direction.x * t, origin.y + direction.y * t, origin.z + direction.z * t);
     }
 
 }
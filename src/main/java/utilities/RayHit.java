@@ -5,7 +5,14 @@ import geometries.Shape;
 
 /**
  * The RayHit class is used to contain information about an intersection
- * between a Ray object and a Shape object.
+ * between a Ray object and a Shape object. The shapes only store the t value,
+ * the shape and the primitive that was hit in a RayHit object, together with
+ * a copy of the ray. The hit point and the normal are only calculated when
+ * they are asked for, which is only for the closest hit of a ray, so a
+ * renderer can reuse a single RayHit object for all the candidates.
+ * A shape that was hit through an Instance stores the ray in its own space,
+ * and the Instance adds the transform back to the space of the scene, in
+ * which the hit point, normal and reflection ray are calculated.
  * @see utilities.Ray
  * @see geometries.Shape
  * @see utilities.Vector3D
@@ -13,11 +20,24 @@ import geometries.Shape;
  * @author Timothy
  */
 public class RayHit {
-    private Ray ray;
+    private final Ray ray = new Ray();
+    private final Ray worldRay = new Ray();
+    private Transform transform;
+    private final MutableVector3D normal = new MutableVector3D();
+    private final MutableVector3D hitPoint = new MutableVector3D();
     private Shape shape;
     private double t;
-    private Vector3D normal;
-    private Vector3D hitPoint;
+    private int primitive;
+    private boolean resolved;
+
+
+    /**
+     * The empty RayHit constructor creates a RayHit object that is meant to
+     * be filled in by the intersect method of a Shape object.
+     * @see geometries.Shape#intersect(Ray, RayHit)
+     */
+    public RayHit() {
+    }
 
 
     /**
@@ -36,17 +56,15 @@ public class RayHit {
      * @see utilities.Vector3D
      */
     public RayHit(Ray ray, Shape shape, Vector3D normal, double t) {
-        this.ray = ray;
-        this.shape = shape;
-        this.t = t;
-        this.normal = normal.normalize();
-        this.hitPoint = ray.getEndPoint(t);
+        this(ray, shape, normal, ray.getEndPoint(t), t, 0);
     }
 
     /**
      * The RayHit constructor with Vector3D intersection instead of a t value
      * is also used to create a RayHit object with the specified parameters.
-     * But here the point of intersection is already calculated.
+     * But here the point of intersection is already calculated, and the t
+     * value is derived from it by projecting it onto the direction of the
+     * Ray object.
      * @param ray The Ray object which intersected with a geometry.
      * @param shape The Shape object (geometry) which intersected with a Ray
      *              object.
@@ -60,11 +78,143 @@ public class RayHit {
      * @see utilities.Vector3D
      */
     public RayHit(Ray ray, Shape shape, Vector3D normal, Vector3D intersection) {
-        this.ray = ray;
+        this(ray, shape, normal, intersection, intersection.subtract(ray.getOrigin()).dot(ray.getDirection())
+                / ray.getDirection().dot(ray.getDirection()), 0);
+    }
+
+    /**
+     * This RayHit constructor does the same as the one above, but takes the
+     * t value that the shape already calculated instead of deriving it.
+     * @param ray The Ray object which intersected with a geometry.
+     * @param shape The Shape object (geometry) which intersected with a Ray
+     *              object.
+     * @param normal A Vector3D object that is used to normalize the possible
+     *               reflection Ray object which is created when the
+     *               getReflectionRay method is called.
+     * @param intersection A Vector3D object specifying the intersection point
+     *                     of the Ray object and the Shape object.
+     * @param t A double value specifying the 'distance' from the Ray object
+     *          to the intersection point on the geometry.
+     * @see utilities.Ray
+     * @see geometries.Shape
+     * @see utilities.Vector3D
+     */
+    public RayHit(Ray ray, Shape shape, Vector3D normal, Vector3D intersection, double t) {
+        this(ray, shape, normal, intersection, t, 0);
+    }
+
+
+    /**
+     * This RayHit constructor is used by shapes that consist of multiple
+     * primitives, like a SphereSet, to also store which primitive was hit.
+     * @param ray The Ray object which intersected with a geometry.
+     * @param shape The Shape object (geometry) which intersected with a Ray
+     *              object.
+     * @param normal A Vector3D object that is used to normalize the possible
+     *               reflection Ray object which is created when the
+     *               getReflectionRay method is called.
+     * @param intersection A Vector3D object specifying the intersection point
+     *                     of the Ray object and the Shape object.
+     * @param t A double value specifying the 'distance' from the Ray object
+     *          to the intersection point on the geometry.
+     * @param primitive An int value specifying the index of the primitive
+     *                  within the shape that was hit.
+     * @see geometries.SphereSet
+     */
+    public RayHit(Ray ray, Shape shape, Vector3D normal, Vector3D intersection, double t, int primitive) {
+        set(ray, shape, t, primitive);
+        this.normal.set(normal).normalize();
+        this.hitPoint.set(intersection);
+        this.resolved = true;
+    }
+
+
+    /**
+     * The set method is used by the shapes to store a hit in this RayHit
+     * object. It copies the ray, so the Ray object can be reused before the
+     * hit point and normal are calculated. The ray is in the space of the
+     * shape, which is the space of the scene until an Instance calls the
+     * toWorld method.
+     * @param ray The Ray object which intersected with a geometry.
+     * @param shape The Shape object (geometry) which intersected with a Ray
+     *              object.
+     * @param t A double value specifying the 'distance' from the Ray object
+     *          to the intersection point on the geometry.
+     * @param primitive An int value specifying the index of the primitive
+     *                  within the shape that was hit.
+     * @return This RayHit object so calls can be chained.
+     * @see geometries.Shape#intersect(Ray, RayHit)
+     */
+    public RayHit set(Ray ray, Shape shape, double t, int primitive) {
+        this.ray.set(ray.getOriginX(), ray.getOriginY(), ray.getOriginZ(),
+                ray.getDirectionX(), ray.getDirectionY(), ray.getDirectionZ());
+        this.ray.setT(t);
         this.shape = shape;
-        this.normal = normal.normalize();
-        this.hitPoint = intersection;
+        this.t = t;
+        this.primitive = primitive;
+        this.transform = null;
+        this.resolved = false;
+        return this;
+    }
+
 
+    /**
+     * The toWorld method is used by an Instance after the shape it refers
+     * to stored a hit in its own space. The shape and primitive are kept, so
+     * the color and normal still come from the shape, but the hit point,
+     * normal and reflection ray are moved to the space of the Instance.
+     * Nested instances call it once per level, from the inside out.
+     * @param ray The Ray object in the space of the Instance.
+     * @param transform A Transform object that moves the space of the shape
+     *                  into the space of the Instance.
+     * @return This RayHit object so calls can be chained.
+     * @see geometries.Instance
+     */
+    public RayHit toWorld(Ray ray, Transform transform) {
+        this.worldRay.set(ray.getOriginX(), ray.getOriginY(), ray.getOriginZ(),
+                ray.getDirectionX(), ray.getDirectionY(), ray.getDirectionZ());
+        this.worldRay.setT(t);
+        this.transform = this.transform == null ? transform : this.transform.then(transform);
+        this.resolved = false;
+        return this;
+    }
+
+
+    /**
+     * The resolve method calculates the hit point and lets the shape
+     * calculate the normal, the first time that one of them is needed.
+     * @see geometries.Shape#computeNormal(RayHit, MutableVector3D)
+     */
+    private void resolve() {
+        if (!resolved) {
+            getWorldRay().getEndPoint(t, hitPoint);
+            shape.computeNormal(this, normal);
+            if (transform != null) {
+                transform.transformNormal(normal);
+            }
+            normal.normalize();
+            resolved = true;
+        }
+    }
+
+
+    /**
+     * @return A Ray object that is a copy of the ray that hit the shape, in
+     *         the space of the shape, with its t value set to the hit.
+     */
+    public Ray getRay() {
+        return ray;
+    }
+
+
+    /**
+     * @return A Ray object that is a copy of the ray that hit the shape, in
+     *         the space of the scene, with its t value set to the hit. It is
+     *         the same as the getRay method unless the shape was hit
+     *         through an Instance.
+     */
+    public Ray getWorldRay() {
+        return transform == null ? ray : worldRay;
     }
 
 
@@ -85,17 +235,74 @@ public class RayHit {
      * @see utilities.Vector3D
      */
     public Ray getReflectionRay() {
-        return new Ray(hitPoint, ray.getDirection().subtract(normal.multiply(2.0 * ray.getDirection().dot(normal))));
+        return getReflectionRay(new Ray());
     }
 
 
     /**
-     * @return A Vector3D object that represents the point on which the Ray
-     *         object and the Shape object intersected.
+     * The getReflectionRay method with a Ray parameter does the same as the
+     * other getReflectionRay method, but reuses the given Ray object instead
+     * of creating a new one.
+     * @param reflectionRay A Ray object that gets the hit point as its origin
+     *                      and the reflected direction.
+     * @return The Ray object given as a parameter.
+     * @see utilities.Ray
+     */
+    public Ray getReflectionRay(Ray reflectionRay) {
+        resolve();
+        Ray ray = getWorldRay();
+        double directionX = ray.getDirectionX();
+        double directionY = ray.getDirectionY();
+        double directionZ = ray.getDirectionZ();
+        double scale = 2.0 * (directionX * normal.x + directionY * normal.y + directionZ * normal.z);
+
+        return reflectionRay.set(hitPoint.x, hitPoint.y, hitPoint.z,
+                directionX - normal.x * scale, directionY - normal.y * scale, directionZ - normal.z * scale);
+    }
+
+
+    /**
+     * @return A new Vector3D object that represents the point on which the
+     *         Ray object and the Shape object intersected.
      * @see utilities.Vector3D
      */
     public Vector3D getHitPoint() {
-        return hitPoint;
+        resolve();
+        return hitPoint.toVector3D();
+    }
+
+
+    /**
+     * The getHitPoint method with a MutableVector3D parameter stores the hit
+     * point in the given vector instead of creating a new one.
+     * @param point A MutableVector3D object in which the hit point is stored.
+     * @return The MutableVector3D object given as a parameter.
+     */
+    public MutableVector3D getHitPoint(MutableVector3D point) {
+        resolve();
+        return point.set(hitPoint);
+    }
+
+
+    /**
+     * @return A new Vector3D object that represents the normalized normal of
+     *         the Shape object at the hit point.
+     * @see utilities.Vector3D
+     */
+    public Vector3D getNormal() {
+        resolve();
+        return normal.toVector3D();
+    }
+
+
+    /**
+     * @return An int value that represents the index of the primitive within
+     *         the hit Shape object. It is 0 for shapes that consist of a
+     *         single primitive.
+     * @see geometries.Shape#getColor(int)
+     */
+    public int getPrimitive() {
+        return primitive;
     }
 
 
@@ -0,0 +1,120 @@
+package utilities;
+
+
+/**
+ * The RayPacket class holds a small bundle of coherent rays, such as the
+ * primary rays through a 2x2 or 4x4 block of pixels, in primitive arrays
+ * with one lane per ray. The whole packet traverses the bounding volume
+ * hierarchy at once, so that the nodes are loaded and tested once for all
+ * of its rays. An int mask with one bit per lane states which lanes hold a
+ * ray, which is why a packet has at most 32 lanes.
+ * @see utilities.Ray
+ * @see utilities.BoundingVolumeHierarchy
+ * @see renderer.Camera
+ *
+ * @author Timothy
+ */
+public class RayPacket {
+
+    /**
+     * The MAX_SIZE int value represents the most lanes a packet can have.
+     */
+    public final static int MAX_SIZE = 32;
+
+    public final double[] originX;
+    public final double[] originY;
+    public final double[] originZ;
+    public final double[] directionX;
+    public final double[] directionY;
+    public final double[] directionZ;
+    public final double[] t;
+    private int activeMask;
+
+
+    /**
+     * Creates a new RayPacket object with the specified amount of lanes and
+     * no active rays.
+     * @param size An int value representing the amount of lanes.
+     */
+    public RayPacket(int size) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("A packet needs 1 to " + MAX_SIZE + " lanes, got " + size);
+        }
+        this.originX = new double[size];
+        this.originY = new double[size];
+        this.originZ = new double[size];
+        this.directionX = new double[size];
+        this.directionY = new double[size];
+        this.directionZ = new double[size];
+        this.t = new double[size];
+    }
+
+
+    /**
+     * The set method puts a ray in the specified lane, resets its t value to
+     * T_MAX and marks the lane as active.
+     * @param lane An int value representing the lane of the ray.
+     * @param originX A double value representing the x coordinate of the
+     *                origin.
+     * @param originY A double value representing the y coordinate of the
+     *                origin.
+     * @param originZ A double value representing the z coordinate of the
+     *                origin.
+     * @param directionX A double value representing the x coordinate of the
+     *                   direction.
+     * @param directionY A double value representing the y coordinate of the
+     *                   direction.
+     * @param directionZ A double value representing the z coordinate of the
+     *                   direction.
+     */
+    public void set(int lane, double originX, double originY, double originZ,
+                    double directionX, double directionY, double directionZ) {
+        this.originX[lane] = originX;
+        this.originY[lane] = originY;
+        this.originZ[lane] = originZ;
+        this.directionX[lane] = directionX;
+        this.directionY[lane] = directionY;
+        this.directionZ[lane] = directionZ;
+        this.t[lane] = Ray.T_MAX;
+        this.activeMask |= 1 << lane;
+    }
+
+
+    /**
+     * The clear method marks all the lanes as inactive.
+     */
+    public void clear() {
+        activeMask = 0;
+    }
+
+
+    /**
+     * @return An int value with a bit set for every lane that holds a ray.
+     */
+    public int getActiveMask() {
+        return activeMask;
+    }
+
+
+    /**
+     * @return An int value that represents the amount of lanes.
+     */
+    public int getSize() {
+        return t.length;
+    }
+
+
+    /**
+     * The getRay method copies a lane into a Ray object, so the lane can be
+     * tested against a shape or traced further on its own.
+     * @param lane An int value representing the lane to copy.
+     * @param ray A Ray object which gets the origin, direction and t value of
+     *            the lane.
+     * @return The Ray object given as a parameter.
+     */
+    public Ray getRay(int lane, Ray ray) {
+        ray.set(originX[lane], originY[lane], originZ[lane], directionX[lane], directionY[lane], directionZ[lane]);
+        ray.setT(t[lane]);
+        return ray;
+    }
+}
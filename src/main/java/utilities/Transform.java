@@ -0,0 +1,321 @@
+package utilities;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+
+/**
+ * The Transform class represents an affine transformation of the three
+ * dimensional space: a rotation, scale or shear followed by a translation.
+ * It is stored as the top three rows of a 4x4 matrix, whose last row is
+ * always 0 0 0 1, together with its inverse, so that a ray can be moved into
+ * the space of a transformed object without inverting the matrix per ray.
+ * A Transform object is immutable, combining two transforms creates a new
+ * one.
+ * @see geometries.Instance
+ *
+ * @author Timothy
+ */
+public final class Transform implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+
+    /**
+     * The transform that leaves every point where it is.
+     */
+    public static final Transform IDENTITY = new Transform(
+            new double[] {1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0},
+            new double[] {1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0});
+    private final double[] matrix;
+    private final double[] inverse;
+
+
+    private Transform(double[] matrix, double[] inverse) {
+        this.matrix = matrix;
+        this.inverse = inverse;
+    }
+
+
+    /**
+     * The of method creates a Transform object from the twelve values of the
+     * top three rows of a 4x4 matrix, row by row. The fourth value of every
+     * row is the translation.
+     * @param matrix A double array with twelve values.
+     * @return A new Transform object with the matrix.
+     * @throws IllegalArgumentException If the array doesn't have twelve
+     *                                  values or the matrix can't be
+     *                                  inverted.
+     */
+    public static Transform of(double... matrix) {
+        if (matrix.length != 12) {
+            throw new IllegalArgumentException("A transform needs 12 values, got " + matrix.length);
+        }
+        double[] copy = matrix.clone();
+        return new Transform(copy, invert(copy));
+    }
+
+
+    /**
+     * @param x A double value representing the distance along the x axis.
+     * @param y A double value representing the distance along the y axis.
+     * @param z A double value representing the distance along the z axis.
+     * @return A new Transform object that moves every point by the specified
+     *         distances.
+     */
+    public static Transform translation(double x, double y, double z) {
+        return new Transform(new double[] {1, 0, 0, x, 0, 1, 0, y, 0, 0, 1, z},
+                new double[] {1, 0, 0, -x, 0, 1, 0, -y, 0, 0, 1, -z});
+    }
+
+
+    /**
+     * @param x A double value representing the scale along the x axis.
+     * @param y A double value representing the scale along the y axis.
+     * @param z A double value representing the scale along the z axis.
+     * @return A new Transform object that scales every point around the
+     *         origin.
+     * @throws IllegalArgumentException If a scale is zero.
+     */
+    public static Transform scaling(double x, double y, double z) {
+        if (x == 0 || y == 0 || z == 0) {
+            throw new IllegalArgumentException("A scale can't be zero, got " + x + ", " + y + ", " + z);
+        }
+        return new Transform(new double[] {x, 0, 0, 0, 0, y, 0, 0, 0, 0, z, 0},
+                new double[] {1 / x, 0, 0, 0, 0, 1 / y, 0, 0, 0, 0, 1 / z, 0});
+    }
+
+
+    /**
+     * @param scale A double value representing the scale along all axes.
+     * @return A new Transform object that scales every point around the
+     *         origin by the same amount in every direction.
+     * @throws IllegalArgumentException If the scale is zero.
+     */
+    public static Transform scaling(double scale) {
+        return scaling(scale, scale, scale);
+    }
+
+
+    /**
+     * @param axis A Vector3D object representing the axis through the origin
+     *             to rotate around. It doesn't have to be normalized.
+     * @param degrees A double value representing the angle of the rotation in
+     *                degrees, counterclockwise when looking down the axis.
+     * @return A new Transform object that rotates every point around the
+     *         axis.
+     * @throws IllegalArgumentException If the axis has no length.
+     */
+    public static Transform rotation(Vector3D axis, double degrees) {
+        double length = Math.sqrt(axis.x * axis.x + axis.y * axis.y + axis.z * axis.z);
+        if (length == 0) {
+            throw new IllegalArgumentException("The axis of a rotation can't be zero");
+        }
+        double x = axis.x / length;
+        double y = axis.y / length;
+        double z = axis.z / length;
+        double cos = Math.cos(Math.toRadians(degrees));
+        double sin = Math.sin(Math.toRadians(degrees));
+        double oneMinusCos = 1 - cos;
+
+        double[] matrix = {
+                cos + x * x * oneMinusCos, x * y * oneMinusCos - z * sin, x * z * oneMinusCos + y * sin, 0,
+                y * x * oneMinusCos + z * sin, cos + y * y * oneMinusCos, y * z * oneMinusCos - x * sin, 0,
+                z * x * oneMinusCos - y * sin, z * y * oneMinusCos + x * sin, cos + z * z * oneMinusCos, 0};
+        // The inverse of a rotation is its transpose
+        double[] inverse = {
+                matrix[0], matrix[4], matrix[8], 0,
+                matrix[1], matrix[5], matrix[9], 0,
+                matrix[2], matrix[6], matrix[10], 0};
+        return new Transform(matrix, inverse);
+    }
+
+
+    /**
+     * The then method combines this transform with another one that is
+     * applied after it.
+     * @param next A Transform object that is applied after this one.
+     * @return A new Transform object that applies this transform and then the
+     *         other one.
+     */
+    public Transform then(Transform next) {
+        return new Transform(multiply(next.matrix, matrix), multiply(inverse, next.inverse));
+    }
+
+
+    /**
+     * @return A new Transform object that undoes this transform.
+     */
+    public Transform inverse() {
+        return new Transform(inverse, matrix);
+    }
+
+
+    /**
+     * @param point A Vector3D object representing a point.
+     * @return A new Vector3D object with the transformed point.
+     */
+    public Vector3D transformPoint(Vector3D point) {
+        return new Vector3D(
+                matrix[0] * point.x + matrix[1] * point.y + matrix[2] * point.z + matrix[3],
+                matrix[4] * point.x + matrix[5] * point.y + matrix[6] * point.z + matrix[7],
+                matrix[8] * point.x + matrix[9] * point.y + matrix[10] * point.z + matrix[11]);
+    }
+
+
+    /**
+     * @param direction A Vector3D object representing a direction, which
+     *                  isn't moved by the translation.
+     * @return A new Vector3D object with the transformed direction.
+     */
+    public Vector3D transformDirection(Vector3D direction) {
+        return new Vector3D(
+                matrix[0] * direction.x + matrix[1] * direction.y + matrix[2] * direction.z,
+                matrix[4] * direction.x + matrix[5] * direction.y + matrix[6] * direction.z,
+                matrix[8] * direction.x + matrix[9] * direction.y + matrix[10] * direction.z);
+    }
+
+
+    /**
+     * The transformNormal method transforms a normal in place. Normals are
+     * transformed with the transpose of the inverse matrix, so that they stay
+     * perpendicular to surfaces that are scaled unevenly. The result isn't
+     * normalized.
+     * @param normal A MutableVector3D object with a normal in the space
+     *               before the transform, in which the transformed normal is
+     *               stored.
+     * @return The MutableVector3D object given as a parameter.
+     */
+    public MutableVector3D transformNormal(MutableVector3D normal) {
+        double x = normal.x;
+        double y = normal.y;
+        double z = normal.z;
+        return normal.set(
+                inverse[0] * x + inverse[4] * y + inverse[8] * z,
+                inverse[1] * x + inverse[5] * y + inverse[9] * z,
+                inverse[2] * x + inverse[6] * y + inverse[10] * z);
+    }
+
+
+    /**
+     * The toObjectSpace method moves a ray into the space before this
+     * transform. The direction isn't normalized, so the t value of a point
+     * along the ray stays the same in both spaces and hits can be compared
+     * without converting their t values.
+     * @param ray A Ray object in the transformed space.
+     * @param objectRay A Ray object in which the ray before the transform is
+     *                  stored, with the same t value.
+     * @return The Ray object given as the second parameter.
+     */
+    public Ray toObjectSpace(Ray ray, Ray objectRay) {
+        double originX = ray.getOriginX();
+        double originY = ray.getOriginY();
+        double originZ = ray.getOriginZ();
+        double directionX = ray.getDirectionX();
+        double directionY = ray.getDirectionY();
+        double directionZ = ray.getDirectionZ();
+        objectRay.set(
+                inverse[0] * originX + inverse[1] * originY + inverse[2] * originZ + inverse[3],
+                inverse[4] * originX + inverse[5] * originY + inverse[6] * originZ + inverse[7],
+                inverse[8] * originX + inverse[9] * originY + inverse[10] * originZ + inverse[11],
+                inverse[0] * directionX + inverse[1] * directionY + inverse[2] * directionZ,
+                inverse[4] * directionX + inverse[5] * directionY + inverse[6] * directionZ,
+                inverse[8] * directionX + inverse[9] * directionY + inverse[10] * directionZ);
+        objectRay.setT(ray.getT());
+        return objectRay;
+    }
+
+
+    /**
+     * The transformBox method transforms the eight corners of a box and
+     * returns the axis aligned box around them, which contains everything
+     * that the box contained.
+     * @param box A BoundingBox object in the space before the transform.
+     * @return A new BoundingBox object in the transformed space.
+     * @see utilities.BoundingBox
+     */
+    public BoundingBox transformBox(BoundingBox box) {
+        // Every row of the matrix takes its smallest and biggest value at a
+        // corner, so the box can be computed per row instead of per corner
+        double[] min = new double[3];
+        double[] max = new double[3];
+        double[] lows = {box.getMin().x, box.getMin().y, box.getMin().z};
+        double[] highs = {box.getMax().x, box.getMax().y, box.getMax().z};
+        for (int row = 0; row < 3; row++) {
+            min[row] = matrix[row * 4 + 3];
+            max[row] = matrix[row * 4 + 3];
+            for (int column = 0; column < 3; column++) {
+                double a = matrix[row * 4 + column] * lows[column];
+                double b = matrix[row * 4 + column] * highs[column];
+                min[row] += Math.min(a, b);
+                max[row] += Math.max(a, b);
+            }
+        }
+        return new BoundingBox(new Vector3D(min[0], min[1], min[2]), new Vector3D(max[0], max[1], max[2]));
+    }
+
+
+    /**
+     * @return A Vector3D object that represents the translation, which is
+     *         where the origin ends up.
+     */
+    public Vector3D getTranslation() {
+        return new Vector3D(matrix[3], matrix[7], matrix[11]);
+    }
+
+
+    private static double[] multiply(double[] left, double[] right) {
+        double[] result = new double[12];
+        for (int row = 0; row < 3; row++) {
+            for (int column = 0; column < 4; column++) {
+                double value = column == 3 ? left[row * 4 + 3] : 0;
+                for (int i = 0; i < 3; i++) {
+                    value += left[row * 4 + i] * right[i * 4 + column];
+                }
+                result[row * 4 + column] = value;
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Inverts the 3x3 part of the matrix with its cofactors, and moves the
+     * translation back with the inverted part.
+     */
+    private static double[] invert(double[] m) {
+        double c00 = m[5] * m[10] - m[6] * m[9];
+        double c01 = m[6] * m[8] - m[4] * m[10];
+        double c02 = m[4] * m[9] - m[5] * m[8];
+        double determinant = m[0] * c00 + m[1] * c01 + m[2] * c02;
+        if (determinant == 0 || !Double.isFinite(determinant)) {
+            throw new IllegalArgumentException("The transform can't be inverted: " + Arrays.toString(m));
+        }
+        double d = 1 / determinant;
+
+        double[] inverse = new double[12];
+        inverse[0] = c00 * d;
+        inverse[1] = (m[2] * m[9] - m[1] * m[10]) * d;
+        inverse[2] = (m[1] * m[6] - m[2] * m[5]) * d;
+        inverse[4] = c01 * d;
+        inverse[5] = (m[0] * m[10] - m[2] * m[8]) * d;
+        inverse[6] = (m[2] * m[4] - m[0] * m[6]) * d;
+        inverse[8] = c02 * d;
+        inverse[9] = (m[1] * m[8] - m[0] * m[9]) * d;
+        inverse[10] = (m[0] * m[5] - m[1] * m[4]) * d;
+        for (int row = 0; row < 3; row++) {
+            inverse[row * 4 + 3] = -(inverse[row * 4] * m[3] + inverse[row * 4 + 1] * m[7]
+                    + inverse[row * 4 + 2] * m[11]);
+        }
+        return inverse;
+    }
+
+
+    /**
+     * @return A String value with the three rows of the matrix.
+     */
+    @Override
+    public String toString() {
+        return String.format("Transform[%s, %s, %s]", Arrays.toString(Arrays.copyOfRange(matrix, 0, 4)),
+                Arrays.toString(Arrays.copyOfRange(matrix, 4, 8)), Arrays.toString(Arrays.copyOfRange(matrix, 8, 12)));
+    }
+}
@@ -1,5 +1,7 @@
 package utilities;
 
+import java.io.Serializable;
+
 
 /**
  * The Vector3D class is used to represent a three dimensional vector that
@@ -7,7 +9,8 @@ package utilities;
  *
  * @author Timothy
  */
-public class Vector3D {
+public class Vector3D implements Serializable {
+    private static final long serialVersionUID = 1L;
     public final double x;
     public final double y;
     public final double z;
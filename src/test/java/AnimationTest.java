@@ -0,0 +1,124 @@
+import animation.Animation;
+import animation.Keyframes;
+import geometries.Plane;
+import geometries.Sphere;
+import geometries.SphereSet;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import renderer.Camera;
+import renderer.Renderer;
+import renderer.Scene;
+import utilities.*;
+
+/**
+ * The AnimationTest is a test class which checks the interpolation of
+ * keyframes, and that a frame rendered after an Animation moved the camera
+ * and the geometries is the same as a frame of a new scene with everything
+ * at those positions.
+ * @see animation.Animation
+ * @see animation.Keyframes
+ *
+ * @author Timothy
+ */
+class AnimationTest {
+    private static final int SIZE = 64;
+
+    /**
+     * The testKeyframes method checks the values between, before and after
+     * the keyframes.
+     */
+    @Test
+    @DisplayName("Test that keyframes are interpolated linearly")
+    void testKeyframes() {
+        Keyframes keyframes = new Keyframes()
+                .add(1, new Vector3D(0, 0, 0))
+                .add(3, new Vector3D(4, 2, 0))
+                .add(4, new Vector3D(4, 2, 8));
+
+        Assertions.assertEquals(4, keyframes.getEndTime());
+        assertVector(new Vector3D(0, 0, 0), keyframes.getValue(0));
+        assertVector(new Vector3D(2, 1, 0), keyframes.getValue(2));
+        assertVector(new Vector3D(4, 2, 0), keyframes.getValue(3));
+        assertVector(new Vector3D(4, 2, 4), keyframes.getValue(3.5));
+        assertVector(new Vector3D(4, 2, 8), keyframes.getValue(10));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> keyframes.add(2, new Vector3D()));
+    }
+
+    /**
+     * The testFrames method applies an Animation to a scene frame by frame
+     * and compares every frame with a new scene and camera that are created
+     * at the interpolated positions.
+     */
+    @Test
+    @DisplayName("Test that animated frames are the same as frames of a new scene")
+    void testFrames() {
+        Options options = new Options(SIZE, SIZE);
+        Scene scene = new Scene();
+        Sphere sphere = new Sphere(new Vector3D(12, 5, 0), 1, new Color(0F, 1F, 0F), 0.8F);
+        SphereSet set = createSphereSet();
+        scene.add(sphere);
+        scene.add(set);
+        addStaticObjects(scene);
+        Camera camera = createCamera(new Vector3D(0, 0, 30), options);
+        Renderer renderer = new Renderer(camera, scene, options);
+
+        Keyframes origins = new Keyframes().add(0, new Vector3D(0, 0, 30)).add(1, new Vector3D(20, 10, 25));
+        Keyframes targets = new Keyframes().add(0, new Vector3D(0, 0, 0));
+        Keyframes spherePositions = new Keyframes().add(0, sphere.getPosition()).add(1, new Vector3D(-6, 3, 4));
+        Keyframes setPositions = new Keyframes().add(0, new Vector3D()).add(1, new Vector3D(0, 4, 2));
+        Animation animation = new Animation();
+        animation.setCamera(origins, targets);
+        animation.add(sphere, spherePositions);
+        animation.add(set, setPositions);
+
+        for (double time = 0; time <= 1; time += 0.25) {
+            animation.apply(time, camera, scene);
+            Image actual = new Image(SIZE, SIZE);
+            renderer.renderImage(actual);
+
+            Scene expectedScene = new Scene();
+            expectedScene.add(new Sphere(spherePositions.getValue(time), 1, new Color(0F, 1F, 0F), 0.8F));
+            SphereSet expectedSet = createSphereSet();
+            expectedSet.setPosition(setPositions.getValue(time));
+            expectedScene.add(expectedSet);
+            addStaticObjects(expectedScene);
+            Image expected = new Image(SIZE, SIZE);
+            new Renderer(createCamera(origins.getValue(time), options), expectedScene, options)
+                    .renderImage(expected);
+
+            for (int y = 0; y < SIZE; y++) {
+                for (int x = 0; x < SIZE; x++) {
+                    Assertions.assertEquals(expected.getRGB(x, y), actual.getRGB(x, y),
+                            "Time " + time + " differs at pixel " + x + ", " + y);
+                }
+            }
+        }
+    }
+
+    private SphereSet createSphereSet() {
+        SphereSet set = new SphereSet();
+        int material = set.addMaterial(new Color(0F, 0.5F, 0.5F), 0.3F);
+        for (int i = 0; i < 30; i++) {
+            set.add(new Vector3D(i % 6 * 2 - 6, i / 6 * 2 - 4, -4), 0.8, material);
+        }
+        return set;
+    }
+
+    private void addStaticObjects(Scene scene) {
+        scene.add(new Sphere(new Vector3D(0, 0, 10), 3, new Color(0.5F, 0.2F, 0.2F), 0.5F));
+        scene.add(new Plane(new Vector3D(0, -5, 0), new Vector3D(0, 1, 0), new Color(1F, 0F, 0F), 0.6F));
+        scene.add(new Light(new Vector3D(1, 1, 1), new Color(1F, 1F, 1F), 0.8F));
+    }
+
+    private Camera createCamera(Vector3D origin, Options options) {
+        return new Camera(origin, new Vector3D(0, 0, 0), new Vector3D(0, 1, 0),
+                options.getFieldOfView(), options.getAspectRatio());
+    }
+
+    private void assertVector(Vector3D expected, Vector3D actual) {
+        Assertions.assertEquals(expected.x, actual.x, 1e-12);
+        Assertions.assertEquals(expected.y, actual.y, 1e-12);
+        Assertions.assertEquals(expected.z, actual.z, 1e-12);
+    }
+}
@@ -0,0 +1,248 @@
+import geometries.Shape;
+import geometries.Sphere;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import renderer.Scene;
+import utilities.*;
+
+import java.util.Random;
+
+/**
+ * The BoundingVolumeHierarchyTest is a test class which checks that the
+ * bounding volume hierarchy finds the same closest hits as testing every
+ * shape, for single rays as well as for ray packets, and after it was
+ * refitted to moved shapes.
+ * @see utilities.BoundingVolumeHierarchy
+ * @see utilities.RayPacket
+ * @see renderer.Scene
+ *
+ * @author Timothy
+ */
+class BoundingVolumeHierarchyTest {
+    private static final int SPHERES = 2000;
+    private static final int RAYS = 2000;
+
+    /**
+     * The testClosestHit method shoots random rays through a scene with
+     * random spheres and compares the t value of the closest hit found by
+     * the hierarchy with the one found by a linear search.
+     */
+    @Test
+    @DisplayName("Test that the hierarchy finds the same closest hits as a linear search")
+    void testClosestHit() {
+        Random random = new Random(42);
+        Scene scene = new Scene();
+        for (int i = 0; i < SPHERES; i++) {
+            scene.add(new Sphere(randomVector(random, 100), 0.1 + random.nextDouble() * 2,
+                    new Color(1F, 1F, 1F), 0));
+        }
+
+        Shape[] shapes = scene.getBoundedGeometries();
+        BoundingVolumeHierarchy hierarchy = scene.getBoundingVolumeHierarchy();
+        Assertions.assertEquals(SPHERES, shapes.length);
+
+        for (int i = 0; i < RAYS; i++) {
+            Vector3D origin = randomVector(random, 120);
+            Vector3D direction = randomVector(random, 1).normalize();
+
+            Ray linearRay = new Ray(origin, direction);
+            for (Shape shape : scene.getGeometries()) {
+                RayHit hit = shape.intersects(linearRay);
+                if (hit != null && hit.getT() < linearRay.getT()) {
+                    linearRay.setT(hit.getT());
+                }
+            }
+
+            Ray ray = new Ray(origin, direction);
+            hierarchy.traverse(ray, (first, count, r) -> {
+                for (int j = first; j < first + count; j++) {
+                    RayHit hit = shapes[j].intersects(r);
+                    if (hit != null && hit.getT() < r.getT()) {
+                        r.setT(hit.getT());
+                    }
+                }
+                return false;
+            });
+
+            Assertions.assertEquals(linearRay.getT(), ray.getT(), "Ray " + i);
+        }
+    }
+
+    /**
+     * The testPacketClosestHit method traverses the hierarchy with packets of
+     * rays that share an origin and compares the t value of every lane with
+     * the one found when its ray traverses the hierarchy on its own.
+     */
+    @Test
+    @DisplayName("Test that packets find the same closest hits as single rays")
+    void testPacketClosestHit() {
+        Random random = new Random(7);
+        Scene scene = new Scene();
+        for (int i = 0; i < SPHERES; i++) {
+            scene.add(new Sphere(randomVector(random, 100), 0.1 + random.nextDouble() * 2,
+                    new Color(1F, 1F, 1F), 0));
+        }
+
+        Shape[] shapes = scene.getBoundedGeometries();
+        BoundingVolumeHierarchy hierarchy = scene.getBoundingVolumeHierarchy();
+        BoundingVolumeHierarchy.Stack stack = new BoundingVolumeHierarchy.Stack();
+        RayPacket packet = new RayPacket(16);
+        Ray[] rays = new Ray[16];
+
+        for (int i = 0; i < RAYS / 16; i++) {
+            Vector3D origin = randomVector(random, 120);
+            Vector3D direction = randomVector(random, 1);
+            packet.clear();
+            // Leave some lanes inactive to check that they are ignored
+            int lanes = 1 + random.nextInt(16);
+            for (int lane = 0; lane < lanes; lane++) {
+                Vector3D laneDirection = direction.add(randomVector(random, 0.1)).normalize();
+                packet.set(lane, origin.x, origin.y, origin.z, laneDirection.x, laneDirection.y, laneDirection.z);
+                rays[lane] = new Ray(origin, laneDirection);
+                hierarchy.traverse(rays[lane], (first, count, r) -> {
+                    for (int j = first; j < first + count; j++) {
+                        RayHit hit = shapes[j].intersects(r);
+                        if (hit != null && hit.getT() < r.getT()) {
+                            r.setT(hit.getT());
+                        }
+                    }
+                    return false;
+                });
+            }
+
+            Ray laneRay = new Ray();
+            hierarchy.traverse(packet, (first, count, p, mask) -> {
+                for (int m = mask; m != 0; m &= m - 1) {
+                    int lane = Integer.numberOfTrailingZeros(m);
+                    Assertions.assertTrue(lane < lanes, "Inactive lane " + lane + " was visited");
+                    p.getRay(lane, laneRay);
+                    for (int j = first; j < first + count; j++) {
+                        RayHit hit = shapes[j].intersects(laneRay);
+                        if (hit != null && hit.getT() < laneRay.getT()) {
+                            laneRay.setT(hit.getT());
+                        }
+                    }
+                    p.t[lane] = laneRay.getT();
+                }
+            }, stack);
+
+            for (int lane = 0; lane < lanes; lane++) {
+                Assertions.assertEquals(rays[lane].getT(), packet.t[lane], "Packet " + i + " lane " + lane);
+            }
+        }
+    }
+
+    /**
+     * The testRefit method moves a few spheres of a scene, so that the
+     * hierarchy is refitted instead of built again, and compares the closest
+     * hits with a linear search like the testClosestHit method.
+     */
+    @Test
+    @DisplayName("Test that a refitted hierarchy finds the same closest hits as a linear search")
+    void testRefit() {
+        Random random = new Random(3);
+        Scene scene = new Scene();
+        for (int i = 0; i < SPHERES; i++) {
+            scene.add(new Sphere(randomVector(random, 100), 0.1 + random.nextDouble() * 2,
+                    new Color(1F, 1F, 1F), 0));
+        }
+        BoundingVolumeHierarchy hierarchy = scene.getBoundingVolumeHierarchy();
+
+        for (int frame = 0; frame < 3; frame++) {
+            for (int i = 0; i < SPHERES / 20; i++) {
+                Shape shape = scene.getGeometries().get(random.nextInt(SPHERES));
+                scene.move(shape, shape.getPosition().add(randomVector(random, 30)));
+            }
+
+            Assertions.assertSame(hierarchy, scene.getBoundingVolumeHierarchy());
+            Assertions.assertEquals(frame + 1, hierarchy.getRefitCount());
+            Shape[] shapes = scene.getBoundedGeometries();
+            for (int i = 0; i < RAYS; i++) {
+                Vector3D origin = randomVector(random, 120);
+                Vector3D direction = randomVector(random, 1).normalize();
+
+                Ray linearRay = new Ray(origin, direction);
+                for (Shape shape : scene.getGeometries()) {
+                    RayHit hit = shape.intersects(linearRay);
+                    if (hit != null && hit.getT() < linearRay.getT()) {
+                        linearRay.setT(hit.getT());
+                    }
+                }
+
+                Ray ray = new Ray(origin, direction);
+                hierarchy.traverse(ray, (first, count, r) -> {
+                    for (int j = first; j < first + count; j++) {
+                        RayHit hit = shapes[j].intersects(r);
+                        if (hit != null && hit.getT() < r.getT()) {
+                            r.setT(hit.getT());
+                        }
+                    }
+                    return false;
+                });
+
+                Assertions.assertEquals(linearRay.getT(), ray.getT(), "Frame " + frame + " ray " + i);
+            }
+        }
+
+        // Moving more than a quarter of the spheres builds a new hierarchy
+        for (Shape shape : scene.getGeometries()) {
+            scene.move(shape, shape.getPosition().add(new Vector3D(1, 0, 0)));
+        }
+        Assertions.assertNotSame(hierarchy, scene.getBoundingVolumeHierarchy());
+    }
+
+    /**
+     * The testAxisAlignedRays method shoots rays that run parallel to two
+     * axes, with their origins exactly on the planes of the boxes, through a
+     * row of boxes of which one is flat. Every ray and every packet lane has
+     * to visit every box.
+     */
+    @Test
+    @DisplayName("Test that rays along the planes of the boxes visit them, alone and in packets")
+    void testAxisAlignedRays() {
+        double[] bounds = {
+                0, 0, 0, 1, 1, 1,
+                10, 0, 0, 11, 1, 1,
+                20, 0, 1, 21, 1, 1
+        };
+        BoundingVolumeHierarchy hierarchy = new BoundingVolumeHierarchy(bounds, 1);
+        Assertions.assertEquals(3, hierarchy.getLeafCount());
+        BoundingVolumeHierarchy.Stack stack = new BoundingVolumeHierarchy.Stack();
+        double[][] rays = {
+                {-1, 0, 1, 1, 0, 0},
+                {-1, 1, 1, 1, -0.0, -0.0},
+                {30, 0.5, 1, -1, 0, 0},
+                {30, 1, 0, -1, -0.0, 0}
+        };
+
+        RayPacket packet = new RayPacket(rays.length);
+        for (int i = 0; i < rays.length; i++) {
+            double[] r = rays[i];
+            packet.set(i, r[0], r[1], r[2], r[3], r[4], r[5]);
+            int[] visited = new int[1];
+            hierarchy.traverse(new Ray(new Vector3D(r[0], r[1], r[2]), new Vector3D(r[3], r[4], r[5])),
+                    (first, count, ray) -> {
+                        visited[0] += count;
+                        return false;
+                    }, stack);
+            Assertions.assertEquals(i < 3 ? 3 : 2, visited[0], "Ray " + i);
+        }
+
+        int[] lanes = new int[rays.length];
+        hierarchy.traverse(packet, (first, count, p, mask) -> {
+            for (int m = mask; m != 0; m &= m - 1) {
+                lanes[Integer.numberOfTrailingZeros(m)] += count;
+            }
+        }, stack);
+        for (int lane = 0; lane < rays.length; lane++) {
+            Assertions.assertEquals(lane < 3 ? 3 : 2, lanes[lane], "Lane " + lane);
+        }
+    }
+
+    private Vector3D randomVector(Random random, double size) {
+        return new Vector3D((random.nextDouble() * 2 - 1) * size,
+                (random.nextDouble() * 2 - 1) * size,
+                (random.nextDouble() * 2 - 1) * size);
+    }
+}
@@ -0,0 +1,97 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import renderer.Checkpoint;
+import renderer.Renderer;
+import renderer.Tile;
+import utilities.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * The CheckpointTest is a test class which stops a render halfway, cuts off
+ * the last tile of its checkpoint like a crash would, and checks that the
+ * resumed render only renders the missing tiles and ends up with the same
+ * image as a render without a checkpoint.
+ * @see renderer.Checkpoint
+ *
+ * @author Timothy
+ */
+class CheckpointTest {
+    private static final int WIDTH = 70;
+    private static final int HEIGHT = 50;
+    private static final int TILE_SIZE = 16;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * The testResume method renders half of the tiles with a checkpoint,
+     * with and without a float buffer, and resumes the render with a new
+     * image.
+     */
+    @Test
+    @DisplayName("Test that a resumed render only renders the missing tiles")
+    void testResume() throws IOException {
+        for (boolean highDynamicRange : new boolean[] {false, true}) {
+            Options options = new Options(WIDTH, HEIGHT);
+            options.setTileSize(TILE_SIZE);
+            options.setHighDynamicRange(highDynamicRange);
+            Renderer renderer = TestScenes.createRenderer(TestScenes.createScene(), options);
+            Image expected = new Image(WIDTH, HEIGHT, highDynamicRange);
+            renderer.renderImage(expected);
+
+            String filename = directory.resolve("render" + highDynamicRange + ".checkpoint").toString();
+            int tileCount;
+            try (Checkpoint checkpoint = Checkpoint.open(filename, new Image(WIDTH, HEIGHT, highDynamicRange),
+                    TILE_SIZE, 0)) {
+                Assertions.assertEquals(0, checkpoint.getRestoredTiles());
+                tileCount = checkpoint.getTileCount();
+            }
+            Image stopped = new Image(WIDTH, HEIGHT, highDynamicRange);
+            try (Checkpoint checkpoint = Checkpoint.open(filename, stopped, TILE_SIZE, 0)) {
+                List<Tile> tiles = checkpoint.getRemainingTiles();
+                for (int index = 0; index < tileCount / 2; index++) {
+                    renderer.renderTile(tiles.get(index), stopped);
+                    checkpoint.tileCompleted(tiles.get(index));
+                }
+            }
+            // A crash while the last tile was appended leaves part of it
+            long size = Files.size(Path.of(filename));
+            try (var channel = Files.newByteChannel(Path.of(filename), StandardOpenOption.WRITE)) {
+                channel.truncate(size - 5);
+            }
+
+            Image resumed = new Image(WIDTH, HEIGHT, highDynamicRange);
+            try (Checkpoint checkpoint = Checkpoint.open(filename, resumed, TILE_SIZE, 0)) {
+                Assertions.assertEquals(tileCount / 2 - 1, checkpoint.getRestoredTiles());
+                Assertions.assertEquals(tileCount - tileCount / 2 + 1, checkpoint.getRemainingTiles().size());
+                renderer.renderImage(resumed, checkpoint);
+            }
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    Assertions.assertEquals(expected.getRGB(x, y), resumed.getRGB(x, y),
+                            "Pixel " + x + ", " + y + " differs");
+                }
+            }
+            if (highDynamicRange) {
+                Assertions.assertArrayEquals(expected.getColors(), resumed.getColors());
+            }
+
+            try (Checkpoint checkpoint = Checkpoint.open(filename, new Image(WIDTH, HEIGHT, highDynamicRange),
+                    TILE_SIZE, 0)) {
+                Assertions.assertEquals(tileCount, checkpoint.getRestoredTiles());
+                Assertions.assertTrue(checkpoint.getRemainingTiles().isEmpty());
+            }
+            try (Checkpoint checkpoint = Checkpoint.open(filename, new Image(WIDTH, HEIGHT, highDynamicRange),
+                    TILE_SIZE * 2, 0)) {
+                Assertions.assertEquals(0, checkpoint.getRestoredTiles());
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import utilities.Color;
+import utilities.Image;
+import utilities.ImageEncoder;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The ImageEncoderTest is a test class which reads back the PNG, PPM and PFM
+ * files that an Image writes, and checks that the ImageEncoder writes a copy
+ * of the image and reports the files it couldn't write.
+ * @see utilities.ImageEncoder
+ * @see utilities.Image#write(String, int)
+ *
+ * @author Timothy
+ */
+class ImageEncoderTest {
+    private static final int WIDTH = 5;
+    private static final int HEIGHT = 3;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * The testFormats method writes an image in every format and asserts
+     * that the pixels and the headers of the files are right.
+     */
+    @Test
+    @DisplayName("Test that PNG, PPM and PFM files have the pixels of the image")
+    void testFormats() throws IOException {
+        Image image = createImage();
+        String png = directory.resolve("image.png").toString();
+        String ppm = directory.resolve("image.ppm").toString();
+        String pfm = directory.resolve("image.pfm").toString();
+        image.write(png, 0);
+        image.write(ppm, 9);
+        image.write(pfm, 9);
+
+        BufferedImage buffer = ImageIO.read(Path.of(png).toFile());
+        byte[] ppmBytes = Files.readAllBytes(Path.of(ppm));
+        String ppmHeader = "P6\n" + WIDTH + " " + HEIGHT + "\n255\n";
+        Assertions.assertEquals(ppmHeader, new String(ppmBytes, 0, ppmHeader.length(), StandardCharsets.US_ASCII));
+        byte[] pfmBytes = Files.readAllBytes(Path.of(pfm));
+        String pfmHeader = "PF\n" + WIDTH + " " + HEIGHT + "\n-1.0\n";
+        Assertions.assertEquals(pfmHeader, new String(pfmBytes, 0, pfmHeader.length(), StandardCharsets.US_ASCII));
+        ByteBuffer floats = ByteBuffer.wrap(pfmBytes, pfmHeader.length(), pfmBytes.length - pfmHeader.length())
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int rgb = image.getRGB(x, y);
+                Assertions.assertEquals(rgb, buffer.getRGB(x, y));
+                int offset = ppmHeader.length() + (y * WIDTH + x) * 3;
+                int ppmRgb = 0xFF000000 | (ppmBytes[offset] & 0xFF) << 16 | (ppmBytes[offset + 1] & 0xFF) << 8
+                        | ppmBytes[offset + 2] & 0xFF;
+                Assertions.assertEquals(rgb, ppmRgb);
+                // The rows of a PFM file go from the bottom to the top
+                int index = ((HEIGHT - 1 - y) * WIDTH + x) * 3 * Float.BYTES;
+                Assertions.assertEquals((rgb >> 16 & 0xFF) / 255F, floats.getFloat(floats.position() + index));
+            }
+        }
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> image.write(directory.resolve("image.jpg").toString()));
+    }
+
+    /**
+     * The testEncoder method submits an image and draws over it right away,
+     * which mustn't change the file, and asserts that a file in a directory
+     * that doesn't exist makes close throw an IOException.
+     */
+    @Test
+    @DisplayName("Test that the encoder writes a copy and reports failures")
+    void testEncoder() throws IOException {
+        Image image = createImage();
+        int expected = image.getRGB(2, 1);
+        String filename = directory.resolve("frame.ppm").toString();
+        try (ImageEncoder encoder = new ImageEncoder(1, 4)) {
+            encoder.submit(image, filename);
+            image.draw(2, 1, 0);
+        }
+
+        byte[] bytes = Files.readAllBytes(Path.of(filename));
+        int offset = ("P6\n" + WIDTH + " " + HEIGHT + "\n255\n").length() + (WIDTH + 2) * 3;
+        Assertions.assertEquals(expected, 0xFF000000 | (bytes[offset] & 0xFF) << 16
+                | (bytes[offset + 1] & 0xFF) << 8 | bytes[offset + 2] & 0xFF);
+
+        ImageEncoder failing = new ImageEncoder(2, 4);
+        failing.submit(image, directory.resolve("missing").resolve("frame.png").toString());
+        Assertions.assertThrows(IOException.class, failing::close);
+    }
+
+    private Image createImage() {
+        Image image = new Image(WIDTH, HEIGHT);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                image.draw(x, y, new Color(x / 4F, y / 2F, 0.5F));
+            }
+        }
+        return image;
+    }
+}
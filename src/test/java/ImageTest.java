@@ -0,0 +1,60 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import utilities.Color;
+import utilities.Image;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * The ImageTest is a test class which checks that the pixels of an Image end
+ * up in the right place of the BufferedImage and that the float buffer is
+ * tone mapped when the image is converted.
+ * @see utilities.Image
+ *
+ * @author Timothy
+ */
+class ImageTest {
+
+    /**
+     * The testBulkCopy method draws every pixel of an image that isn't square
+     * and asserts that the BufferedImage has the same pixels.
+     */
+    @Test
+    @DisplayName("Test that the pixels are copied to the BufferedImage")
+    void testBulkCopy() {
+        Image image = new Image(7, 3);
+        for (int y = 0; y < 3; y++) {
+            for (int x = 0; x < 7; x++) {
+                image.draw(x, y, x * 0x10 + y * 0x1000);
+            }
+        }
+
+        BufferedImage buffer = image.toBufferedImage();
+        for (int y = 0; y < 3; y++) {
+            for (int x = 0; x < 7; x++) {
+                Assertions.assertEquals(image.getRGB(x, y), buffer.getRGB(x, y));
+            }
+        }
+    }
+
+    /**
+     * The testToneMapping method draws a color that is too bright on an
+     * image with and without a float buffer and asserts that only the float
+     * buffer clamps it to white instead of wrapping around.
+     */
+    @Test
+    @DisplayName("Test that the float buffer is clamped when it is tone mapped")
+    void testToneMapping() {
+        Color bright = new Color(1.5F, 0.5F, -0.2F);
+        Image image = new Image(2, 2);
+        Image highDynamicRange = new Image(2, 2, true);
+        image.draw(1, 1, bright);
+        highDynamicRange.draw(1, 1, bright);
+
+        Assertions.assertEquals(bright.toInteger(), image.getRGB(1, 1));
+        Assertions.assertEquals(0xFFFF8000, highDynamicRange.getRGB(1, 1));
+        Assertions.assertEquals(0xFFFF8000, highDynamicRange.toBufferedImage().getRGB(1, 1));
+        Assertions.assertEquals(0xFF000000, highDynamicRange.getRGB(0, 0));
+    }
+}
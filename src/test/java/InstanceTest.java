@@ -0,0 +1,153 @@
+import geometries.Group;
+import geometries.Instance;
+import geometries.Shape;
+import geometries.SphereSet;
+import geometries.TriangleMesh;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import utilities.BoundingBox;
+import utilities.Color;
+import utilities.Ray;
+import utilities.RayHit;
+import utilities.Transform;
+import utilities.Vector3D;
+
+import java.util.Random;
+
+/**
+ * The InstanceTest is a test class which places shared geometries in a
+ * scene with transforms, and checks that the hits, normals and colors are
+ * the same as those of copies of the geometries whose coordinates were
+ * transformed.
+ * @see geometries.Instance
+ * @see geometries.Group
+ * @see utilities.Transform
+ *
+ * @author Timothy
+ */
+class InstanceTest {
+    private static final int RAYS = 2000;
+
+    /**
+     * The testTransform method checks that a combined transform and its
+     * inverse undo each other and that a transformed box contains the
+     * transformed corners.
+     */
+    @Test
+    @DisplayName("Test that transforms combine, invert and transform boxes")
+    void testTransform() {
+        Transform transform = Transform.scaling(2, 0.5, 3)
+                .then(Transform.rotation(new Vector3D(1, 2, 3), 37))
+                .then(Transform.translation(4, -5, 6));
+        Transform matrix = Transform.of(2, 0.1, 0, 1, 0, 1, 0.3, 2, -0.2, 0, 1.5, 3);
+        Vector3D point = new Vector3D(0.3, -1.7, 2.2);
+        for (Transform current : new Transform[] {transform, matrix}) {
+            Vector3D back = current.inverse().transformPoint(current.transformPoint(point));
+            Assertions.assertEquals(point.x, back.x, 1e-12);
+            Assertions.assertEquals(point.y, back.y, 1e-12);
+            Assertions.assertEquals(point.z, back.z, 1e-12);
+        }
+        Vector3D moved = transform.transformPoint(new Vector3D(0, 0, 0));
+        Assertions.assertEquals(4, moved.x, 1e-12);
+        Assertions.assertEquals(-5, moved.y, 1e-12);
+        Assertions.assertEquals(6, moved.z, 1e-12);
+
+        BoundingBox box = transform.transformBox(new BoundingBox(new Vector3D(-1, -2, -3), new Vector3D(1, 2, 3)));
+        for (int corner = 0; corner < 8; corner++) {
+            Vector3D transformed = transform.transformPoint(new Vector3D(
+                    (corner & 1) == 0 ? -1 : 1, (corner & 2) == 0 ? -2 : 2, (corner & 4) == 0 ? -3 : 3));
+            Assertions.assertTrue(transformed.x >= box.getMin().x - 1e-12 && transformed.x <= box.getMax().x + 1e-12);
+            Assertions.assertTrue(transformed.y >= box.getMin().y - 1e-12 && transformed.y <= box.getMax().y + 1e-12);
+            Assertions.assertTrue(transformed.z >= box.getMin().z - 1e-12 && transformed.z <= box.getMax().z + 1e-12);
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Transform.of(1, 2, 3, 0, 2, 4, 6, 0, 0, 0, 1, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Transform.scaling(0));
+    }
+
+    /**
+     * The testInstances method compares a tree of a mesh and a sphere set,
+     * placed with nested instances and a group, with a copy that was built
+     * with the transformed coordinates. The mesh is scaled unevenly, so its
+     * normals only match if they are transformed correctly.
+     */
+    @Test
+    @DisplayName("Test that instances hit like transformed copies of their geometry")
+    void testInstances() {
+        Random random = new Random(21);
+        Transform stretch = Transform.scaling(1, 3, 0.5).then(Transform.rotation(new Vector3D(0, 1, 0), 30));
+        Transform place = Transform.scaling(1.5).then(Transform.rotation(new Vector3D(1, 0, 1), 70))
+                .then(Transform.translation(2, -1, 3));
+        Transform combined = stretch.then(place);
+
+        TriangleMesh mesh = new TriangleMesh(new Color(1, 0, 0), 0);
+        TriangleMesh meshCopy = new TriangleMesh(new Color(1, 0, 0), 0);
+        for (int i = 0; i < 60; i++) {
+            Vector3D vertex = new Vector3D(random.nextDouble() * 4 - 2, random.nextDouble() * 4 - 2,
+                    random.nextDouble() * 4 - 2);
+            Vector3D transformed = combined.transformPoint(vertex);
+            mesh.addVertex(vertex.x, vertex.y, vertex.z);
+            meshCopy.addVertex(transformed.x, transformed.y, transformed.z);
+        }
+        for (int i = 0; i < 20; i++) {
+            mesh.addTriangle(i * 3, i * 3 + 1, i * 3 + 2);
+            meshCopy.addTriangle(i * 3, i * 3 + 1, i * 3 + 2);
+        }
+
+        SphereSet spheres = new SphereSet();
+        SphereSet spheresCopy = new SphereSet();
+        spheres.addMaterial(new Color(0, 1, 0), 0.5F);
+        spheresCopy.addMaterial(new Color(0, 1, 0), 0.5F);
+        for (int i = 0; i < 20; i++) {
+            Vector3D center = new Vector3D(random.nextDouble() * 6 - 3, random.nextDouble() * 6 - 3,
+                    random.nextDouble() * 6 - 3);
+            double radius = 0.2 + random.nextDouble() * 0.5;
+            spheres.add(center, radius, 0);
+            spheresCopy.add(place.transformPoint(center), radius * 1.5, 0);
+        }
+
+        Group tree = new Group();
+        tree.add(new Instance(mesh, stretch));
+        tree.add(spheres);
+        Shape instance = new Instance(tree, place);
+        Group copy = new Group();
+        copy.add(meshCopy);
+        copy.add(spheresCopy);
+
+        int hits = 0;
+        for (int i = 0; i < RAYS; i++) {
+            Vector3D origin = new Vector3D(random.nextDouble() * 20 - 10, random.nextDouble() * 20 - 10, 30);
+            Vector3D target = new Vector3D(random.nextDouble() * 8 - 2, random.nextDouble() * 8 - 5,
+                    random.nextDouble() * 8 - 1);
+            Vector3D direction = target.subtract(origin).normalize();
+
+            RayHit expected = copy.intersects(new Ray(origin, direction));
+            RayHit actual = instance.intersects(new Ray(origin, direction));
+            if (expected == null) {
+                Assertions.assertNull(actual);
+                continue;
+            }
+            hits++;
+            Assertions.assertNotNull(actual);
+            Assertions.assertEquals(expected.getT(), actual.getT(), 1e-9);
+            Assertions.assertSame(expected.getShape() == meshCopy ? mesh : spheres, actual.getShape());
+            Color expectedColor = expected.getShape().getColor(expected.getPrimitive());
+            Color actualColor = actual.getShape().getColor(actual.getPrimitive());
+            Assertions.assertEquals(expectedColor.getGreen(), actualColor.getGreen());
+            Vector3D expectedNormal = expected.getNormal();
+            Vector3D actualNormal = actual.getNormal();
+            Assertions.assertEquals(expectedNormal.x, actualNormal.x, 1e-6);
+            Assertions.assertEquals(expectedNormal.y, actualNormal.y, 1e-6);
+            Assertions.assertEquals(expectedNormal.z, actualNormal.z, 1e-6);
+            Vector3D expectedPoint = expected.getHitPoint();
+            Vector3D actualPoint = actual.getHitPoint();
+            Assertions.assertEquals(expectedPoint.x, actualPoint.x, 1e-9);
+            Assertions.assertEquals(expectedPoint.y, actualPoint.y, 1e-9);
+            Assertions.assertEquals(expectedPoint.z, actualPoint.z, 1e-9);
+
+            Assertions.assertTrue(instance.occludes(new Ray(origin, direction), expected.getT() + 1e-6));
+            Assertions.assertFalse(instance.occludes(new Ray(origin, direction), expected.getT() - 1e-6));
+        }
+        Assertions.assertTrue(hits > RAYS / 20, "Only " + hits + " rays hit the tree");
+    }
+}
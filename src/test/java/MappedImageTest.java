@@ -0,0 +1,63 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import renderer.Renderer;
+import utilities.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The MappedImageTest is a test class which renders a scene into memory
+ * mapped files that are split into many segments, and checks that they are
+ * the same as the files an Image with the same dynamic range writes.
+ * @see utilities.MappedImage
+ *
+ * @author Timothy
+ */
+class MappedImageTest {
+    private static final int WIDTH = 48;
+    private static final int HEIGHT = 37;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * The testMappedFiles method renders the scene into a PPM and a PFM file,
+     * with and without a float buffer, and compares them byte for byte with
+     * the files of an Image.
+     */
+    @Test
+    @DisplayName("Test that memory mapped files are the same as written files")
+    void testMappedFiles() throws IOException {
+        for (boolean highDynamicRange : new boolean[] {false, true}) {
+            for (ImageFormat format : new ImageFormat[] {ImageFormat.PPM, ImageFormat.PFM}) {
+                Options options = new Options(WIDTH, HEIGHT);
+                options.setHighDynamicRange(highDynamicRange);
+                Renderer renderer = TestScenes.createRenderer(TestScenes.createScene(), options);
+
+                Image image = new Image(WIDTH, HEIGHT, highDynamicRange);
+                renderer.renderImage(image);
+                Path expected = directory.resolve("expected" + format.getExtension());
+                image.write(expected.toString());
+
+                Path actual = directory.resolve("actual" + format.getExtension());
+                // Seven rows per segment, so the last segment is shorter
+                int segmentSize = 7 * WIDTH * format.getBytesPerPixel();
+                try (MappedImage mappedImage = new MappedImage(actual.toString(), WIDTH, HEIGHT,
+                        highDynamicRange, segmentSize)) {
+                    renderer.renderImage(mappedImage);
+                    Assertions.assertEquals(image.getRGB(WIDTH / 2, HEIGHT / 3),
+                            mappedImage.getRGB(WIDTH / 2, HEIGHT / 3));
+                }
+                Assertions.assertArrayEquals(Files.readAllBytes(expected), Files.readAllBytes(actual),
+                        format + (highDynamicRange ? " with" : " without") + " a float buffer differs");
+            }
+        }
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new MappedImage(directory.resolve("image.png").toString(), WIDTH, HEIGHT, false));
+    }
+}
@@ -0,0 +1,72 @@
+import geometries.Plane;
+import geometries.Shape;
+import geometries.Sphere;
+import geometries.SphereSet;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import renderer.Scene;
+import utilities.*;
+
+import java.util.Random;
+
+/**
+ * The OcclusionTest is a test class which checks that the occlusion queries
+ * of the geometries and the scene agree with looking for the closest hit.
+ * @see geometries.Shape#occludes(Ray, double)
+ * @see renderer.Scene#isOccluded(Ray, double)
+ *
+ * @author Timothy
+ */
+class OcclusionTest {
+    private static final int RAYS = 5000;
+
+    /**
+     * The testOcclusion method shoots random rays with a random maximum
+     * distance through a scene with spheres, a sphere set and a plane, and
+     * asserts that every geometry and the scene as a whole only report the
+     * ray as blocked when the closest hit lies before the maximum distance.
+     */
+    @Test
+    @DisplayName("Test that occlusion queries agree with the closest hit")
+    void testOcclusion() {
+        Random random = new Random(11);
+        Scene scene = new Scene();
+        SphereSet set = new SphereSet();
+        int material = set.addMaterial(new Color(1F, 1F, 1F), 0);
+        for (int i = 0; i < 200; i++) {
+            scene.add(new Sphere(randomVector(random, 50), 0.5 + random.nextDouble() * 3,
+                    new Color(1F, 1F, 1F), 0));
+            set.add(randomVector(random, 50), 0.5 + random.nextDouble() * 3, material);
+        }
+        scene.add(set);
+        scene.add(new Plane(new Vector3D(0, -40, 0), new Vector3D(0, 1, 0), new Color(1F, 0F, 0F), 0));
+
+        int blocked = 0;
+        for (int i = 0; i < RAYS; i++) {
+            Ray ray = new Ray(randomVector(random, 60), randomVector(random, 1));
+            double maxT = random.nextDouble() * 100;
+
+            boolean expected = false;
+            for (Shape shape : scene.getGeometries()) {
+                RayHit hit = shape.intersects(ray);
+                boolean hitBefore = hit != null && hit.getT() < maxT;
+                Assertions.assertEquals(hitBefore, shape.occludes(ray, maxT), "Ray " + i + " and " + shape);
+                expected |= hitBefore;
+            }
+
+            Assertions.assertEquals(expected, scene.isOccluded(ray, maxT), "Ray " + i);
+            Assertions.assertEquals(Ray.T_MAX, ray.getT());
+            if (expected) {
+                blocked++;
+            }
+        }
+        Assertions.assertTrue(blocked > 0 && blocked < RAYS);
+    }
+
+    private Vector3D randomVector(Random random, double size) {
+        return new Vector3D((random.nextDouble() * 2 - 1) * size,
+                (random.nextDouble() * 2 - 1) * size,
+                (random.nextDouble() * 2 - 1) * size);
+    }
+}
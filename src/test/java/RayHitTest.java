@@ -0,0 +1,96 @@
+import geometries.Shape;
+import geometries.Sphere;
+import geometries.SphereSet;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import utilities.*;
+
+import java.util.Random;
+
+/**
+ * The RayHitTest is a test class which checks that a single RayHit object
+ * reused by the intersect method ends up with the closest hit, and that the
+ * hit point and normal it calculates afterwards are the same as the ones the
+ * intersects method returns. It also checks the t value that the RayHit
+ * constructor with only a hit point derives from it.
+ * @see utilities.RayHit
+ * @see geometries.Shape#intersect(Ray, RayHit)
+ *
+ * @author Timothy
+ */
+class RayHitTest {
+    private static final int RAYS = 5000;
+
+    /**
+     * The testReusedHit method shoots random rays, some of which start inside
+     * a sphere, through spheres and a sphere set. It checks the reused RayHit
+     * object against the closest of the hits returned by the intersects
+     * method, including the hit point and the normalized normal, and the t
+     * value of a RayHit object created from that hit point.
+     */
+    @Test
+    @DisplayName("Test that a reused RayHit object resolves the closest hit")
+    void testReusedHit() {
+        Random random = new Random(5);
+        SphereSet set = new SphereSet();
+        int material = set.addMaterial(new Color(1F, 1F, 1F), 0);
+        Shape[] shapes = new Shape[21];
+        for (int i = 0; i < 20; i++) {
+            shapes[i] = new Sphere(randomVector(random, 20), 1 + random.nextDouble() * 5,
+                    new Color(1F, 1F, 1F), 0);
+            set.add(randomVector(random, 20), 1 + random.nextDouble() * 5, material);
+        }
+        shapes[20] = set;
+
+        RayHit hit = new RayHit();
+        int hits = 0;
+        for (int i = 0; i < RAYS; i++) {
+            Vector3D origin = randomVector(random, 25);
+            Vector3D direction = randomVector(random, 1).normalize();
+
+            RayHit expected = null;
+            for (Shape shape : shapes) {
+                RayHit h = shape.intersects(new Ray(origin, direction));
+                if (h != null && (expected == null || h.getT() < expected.getT())) {
+                    expected = h;
+                }
+            }
+
+            Ray ray = new Ray(origin, direction);
+            boolean found = false;
+            for (Shape shape : shapes) {
+                found |= shape.intersect(ray, hit);
+            }
+
+            Assertions.assertEquals(expected != null, found, "Ray " + i);
+            if (found) {
+                hits++;
+                Assertions.assertEquals(expected.getT(), hit.getT(), "Ray " + i);
+                Assertions.assertEquals(expected.getShape(), hit.getShape(), "Ray " + i);
+                Assertions.assertEquals(expected.getPrimitive(), hit.getPrimitive(), "Ray " + i);
+                Assertions.assertEquals(hit.getT(), ray.getT(), "Ray " + i);
+
+                Vector3D normal = hit.getNormal();
+                Vector3D hitPoint = hit.getHitPoint();
+                Assertions.assertEquals(1, normal.length(), 1e-9, "Ray " + i);
+                Assertions.assertEquals(expected.getNormal().x, normal.x, 1e-9, "Ray " + i);
+                Assertions.assertEquals(expected.getNormal().y, normal.y, 1e-9, "Ray " + i);
+                Assertions.assertEquals(expected.getNormal().z, normal.z, 1e-9, "Ray " + i);
+                Assertions.assertEquals(expected.getHitPoint().x, hitPoint.x, 1e-9, "Ray " + i);
+                Assertions.assertEquals(expected.getHitPoint().y, hitPoint.y, 1e-9, "Ray " + i);
+                Assertions.assertEquals(expected.getHitPoint().z, hitPoint.z, 1e-9, "Ray " + i);
+
+                RayHit derived = new RayHit(new Ray(origin, direction), hit.getShape(), normal, hitPoint);
+                Assertions.assertEquals(hit.getT(), derived.getT(), 1e-9, "Ray " + i);
+            }
+        }
+        Assertions.assertTrue(hits > 0 && hits < RAYS);
+    }
+
+    private Vector3D randomVector(Random random, double size) {
+        return new Vector3D((random.nextDouble() * 2 - 1) * size,
+                (random.nextDouble() * 2 - 1) * size,
+                (random.nextDouble() * 2 - 1) * size);
+    }
+}
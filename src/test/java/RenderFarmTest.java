@@ -0,0 +1,128 @@
+import farm.Coordinator;
+import farm.Worker;
+import geometries.SphereSet;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import renderer.ExecutionMode;
+import renderer.Renderer;
+import renderer.Scene;
+import utilities.*;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.Socket;
+
+/**
+ * The RenderFarmTest is a test class which checks that an image rendered by
+ * the workers of a render farm is the same as one rendered by a single
+ * Renderer, also when a worker dies while it has a tile.
+ * @see farm.Coordinator
+ * @see farm.Worker
+ *
+ * @author Timothy
+ */
+class RenderFarmTest {
+    private static final int WIDTH = 80;
+    private static final int HEIGHT = 60;
+
+    /**
+     * The testWorkers method renders the image with two workers that run on
+     * threads of the test and compares it with the local render.
+     */
+    @Test
+    @DisplayName("Test that the workers of a render farm render the same image")
+    void testWorkers() throws Exception {
+        Options options = createOptions();
+        Image actual = new Image(WIDTH, HEIGHT);
+        try (Coordinator coordinator = new Coordinator(TestScenes.createCamera(options), createScene(), options, 0)) {
+            startWorker(coordinator.getPort());
+            startWorker(coordinator.getPort());
+            coordinator.render(actual);
+        }
+
+        assertImagesEqual(renderLocally(options), actual);
+    }
+
+    /**
+     * The testDeadWorker method connects a worker that takes a tile and
+     * disconnects without rendering it, after which a real worker has to
+     * render that tile as well.
+     */
+    @Test
+    @DisplayName("Test that the tiles of a dead worker are rendered by another worker")
+    void testDeadWorker() throws Exception {
+        Options options = createOptions();
+        Image actual = new Image(WIDTH, HEIGHT);
+        try (Coordinator coordinator = new Coordinator(TestScenes.createCamera(options), createScene(), options, 0)) {
+            Thread coordinatorThread = new Thread(() -> coordinator.render(actual));
+            coordinatorThread.start();
+
+            try (Socket connection = new Socket("localhost", coordinator.getPort())) {
+                ObjectOutputStream output = new ObjectOutputStream(connection.getOutputStream());
+                output.flush();
+                ObjectInputStream input = new ObjectInputStream(connection.getInputStream());
+                input.readObject();
+                input.readObject();
+                input.readObject();
+                output.writeInt(1);
+                output.flush();
+                Assertions.assertTrue(input.readInt() >= 0);
+                input.readObject();
+            }
+
+            startWorker(coordinator.getPort());
+            coordinatorThread.join(60_000);
+            Assertions.assertFalse(coordinatorThread.isAlive());
+        }
+
+        assertImagesEqual(renderLocally(options), actual);
+    }
+
+    private void startWorker(int port) {
+        Thread thread = new Thread(() -> {
+            try {
+                new Worker("localhost", port).run();
+            } catch (IOException e) {
+                System.out.println(e.getMessage());
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private Image renderLocally(Options options) {
+        Image image = new Image(WIDTH, HEIGHT);
+        new Renderer(TestScenes.createCamera(options), createScene(), options).renderImage(image);
+        return image;
+    }
+
+    private void assertImagesEqual(Image expected, Image actual) {
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                Assertions.assertEquals(expected.getRGB(x, y), actual.getRGB(x, y),
+                        "Pixel " + x + ", " + y + " differs");
+            }
+        }
+    }
+
+    private Options createOptions() {
+        Options options = new Options(WIDTH, HEIGHT);
+        options.setExecutionMode(ExecutionMode.FIXED_POOL);
+        options.setThreads(2);
+        options.setTileSize(16);
+        return options;
+    }
+
+    private Scene createScene() {
+        Scene scene = TestScenes.createScene();
+        SphereSet set = new SphereSet();
+        int material = set.addMaterial(new Color(0F, 0.5F, 0.5F), 0.3F);
+        for (int i = 0; i < 20; i++) {
+            set.add(new Vector3D(i * 3 - 30, 2, -10), 1, material);
+        }
+        scene.add(set);
+        return scene;
+    }
+}
@@ -0,0 +1,450 @@
+import geometries.Sphere;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import renderer.BudgetReport;
+import renderer.ExecutionMode;
+import renderer.Heatmap;
+import renderer.RenderMetrics;
+import renderer.Renderer;
+import renderer.Scene;
+import renderer.Tile;
+import renderer.TileOrder;
+import utilities.*;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The RendererTest is a test class which checks that rendering the tiles of
+ * an image on multiple threads, with ray packets or in progressive passes,
+ * gives the same result as rendering serially one ray at a time, and that
+ * adaptive sampling adds samples to some pixels only. The tiles can be
+ * rendered in any order.
+ * @see renderer.Renderer
+ * @see renderer.ExecutionMode
+ * @see renderer.TileOrder
+ * @see renderer.RenderMetrics
+ * @see renderer.Heatmap
+ * @see renderer.BudgetReport
+ *
+ * @author Timothy
+ */
+class RendererTest {
+    private static final int SIZE = 96;
+
+    /**
+     * The testExecutionModes method renders the same scene with every
+     * execution mode and asserts that all the pixels are equal to the ones
+     * rendered serially.
+     */
+    @Test
+    @DisplayName("Test that every execution mode renders the same image")
+    void testExecutionModes() {
+        Image expected = render(ExecutionMode.SERIAL);
+
+        for (ExecutionMode mode : ExecutionMode.values()) {
+            Image actual = render(mode);
+            for (int y = 0; y < SIZE; y++) {
+                for (int x = 0; x < SIZE; x++) {
+                    Assertions.assertEquals(expected.getRGB(x, y), actual.getRGB(x, y),
+                            mode + " differs at pixel " + x + ", " + y);
+                }
+            }
+        }
+    }
+
+    /**
+     * The testReusedThreads method renders several images with the same
+     * Renderer, which keeps its threads between the renders, starts new ones
+     * when the execution mode changes and after it was closed, and asserts
+     * that every image is equal to the one rendered serially.
+     */
+    @Test
+    @DisplayName("Test that a Renderer renders the same image with the threads it keeps")
+    void testReusedThreads() {
+        Image expected = render(ExecutionMode.SERIAL);
+
+        Options options = createOptions(ExecutionMode.FIXED_POOL, 1, 1, 1);
+        try (Renderer renderer = TestScenes.createRenderer(TestScenes.createScene(), options)) {
+            for (int render = 0; render < 4; render++) {
+                if (render == 2) {
+                    options.setExecutionMode(ExecutionMode.FORK_JOIN);
+                } else if (render == 3) {
+                    renderer.close();
+                }
+                Image actual = new Image(SIZE, SIZE);
+                renderer.renderImage(actual);
+                for (int y = 0; y < SIZE; y++) {
+                    for (int x = 0; x < SIZE; x++) {
+                        Assertions.assertEquals(expected.getRGB(x, y), actual.getRGB(x, y),
+                                "Render " + render + " differs at pixel " + x + ", " + y);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The testPackets method renders the same scene with ray packets of
+     * several sizes, with a tile size that isn't a multiple of every packet
+     * size, and asserts that all the pixels are equal to the ones traced one
+     * ray at a time.
+     */
+    @Test
+    @DisplayName("Test that tracing ray packets renders the same image")
+    void testPackets() {
+        Image expected = render(ExecutionMode.SERIAL);
+
+        for (int packetSize = 2; packetSize <= 5; packetSize++) {
+            Image actual = render(ExecutionMode.FORK_JOIN, packetSize);
+            for (int y = 0; y < SIZE; y++) {
+                for (int x = 0; x < SIZE; x++) {
+                    Assertions.assertEquals(expected.getRGB(x, y), actual.getRGB(x, y),
+                            "Packet size " + packetSize + " differs at pixel " + x + ", " + y);
+                }
+            }
+        }
+    }
+
+    /**
+     * The testTileBuffer method renders every tile into a buffer of its own
+     * size, one ray at a time and with ray packets, and asserts that the
+     * pixels of the buffers are equal to those of the whole image.
+     */
+    @Test
+    @DisplayName("Test that a tile rendered into its own buffer matches the whole image")
+    void testTileBuffer() {
+        Image expected = render(ExecutionMode.SERIAL);
+
+        for (int packetSize : new int[] {1, 4}) {
+            Renderer renderer = createRenderer(ExecutionMode.SERIAL, packetSize);
+            for (Tile tile : Tile.split(SIZE, SIZE, 20)) {
+                Image buffer = new Image(tile.getWidth(), tile.getHeight());
+                renderer.renderTile(tile, SIZE, SIZE, buffer);
+                for (int y = 0; y < tile.getHeight(); y++) {
+                    for (int x = 0; x < tile.getWidth(); x++) {
+                        Assertions.assertEquals(expected.getRGB(tile.getX() + x, tile.getY() + y),
+                                buffer.getRGB(x, y), "Packet size " + packetSize + " differs at pixel "
+                                        + (tile.getX() + x) + ", " + (tile.getY() + y));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The testProgressive method renders the scene in progressive passes and
+     * asserts that every pass is passed on to the listener and that the last
+     * pass leaves the same pixels as rendering the image at once.
+     */
+    @Test
+    @DisplayName("Test that a progressive render ends with the same image")
+    void testProgressive() {
+        Image expected = render(ExecutionMode.SERIAL);
+        Renderer renderer = createRenderer(ExecutionMode.FORK_JOIN, 1);
+        Image actual = new Image(SIZE, SIZE);
+        List<Integer> passes = new ArrayList<>();
+        renderer.addProgressListener((image, blockSize) -> passes.add(blockSize));
+
+        Assertions.assertEquals(1, renderer.renderProgressive(actual));
+        Assertions.assertEquals(List.of(8, 4, 2, 1), passes);
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                Assertions.assertEquals(expected.getRGB(x, y), actual.getRGB(x, y),
+                        "Progressive render differs at pixel " + x + ", " + y);
+            }
+        }
+    }
+
+    /**
+     * The testStop method stops a progressive render from a listener after
+     * the first pass and asserts that no further pass is rendered.
+     */
+    @Test
+    @DisplayName("Test that a progressive render can be stopped after a pass")
+    void testStop() {
+        Renderer renderer = createRenderer(ExecutionMode.SERIAL, 1);
+        List<Integer> passes = new ArrayList<>();
+        renderer.addProgressListener((image, blockSize) -> {
+            passes.add(blockSize);
+            renderer.requestStop();
+        });
+
+        Assertions.assertEquals(8, renderer.renderProgressive(new Image(SIZE, SIZE)));
+        Assertions.assertEquals(List.of(8), passes);
+    }
+
+    /**
+     * The testAdaptiveSampling method renders the scene with 4 to 16 samples
+     * per pixel and asserts that the amount of samples lies in between, so
+     * only some pixels got extra samples, and that rendering on multiple
+     * threads gives the same image because the samples are seeded per pixel.
+     */
+    @Test
+    @DisplayName("Test that adaptive sampling only adds samples where needed")
+    void testAdaptiveSampling() {
+        Renderer serial = createRenderer(ExecutionMode.SERIAL, 1, 4, 16);
+        Renderer parallel = createRenderer(ExecutionMode.FORK_JOIN, 1, 4, 16);
+        Image expected = new Image(SIZE, SIZE);
+        Image actual = new Image(SIZE, SIZE);
+        serial.renderImage(expected);
+        parallel.renderImage(actual);
+
+        long samples = serial.getSampleCount();
+        Assertions.assertTrue(samples > 4L * SIZE * SIZE, "No pixel got extra samples");
+        Assertions.assertTrue(samples < 16L * SIZE * SIZE, "Every pixel got the maximum samples");
+        Assertions.assertEquals(samples, parallel.getSampleCount());
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                Assertions.assertEquals(expected.getRGB(x, y), actual.getRGB(x, y),
+                        "Sampled render differs at pixel " + x + ", " + y);
+            }
+        }
+    }
+
+    /**
+     * The testShadowCache method renders a scene with many spheres that
+     * block the lights and asserts that the shadow cache answers some of the
+     * shadow rays, but not all of them.
+     */
+    @Test
+    @DisplayName("Test that the shadow cache answers shadow rays")
+    void testShadowCache() {
+        Random random = new Random(12);
+        Scene scene = TestScenes.createScene();
+        for (int i = 0; i < 300; i++) {
+            scene.add(new Sphere(new Vector3D(random.nextDouble() * 40 - 20, random.nextDouble() * 10,
+                    random.nextDouble() * 40 - 20), 0.5 + random.nextDouble(), new Color(1F, 1F, 1F), 0));
+        }
+        Renderer renderer = createRenderer(scene, ExecutionMode.SERIAL, 1, 1, 1);
+        renderer.renderImage(new Image(SIZE, SIZE));
+
+        long hits = renderer.getShadowCacheHits();
+        long misses = renderer.getShadowCacheMisses();
+        Assertions.assertTrue(hits > 0, "The cache never blocked a shadow ray");
+        Assertions.assertTrue(misses > 0, "Every shadow ray was blocked by the cache");
+    }
+
+    /**
+     * The testMetrics method renders the scene serially and with ray packets
+     * on multiple threads, and asserts that both count the same rays, that
+     * the depth histogram adds up to the primary and reflection rays, and
+     * that the counters can be read through JMX. The cost order traces a
+     * pre-pass, unless a heatmap already recorded the costs.
+     */
+    @Test
+    @DisplayName("Test that the render metrics count the rays and tiles")
+    void testMetrics() throws Exception {
+        Options serialOptions = createOptions(ExecutionMode.SERIAL, 1, 1, 1);
+        Options packetOptions = createOptions(ExecutionMode.FORK_JOIN, 4, 1, 1);
+        serialOptions.setMetrics(true);
+        packetOptions.setMetrics(true);
+        Renderer serial = TestScenes.createRenderer(TestScenes.createScene(), serialOptions);
+        Renderer packets = TestScenes.createRenderer(TestScenes.createScene(), packetOptions);
+        serial.renderImage(new Image(SIZE, SIZE));
+        packets.renderImage(new Image(SIZE, SIZE));
+
+        RenderMetrics metrics = serial.getMetrics();
+        long[] histogram = metrics.getDepthHistogram();
+        Assertions.assertEquals((long) SIZE * SIZE, metrics.getPrimaryRays());
+        Assertions.assertEquals(metrics.getPrimaryRays(), histogram[0]);
+        Assertions.assertEquals(metrics.getReflectionRays(), Arrays.stream(histogram).sum() - histogram[0]);
+        Assertions.assertTrue(metrics.getReflectionRays() > 0, "No ray was reflected");
+        Assertions.assertTrue(metrics.getShadowRays() > 0, "No shadow ray was traced");
+        Assertions.assertEquals((SIZE / 16) * (SIZE / 16), metrics.getTiles());
+        Assertions.assertTrue(metrics.getMaxTileTime() > 0 && metrics.getMaxTileTime() <= metrics.getTileTime());
+        Assertions.assertTrue(metrics.getIntersectionTests().get("Plane") >= SIZE * SIZE);
+        Assertions.assertTrue(metrics.getIntersectionTests().get("Sphere") > 0);
+        Assertions.assertTrue(metrics.toJson().contains("\"primaryRays\": " + SIZE * SIZE));
+
+        RenderMetrics packetMetrics = packets.getMetrics();
+        Assertions.assertEquals(metrics.getPrimaryRays(), packetMetrics.getPrimaryRays());
+        Assertions.assertEquals(metrics.getReflectionRays(), packetMetrics.getReflectionRays());
+        Assertions.assertEquals(metrics.getShadowRays(), packetMetrics.getShadowRays());
+        Assertions.assertTrue(packetMetrics.getTiles() >= metrics.getTiles());
+
+        Assertions.assertTrue(metrics.register());
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(RenderMetrics.OBJECT_NAME);
+        Assertions.assertEquals(metrics.getPrimaryRays(), server.getAttribute(name, "PrimaryRays"));
+        server.invoke(name, "reset", null, null);
+        Assertions.assertEquals(0L, metrics.getPrimaryRays());
+        server.unregisterMBean(name);
+
+        // The pre-pass of the cost order traces 2x2 pixels of every tile
+        Options costOptions = createOptions(ExecutionMode.SERIAL, 1, 1, 1);
+        costOptions.setMetrics(true);
+        costOptions.setTileOrder(TileOrder.COST);
+        Renderer cost = TestScenes.createRenderer(TestScenes.createScene(), costOptions);
+        cost.renderImage(new Image(SIZE, SIZE));
+        Assertions.assertEquals((long) SIZE * SIZE + 4 * (SIZE / 16) * (SIZE / 16), cost.getMetrics().getPrimaryRays());
+
+        // The costs of a recorded heatmap replace the pre-pass
+        Renderer recorded = TestScenes.createRenderer(TestScenes.createScene(), costOptions);
+        Heatmap heatmap = new Heatmap(SIZE, SIZE);
+        heatmap.record(SIZE / 2, SIZE / 2, 1000);
+        recorded.setHeatmap(heatmap);
+        recorded.renderImage(new Image(SIZE, SIZE));
+        Assertions.assertEquals((long) SIZE * SIZE, recorded.getMetrics().getPrimaryRays());
+
+        Assertions.assertNull(createRenderer(ExecutionMode.SERIAL, 1).getMetrics());
+    }
+
+    /**
+     * The testHeatmap method records the time of every pixel, one ray at a
+     * time and with ray packets, and asserts that the costs of the tiles add
+     * up to those of their pixels and that a PFM file gets a float per
+     * color of every pixel.
+     */
+    @Test
+    @DisplayName("Test that a heatmap records the time spent on every pixel")
+    void testHeatmap(@TempDir Path directory) throws Exception {
+        for (int packetSize : new int[] {1, 4}) {
+            Renderer renderer = createRenderer(ExecutionMode.FORK_JOIN, packetSize);
+            Heatmap heatmap = new Heatmap(SIZE, SIZE);
+            renderer.setHeatmap(heatmap);
+            renderer.renderImage(new Image(SIZE, SIZE));
+
+            double total = 0;
+            for (int y = 0; y < SIZE; y++) {
+                for (int x = 0; x < SIZE; x++) {
+                    Assertions.assertTrue(heatmap.getCost(x, y) >= 0);
+                    total += heatmap.getCost(x, y);
+                }
+            }
+            double tiles = 0;
+            for (Tile tile : Tile.split(SIZE, SIZE, 16)) {
+                tiles += heatmap.getCost(tile);
+            }
+            Assertions.assertTrue(total > 0, "No time was recorded with packet size " + packetSize);
+            Assertions.assertEquals(total, tiles, total * 1e-9);
+        }
+
+        Renderer renderer = createRenderer(ExecutionMode.SERIAL, 1);
+        Heatmap heatmap = new Heatmap(SIZE, SIZE);
+        renderer.setHeatmap(heatmap);
+        renderer.renderImage(new Image(SIZE, SIZE));
+        Path file = directory.resolve("heatmap.pfm");
+        heatmap.write(file.toString(), Image.DEFAULT_COMPRESSION_LEVEL);
+        Assertions.assertEquals(ImageFormat.PFM.getHeader(SIZE, SIZE).length
+                + (long) SIZE * SIZE * ImageFormat.PFM.getBytesPerPixel(), Files.size(file));
+        Assertions.assertEquals(SIZE, heatmap.toImage().getWidth());
+    }
+
+    /**
+     * The testTileOrders method renders the scene with every tile order, in
+     * one go and progressively, twice in a row so the second cost ordered
+     * render uses the costs of the first one, and asserts that all the
+     * pixels are equal to the ones rendered serially row by row.
+     */
+    @Test
+    @DisplayName("Test that every tile order renders the same image")
+    void testTileOrders() {
+        Image expected = render(ExecutionMode.SERIAL);
+
+        for (TileOrder order : TileOrder.values()) {
+            for (boolean progressive : new boolean[] {false, true}) {
+                Options options = createOptions(ExecutionMode.FORK_JOIN, 1, 1, 1);
+                options.setTileOrder(order);
+                Renderer renderer = TestScenes.createRenderer(TestScenes.createScene(), options);
+                for (int render = 0; render < 2; render++) {
+                    Image actual = new Image(SIZE, SIZE);
+                    if (progressive) {
+                        renderer.renderProgressive(actual);
+                    } else {
+                        renderer.renderImage(actual);
+                    }
+                    for (int y = 0; y < SIZE; y++) {
+                        for (int x = 0; x < SIZE; x++) {
+                            Assertions.assertEquals(expected.getRGB(x, y), actual.getRGB(x, y),
+                                    order + " order differs at pixel " + x + ", " + y);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The testBudget method renders the scene with a budget that is plenty,
+     * which has to render the same image at full resolution, and with a
+     * budget that is far too small, which has to stop early and leave the
+     * Renderer rendering at full quality afterwards.
+     */
+    @Test
+    @DisplayName("Test that a render with a time budget stops at its deadline")
+    void testBudget() {
+        Image expected = render(ExecutionMode.SERIAL);
+
+        Renderer renderer = createRenderer(ExecutionMode.FORK_JOIN, 1);
+        Image actual = new Image(SIZE, SIZE);
+        BudgetReport report = renderer.renderImage(actual, 60_000);
+        Assertions.assertTrue(report.isWithinBudget());
+        Assertions.assertEquals(1, report.getBlockSize());
+        Assertions.assertEquals(1, report.getPlannedBlockSize());
+        Assertions.assertEquals(36, report.getTiles());
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                Assertions.assertEquals(expected.getRGB(x, y), actual.getRGB(x, y),
+                        "Budgeted render differs at pixel " + x + ", " + y);
+            }
+        }
+
+        report = renderer.renderImage(new Image(SIZE, SIZE), 1);
+        Assertions.assertTrue(report.getElapsedTime() < 5_000, report.toString());
+        Assertions.assertEquals(0, report.getSampledTiles());
+
+        actual = new Image(SIZE, SIZE);
+        renderer.renderImage(actual);
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                Assertions.assertEquals(expected.getRGB(x, y), actual.getRGB(x, y),
+                        "Render after a budget differs at pixel " + x + ", " + y);
+            }
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> renderer.renderImage(expected, 0));
+    }
+
+    private Image render(ExecutionMode mode) {
+        return render(mode, 1);
+    }
+
+    private Image render(ExecutionMode mode, int packetSize) {
+        Image image = new Image(SIZE, SIZE);
+        createRenderer(mode, packetSize).renderImage(image);
+        return image;
+    }
+
+    private Renderer createRenderer(ExecutionMode mode, int packetSize) {
+        return createRenderer(mode, packetSize, 1, 1);
+    }
+
+    private Renderer createRenderer(ExecutionMode mode, int packetSize, int minSamples, int maxSamples) {
+        return createRenderer(TestScenes.createScene(), mode, packetSize, minSamples, maxSamples);
+    }
+
+    private Renderer createRenderer(Scene scene, ExecutionMode mode, int packetSize, int minSamples,
+                                    int maxSamples) {
+        return TestScenes.createRenderer(scene, createOptions(mode, packetSize, minSamples, maxSamples));
+    }
+
+    private Options createOptions(ExecutionMode mode, int packetSize, int minSamples, int maxSamples) {
+        Options options = new Options(SIZE, SIZE);
+        options.setExecutionMode(mode);
+        options.setThreads(4);
+        options.setTileSize(16);
+        options.setPacketSize(packetSize);
+        options.setSamples(minSamples, maxSamples);
+        options.setPreviewInterval(0);
+        return options;
+    }
+}
@@ -0,0 +1,133 @@
+import geometries.Plane;
+import geometries.Shape;
+import geometries.SphereSet;
+import loaders.SceneLoader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import renderer.Scene;
+import utilities.Vector3D;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * The SceneLoaderTest is a test class which loads text scene files and their
+ * binary conversions, and checks that the numbers are parsed exactly like
+ * Double.parseDouble does, that spheres with the same look share a material
+ * and that invalid lines are reported with their line number.
+ * @see loaders.SceneLoader
+ *
+ * @author Timothy
+ */
+class SceneLoaderTest {
+    private static final int SPHERES = 2000;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * The testLoad method writes spheres with random coordinates in several
+     * notations, loads the text file and its binary conversion and compares
+     * every sphere with the numbers that were written.
+     */
+    @Test
+    @DisplayName("Test that text and binary scene files load the same spheres")
+    void testLoad() throws IOException {
+        Random random = new Random(19);
+        String[] numbers = new String[SPHERES * 4];
+        StringBuilder text = new StringBuilder("# A test scene\n\ncamera 0 1 30 0 0 0\n");
+        for (int i = 0; i < SPHERES; i++) {
+            for (int j = 0; j < 4; j++) {
+                numbers[i * 4 + j] = randomNumber(random, j == 3);
+            }
+            text.append("sphere ").append(String.join(" ", numbers[i * 4], numbers[i * 4 + 1],
+                    numbers[i * 4 + 2], numbers[i * 4 + 3]));
+            text.append(i % 2 == 0 ? " 1 0 0 0.5" : "\t0.0 1.0 0 .25  # green\r");
+            text.append('\n');
+        }
+        text.append("plane 0 -5 0 0 1 0 1 1 1 0.6\nlight 1 1 1 1 1 1 0.8");
+        Path textFile = directory.resolve("spheres.scene");
+        Files.writeString(textFile, text);
+        Path binaryFile = directory.resolve("spheres.bscene");
+        SceneLoader.convert(textFile.toString(), binaryFile.toString());
+
+        // The header, a camera, two materials, the spheres, a plane and a light
+        Assertions.assertEquals(8 + 49 + 2 * 17 + SPHERES * 37L + 65 + 41, Files.size(binaryFile));
+
+        for (Path file : new Path[] {textFile, binaryFile}) {
+            Scene scene = new Scene();
+            SceneLoader loader = new SceneLoader(scene);
+            loader.load(file.toString());
+            Assertions.assertEquals(SPHERES + 2, loader.getObjectCount());
+            Assertions.assertEquals(new Vector3D(0, 1, 30).z, loader.getCameraOrigin().z);
+            Assertions.assertEquals(1, scene.getLights().size());
+
+            SphereSet set = null;
+            int planes = 0;
+            for (Shape geometry : scene.getGeometries()) {
+                if (geometry instanceof SphereSet) {
+                    set = (SphereSet) geometry;
+                } else if (geometry instanceof Plane) {
+                    planes++;
+                }
+            }
+            Assertions.assertEquals(1, planes);
+            Assertions.assertNotNull(set);
+            Assertions.assertEquals(SPHERES, set.size());
+            for (int i = 0; i < SPHERES; i++) {
+                Vector3D center = set.getCenter(i);
+                Assertions.assertEquals(Double.parseDouble(numbers[i * 4]), center.x, numbers[i * 4]);
+                Assertions.assertEquals(Double.parseDouble(numbers[i * 4 + 1]), center.y, numbers[i * 4 + 1]);
+                Assertions.assertEquals(Double.parseDouble(numbers[i * 4 + 2]), center.z, numbers[i * 4 + 2]);
+                Assertions.assertEquals(Double.parseDouble(numbers[i * 4 + 3]), set.getRadius(i), numbers[i * 4 + 3]);
+                Assertions.assertEquals(i % 2 == 0 ? 0.5F : 0.25F, set.getReflection(i));
+            }
+        }
+    }
+
+    /**
+     * The testErrors method loads files with invalid lines and asserts that
+     * the line number is in the message of the exception.
+     */
+    @Test
+    @DisplayName("Test that invalid scene files report the line number")
+    void testErrors() throws IOException {
+        String[] files = {
+                "light 1 1 1 1 1 1 0.8\n\ncube 1 2 3\n",
+                "# Too few values\nlight 1 1 1 1 1 1\n",
+                "light 1 1 1 1 1 1 0.8\nlight 1 1 1 1 1 1 0.8 9\n",
+                "\n\nsphere 1 2 3 -1 1 1 1 0\n",
+                "\n\nsphere 1 2 3 one 1 1 1 0\n"
+        };
+        int[] lines = {3, 2, 2, 3, 3};
+        for (int i = 0; i < files.length; i++) {
+            Path file = directory.resolve("invalid" + i + ".scene");
+            Files.writeString(file, files[i]);
+            IOException exception = Assertions.assertThrows(IOException.class,
+                    () -> new SceneLoader(new Scene()).load(file.toString()));
+            Assertions.assertTrue(exception.getMessage().startsWith("Line " + lines[i] + ":"),
+                    exception.getMessage());
+        }
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new SceneLoader(new Scene()).load(directory.resolve("scene.txt").toString()));
+    }
+
+    private String randomNumber(Random random, boolean positive) {
+        double value = (random.nextDouble() - (positive ? -0.001 : 0.5)) * Math.pow(10, random.nextInt(9) - 4);
+        switch (positive ? 0 : random.nextInt(4)) {
+            case 0:
+                return Double.toString(value);
+            case 1:
+                return String.format(Locale.ROOT, "%.3f", value);
+            case 2:
+                return String.format(Locale.ROOT, "%.17e", value);
+            default:
+                return Long.toString(Math.round(value * 1000) / 1000 + 1);
+        }
+    }
+}
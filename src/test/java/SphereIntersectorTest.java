@@ -0,0 +1,69 @@
+import geometries.SphereIntersector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import utilities.Ray;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * The SphereIntersectorTest class checks that the Java Vector API kernel
+ * finds the same closest spheres as the scalar kernel, including for ranges
+ * that don't fill a whole vector and for rays that start inside spheres.
+ * @see geometries.SphereIntersector
+ *
+ * @author Timothy
+ */
+class SphereIntersectorTest {
+    private static final int SPHERES = 1000;
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    @DisplayName("Vector API kernel matches the scalar kernel")
+    void testVectorMatchesScalar() {
+        assumeTrue(SphereIntersector.isVectorApiAvailable(), "jdk.incubator.vector is not available");
+        SphereIntersector scalar = SphereIntersector.scalar();
+        SphereIntersector vector = SphereIntersector.fastest();
+        assertNotSame(scalar.getClass(), vector.getClass());
+
+        Random random = new Random(42);
+        double[] centerX = new double[SPHERES];
+        double[] centerY = new double[SPHERES];
+        double[] centerZ = new double[SPHERES];
+        double[] radii = new double[SPHERES];
+        for (int i = 0; i < SPHERES; i++) {
+            centerX[i] = random.nextDouble() * 20 - 10;
+            centerY[i] = random.nextDouble() * 20 - 10;
+            centerZ[i] = random.nextDouble() * 20 - 10;
+            radii[i] = 0.1 + random.nextDouble() * 2;
+        }
+
+        int hits = 0;
+        for (int i = 0; i < 2000; i++) {
+            double originX = random.nextDouble() * 20 - 10;
+            double originY = random.nextDouble() * 20 - 10;
+            double originZ = random.nextDouble() * 20 - 10;
+            double directionX = random.nextDouble() - 0.5;
+            double directionY = random.nextDouble() - 0.5;
+            double directionZ = random.nextDouble() - 0.5;
+            int first = random.nextInt(SPHERES);
+            int count = random.nextInt(SPHERES - first + 1);
+
+            Ray expected = new Ray().set(originX, originY, originZ, directionX, directionY, directionZ);
+            Ray actual = new Ray().set(originX, originY, originZ, directionX, directionY, directionZ);
+            int expectedHit = scalar.intersect(expected, centerX, centerY, centerZ, radii, first, count);
+            int actualHit = vector.intersect(actual, centerX, centerY, centerZ, radii, first, count);
+
+            if (expectedHit >= 0) {
+                hits++;
+                assertTrue(actualHit >= first && actualHit < first + count);
+            } else {
+                assertEquals(-1, actualHit);
+            }
+            assertEquals(expected.getT(), actual.getT(), EPSILON);
+        }
+        assertTrue(hits > 0);
+    }
+}
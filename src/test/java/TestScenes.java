@@ -0,0 +1,60 @@
+import geometries.Plane;
+import geometries.Sphere;
+import renderer.Camera;
+import renderer.Renderer;
+import renderer.Scene;
+import utilities.*;
+
+/**
+ * The TestScenes class is the fixture the renderer tests share. The scene has
+ * spheres in front of each other with reflections, a plane and two lights,
+ * and the color of the middle sphere is brighter than 1, so that an image
+ * with a float buffer differs from one without.
+ *
+ * @author Timothy
+ */
+final class TestScenes {
+    private TestScenes() {
+    }
+
+
+    /**
+     * The createScene method creates a new scene, so that a test can add
+     * the objects of the feature it tests to it.
+     * @return A new scene with the objects of the fixture.
+     */
+    static Scene createScene() {
+        Scene scene = new Scene();
+        scene.add(new Sphere(new Vector3D(12, 5, 0), 1, new Color(0F, 1F, 0F), 0.8F));
+        scene.add(new Sphere(new Vector3D(0, 0, 20), 2, new Color(0F, 0.5F, 0.5F), 0));
+        scene.add(new Sphere(new Vector3D(0, 0, 10), 3, new Color(1.5F, 0.4F, 0.2F), 0.5F));
+        scene.add(new Plane(new Vector3D(0, 0, 0), new Vector3D(0, 1, 0), new Color(1F, 0F, 0F), 0.6F));
+        scene.add(new Light(new Vector3D(1, 1, 1), new Color(1F, 1F, 1F), 0.8F));
+        scene.add(new Light(new Vector3D(0.5, 0.5, 0.5), new Color(1F, 1F, 1F), 1F));
+        return scene;
+    }
+
+
+    /**
+     * The createCamera method creates a camera which looks down the z axis
+     * at the scene, with the field of view and aspect ratio of the options.
+     * @param options The options of the render.
+     * @return The camera of the fixture.
+     */
+    static Camera createCamera(Options options) {
+        return new Camera(new Vector3D(0, 0, 30), new Vector3D(0, 0, -1),
+                new Vector3D(0, 1, 0), options.getFieldOfView(), options.getAspectRatio());
+    }
+
+
+    /**
+     * The createRenderer method creates a renderer for the scene with the
+     * camera of the fixture.
+     * @param scene The scene to render.
+     * @param options The options of the render.
+     * @return A new renderer.
+     */
+    static Renderer createRenderer(Scene scene, Options options) {
+        return new Renderer(createCamera(options), scene, options);
+    }
+}
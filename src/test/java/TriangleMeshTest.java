@@ -0,0 +1,159 @@
+import geometries.Shape;
+import geometries.TriangleMesh;
+import loaders.ObjLoader;
+import loaders.SceneLoader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import renderer.Scene;
+import utilities.Color;
+import utilities.Ray;
+import utilities.RayHit;
+import utilities.Vector3D;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * The TriangleMeshTest is a test class which checks that the hierarchy of a
+ * TriangleMesh finds the same hits as testing every triangle on its own,
+ * and that OBJ files and scene files with meshes are loaded correctly.
+ * @see geometries.TriangleMesh
+ * @see loaders.ObjLoader
+ *
+ * @author Timothy
+ */
+class TriangleMeshTest {
+    private static final int TRIANGLES = 3000;
+    private static final int RAYS = 2000;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * The testIntersect method builds a mesh of random triangles and a single
+     * triangle mesh per triangle, and asserts that random rays hit the mesh
+     * at the same distance as the closest of the single triangles.
+     */
+    @Test
+    @DisplayName("Test that a mesh finds the same hits as its triangles")
+    void testIntersect() {
+        Random random = new Random(20);
+        TriangleMesh mesh = new TriangleMesh(new Color(1, 0, 0), 0);
+        TriangleMesh[] singles = new TriangleMesh[TRIANGLES];
+        for (int i = 0; i < TRIANGLES; i++) {
+            singles[i] = new TriangleMesh(new Color(1, 0, 0), 0);
+            double x = (random.nextDouble() - 0.5) * 40;
+            double y = (random.nextDouble() - 0.5) * 40;
+            double z = (random.nextDouble() - 0.5) * 40;
+            for (int j = 0; j < 3; j++) {
+                double vx = x + random.nextDouble() * 2;
+                double vy = y + random.nextDouble() * 2;
+                double vz = z + random.nextDouble() * 2;
+                mesh.addVertex(vx, vy, vz);
+                singles[i].addVertex(vx, vy, vz);
+            }
+            mesh.addTriangle(i * 3, i * 3 + 1, i * 3 + 2);
+            singles[i].addTriangle(0, 1, 2);
+        }
+
+        int hits = 0;
+        for (int i = 0; i < RAYS; i++) {
+            Vector3D origin = new Vector3D(0, 0, 50);
+            Vector3D target = new Vector3D((random.nextDouble() - 0.5) * 40,
+                    (random.nextDouble() - 0.5) * 40, (random.nextDouble() - 0.5) * 40);
+            Vector3D direction = target.subtract(origin).normalize();
+
+            double closest = Double.POSITIVE_INFINITY;
+            for (TriangleMesh single : singles) {
+                RayHit hit = single.intersects(new Ray(origin, direction));
+                if (hit != null) {
+                    closest = Math.min(closest, hit.getT());
+                }
+            }
+            RayHit hit = mesh.intersects(new Ray(origin, direction));
+            if (closest == Double.POSITIVE_INFINITY) {
+                Assertions.assertNull(hit);
+                Assertions.assertFalse(mesh.occludes(new Ray(origin, direction), 1000));
+            } else {
+                hits++;
+                Assertions.assertNotNull(hit);
+                Assertions.assertEquals(closest, hit.getT(), 1e-9);
+                Assertions.assertTrue(mesh.occludes(new Ray(origin, direction), closest + 1e-6));
+                Assertions.assertFalse(mesh.occludes(new Ray(origin, direction), closest - 1e-6));
+            }
+        }
+        Assertions.assertTrue(hits > RAYS / 10, "Only " + hits + " rays hit a triangle");
+
+        // Moving the mesh refits the hierarchy
+        mesh.setPosition(new Vector3D(100, 0, 0));
+        Assertions.assertNull(mesh.intersects(new Ray(new Vector3D(0, 0, 50), new Vector3D(0, 0, -1))));
+        Assertions.assertTrue(mesh.getBoundingBox().getMin().x > 70);
+    }
+
+    /**
+     * The testObj method reads an OBJ file with polygons, negative indices
+     * and texture coordinates and normals, and a scene file that refers to
+     * it, and asserts that invalid faces are reported with their line
+     * number.
+     */
+    @Test
+    @DisplayName("Test that OBJ files and scene files with meshes are loaded")
+    void testObj() throws IOException {
+        String obj = "# A unit square and a triangle\no square\n"
+                + "v 0 0 0\nv 1 0 0\nv 1 1 0 1.0\nv 0 1 0\n"
+                + "vt 0 0\nvn 0 0 1\nusemtl red\ns off\n"
+                + "f 1/1/1 2/1/1 3/1/1 4/1/1\n"
+                + "v 5 5 5\nv 6 5 5\nv 5 6 5\n"
+                + "f -3//1 -2//1 -1//1  # the triangle\n";
+        TriangleMesh mesh = ObjLoader.read(new ByteArrayInputStream(obj.getBytes(StandardCharsets.UTF_8)),
+                new Color(0, 1, 0), 0.5F);
+        Assertions.assertEquals(7, mesh.getVertexCount());
+        Assertions.assertEquals(3, mesh.getTriangleCount());
+        Assertions.assertEquals(0.5F, mesh.getReflection());
+        RayHit hit = mesh.intersects(new Ray(new Vector3D(0.9, 0.2, 3), new Vector3D(0, 0, -1)));
+        Assertions.assertNotNull(hit);
+        Assertions.assertEquals(3, hit.getT(), 1e-12);
+        hit = mesh.intersects(new Ray(new Vector3D(5.2, 5.2, 0), new Vector3D(0, 0, 1)));
+        Assertions.assertNotNull(hit);
+        Assertions.assertEquals(5, hit.getT(), 1e-12);
+
+        String[] invalid = {"v 0 0 0\nv 1 0 0\nf 1 2\n", "v 0 0 0\n\nf 1 2 4\n", "v 0 0 0\nf 1 a 1\n",
+                "v 0 0\n"};
+        int[] lines = {3, 3, 2, 1};
+        for (int i = 0; i < invalid.length; i++) {
+            byte[] bytes = invalid[i].getBytes(StandardCharsets.UTF_8);
+            IOException exception = Assertions.assertThrows(IOException.class,
+                    () -> ObjLoader.read(new ByteArrayInputStream(bytes), new Color(), 0));
+            Assertions.assertTrue(exception.getMessage().startsWith("Line " + lines[i] + ":"),
+                    exception.getMessage());
+        }
+
+        Files.createDirectory(directory.resolve("models"));
+        Files.writeString(directory.resolve("models").resolve("square.obj"), obj);
+        Path textFile = directory.resolve("mesh.scene");
+        Files.writeString(textFile, "light 1 1 1 1 1 1 0.8\nmesh models/square.obj 0 1 0 0.5\n");
+        Path binaryFile = directory.resolve("mesh.bscene");
+        SceneLoader.convert(textFile.toString(), binaryFile.toString());
+        for (Path file : new Path[] {textFile, binaryFile}) {
+            Scene scene = new Scene();
+            SceneLoader loader = new SceneLoader(scene);
+            loader.load(file.toString());
+            Assertions.assertEquals(4, loader.getObjectCount());
+            int meshes = 0;
+            for (Shape geometry : scene.getGeometries()) {
+                if (geometry instanceof TriangleMesh) {
+                    meshes++;
+                    Assertions.assertEquals(3, ((TriangleMesh) geometry).getTriangleCount());
+                    Assertions.assertEquals(0.5F, geometry.getReflection());
+                }
+            }
+            Assertions.assertEquals(1, meshes);
+        }
+    }
+}